@@ -52,7 +52,7 @@ public class InputTypeLoader implements ITypeLoader {
     }
 
     @Override
-    public boolean tryLoadType(final String typeNameOrPath, final Buffer buffer) {
+    public synchronized boolean tryLoadType(final String typeNameOrPath, final Buffer buffer) {
         VerifyArgument.notNull(typeNameOrPath, "typeNameOrPath");
         VerifyArgument.notNull(buffer, "buffer");
 
@@ -21,15 +21,20 @@ import com.strobel.core.BooleanBox;
 import com.strobel.core.ExceptionUtilities;
 import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.PlainTextOutput;
-import com.strobel.functions.Consumer;
-import com.strobel.functions.Function;
 
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.regex.Pattern;
@@ -72,65 +77,83 @@ public final class ControlFlowGraph {
         computeDominance(new BooleanBox());
     }
 
+    //
+    // Dominators are computed with the iterative algorithm of Cooper, Harvey, and Kennedy ("A Simple,
+    // Fast Dominance Algorithm") over reverse postorder numbers, so finding a common dominator is a
+    // walk up two int arrays rather than a set of a node's whole dominator chain.  This is not linear:
+    // each pass is, but a pathological graph can need O(n) passes.  The reducible graphs compilers
+    // emit settle after two or three.
+    //
     public final void computeDominance(final BooleanBox cancelled) {
         final ControlFlowNode entryPoint = getEntryPoint();
+        final Map<ControlFlowNode, Integer> indices = new IdentityHashMap<>();
+        final List<ControlFlowNode> order = computeReversePostOrder(entryPoint, indices);
+        final int nodeCount = order.size();
+        final int[][] predecessors = new int[nodeCount][];
+        final int[] dominators = new int[nodeCount];
+
+        for (int i = 0; i < nodeCount; i++) {
+            final List<ControlFlowEdge> incoming = order.get(i).getIncoming();
+            final int[] p = new int[incoming.size()];
+
+            int count = 0;
+
+            for (final ControlFlowEdge edge : incoming) {
+                final Integer predecessor = indices.get(edge.getSource());
+
+                //
+                // Unreachable predecessors have no dominators, and a node never dominates itself
+                // by way of a self loop.
+                //
+                if (predecessor != null && predecessor != i) {
+                    p[count++] = predecessor;
+                }
+            }
+
+            predecessors[i] = count == p.length ? p : Arrays.copyOf(p, count);
+            dominators[i] = -1;
+        }
 
-        entryPoint.setImmediateDominator(entryPoint);
+        dominators[0] = 0;
 
-        final BooleanBox changed = new BooleanBox(true);
+        boolean changed = true;
 
-        while (changed.get()) {
-            changed.set(false);
-            resetVisited();
+        while (changed) {
+            changed = false;
 
             if (cancelled.get()) {
                 throw new CancellationException();
             }
 
-            entryPoint.traversePreOrder(
-                new Function<ControlFlowNode, Iterable<ControlFlowNode>>() {
-                    @Override
-                    public final Iterable<ControlFlowNode> apply(final ControlFlowNode input) {
-                        return input.getSuccessors();
-                    }
-                },
-                new Consumer<ControlFlowNode>() {
-                    @Override
-                    public final void accept(final ControlFlowNode b) {
-                        if (b == entryPoint) {
-                            return;
-                        }
-
-                        ControlFlowNode newImmediateDominator = null;
-
-                        for (final ControlFlowNode p : b.getPredecessors()) {
-                            if (p.isVisited() && p != b) {
-                                newImmediateDominator = p;
-                                break;
-                            }
-                        }
-
-                        if (newImmediateDominator == null) {
-                            throw new IllegalStateException("Could not compute new immediate dominator!");
-                        }
-
-                        for (final ControlFlowNode p : b.getPredecessors()) {
-                            if (p != b && p.getImmediateDominator() != null) {
-                                newImmediateDominator = findCommonDominator(p, newImmediateDominator);
-                            }
-                        }
-
-                        if (b.getImmediateDominator() != newImmediateDominator) {
-                            b.setImmediateDominator(newImmediateDominator);
-                            changed.set(true);
-                        }
+            for (int i = 1; i < nodeCount; i++) {
+                int newImmediateDominator = -1;
+
+                for (final int p : predecessors[i]) {
+                    if (dominators[p] < 0) {
+                        continue;
                     }
+
+                    newImmediateDominator = newImmediateDominator < 0 ? p
+                                                                      : findCommonDominator(dominators, p, newImmediateDominator);
                 }
-            );
+
+                if (newImmediateDominator < 0) {
+                    throw new IllegalStateException("Could not compute new immediate dominator!");
+                }
+
+                if (dominators[i] != newImmediateDominator) {
+                    dominators[i] = newImmediateDominator;
+                    changed = true;
+                }
+            }
         }
 
         entryPoint.setImmediateDominator(null);
 
+        for (int i = 1; i < nodeCount; i++) {
+            order.get(i).setImmediateDominator(order.get(dominators[i]));
+        }
+
         for (final ControlFlowNode node : _nodes) {
             final ControlFlowNode immediateDominator = node.getImmediateDominator();
 
@@ -140,39 +163,131 @@ public final class ControlFlowGraph {
         }
     }
 
+    //
+    // Rather than merging the frontiers of each node's children, walk up the dominator tree from the
+    // source of each edge until we reach the immediate dominator of its target (Cooper, Harvey, and
+    // Kennedy again), marking the target in a bitset for every node along the way.  Frontiers are
+    // computed for the nodes of the dominator tree rooted at the entry point.
+    //
     public final void computeDominanceFrontier() {
-        resetVisited();
+        final Map<ControlFlowNode, Integer> indices = new IdentityHashMap<>();
+        final List<ControlFlowNode> nodes = new ArrayList<>();
+        final ControlFlowNode entryPoint = getEntryPoint();
+
+        indices.put(entryPoint, 0);
+        nodes.add(entryPoint);
 
-        getEntryPoint().traversePostOrder(
-            new Function<ControlFlowNode, Iterable<ControlFlowNode>>() {
-                @Override
-                public final Iterable<ControlFlowNode> apply(final ControlFlowNode input) {
-                    return input.getDominatorTreeChildren();
+        for (int i = 0; i < nodes.size(); i++) {
+            for (final ControlFlowNode child : nodes.get(i).getDominatorTreeChildren()) {
+                if (!indices.containsKey(child)) {
+                    indices.put(child, nodes.size());
+                    nodes.add(child);
                 }
-            },
-            new Consumer<ControlFlowNode>() {
-                @Override
-                public void accept(final ControlFlowNode n) {
-                    final Set<ControlFlowNode> dominanceFrontier = n.getDominanceFrontier();
-
-                    dominanceFrontier.clear();
-
-                    for (final ControlFlowNode s : n.getSuccessors()) {
-                        if (s.getImmediateDominator() != n) {
-                            dominanceFrontier.add(s);
-                        }
-                    }
+            }
+        }
+
+        final int treeSize = nodes.size();
+        final BitSet[] frontiers = new BitSet[treeSize];
+
+        for (int i = 0; i < treeSize; i++) {
+            frontiers[i] = new BitSet();
+        }
 
-                    for (final ControlFlowNode child : n.getDominatorTreeChildren()) {
-                        for (final ControlFlowNode p : child.getDominanceFrontier()) {
-                            if (p.getImmediateDominator() != n) {
-                                dominanceFrontier.add(p);
-                            }
-                        }
+        for (int i = 0; i < treeSize; i++) {
+            for (final ControlFlowEdge edge : nodes.get(i).getOutgoing()) {
+                final ControlFlowNode target = edge.getTarget();
+                final ControlFlowNode targetDominator = target.getImmediateDominator();
+
+                Integer targetIndex = indices.get(target);
+
+                if (targetIndex == null) {
+                    indices.put(target, targetIndex = nodes.size());
+                    nodes.add(target);
+                }
+
+                for (ControlFlowNode runner = nodes.get(i);
+                     runner != null && runner != targetDominator;
+                     runner = runner.getImmediateDominator()) {
+
+                    final Integer runnerIndex = indices.get(runner);
+
+                    if (runnerIndex == null || runnerIndex >= treeSize) {
+                        break;
                     }
+
+                    frontiers[runnerIndex].set(targetIndex);
                 }
             }
-        );
+        }
+
+        for (int i = 0; i < treeSize; i++) {
+            final Set<ControlFlowNode> dominanceFrontier = nodes.get(i).getDominanceFrontier();
+
+            dominanceFrontier.clear();
+
+            for (int j = frontiers[i].nextSetBit(0); j >= 0; j = frontiers[i].nextSetBit(j + 1)) {
+                dominanceFrontier.add(nodes.get(j));
+            }
+        }
+    }
+
+    private static List<ControlFlowNode> computeReversePostOrder(
+        final ControlFlowNode entryPoint,
+        final Map<ControlFlowNode, Integer> indices) {
+
+        final List<ControlFlowNode> postOrder = new ArrayList<>();
+        final Set<ControlFlowNode> visited = Collections.newSetFromMap(new IdentityHashMap<ControlFlowNode, Boolean>());
+        final ArrayDeque<ControlFlowNode> nodeStack = new ArrayDeque<>();
+        final ArrayDeque<Integer> edgeStack = new ArrayDeque<>();
+
+        visited.add(entryPoint);
+        nodeStack.push(entryPoint);
+        edgeStack.push(0);
+
+        while (!nodeStack.isEmpty()) {
+            final ControlFlowNode node = nodeStack.peek();
+            final List<ControlFlowEdge> outgoing = node.getOutgoing();
+            final int edgeIndex = edgeStack.pop();
+
+            if (edgeIndex < outgoing.size()) {
+                final ControlFlowNode successor = outgoing.get(edgeIndex).getTarget();
+
+                edgeStack.push(edgeIndex + 1);
+
+                if (visited.add(successor)) {
+                    nodeStack.push(successor);
+                    edgeStack.push(0);
+                }
+            }
+            else {
+                nodeStack.pop();
+                postOrder.add(node);
+            }
+        }
+
+        Collections.reverse(postOrder);
+
+        for (int i = 0; i < postOrder.size(); i++) {
+            indices.put(postOrder.get(i), i);
+        }
+
+        return postOrder;
+    }
+
+    private static int findCommonDominator(final int[] dominators, final int a, final int b) {
+        int finger1 = a;
+        int finger2 = b;
+
+        while (finger1 != finger2) {
+            while (finger1 > finger2) {
+                finger1 = dominators[finger1];
+            }
+            while (finger2 > finger1) {
+                finger2 = dominators[finger2];
+            }
+        }
+
+        return finger1;
     }
 
     public static ControlFlowNode findCommonDominator(final ControlFlowNode a, final ControlFlowNode b) {
@@ -18,6 +18,7 @@ package com.strobel.assembler.flowanalysis;
 
 import com.strobel.assembler.Collection;
 import com.strobel.assembler.ir.ExceptionHandler;
+import com.strobel.assembler.ir.ExceptionHandlerIndex;
 import com.strobel.assembler.ir.ExceptionHandlerType;
 import com.strobel.assembler.ir.Instruction;
 import com.strobel.assembler.ir.InstructionBlock;
@@ -25,16 +26,17 @@ import com.strobel.assembler.ir.OpCode;
 import com.strobel.assembler.ir.OperandType;
 import com.strobel.assembler.metadata.MethodBody;
 import com.strobel.assembler.metadata.SwitchInfo;
-import com.strobel.core.Comparer;
-import com.strobel.core.Predicate;
 import com.strobel.core.VerifyArgument;
 import com.strobel.util.ContractUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.strobel.core.CollectionUtilities.*;
 
@@ -62,9 +64,14 @@ public final class ControlFlowGraphBuilder {
 
     private final List<Instruction> _instructions;
     private final List<ExceptionHandler> _exceptionHandlers;
+    private final ExceptionHandlerIndex _handlerIndex;
+    private final ExceptionHandlerIndex _finallyHandlerIndex;
     private final List<ControlFlowNode> _nodes = new Collection<>();
     private final int[] _offsets;
     private final boolean[] _hasIncomingJumps;
+    private final Set<Instruction> _handlerStarts = Collections.newSetFromMap(new IdentityHashMap<Instruction, Boolean>());
+    private final Map<ExceptionHandler, ControlFlowNode> _handlerNodes = new IdentityHashMap<>();
+    private final Map<InstructionBlock, List<ControlFlowNode>> _handlerNodesByTryBlock = new HashMap<>();
     private final ControlFlowNode _entryPoint;
     private final ControlFlowNode _regularExit;
     private final ControlFlowNode _exceptionalExit;
@@ -75,6 +82,8 @@ public final class ControlFlowGraphBuilder {
     private ControlFlowGraphBuilder(final List<Instruction> instructions, final List<ExceptionHandler> exceptionHandlers) {
         _instructions = VerifyArgument.notNull(instructions, "instructions");
         _exceptionHandlers = coalesceExceptionHandlers(VerifyArgument.notNull(exceptionHandlers, "exceptionHandlers"));
+        _handlerIndex = ExceptionHandlerIndex.create(_exceptionHandlers);
+        _finallyHandlerIndex = ExceptionHandlerIndex.createForFinallyHandlers(_exceptionHandlers);
 
         _offsets = new int[instructions.size()];
         _hasIncomingJumps = new boolean[_offsets.length];
@@ -134,6 +143,7 @@ public final class ControlFlowGraphBuilder {
 
         for (final ExceptionHandler handler : _exceptionHandlers) {
             _hasIncomingJumps[getInstructionIndex(handler.getHandlerBlock().getFirstInstruction())] = true;
+            _handlerStarts.add(handler.getHandlerBlock().getFirstInstruction());
         }
     }
 
@@ -195,7 +205,18 @@ public final class ControlFlowGraphBuilder {
                 endFinallyNode = null;
             }
 
-            _nodes.add(new ControlFlowNode(index, handler, endFinallyNode));
+            final ControlFlowNode node = new ControlFlowNode(index, handler, endFinallyNode);
+
+            _nodes.add(node);
+            _handlerNodes.put(handler, node);
+
+            List<ControlFlowNode> siblings = _handlerNodesByTryBlock.get(handler.getTryBlock());
+
+            if (siblings == null) {
+                _handlerNodesByTryBlock.put(handler.getTryBlock(), siblings = new ArrayList<>());
+            }
+
+            siblings.add(node);
         }
     }
 
@@ -223,20 +244,8 @@ public final class ControlFlowGraphBuilder {
             if (!endOpCode.isUnconditionalBranch() || endOpCode.isJumpToSubroutine()) {
                 final Instruction next = end.getNext();
 
-                if (next != null) {
-                    final boolean isHandlerStart = any(
-                        _exceptionHandlers,
-                        new Predicate<ExceptionHandler>() {
-                            @Override
-                            public boolean test(final ExceptionHandler handler) {
-                                return handler.getHandlerBlock().getFirstInstruction() == next;
-                            }
-                        }
-                    );
-
-                    if (!isHandlerStart) {
-                        createEdge(node, next, JumpType.Normal);
-                    }
+                if (next != null && !isHandlerStart(next)) {
+                    createEdge(node, next, JumpType.Normal);
                 }
             }
 
@@ -332,20 +341,8 @@ public final class ControlFlowGraphBuilder {
                     createEdge(node, finallyBlock, JumpType.JumpToExceptionHandler);
                 }
                 else {
-                    for (final ExceptionHandler handler : _exceptionHandlers) {
-                        if (Comparer.equals(handler.getTryBlock(), innermostHandler.getExceptionHandler().getTryBlock())) {
-                            final ControlFlowNode handlerNode = firstOrDefault(
-                                _nodes,
-                                new Predicate<ControlFlowNode>() {
-                                    @Override
-                                    public boolean test(final ControlFlowNode node) {
-                                        return node.getExceptionHandler() == handler;
-                                    }
-                                }
-                            );
-
-                            createEdge(node, handlerNode, JumpType.JumpToExceptionHandler);
-                        }
+                    for (final ControlFlowNode handlerNode : _handlerNodesByTryBlock.get(innermostHandler.getExceptionHandler().getTryBlock())) {
+                        createEdge(node, handlerNode, JumpType.JumpToExceptionHandler);
                     }
 
                     //
@@ -657,25 +654,6 @@ public final class ControlFlowGraphBuilder {
         return new CopyFinallySubGraphLogic(start, end, newEnd).copyFinallySubGraph();
     }
 
-    private static boolean isNarrower(final ExceptionHandler handler, final ExceptionHandler anchor) {
-        if (handler == null || anchor == null) {
-            return false;
-        }
-
-        final Instruction tryStart = handler.getTryBlock().getFirstInstruction();
-        final Instruction anchorTryStart = anchor.getTryBlock().getFirstInstruction();
-
-        if (tryStart.getOffset() > anchorTryStart.getOffset()) {
-            return true;
-        }
-
-        final Instruction tryEnd = handler.getTryBlock().getLastInstruction();
-        final Instruction anchorTryEnd = anchor.getTryBlock().getLastInstruction();
-
-        return tryStart.getOffset() == anchorTryStart.getOffset() &&
-               tryEnd.getOffset() < anchorTryEnd.getOffset();
-    }
-
     private static boolean isNarrower(final InstructionBlock block, final InstructionBlock anchor) {
         if (block == null || anchor == null) {
             return false;
@@ -698,58 +676,38 @@ public final class ControlFlowGraphBuilder {
         assert node.getNodeType() == ControlFlowNodeType.CatchHandler ||
                node.getNodeType() == ControlFlowNodeType.FinallyHandler;
 
-        ControlFlowNode result = null;
-        ExceptionHandler resultHandler = null;
-
         final int offset = node.getExceptionHandler().getHandlerBlock().getFirstInstruction().getOffset();
 
-        for (int i = 0, n = _nodes.size(); i < n; i++) {
-            final ControlFlowNode currentNode = _nodes.get(i);
-            final ExceptionHandler handler = currentNode.getExceptionHandler();
-
-            if (handler != null &&
-                handler.getTryBlock().getFirstInstruction().getOffset() <= offset &&
-                offset < handler.getTryBlock().getLastInstruction().getEndOffset() &&
-                (resultHandler == null || isNarrower(handler, resultHandler))) {
-
-                result = currentNode;
-                resultHandler = handler;
-            }
-        }
-
-        return result != null ? result : _exceptionalExit;
+        return findInnermostExceptionHandlerNode(offset);
     }
 
     private ControlFlowNode findInnermostExceptionHandlerNode(final int offset) {
-        final ExceptionHandler handler = findInnermostExceptionHandler(offset);
-
-        if (handler == null) {
-            return _exceptionalExit;
-        }
-
-        for (final ControlFlowNode node : _nodes) {
-            if (node.getExceptionHandler() == handler && node.getCopyFrom() == null) {
-                return node;
-            }
-        }
-
-        throw new IllegalStateException("Could not find node for exception handler!");
+        return findHandlerNode(findInnermostExceptionHandler(offset));
     }
 
     private ControlFlowNode findInnermostFinallyHandlerNode(final int offset) {
-        final ExceptionHandler handler = findInnermostFinallyHandler(offset);
+        return findHandlerNode(findInnermostFinallyHandler(offset));
+    }
 
+    private ControlFlowNode findHandlerNode(final ExceptionHandler handler) {
         if (handler == null) {
             return _exceptionalExit;
         }
 
-        for (final ControlFlowNode node : _nodes) {
-            if (node.getExceptionHandler() == handler && node.getCopyFrom() == null) {
-                return node;
-            }
+        //
+        // Only the original handler nodes are indexed, never the copies of finally blocks.
+        //
+        final ControlFlowNode node = _handlerNodes.get(handler);
+
+        if (node == null) {
+            throw new IllegalStateException("Could not find node for exception handler!");
         }
 
-        throw new IllegalStateException("Could not find node for exception handler!");
+        return node;
+    }
+
+    private boolean isHandlerStart(final Instruction instruction) {
+        return _handlerStarts.contains(instruction);
     }
 
     private int getInstructionIndex(final Instruction instruction) {
@@ -777,41 +735,11 @@ public final class ControlFlowGraphBuilder {
     }
 
     private ExceptionHandler findInnermostExceptionHandler(final int offsetInTryBlock) {
-        ExceptionHandler result = null;
-
-        for (final ExceptionHandler handler : _exceptionHandlers) {
-            final InstructionBlock tryBlock = handler.getTryBlock();
-
-            if (tryBlock.getFirstInstruction().getOffset() <= offsetInTryBlock &&
-                offsetInTryBlock < tryBlock.getLastInstruction().getEndOffset() &&
-                (result == null || isNarrower(handler, result))) {
-
-                result = handler;
-            }
-        }
-
-        return result;
+        return _handlerIndex.findInnermostHandler(offsetInTryBlock);
     }
 
     private ExceptionHandler findInnermostFinallyHandler(final int offsetInTryBlock) {
-        ExceptionHandler result = null;
-
-        for (final ExceptionHandler handler : _exceptionHandlers) {
-            if (!handler.isFinally()) {
-                continue;
-            }
-
-            final InstructionBlock tryBlock = handler.getTryBlock();
-
-            if (tryBlock.getFirstInstruction().getOffset() <= offsetInTryBlock &&
-                offsetInTryBlock < tryBlock.getLastInstruction().getEndOffset() &&
-                (result == null || isNarrower(handler, result))) {
-
-                result = handler;
-            }
-        }
-
-        return result;
+        return _finallyHandlerIndex.findInnermostHandler(offsetInTryBlock);
     }
 
     private ControlFlowNode findInnermostHandlerBlock(final int instructionOffset) {
@@ -0,0 +1,167 @@
+/*
+ * ExceptionHandlerIndex.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.ir;
+
+import com.strobel.annotations.NotNull;
+import com.strobel.core.VerifyArgument;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Answers "which is the innermost exception handler whose try block covers offset X" for a fixed list
+ * of exception handlers in {@code O(log n)} time.  The try block boundaries split the code into segments
+ * covered by the same set of handlers; the innermost handler of each segment is found with a single
+ * sweep when the index is built, so building it takes {@code O(n log n)} time.
+ * <p>
+ * A handler is narrower than another if its try block starts later, or if it starts at the same offset
+ * and ends earlier.  If several handlers are equally narrow, the first one in the list wins.
+ */
+public final class ExceptionHandlerIndex {
+    private final static ExceptionHandler[] EMPTY_HANDLERS = new ExceptionHandler[0];
+
+    private final int[] _boundaries;
+    private final ExceptionHandler[] _innermostHandlers;
+
+    private ExceptionHandlerIndex(final List<ExceptionHandler> handlers, final boolean finallyOnly) {
+        final int handlerCount = handlers.size();
+        final int[] starts = new int[handlerCount];
+        final int[] ends = new int[handlerCount];
+        final int[] lastOffsets = new int[handlerCount];
+        final Integer[] order = new Integer[handlerCount];
+        final int[] boundaries = new int[handlerCount * 2];
+
+        int count = 0;
+
+        for (int i = 0; i < handlerCount; i++) {
+            final ExceptionHandler handler = handlers.get(i);
+
+            if (finallyOnly && !handler.isFinally()) {
+                continue;
+            }
+
+            final InstructionBlock tryBlock = handler.getTryBlock();
+
+            starts[i] = tryBlock.getFirstInstruction().getOffset();
+            ends[i] = tryBlock.getLastInstruction().getEndOffset();
+            lastOffsets[i] = tryBlock.getLastInstruction().getOffset();
+            boundaries[count * 2] = starts[i];
+            boundaries[count * 2 + 1] = ends[i];
+            order[count++] = i;
+        }
+
+        if (count == 0) {
+            _boundaries = new int[0];
+            _innermostHandlers = EMPTY_HANDLERS;
+            return;
+        }
+
+        _boundaries = distinct(boundaries, count * 2);
+        _innermostHandlers = new ExceptionHandler[_boundaries.length - 1];
+
+        Arrays.sort(
+            order,
+            0,
+            count,
+            new Comparator<Integer>() {
+                @Override
+                public int compare(@NotNull final Integer i1, @NotNull final Integer i2) {
+                    return Integer.compare(starts[i1], starts[i2]);
+                }
+            }
+        );
+
+        //
+        // Order the open try blocks so the narrowest one comes first, with ties going to the handler
+        // which comes first in the list.
+        //
+        final PriorityQueue<Integer> open = new PriorityQueue<>(
+            count,
+            new Comparator<Integer>() {
+                @Override
+                public int compare(@NotNull final Integer i1, @NotNull final Integer i2) {
+                    if (starts[i1] != starts[i2]) {
+                        return Integer.compare(starts[i2], starts[i1]);
+                    }
+
+                    if (lastOffsets[i1] != lastOffsets[i2]) {
+                        return Integer.compare(lastOffsets[i1], lastOffsets[i2]);
+                    }
+
+                    return Integer.compare(i1, i2);
+                }
+            }
+        );
+
+        for (int segment = 0, next = 0; segment < _innermostHandlers.length; segment++) {
+            final int segmentStart = _boundaries[segment];
+
+            while (next < count && starts[order[next]] <= segmentStart) {
+                open.add(order[next++]);
+            }
+
+            //
+            // Try blocks which ended before this segment are only removed once they reach the head
+            // of the queue; until then, a narrower open block hides them.
+            //
+            while (!open.isEmpty() && ends[open.peek()] <= segmentStart) {
+                open.poll();
+            }
+
+            _innermostHandlers[segment] = open.isEmpty() ? null : handlers.get(open.peek());
+        }
+    }
+
+    public static ExceptionHandlerIndex create(final List<ExceptionHandler> handlers) {
+        return new ExceptionHandlerIndex(VerifyArgument.notNull(handlers, "handlers"), false);
+    }
+
+    public static ExceptionHandlerIndex createForFinallyHandlers(final List<ExceptionHandler> handlers) {
+        return new ExceptionHandlerIndex(VerifyArgument.notNull(handlers, "handlers"), true);
+    }
+
+    /**
+     * Returns the innermost handler whose try block covers {@code offset}, or {@code null} if no try
+     * block covers it.
+     */
+    public final ExceptionHandler findInnermostHandler(final int offset) {
+        int segment = Arrays.binarySearch(_boundaries, offset);
+
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+
+        if (segment < 0 || segment >= _innermostHandlers.length) {
+            return null;
+        }
+
+        return _innermostHandlers[segment];
+    }
+
+    private static int[] distinct(final int[] values, final int length) {
+        Arrays.sort(values, 0, length);
+
+        int count = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (count == 0 || values[i] != values[count - 1]) {
+                values[count++] = values[i];
+            }
+        }
+
+        return Arrays.copyOf(values, count);
+    }
+}
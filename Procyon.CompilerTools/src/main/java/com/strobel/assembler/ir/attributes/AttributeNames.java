@@ -47,6 +47,7 @@ public final class AttributeNames {
     public static final String ModuleMainClass = "ModuleMainClass";
     public static final String ModuleTarget = "ModuleTarget";
     public static final String PermittedSubclasses = "PermittedSubclasses";
+    public static final String StackMapTable = "StackMapTable";
 
     private AttributeNames() {
         throw ContractUtils.unreachable();
@@ -43,6 +43,12 @@ public final class ClassFileReader extends MetadataReader {
     public final static int OPTION_PROCESS_ANNOTATIONS = 1 << 0;
     public final static int OPTION_PROCESS_CODE = 1 << 1;
 
+    /**
+     * Read only the header, supertypes, and declaring type up front, and populate fields, methods,
+     * nested types, annotations, and attributes when any of them are first requested.
+     */
+    public final static int OPTION_DEFER_MEMBERS = 1 << 2;
+
     public final static int OPTIONS_DEFAULT = OPTION_PROCESS_ANNOTATIONS;
 
     final static long MAGIC = 0xCAFEBABEL;
@@ -132,6 +138,10 @@ public final class ClassFileReader extends MetadataReader {
         return (_options & OPTION_PROCESS_CODE) == OPTION_PROCESS_CODE;
     }
 
+    protected boolean shouldDeferMembers() {
+        return (_options & OPTION_DEFER_MEMBERS) == OPTION_DEFER_MEMBERS;
+    }
+
     @Override
     protected IMetadataScope getScope() {
         return _scope;
@@ -560,6 +570,29 @@ public final class ClassFileReader extends MetadataReader {
     }
 
     public static TypeDefinition readClass(final int options, final IMetadataResolver resolver, final Buffer b) {
+        return readClass(options, resolver, readHeader(b));
+    }
+
+    static TypeDefinition readClass(final int options, final IMetadataResolver resolver, final Header header) {
+        return new ClassFileReader(
+            options,
+            resolver,
+            header.majorVersion,
+            header.minorVersion,
+            header.buffer,
+            header.constantPool,
+            header.accessFlags,
+            header.thisClass,
+            header.baseClass,
+            header.interfaces
+        ).readClass();
+    }
+
+    /**
+     * Reads the parts of a class file which precede its members.  This does not resolve any types,
+     * so it is safe to do outside of a resolver's load lock.
+     */
+    static Header readHeader(final Buffer b) {
         final long magic = b.readInt() & 0xFFFFFFFFL;
 
         if (magic != MAGIC) {
@@ -591,18 +624,38 @@ public final class ClassFileReader extends MetadataReader {
             interfaces[i] = (ConstantPool.TypeInfoEntry) constantPool.get(b.readUnsignedShort(), ConstantPool.Tag.TypeInfo);
         }
 
-        return new ClassFileReader(
-            options,
-            resolver,
-            majorVersion,
-            minorVersion,
-            b,
-            constantPool,
-            accessFlags,
-            thisClass,
-            baseClass,
-            interfaces
-        ).readClass();
+        return new Header(b, majorVersion, minorVersion, constantPool, accessFlags, thisClass, baseClass, interfaces);
+    }
+
+    final static class Header {
+        final Buffer buffer;
+        final int majorVersion;
+        final int minorVersion;
+        final ConstantPool constantPool;
+        final int accessFlags;
+        final ConstantPool.TypeInfoEntry thisClass;
+        final ConstantPool.TypeInfoEntry baseClass;
+        final ConstantPool.TypeInfoEntry[] interfaces;
+
+        Header(
+            final Buffer buffer,
+            final int majorVersion,
+            final int minorVersion,
+            final ConstantPool constantPool,
+            final int accessFlags,
+            final ConstantPool.TypeInfoEntry thisClass,
+            final ConstantPool.TypeInfoEntry baseClass,
+            final ConstantPool.TypeInfoEntry[] interfaces) {
+
+            this.buffer = buffer;
+            this.majorVersion = majorVersion;
+            this.minorVersion = minorVersion;
+            this.constantPool = constantPool;
+            this.accessFlags = accessFlags;
+            this.thisClass = thisClass;
+            this.baseClass = baseClass;
+            this.interfaces = interfaces;
+        }
     }
 
     // <editor-fold defaultstate="collapsed" desc="ClassReader Implementation">
@@ -664,13 +717,19 @@ public final class ClassFileReader extends MetadataReader {
                 try {
                     populateDeclaringType();
                     populateBaseTypes();
-                    visitAttributes();
-                    visitFields();
-                    defineMethods();
-                    populateNamedInnerTypes();
-                    populateAnonymousInnerTypes();
-                    checkEnclosingMethodAttributes();
-                    checkModuleAttribute();
+                    populatePermittedSubclasses();
+
+                    //
+                    // Local and anonymous classes are read in full, as their members may refer to
+                    // type variables of the enclosing method.
+                    //
+                    if (shouldDeferMembers() && declaringMethod == null) {
+                        populateMemberFlags();
+                        _typeDefinition.setMemberLoader(new MemberLoader());
+                    }
+                    else {
+                        populateMembers();
+                    }
                 }
                 finally {
                     if (declaringMethod != null) {
@@ -689,6 +748,42 @@ public final class ClassFileReader extends MetadataReader {
         }
     }
 
+    private void populateMembers() {
+        visitAttributes();
+        visitFields();
+        defineMethods();
+        populateNamedInnerTypes();
+        populateAnonymousInnerTypes();
+        checkEnclosingMethodAttributes();
+        checkModuleAttribute();
+    }
+
+    private void populateMemberFlags() {
+        //
+        // Type flags which would otherwise be derived while populating members must be set
+        // up front, as reading them does not trigger the deferred member loader.
+        //
+        for (final MethodInfo method : _methods) {
+            if ("<init>".equals(method.name) && Flags.testAny(method.accessFlags, Flags.STRICTFP)) {
+                _typeDefinition.setFlags(_typeDefinition.getFlags() | Flags.STRICTFP);
+            }
+        }
+
+        final SourceAttribute moduleAttribute = SourceAttribute.find(AttributeNames.Module, _attributes);
+
+        if (moduleAttribute != null &&
+            _fields.isEmpty() &&
+            _methods.isEmpty() &&
+            SourceAttribute.find(AttributeNames.InnerClasses, _attributes) == null) {
+
+            _typeDefinition.setFlags(_typeDefinition.getFlags() | Flags.MODULE);
+        }
+
+        if (SourceAttribute.find(AttributeNames.Record, _attributes) != null) {
+            _typeDefinition.setFlags(_typeDefinition.getFlags() | Flags.RECORD);
+        }
+    }
+
     private void checkModuleAttribute() {
         final ModuleAttribute moduleAttribute = SourceAttribute.find(AttributeNames.Module, _attributes);
 
@@ -1423,8 +1518,43 @@ public final class ClassFileReader extends MetadataReader {
                 Collections.addAll(annotations, invisibleAnnotations.getAnnotations());
             }
         }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="MemberLoader Class">
+
+    private final class MemberLoader implements Runnable {
+        private boolean _isLoaded;
 
-        populatePermittedSubclasses();
+        @Override
+        public synchronized void run() {
+            //
+            // A re-entrant call from the same thread sees the members populated so far, just as
+            // it would while the type is being read in full.
+            //
+            if (_isLoaded) {
+                return;
+            }
+
+            _isLoaded = true;
+            _parser.pushGenericContext(_typeDefinition);
+
+            try {
+                _resolver.pushFrame(_resolverFrame);
+
+                try {
+                    populateMembers();
+                }
+                finally {
+                    _resolver.popFrame();
+                }
+            }
+            finally {
+                _parser.popGenericContext();
+                _typeDefinition.setMemberLoader(null);
+            }
+        }
     }
 
     // </editor-fold>
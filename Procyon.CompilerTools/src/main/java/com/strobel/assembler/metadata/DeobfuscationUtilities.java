@@ -25,23 +25,23 @@ public class DeobfuscationUtilities {
     public static void processType(@NotNull final TypeDefinition type) {
         VerifyArgument.notNull(type, "type");
 
-        if (Flags.testAny(type.getFlags(), Flags.DEOBFUSCATED)) {
-            return;
-        }
-
-        type.setFlags(type.getFlags() | Flags.DEOBFUSCATED);
-
-        flagAnonymousEnumDefinitions(type);
-    }
+        //
+        // Types may be shared by several threads, so each is processed under its own lock.  Processing
+        // an enum also updates the anonymous subclasses of its constants, so an enum's base type must be
+        // processed first, and without holding the enum's lock: a type's lock is then only ever taken
+        // while holding the locks of its base types, never the other way around.
+        //
+        final TypeReference baseType;
+
+        synchronized (type.getDeobfuscationLock()) {
+            if (Flags.testAny(type.getFlags(), Flags.DEOBFUSCATED)) {
+                return;
+            }
 
-    private static void flagAnonymousEnumDefinitions(final TypeDefinition type) {
-        if (!type.isEnum() || type.getDeclaringType() != null) {
-            return;
+            baseType = type.isEnum() && type.getDeclaringType() == null ? type.getBaseType() : null;
         }
 
-        final TypeReference baseType = type.getBaseType();
-
-        if (!"java/lang/Enum".equals(baseType.getInternalName())) {
+        if (baseType != null && !"java/lang/Enum".equals(baseType.getInternalName())) {
             final TypeDefinition resolvedBaseType = baseType.resolve();
 
             if (resolvedBaseType != null) {
@@ -49,9 +49,21 @@ public class DeobfuscationUtilities {
             }
         }
 
-        if (type.getDeclaringType() != null && type.isAnonymous()) {
+        synchronized (type.getDeobfuscationLock()) {
+            if (Flags.testAny(type.getFlags(), Flags.DEOBFUSCATED)) {
+                return;
+            }
+
+            type.setFlags(type.getFlags() | Flags.DEOBFUSCATED);
+
+            flagAnonymousEnumDefinitions(type);
+        }
+    }
+
+    private static void flagAnonymousEnumDefinitions(final TypeDefinition type) {
+        if (!type.isEnum() || type.getDeclaringType() != null) {
             //
-            // We were already updated when we processed our base type.
+            // If we are an anonymous enum constant, we were already updated when we processed our base type.
             //
             return;
         }
@@ -82,10 +94,12 @@ public class DeobfuscationUtilities {
                 if (instantiatedTypeResolved.isEnum() &&
                     type.isEquivalentTo(instantiatedTypeResolved.getBaseType())) {
 
-                    instantiatedTypeResolved.setDeclaringType(type);
-                    type.getDeclaredTypesInternal().add(instantiatedTypeResolved);
+                    synchronized (instantiatedTypeResolved.getDeobfuscationLock()) {
+                        instantiatedTypeResolved.setDeclaringType(type);
+                        instantiatedTypeResolved.setFlags(instantiatedTypeResolved.getFlags() | Flags.ANONYMOUS);
+                    }
 
-                    instantiatedTypeResolved.setFlags(instantiatedTypeResolved.getFlags() | Flags.ANONYMOUS);
+                    type.getDeclaredTypesInternal().add(instantiatedTypeResolved);
                 }
             }
         }
@@ -24,6 +24,7 @@ import com.strobel.assembler.flowanalysis.ControlFlowNode;
 import com.strobel.assembler.flowanalysis.ControlFlowNodeType;
 import com.strobel.assembler.flowanalysis.JumpType;
 import com.strobel.assembler.ir.ExceptionHandler;
+import com.strobel.assembler.ir.ExceptionHandlerIndex;
 import com.strobel.assembler.ir.FlowControl;
 import com.strobel.assembler.ir.Instruction;
 import com.strobel.assembler.ir.InstructionBlock;
@@ -31,8 +32,6 @@ import com.strobel.assembler.ir.InstructionCollection;
 import com.strobel.assembler.ir.OpCode;
 import com.strobel.assembler.ir.OperandType;
 import com.strobel.assembler.ir.attributes.ExceptionTableEntry;
-import com.strobel.core.Comparer;
-import com.strobel.core.Predicate;
 import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.InstructionHelper;
 
@@ -155,17 +154,9 @@ public final class ExceptionHandlerMapper {
             return null;
         }
 
-        return firstOrDefault(
-            _nodes,
-            new Predicate<ControlFlowNode>() {
-                @Override
-                public boolean test(final ControlFlowNode node) {
-                    return node.getNodeType() == ControlFlowNodeType.Normal &&
-                           instruction.getOffset() >= node.getStart().getOffset() &&
-                           instruction.getOffset() < node.getEnd().getEndOffset();
-                }
-            }
-        );
+        final int index = Arrays.binarySearch(_offsets, instruction.getOffset());
+
+        return index >= 0 ? _nodesByInstruction[index] : null;
     }
 
     private static Set<ControlFlowNode> findDominatedNodes(final ControlFlowGraph cfg, final ControlFlowNode head) {
@@ -230,9 +221,14 @@ public final class ExceptionHandlerMapper {
     private final InstructionCollection _instructions;
     private final List<ExceptionTableEntry> _tableEntries;
     private final List<ExceptionHandler> _handlerPlaceholders;
+    private final ExceptionHandlerIndex _handlerIndex;
     private final List<ControlFlowNode> _nodes = new Collection<>();
     private final int[] _offsets;
     private final boolean[] _hasIncomingJumps;
+    private final boolean[] _isHandlerStart;
+    private final ControlFlowNode[] _nodesByInstruction;
+    private final Map<ExceptionHandler, ControlFlowNode> _handlerNodes = new IdentityHashMap<>();
+    private final Map<InstructionBlock, List<ControlFlowNode>> _handlerNodesByTryBlock = new HashMap<>();
     private final ControlFlowNode _entryPoint;
     private final ControlFlowNode _regularExit;
     private final ControlFlowNode _exceptionalExit;
@@ -244,9 +240,12 @@ public final class ExceptionHandlerMapper {
         _instructions = VerifyArgument.notNull(instructions, "instructions");
         _tableEntries = VerifyArgument.notNull(tableEntries, "tableEntries");
         _handlerPlaceholders = createHandlerPlaceholders();
+        _handlerIndex = ExceptionHandlerIndex.create(_handlerPlaceholders);
 
         _offsets = new int[instructions.size()];
         _hasIncomingJumps = new boolean[instructions.size()];
+        _isHandlerStart = new boolean[instructions.size()];
+        _nodesByInstruction = new ControlFlowNode[instructions.size()];
 
         for (int i = 0; i < instructions.size(); i++) {
             _offsets[i] = instructions.get(i).getOffset();
@@ -271,12 +270,7 @@ public final class ExceptionHandlerMapper {
     }
 
     private boolean isHandlerStart(final Instruction instruction) {
-        for (final ExceptionTableEntry entry : _tableEntries) {
-            if (entry.getHandlerOffset() == instruction.getOffset()) {
-                return true;
-            }
-        }
-        return false;
+        return _isHandlerStart[getInstructionIndex(instruction)];
     }
 
     private void calculateIncomingJumps() {
@@ -304,7 +298,10 @@ public final class ExceptionHandlerMapper {
         }
 
         for (final ExceptionTableEntry entry : _tableEntries) {
-            _hasIncomingJumps[getInstructionIndex(_instructions.atOffset(entry.getHandlerOffset()))] = true;
+            final int handlerStartIndex = getInstructionIndex(_instructions.atOffset(entry.getHandlerOffset()));
+
+            _hasIncomingJumps[handlerStartIndex] = true;
+            _isHandlerStart[handlerStartIndex] = true;
         }
     }
 
@@ -316,6 +313,7 @@ public final class ExceptionHandlerMapper {
         final InstructionCollection instructions = _instructions;
 
         for (int i = 0, n = instructions.size(); i < n; i++) {
+            final int blockStartIndex = i;
             final Instruction blockStart = instructions.get(i);
             final ExceptionHandler blockStartExceptionHandler = findInnermostExceptionHandler(blockStart.getOffset());
 
@@ -349,6 +347,8 @@ public final class ExceptionHandlerMapper {
             node.setUserData(blockStartExceptionHandler);
 
             _nodes.add(node);
+
+            Arrays.fill(_nodesByInstruction, blockStartIndex, i + 1, node);
         }
 
         //
@@ -357,7 +357,18 @@ public final class ExceptionHandlerMapper {
 
         for (final ExceptionHandler handler : _handlerPlaceholders) {
             final int index = _nodes.size();
-            _nodes.add(new ControlFlowNode(index, handler, null));
+            final ControlFlowNode node = new ControlFlowNode(index, handler, null);
+
+            _nodes.add(node);
+            _handlerNodes.put(handler, node);
+
+            List<ControlFlowNode> siblings = _handlerNodesByTryBlock.get(handler.getTryBlock());
+
+            if (siblings == null) {
+                _handlerNodesByTryBlock.put(handler.getTryBlock(), siblings = new ArrayList<>());
+            }
+
+            siblings.add(node);
         }
     }
 
@@ -438,21 +449,9 @@ public final class ExceptionHandlerMapper {
                 final ExceptionHandler innermostHandler = findInnermostExceptionHandler(node.getEnd().getOffset());
 
                 if (innermostHandler != null) {
-                    for (final ExceptionHandler other : _handlerPlaceholders) {
-                        if (other.getTryBlock().equals(innermostHandler.getTryBlock())) {
-                            final ControlFlowNode handlerNode = firstOrDefault(
-                                _nodes,
-                                new Predicate<ControlFlowNode>() {
-                                    @Override
-                                    public boolean test(final ControlFlowNode node) {
-                                        return node.getExceptionHandler() == other;
-                                    }
-                                }
-                            );
-
-                            if (node != handlerNode) {
-                                createEdge(node, handlerNode, JumpType.JumpToExceptionHandler);
-                            }
+                    for (final ControlFlowNode handlerNode : _handlerNodesByTryBlock.get(innermostHandler.getTryBlock())) {
+                        if (node != handlerNode) {
+                            createEdge(node, handlerNode, JumpType.JumpToExceptionHandler);
                         }
                     }
                 }
@@ -467,21 +466,9 @@ public final class ExceptionHandlerMapper {
                 final ControlFlowNode parentHandler = findParentExceptionHandlerNode(node);
 
                 if (parentHandler.getNodeType() != ControlFlowNodeType.ExceptionalExit) {
-                    for (final ExceptionHandler other : _handlerPlaceholders) {
-                        if (Comparer.equals(other.getTryBlock(), parentHandler.getExceptionHandler().getTryBlock())) {
-                            final ControlFlowNode handlerNode = firstOrDefault(
-                                _nodes,
-                                new Predicate<ControlFlowNode>() {
-                                    @Override
-                                    public boolean test(final ControlFlowNode node) {
-                                        return node.getExceptionHandler() == other;
-                                    }
-                                }
-                            );
-
-                            if (handlerNode != node) {
-                                createEdge(node, handlerNode, JumpType.JumpToExceptionHandler);
-                            }
+                    for (final ControlFlowNode handlerNode : _handlerNodesByTryBlock.get(parentHandler.getExceptionHandler().getTryBlock())) {
+                        if (handlerNode != node) {
+                            createEdge(node, handlerNode, JumpType.JumpToExceptionHandler);
                         }
                     }
                 }
@@ -543,46 +530,17 @@ public final class ExceptionHandlerMapper {
     }
 
     private ExceptionHandler findInnermostExceptionHandler(final int offsetInTryBlock) {
-        ExceptionHandler result = null;
-
-        for (final ExceptionHandler handler : _handlerPlaceholders) {
-            final InstructionBlock tryBlock = handler.getTryBlock();
-
-            if (tryBlock.getFirstInstruction().getOffset() <= offsetInTryBlock &&
-                offsetInTryBlock < tryBlock.getLastInstruction().getEndOffset() &&
-                (result == null || isNarrower(handler, result))) {
-
-                result = handler;
-            }
-        }
-
-        return result;
+        return _handlerIndex.findInnermostHandler(offsetInTryBlock);
     }
 
     private ControlFlowNode findParentExceptionHandlerNode(final ControlFlowNode node) {
         assert node.getNodeType() == ControlFlowNodeType.CatchHandler ||
                node.getNodeType() == ControlFlowNodeType.FinallyHandler;
 
-        ControlFlowNode result = null;
-        ExceptionHandler resultHandler = null;
-
         final int offset = node.getExceptionHandler().getHandlerBlock().getFirstInstruction().getOffset();
+        final ExceptionHandler parentHandler = findInnermostExceptionHandler(offset);
 
-        for (int i = 0, n = _nodes.size(); i < n; i++) {
-            final ControlFlowNode currentNode = _nodes.get(i);
-            final ExceptionHandler handler = currentNode.getExceptionHandler();
-
-            if (handler != null &&
-                handler.getTryBlock().getFirstInstruction().getOffset() <= offset &&
-                offset < handler.getTryBlock().getLastInstruction().getEndOffset() &&
-                (resultHandler == null || isNarrower(handler, resultHandler))) {
-
-                result = currentNode;
-                resultHandler = handler;
-            }
-        }
-
-        return result != null ? result : _exceptionalExit;
+        return parentHandler != null ? _handlerNodes.get(parentHandler) : _exceptionalExit;
     }
 
     private int getInstructionIndex(final Instruction instruction) {
@@ -592,18 +550,9 @@ public final class ExceptionHandlerMapper {
     }
 
     private ControlFlowEdge createEdge(final ControlFlowNode fromNode, final Instruction toInstruction, final JumpType type) {
-        ControlFlowNode target = null;
-
-        for (final ControlFlowNode node : _nodes) {
-            if (node.getStart() != null && node.getStart().getOffset() == toInstruction.getOffset()) {
-                if (target != null) {
-                    throw new IllegalStateException("Multiple edge targets detected!");
-                }
-                target = node;
-            }
-        }
+        final ControlFlowNode target = findNode(toInstruction);
 
-        if (target != null) {
+        if (target != null && target.getStart().getOffset() == toInstruction.getOffset()) {
             return createEdge(fromNode, target, type);
         }
 
@@ -0,0 +1,135 @@
+/*
+ * InstructionStream.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.assembler.ir.OpCode;
+import com.strobel.core.VerifyArgument;
+
+import java.util.Arrays;
+
+/**
+ * A compact, array-backed form of a method's bytecode, as produced by {@link MethodReader}.  Each
+ * instruction is an opcode, an offset, and a single {@code int} operand; operands which refer to
+ * the constant pool are indices into a table of entries resolved once per method.  The linked
+ * {@link com.strobel.assembler.ir.Instruction} form is only built when a {@link MethodBody}'s
+ * instructions are first requested.
+ */
+public final class InstructionStream {
+    private final int _codeSize;
+    private final int _count;
+    private final short[] _opCodes;
+    private final int[] _offsets;
+    private final int[] _operands;
+    private final int[] _switchData;
+    private final int[] _frameData;
+    private final Object[] _constants;
+
+    private volatile int[] _indexByOffset;
+
+    InstructionStream(
+        final int codeSize,
+        final int count,
+        final short[] opCodes,
+        final int[] offsets,
+        final int[] operands,
+        final int[] switchData,
+        final int[] frameData,
+        final Object[] constants) {
+
+        _codeSize = codeSize;
+        _count = count;
+        _opCodes = VerifyArgument.notNull(opCodes, "opCodes");
+        _offsets = VerifyArgument.notNull(offsets, "offsets");
+        _operands = VerifyArgument.notNull(operands, "operands");
+        _switchData = VerifyArgument.notNull(switchData, "switchData");
+        _frameData = VerifyArgument.notNull(frameData, "frameData");
+        _constants = VerifyArgument.notNull(constants, "constants");
+    }
+
+    public final int size() {
+        return _count;
+    }
+
+    public final int getCodeSize() {
+        return _codeSize;
+    }
+
+    public final OpCode getOpCode(final int index) {
+        return OpCode.get(_opCodes[index] & 0xFFFF);
+    }
+
+    public final int getOffset(final int index) {
+        return _offsets[index];
+    }
+
+    /**
+     * Gets the index of the instruction starting at {@code offset}, or {@code -1} if no instruction
+     * starts there.
+     */
+    public final int indexOf(final int offset) {
+        if (offset < 0 || offset >= _codeSize) {
+            return -1;
+        }
+
+        int[] indexByOffset = _indexByOffset;
+
+        if (indexByOffset == null) {
+            indexByOffset = new int[_codeSize];
+
+            Arrays.fill(indexByOffset, -1);
+
+            for (int i = 0; i < _count; i++) {
+                indexByOffset[_offsets[i]] = i;
+            }
+
+            _indexByOffset = indexByOffset;
+        }
+
+        return indexByOffset[offset];
+    }
+
+    //
+    // The meaning of an instruction's raw operand depends on its operand type: a local slot (with an
+    // increment in the upper 16 bits for IINC), an immediate value, an absolute branch target, an
+    // index into the switch data, or an index into the constant table (with the dimension count in
+    // the upper 16 bits for MULTIANEWARRAY).
+    //
+
+    final int getOperand(final int index) {
+        return _operands[index];
+    }
+
+    final int getSwitchData(final int index) {
+        return _switchData[index];
+    }
+
+    final Object getConstant(final int index) {
+        return _constants[index];
+    }
+
+    //
+    // The decoded StackMapTable, if the method had one; see MethodReader.readStackMapTable().
+    //
+
+    final int getFrameDataLength() {
+        return _frameData.length;
+    }
+
+    final int getFrameData(final int index) {
+        return _frameData[index];
+    }
+}
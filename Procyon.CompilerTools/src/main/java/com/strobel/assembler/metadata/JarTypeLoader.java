@@ -22,8 +22,8 @@ import com.strobel.core.VerifyArgument;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -37,7 +37,7 @@ public class JarTypeLoader implements ITypeLoader {
 
     public JarTypeLoader(final JarFile jarFile) {
         _jarFile = VerifyArgument.notNull(jarFile, "jarFile");
-        _knownMappings = new HashMap<>();
+        _knownMappings = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -92,10 +92,15 @@ public class JarTypeLoader implements ITypeLoader {
         }
     }
 
-    private static String getInternalNameFromClassFile(final Buffer b) {
+    /**
+     * Reads the name a class file declares for itself, or {@code null} if {@code b} does not hold a class file.
+     * Leaves {@code b} positioned at the start.
+     */
+    static String getInternalNameFromClassFile(final Buffer b) {
         final long magic = b.readInt() & 0xFFFFFFFFL;
 
         if (magic != 0xCAFEBABEL) {
+            b.position(0);
             return null;
         }
 
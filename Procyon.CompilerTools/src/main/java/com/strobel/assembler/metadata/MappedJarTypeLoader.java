@@ -0,0 +1,439 @@
+/*
+ * MappedJarTypeLoader.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.compilerservices.UnsafeAccess;
+import com.strobel.core.ExceptionUtilities;
+import com.strobel.core.VerifyArgument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A type loader which memory-maps a jar file and indexes its central directory once, up front.
+ * Class files are parsed from a byte array, so each entry is still copied (or inflated) once into
+ * the caller's buffer; what the mapping saves is the per-entry stream and lookup overhead of a
+ * {@code JarFile}.  Deflated entries are inflated using per-thread inflaters and scratch buffers.
+ * The index is immutable once built, so a single loader may serve lookups from any number of
+ * threads.  Archives larger than 2 GB are not supported.
+ * <p>
+ * The mapping stays open until {@link #close()} is called, which must not happen while any thread
+ * may still be loading types through this loader.
+ */
+public class MappedJarTypeLoader implements ITypeLoader, Closeable {
+    private final static Logger LOG = Logger.getLogger(MappedJarTypeLoader.class.getSimpleName());
+
+    private final static int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private final static int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private final static int END_HEADER_SIGNATURE = 0x06054b50;
+    private final static int ZIP64_END_HEADER_SIGNATURE = 0x06064b50;
+    private final static int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private final static int LOCAL_HEADER_SIZE = 30;
+    private final static int CENTRAL_HEADER_SIZE = 46;
+    private final static int END_HEADER_SIZE = 22;
+    private final static int ZIP64_LOCATOR_SIZE = 20;
+    private final static int MAX_COMMENT_LENGTH = 0xFFFF;
+
+    private final static int ZIP64_EXTRA_ID = 0x0001;
+    private final static long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+    private final static int METHOD_STORED = 0;
+    private final static int METHOD_DEFLATED = 8;
+
+    private final static ThreadLocal<Inflater> INFLATERS = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    private final static ThreadLocal<byte[][]> SCRATCH_BUFFERS = new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+            return new byte[][] { new byte[8192] };
+        }
+    };
+
+    private final String _name;
+    private final Map<String, Entry> _entries;
+    private final Map<String, String> _knownMappings;
+
+    private volatile MappedByteBuffer _mapping;
+
+    public MappedJarTypeLoader(final File jarFile) throws IOException {
+        VerifyArgument.notNull(jarFile, "jarFile");
+
+        _name = jarFile.getPath();
+
+        try (final RandomAccessFile file = new RandomAccessFile(jarFile, "r");
+             final FileChannel channel = file.getChannel()) {
+
+            final long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Archive is too large to be memory-mapped: " + _name);
+            }
+
+            _mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        _entries = new HashMap<>();
+        _knownMappings = new ConcurrentHashMap<>();
+
+        readCentralDirectory();
+    }
+
+    @Override
+    public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Attempting to load type: " + internalName + "...");
+        }
+
+        final Entry entry = _entries.get(internalName);
+
+        if (entry == null) {
+            final String mappedName = _knownMappings.get(internalName);
+
+            return mappedName != null &&
+                   !mappedName.equals(internalName) && tryLoadType(mappedName, buffer);
+        }
+
+        try {
+            readEntry(entry, buffer);
+        }
+        catch (final IOException e) {
+            throw ExceptionUtilities.asRuntimeException(e);
+        }
+
+        final String actualName = JarTypeLoader.getInternalNameFromClassFile(buffer);
+
+        if (actualName != null && !actualName.equals(internalName)) {
+            _knownMappings.put(actualName, internalName);
+        }
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Type loaded from " + _name + "!" + internalName + ".class.");
+        }
+
+        return true;
+    }
+
+    /**
+     * Unmaps the jar file.  Any later attempt to load a type from this loader fails.
+     */
+    @Override
+    public void close() {
+        final MappedByteBuffer mapping = _mapping;
+
+        if (mapping == null) {
+            return;
+        }
+
+        _mapping = null;
+
+        unmap(mapping);
+    }
+
+    private ByteBuffer openMapping() {
+        final MappedByteBuffer mapping = _mapping;
+
+        if (mapping == null) {
+            throw new IllegalStateException("Type loader for " + _name + " has been closed.");
+        }
+
+        return mapping.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void unmap(final MappedByteBuffer mapping) {
+        //
+        // There is no public API for releasing a mapping before it is garbage collected, which on some
+        // platforms keeps the file locked.  Use Unsafe.invokeCleaner() where it exists (Java 9+), or the
+        // buffer's cleaner on Java 8, and otherwise leave the mapping to the garbage collector.
+        //
+        try {
+            final Object unsafe = UnsafeAccess.unsafe();
+            final Method invokeCleaner = unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+
+            invokeCleaner.invoke(unsafe, mapping);
+            return;
+        }
+        catch (final Throwable ignored) {
+        }
+
+        try {
+            final Method getCleaner = mapping.getClass().getMethod("cleaner");
+
+            getCleaner.setAccessible(true);
+
+            final Object cleaner = getCleaner.invoke(mapping);
+
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }
+        catch (final Throwable t) {
+            LOG.log(Level.FINE, "Could not unmap " + mapping + "; leaving it to the garbage collector.", t);
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Entry Reading">
+
+    private void readEntry(final Entry entry, final Buffer buffer) throws IOException {
+        final ByteBuffer mapping = openMapping();
+        final int localHeaderOffset = entry.localHeaderOffset;
+
+        if (mapping.getInt(localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header for entry " + entry.name + " in " + _name + ".");
+        }
+
+        final int dataOffset = localHeaderOffset +
+                               LOCAL_HEADER_SIZE +
+                               (mapping.getShort(localHeaderOffset + 26) & 0xFFFF) +
+                               (mapping.getShort(localHeaderOffset + 28) & 0xFFFF);
+
+        buffer.reset(entry.size);
+
+        mapping.position(dataOffset);
+
+        switch (entry.method) {
+            case METHOD_STORED: {
+                mapping.get(buffer.array(), 0, entry.size);
+                break;
+            }
+
+            case METHOD_DEFLATED: {
+                inflate(mapping, entry, buffer.array());
+                break;
+            }
+
+            default: {
+                throw new ZipException(
+                    "Unsupported compression method " + entry.method + " for entry " + entry.name + " in " + _name + "."
+                );
+            }
+        }
+
+        buffer.position(0);
+    }
+
+    private void inflate(final ByteBuffer mapping, final Entry entry, final byte[] output) throws IOException {
+        final byte[][] scratchHolder = SCRATCH_BUFFERS.get();
+
+        byte[] scratch = scratchHolder[0];
+
+        if (scratch.length < entry.compressedSize) {
+            scratchHolder[0] = scratch = new byte[Math.max(entry.compressedSize, scratch.length * 2)];
+        }
+
+        mapping.get(scratch, 0, entry.compressedSize);
+
+        final Inflater inflater = INFLATERS.get();
+
+        try {
+            inflater.setInput(scratch, 0, entry.compressedSize);
+
+            int totalInflated = 0;
+
+            while (totalInflated < entry.size) {
+                final int inflated = inflater.inflate(output, totalInflated, entry.size - totalInflated);
+
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+
+                totalInflated += inflated;
+            }
+
+            if (totalInflated != entry.size) {
+                throw new ZipException("Truncated entry " + entry.name + " in " + _name + ".");
+            }
+        }
+        catch (final DataFormatException e) {
+            throw new ZipException("Corrupt entry " + entry.name + " in " + _name + ": " + e.getMessage());
+        }
+        finally {
+            inflater.reset();
+        }
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Central Directory Index">
+
+    private void readCentralDirectory() throws IOException {
+        final ByteBuffer mapping = openMapping();
+        final int endOffset = findEndHeader(mapping);
+
+        long entryCount = mapping.getShort(endOffset + 10) & 0xFFFF;
+        long directoryOffset = mapping.getInt(endOffset + 16) & 0xFFFFFFFFL;
+
+        if (entryCount == 0xFFFF || directoryOffset == ZIP64_MAGIC) {
+            final int locatorOffset = endOffset - ZIP64_LOCATOR_SIZE;
+
+            if (locatorOffset >= 0 && mapping.getInt(locatorOffset) == ZIP64_LOCATOR_SIGNATURE) {
+                final int zip64EndOffset = checkedOffset(mapping.getLong(locatorOffset + 8), mapping);
+
+                if (mapping.getInt(zip64EndOffset) != ZIP64_END_HEADER_SIGNATURE) {
+                    throw new ZipException("Invalid ZIP64 end of central directory record in " + _name + ".");
+                }
+
+                entryCount = mapping.getLong(zip64EndOffset + 32);
+                directoryOffset = mapping.getLong(zip64EndOffset + 48);
+            }
+        }
+
+        int offset = checkedOffset(directoryOffset, mapping);
+
+        for (long i = 0; i < entryCount; i++) {
+            if (mapping.getInt(offset) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException("Invalid central directory header in " + _name + ".");
+            }
+
+            final int method = mapping.getShort(offset + 10) & 0xFFFF;
+            final int nameLength = mapping.getShort(offset + 28) & 0xFFFF;
+            final int extraLength = mapping.getShort(offset + 30) & 0xFFFF;
+            final int commentLength = mapping.getShort(offset + 32) & 0xFFFF;
+
+            long compressedSize = mapping.getInt(offset + 20) & 0xFFFFFFFFL;
+            long size = mapping.getInt(offset + 24) & 0xFFFFFFFFL;
+            long localHeaderOffset = mapping.getInt(offset + 42) & 0xFFFFFFFFL;
+
+            final String name = readName(mapping, offset + CENTRAL_HEADER_SIZE, nameLength);
+
+            if (size == ZIP64_MAGIC || compressedSize == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                int extraOffset = offset + CENTRAL_HEADER_SIZE + nameLength;
+
+                final int extraEnd = extraOffset + extraLength;
+
+                while (extraOffset + 4 <= extraEnd) {
+                    final int id = mapping.getShort(extraOffset) & 0xFFFF;
+                    final int length = mapping.getShort(extraOffset + 2) & 0xFFFF;
+
+                    if (id == ZIP64_EXTRA_ID) {
+                        int p = extraOffset + 4;
+
+                        if (size == ZIP64_MAGIC) {
+                            size = mapping.getLong(p);
+                            p += 8;
+                        }
+
+                        if (compressedSize == ZIP64_MAGIC) {
+                            compressedSize = mapping.getLong(p);
+                            p += 8;
+                        }
+
+                        if (localHeaderOffset == ZIP64_MAGIC) {
+                            localHeaderOffset = mapping.getLong(p);
+                        }
+
+                        break;
+                    }
+
+                    extraOffset += 4 + length;
+                }
+            }
+
+            if (name.endsWith(".class")) {
+                final String internalName = name.substring(0, name.length() - ".class".length());
+
+                final Entry entry = new Entry(
+                    name,
+                    method,
+                    checkedOffset(localHeaderOffset, mapping),
+                    checkedSize(compressedSize, name),
+                    checkedSize(size, name)
+                );
+
+                _entries.put(internalName, entry);
+            }
+
+            offset += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+    }
+
+    private int findEndHeader(final ByteBuffer mapping) throws ZipException {
+        final int limit = mapping.limit();
+        final int minOffset = Math.max(0, limit - END_HEADER_SIZE - MAX_COMMENT_LENGTH);
+
+        for (int offset = limit - END_HEADER_SIZE; offset >= minOffset; offset--) {
+            if (mapping.getInt(offset) == END_HEADER_SIGNATURE) {
+                return offset;
+            }
+        }
+
+        throw new ZipException("Could not find end of central directory record in " + _name + ".");
+    }
+
+    private int checkedOffset(final long offset, final ByteBuffer mapping) throws ZipException {
+        if (offset < 0 || offset >= mapping.limit()) {
+            throw new ZipException("Invalid offset " + offset + " in " + _name + ".");
+        }
+        return (int) offset;
+    }
+
+    private int checkedSize(final long size, final String name) throws ZipException {
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new ZipException("Invalid size for entry " + name + " in " + _name + ".");
+        }
+        return (int) size;
+    }
+
+    private static String readName(final ByteBuffer mapping, final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            bytes[i] = mapping.get(offset + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private final static class Entry {
+        final String name;
+        final int method;
+        final int localHeaderOffset;
+        final int compressedSize;
+        final int size;
+
+        Entry(final String name, final int method, final int localHeaderOffset, final int compressedSize, final int size) {
+            this.name = name;
+            this.method = method;
+            this.localHeaderOffset = localHeaderOffset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+    }
+
+    // </editor-fold>
+}
@@ -17,10 +17,23 @@
 package com.strobel.assembler.metadata;
 
 import com.strobel.compilerservices.RuntimeHelpers;
+import com.strobel.core.Closeables;
 import com.strobel.core.Fences;
+import com.strobel.core.SafeCloseable;
 import com.strobel.core.VerifyArgument;
 
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Mike Strobel
@@ -28,10 +41,23 @@ import java.util.concurrent.ConcurrentHashMap;
 public class MetadataSystem extends MetadataResolver {
     private static MetadataSystem _instance;
 
-    private final ConcurrentHashMap<String, TypeDefinition> _types;
+    private final static int ESTIMATED_BYTES_PER_CLASS_FILE_BYTE = 8;
+    private final static int FREQUENT_HIT_THRESHOLD = 256;
+
+    private final ConcurrentHashMap<String, CachedType> _types;
     private final ITypeLoader _typeLoader;
+    private final Object _loadLock;
+
+    private final AtomicLong _cacheGeneration = new AtomicLong();
+    private final AtomicLong _estimatedCacheSize = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> _activeCacheScopes = new ConcurrentSkipListSet<>();
+    private final AtomicBoolean _isTrimmingCache = new AtomicBoolean();
+
+    private volatile long _typeCacheBudget;
+    private volatile SoftReference<Object> _memoryPressureSentinel = new SoftReference<>(new Object());
 
     private boolean _isEagerMethodLoadingEnabled;
+    private boolean _isDeferredMemberLoadingEnabled;
 
     public static MetadataSystem instance() {
         if (_instance == null) {
@@ -58,8 +84,30 @@ public class MetadataSystem extends MetadataResolver {
 //    }
 
     public MetadataSystem(final ITypeLoader typeLoader) {
+        this(typeLoader, false);
+    }
+
+    /**
+     * Creates a metadata system which may optionally be shared by multiple threads.  In thread-safe
+     * mode, loaded type definitions are shared across threads, while resolver frames are kept per
+     * thread.  Class files and their constant pools are read concurrently, but the types they define
+     * are built one at a time, so each type is defined only once.  The type loader must itself be
+     * safe for concurrent use.
+     * <p>
+     * Shared definitions still initialize some state lazily.  Names and signatures are immutable
+     * strings which two threads may compute at the same time, but always equal to each other; method
+     * bodies, raw types, and array types are published safely.
+     *
+     * @param typeLoader
+     *     The type loader used to locate class files.
+     * @param isThreadSafe
+     *     Whether the metadata system may be shared by multiple threads.
+     */
+    public MetadataSystem(final ITypeLoader typeLoader, final boolean isThreadSafe) {
+        super(isThreadSafe);
         _typeLoader = VerifyArgument.notNull(typeLoader, "typeLoader");
         _types = new ConcurrentHashMap<>();
+        _loadLock = isThreadSafe ? new Object() : null;
     }
 
     public final boolean isEagerMethodLoadingEnabled() {
@@ -70,9 +118,141 @@ public class MetadataSystem extends MetadataResolver {
         _isEagerMethodLoadingEnabled = value;
     }
 
+    public final boolean isDeferredMemberLoadingEnabled() {
+        return _isDeferredMemberLoadingEnabled;
+    }
+
+    /**
+     * Sets whether loaded types should initially be read only as far as their supertypes and
+     * declaring type.  Fields, methods, nested types, and annotations are then read the first
+     * time they are requested, so types which are only needed for hierarchy checks are cheaper
+     * to load.
+     */
+    public final void setDeferredMemberLoadingEnabled(final boolean value) {
+        _isDeferredMemberLoadingEnabled = value;
+    }
+
+    /**
+     * Gets the approximate number of bytes that loaded type definitions may occupy before the
+     * least recently used ones are evicted.  A value of zero means the cache is unbounded.
+     */
+    public final long getTypeCacheBudget() {
+        return _typeCacheBudget;
+    }
+
+    /**
+     * Sets the approximate number of bytes that loaded type definitions may occupy before the
+     * least recently used ones are evicted.  Eviction only happens when a type cache scope is
+     * closed, and never touches types used by a scope which is still open.  Types in
+     * {@code java/lang}, frequently used types, and types added explicitly through
+     * {@link #addTypeDefinition(TypeDefinition)} are never evicted.  A value of zero (the
+     * default) disables eviction.
+     * <p>
+     * Evicted types are only weakly cached.  As long as anything else, e.g., a subtype which is
+     * still cached, refers to an evicted type, resolving it again returns the same definition, so
+     * a type name never maps to two live definitions.  Once nothing refers to it, the definition
+     * is garbage collected and will be read again the next time it is needed.
+     */
+    public final void setTypeCacheBudget(final long budget) {
+        if (budget < 0L) {
+            throw new IllegalArgumentException("Type cache budget must be non-negative.");
+        }
+        _typeCacheBudget = budget;
+    }
+
+    /**
+     * Opens a type cache scope, typically spanning the decompilation of one class.  Types
+     * resolved while the scope is open will not be evicted until it is closed.  Closing the
+     * scope trims the cache if it has grown beyond its budget, or if the garbage collector
+     * has started clearing soft references.
+     */
+    public final SafeCloseable openTypeCacheScope() {
+        final long scope = _cacheGeneration.incrementAndGet();
+
+        _activeCacheScopes.add(scope);
+
+        return Closeables.create(
+            new Runnable() {
+                @Override
+                public void run() {
+                    _activeCacheScopes.remove(scope);
+                    trimTypeCache();
+                }
+            }
+        );
+    }
+
+    private void trimTypeCache() {
+        final long budget = _typeCacheBudget;
+
+        if (budget <= 0L) {
+            return;
+        }
+
+        final long targetSize;
+
+        if (_memoryPressureSentinel.get() == null) {
+            //
+            // The collector is clearing soft references, so the heap is under pressure; cut the
+            // cache down further than usual and re-arm the sentinel.
+            //
+            _memoryPressureSentinel = new SoftReference<>(new Object());
+            targetSize = budget / 4;
+        }
+        else if (_estimatedCacheSize.get() > budget) {
+            targetSize = budget - budget / 4;
+        }
+        else {
+            return;
+        }
+
+        if (!_isTrimmingCache.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final Long oldestActiveScope = _activeCacheScopes.isEmpty() ? null : _activeCacheScopes.first();
+            final long evictBefore = oldestActiveScope != null ? oldestActiveScope : Long.MAX_VALUE;
+            final List<CachedType> candidates = new ArrayList<>();
+
+            for (final Map.Entry<String, CachedType> entry : _types.entrySet()) {
+                final CachedType cachedType = entry.getValue();
+
+                if (cachedType.isEvicted()) {
+                    if (cachedType.isCollected()) {
+                        _types.remove(entry.getKey(), cachedType);
+                    }
+                    continue;
+                }
+
+                final long lastAccess = cachedType.lastAccess;
+
+                if (!cachedType.isPinned() && lastAccess < evictBefore) {
+                    cachedType.evictionOrder = lastAccess * FREQUENT_HIT_THRESHOLD + Math.min(cachedType.hitCount.get(), FREQUENT_HIT_THRESHOLD - 1);
+                    candidates.add(cachedType);
+                }
+            }
+
+            Collections.sort(candidates, CachedType.LEAST_RECENTLY_USED_FIRST);
+
+            for (final CachedType cachedType : candidates) {
+                if (_estimatedCacheSize.get() <= targetSize) {
+                    break;
+                }
+
+                if (cachedType.evict()) {
+                    _estimatedCacheSize.addAndGet(-cachedType.estimatedSize);
+                }
+            }
+        }
+        finally {
+            _isTrimmingCache.set(false);
+        }
+    }
+
     public void addTypeDefinition(final TypeDefinition type) {
         VerifyArgument.notNull(type, "type");
-        _types.putIfAbsent(type.getInternalName(), type);
+        _types.putIfAbsent(type.getInternalName(), new CachedType(type, 0L, true, _cacheGeneration.get()));
     }
 
     @Override
@@ -114,10 +294,10 @@ public class MetadataSystem extends MetadataResolver {
             }
         }
 
-        TypeDefinition cachedDefinition = _types.get(descriptor);
+        final TypeDefinition cachedType = findCachedType(descriptor);
 
-        if (cachedDefinition != null) {
-            return cachedDefinition;
+        if (cachedType != null) {
+            return cachedType;
         }
 
         final Buffer buffer = new Buffer(0);
@@ -126,23 +306,230 @@ public class MetadataSystem extends MetadataResolver {
             return null;
         }
 
-        final TypeDefinition typeDefinition = ClassFileReader.readClass(
-            _isEagerMethodLoadingEnabled ? ClassFileReader.OPTIONS_DEFAULT | ClassFileReader.OPTION_PROCESS_CODE
-                                         : ClassFileReader.OPTIONS_DEFAULT,
-            this,
-            buffer
+        //
+        // Reading the class file and its constant pool involves no other types, so several threads
+        // may do it at once.
+        //
+        final ClassFileReader.Header header = ClassFileReader.readHeader(buffer);
+
+        if (_loadLock == null) {
+            return defineType(descriptor, header);
+        }
+
+        //
+        // Define types one at a time.  A type which is still being read is only visible through the
+        // resolver frames of the thread reading it, so two threads defining related types at once
+        // would each build their own copies.
+        //
+
+        synchronized (_loadLock) {
+            final TypeDefinition loadedType = findCachedType(descriptor);
+
+            if (loadedType != null) {
+                return loadedType;
+            }
+
+            return defineType(descriptor, header);
+        }
+    }
+
+    private TypeDefinition findCachedType(final String descriptor) {
+        final CachedType cachedType = _types.get(descriptor);
+
+        if (cachedType == null) {
+            return null;
+        }
+
+        final TypeDefinition definition = touch(cachedType);
+
+        if (definition == null) {
+            _types.remove(descriptor, cachedType);
+        }
+
+        return definition;
+    }
+
+    private TypeDefinition touch(final CachedType cachedType) {
+        final TypeDefinition definition = cachedType.touch(_cacheGeneration.get());
+
+        if (definition != null) {
+            return definition;
+        }
+
+        //
+        // The type was evicted.  If it is still reachable, put it back rather than reading a
+        // second definition of the same type.
+        //
+        if (cachedType.revive()) {
+            _estimatedCacheSize.addAndGet(cachedType.estimatedSize);
+        }
+
+        return cachedType.touch(_cacheGeneration.get());
+    }
+
+    private TypeDefinition defineType(final String descriptor, final ClassFileReader.Header header) {
+        final Buffer buffer = header.buffer;
+
+        int options = ClassFileReader.OPTIONS_DEFAULT;
+
+        if (_isEagerMethodLoadingEnabled) {
+            options |= ClassFileReader.OPTION_PROCESS_CODE;
+        }
+
+        if (_isDeferredMemberLoadingEnabled) {
+            options |= ClassFileReader.OPTION_DEFER_MEMBERS;
+        }
+
+        final TypeDefinition typeDefinition = ClassFileReader.readClass(options, this, header);
+        final Runnable memberLoader = typeDefinition.getMemberLoader();
+
+        if (memberLoader != null && _loadLock != null) {
+            //
+            // Reading members resolves other types, so take the load lock before the member
+            // loader's own lock; otherwise two threads could each hold one and wait on the other.
+            //
+            typeDefinition.setMemberLoader(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (_loadLock) {
+                            memberLoader.run();
+                        }
+                    }
+                }
+            );
+        }
+
+        final CachedType newType = new CachedType(
+            typeDefinition,
+            (long) buffer.size() * ESTIMATED_BYTES_PER_CLASS_FILE_BYTE,
+            descriptor.startsWith("java/lang/"),
+            _cacheGeneration.get()
         );
 
-        cachedDefinition = _types.putIfAbsent(descriptor, typeDefinition);
         typeDefinition.setTypeLoader(_typeLoader);
 
-        if (cachedDefinition != null) {
-            return cachedDefinition;
+        CachedType cachedType = _types.putIfAbsent(descriptor, newType);
+
+        while (cachedType != null) {
+            final TypeDefinition cachedDefinition = touch(cachedType);
+
+            if (cachedDefinition != null) {
+                return cachedDefinition;
+            }
+
+            if (_types.replace(descriptor, cachedType, newType)) {
+                break;
+            }
+
+            cachedType = _types.putIfAbsent(descriptor, newType);
         }
 
+        _estimatedCacheSize.addAndGet(newType.estimatedSize);
         return typeDefinition;
     }
 
+    // <editor-fold defaultstate="collapsed" desc="CachedType Class">
+
+    private final static class CachedType {
+        final static Comparator<CachedType> LEAST_RECENTLY_USED_FIRST = new Comparator<CachedType>() {
+            @Override
+            public int compare(final CachedType o1, final CachedType o2) {
+                return Long.compare(o1.evictionOrder, o2.evictionOrder);
+            }
+        };
+
+        final WeakReference<TypeDefinition> weakDefinition;
+        final long estimatedSize;
+        final boolean isAlwaysRetained;
+        final AtomicInteger hitCount = new AtomicInteger();
+
+        //
+        // Cleared while the type is evicted, leaving only the weak reference.
+        //
+        volatile TypeDefinition definition;
+
+        //
+        // The last access is written without synchronization; a lost update only makes the
+        // eviction order slightly less accurate.
+        //
+        volatile long lastAccess;
+
+        //
+        // Snapshot of the access statistics taken while trimming, so the sort order cannot
+        // change underneath the sort.
+        //
+        long evictionOrder;
+
+        CachedType(final TypeDefinition definition, final long estimatedSize, final boolean isAlwaysRetained, final long generation) {
+            this.definition = definition;
+            this.weakDefinition = new WeakReference<>(definition);
+            this.estimatedSize = estimatedSize;
+            this.isAlwaysRetained = isAlwaysRetained;
+            this.lastAccess = generation;
+        }
+
+        boolean isPinned() {
+            return isAlwaysRetained || hitCount.get() >= FREQUENT_HIT_THRESHOLD;
+        }
+
+        boolean isEvicted() {
+            return definition == null;
+        }
+
+        boolean isCollected() {
+            return weakDefinition.get() == null;
+        }
+
+        /**
+         * Returns the cached definition, or {@code null} if the type has been evicted.
+         */
+        TypeDefinition touch(final long generation) {
+            final TypeDefinition definition = this.definition;
+
+            if (definition == null) {
+                return null;
+            }
+
+            if (lastAccess != generation) {
+                lastAccess = generation;
+            }
+
+            if (hitCount.get() < FREQUENT_HIT_THRESHOLD) {
+                hitCount.incrementAndGet();
+            }
+
+            return definition;
+        }
+
+        /**
+         * Drops the strong reference to the definition.  Returns {@code false} if it was already evicted.
+         */
+        synchronized boolean evict() {
+            if (definition == null) {
+                return false;
+            }
+
+            definition = null;
+            return true;
+        }
+
+        /**
+         * Restores the strong reference to an evicted definition which has not been collected.  Returns
+         * {@code false} if it was not evicted or has been collected.
+         */
+        synchronized boolean revive() {
+            if (definition != null) {
+                return false;
+            }
+
+            definition = weakDefinition.get();
+            return definition != null;
+        }
+    }
+
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="Primitive Lookup">
 
     private final static TypeDefinition[] PRIMITIVE_TYPES_BY_NAME = new TypeDefinition['Z' - 'B' + 1];
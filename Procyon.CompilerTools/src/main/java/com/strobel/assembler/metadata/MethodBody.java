@@ -20,6 +20,7 @@ import com.strobel.assembler.Collection;
 import com.strobel.assembler.ir.ExceptionHandler;
 import com.strobel.assembler.ir.InstructionCollection;
 import com.strobel.assembler.ir.StackMapFrame;
+import com.strobel.assembler.ir.attributes.ExceptionTableEntry;
 import com.strobel.core.Freezable;
 import com.strobel.core.VerifyArgument;
 
@@ -32,6 +33,9 @@ public final class MethodBody extends Freezable {
     private final VariableDefinitionCollection _variables;
     private final Collection<ExceptionHandler> _exceptionHandlers;
 
+    private volatile InstructionStream _instructionStream;
+    private List<ExceptionTableEntry> _exceptionTable;
+    private volatile boolean _hasPendingInstructions;
     private List<StackMapFrame> _stackMapFrames;
     private ParameterDefinition _thisParameter;
     private int _maxStackSize;
@@ -56,24 +60,68 @@ public final class MethodBody extends Freezable {
     }
 
     public final InstructionCollection getInstructions() {
+        if (_hasPendingInstructions) {
+            readPendingInstructions();
+        }
         return _instructions;
     }
 
+    /**
+     * Gets the compact form of this body's bytecode, or {@code null} if this body was not read by a
+     * {@link MethodReader}.  Unlike {@link #getInstructions()}, this does not build an
+     * {@link com.strobel.assembler.ir.Instruction} for every opcode.  The compact form is released
+     * once {@link #getInstructions()} has built the linked form, so this returns {@code null} after
+     * that, too.
+     */
+    public final InstructionStream getInstructionStream() {
+        return _instructionStream;
+    }
+
     public final VariableDefinitionCollection getVariables() {
         return _variables;
     }
 
     public final List<ExceptionHandler> getExceptionHandlers() {
+        if (_hasPendingInstructions) {
+            readPendingInstructions();
+        }
         return _exceptionHandlers;
     }
 
     public final List<StackMapFrame> getStackMapFrames() {
+        if (_hasPendingInstructions) {
+            readPendingInstructions();
+        }
+
         final List<StackMapFrame> stackMapFrames = _stackMapFrames;
 
         return stackMapFrames != null ? stackMapFrames
                                       : Collections.<StackMapFrame>emptyList();
     }
 
+    final void setInstructionStream(final InstructionStream instructionStream, final List<ExceptionTableEntry> exceptionTable) {
+        _instructionStream = instructionStream;
+        _exceptionTable = exceptionTable;
+        _hasPendingInstructions = true;
+    }
+
+    private synchronized void readPendingInstructions() {
+        if (!_hasPendingInstructions) {
+            return;
+        }
+
+        MethodReader.readInstructions(this, _instructionStream, _exceptionTable, _instructions, _exceptionHandlers);
+
+        if (isFrozen()) {
+            _instructions.freezeIfUnfrozen();
+            _exceptionHandlers.freezeIfUnfrozen();
+        }
+
+        _instructionStream = null;
+        _exceptionTable = null;
+        _hasPendingInstructions = false;
+    }
+
     final void setStackMapFrames(final List<StackMapFrame> stackMapFrames) {
         _stackMapFrames = stackMapFrames;
     }
@@ -119,10 +167,16 @@ public final class MethodBody extends Freezable {
     }
 
     @Override
-    protected final void freezeCore() {
-        _instructions.freezeIfUnfrozen();
+    protected final synchronized void freezeCore() {
+        //
+        // Pending instructions are frozen once they have been read.
+        //
+        if (!_hasPendingInstructions) {
+            _instructions.freezeIfUnfrozen();
+            _exceptionHandlers.freezeIfUnfrozen();
+        }
+
         _variables.freezeIfUnfrozen();
-        _exceptionHandlers.freezeIfUnfrozen();
 
         super.freezeCore();
     }
@@ -46,7 +46,7 @@ public class MethodDefinition extends MethodReference implements IMemberDefiniti
     private final List<CustomAnnotation> _customAnnotationsView;
     private final List<SourceAttribute> _sourceAttributesView;
 
-    private SoftReference<MethodBody> _body;
+    private volatile SoftReference<MethodBody> _body;
     private String _name;
     private String _fullName;
     private String _erasedSignature;
@@ -79,7 +79,7 @@ public class MethodDefinition extends MethodReference implements IMemberDefiniti
         final MethodBody body;
         final SoftReference<MethodBody> cachedBody = _body;
 
-        if (cachedBody == null || (body = _body.get()) == null) {
+        if (cachedBody == null || (body = cachedBody.get()) == null) {
             return tryLoadBody();
         }
 
@@ -657,11 +657,22 @@ public class MethodDefinition extends MethodReference implements IMemberDefiniti
 
     // <editor-fold defaultstate="collapsed" desc="Deferred Method Body Loading">
 
-    private MethodBody tryLoadBody() {
+    private synchronized MethodBody tryLoadBody() {
         if (Flags.testAny(_flags, Flags.LOAD_BODY_FAILED)) {
             return null;
         }
 
+        //
+        // Another thread may have loaded the body while we were waiting.
+        //
+
+        final SoftReference<MethodBody> cachedBody = _body;
+        final MethodBody existingBody = cachedBody != null ? cachedBody.get() : null;
+
+        if (existingBody != null) {
+            return existingBody;
+        }
+
         final CodeAttribute codeAttribute = SourceAttribute.find(AttributeNames.Code, _sourceAttributes);
 
         if (codeAttribute == null) {
@@ -17,13 +17,17 @@
 package com.strobel.assembler.metadata;
 
 import com.strobel.assembler.ir.ConstantPool;
-import com.strobel.assembler.ir.ErrorOperand;
+import com.strobel.assembler.ir.ExceptionHandler;
+import com.strobel.assembler.ir.Frame;
+import com.strobel.assembler.ir.FrameType;
+import com.strobel.assembler.ir.FrameValue;
 import com.strobel.assembler.ir.Instruction;
 import com.strobel.assembler.ir.InstructionCollection;
 import com.strobel.assembler.ir.OpCode;
-import com.strobel.assembler.ir.OpCodeHelpers;
 import com.strobel.assembler.ir.OperandType;
+import com.strobel.assembler.ir.StackMapFrame;
 import com.strobel.assembler.ir.attributes.AttributeNames;
+import com.strobel.assembler.ir.attributes.BlobAttribute;
 import com.strobel.assembler.ir.attributes.CodeAttribute;
 import com.strobel.assembler.ir.attributes.ExceptionTableEntry;
 import com.strobel.assembler.ir.attributes.LocalVariableTableAttribute;
@@ -31,9 +35,16 @@ import com.strobel.assembler.ir.attributes.LocalVariableTableEntry;
 import com.strobel.assembler.ir.attributes.SourceAttribute;
 import com.strobel.core.StringUtilities;
 import com.strobel.core.VerifyArgument;
+import com.strobel.util.EmptyArrayCache;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.lang.String.format;
 
@@ -44,6 +55,8 @@ public class MethodReader {
     private final MethodBody _methodBody;
     private final TypeReference _declaringType;
     private final int _modifiers;
+    private final List<Object> _constants = new ArrayList<>();
+    private final Map<Integer, Integer> _constantIndices = new HashMap<>();
 
     public MethodReader(final MethodDefinition methodDefinition, final IMetadataScope scope) {
         _methodDefinition = VerifyArgument.notNull(methodDefinition, "methodDefinition");
@@ -63,22 +76,25 @@ public class MethodReader {
             return readBodyCore();
         }
         catch (final Throwable t) {
-            throw new MethodBodyParseException(
-                format(
-                    "An error occurred while parsing the bytecode of method '%s:%s'.",
-                    _methodDefinition.getFullName(),
-                    _methodDefinition.getSignature()
-                ),
-                t);
+            throw createParseException(_methodDefinition, t);
         }
     }
 
+    private static MethodBodyParseException createParseException(final MethodDefinition method, final Throwable t) {
+        return new MethodBodyParseException(
+            format(
+                "An error occurred while parsing the bytecode of method '%s:%s'.",
+                method.getFullName(),
+                method.getSignature()
+            ),
+            t);
+    }
+
     private MethodBody readBodyCore() {
         final Buffer b = _code.getCode();
 
         b.position(0);
 
-        final InstructionCollection body = _methodBody.getInstructions();
         final VariableDefinitionCollection variables = _methodBody.getVariables();
 
         final LocalVariableTableAttribute localVariableTable = SourceAttribute.find(
@@ -153,10 +169,17 @@ public class MethodReader {
             }
         }
 
-        @SuppressWarnings("unchecked")
-        final Fixup[] fixups = new Fixup[b.size()];
+        final int codeSize = b.size();
+        final short[] opCodes = new short[codeSize];
+        final int[] offsets = new int[codeSize];
+        final int[] operands = new int[codeSize];
+        final BitSet instructionStarts = new BitSet(codeSize);
 
-        while (b.position() < b.size()) {
+        int[] switchData = EmptyArrayCache.EMPTY_INT_ARRAY;
+        int switchDataLength = 0;
+        int count = 0;
+
+        while (b.position() < codeSize) {
             final int offset = b.position();
 
             int code = b.readUnsignedByte();
@@ -166,42 +189,40 @@ public class MethodReader {
             }
 
             final OpCode op = OpCode.get(code);
-            final Instruction instruction;
+            final int operand;
 
             switch (op.getOperandType()) {
                 case None: {
-                    if (op.isLoad() || op.isStore()) {
-                        variables.reference(OpCodeHelpers.getLoadStoreMacroArgumentIndex(op), op, offset);
-                    }
-                    instruction = Instruction.create(op);
+                    operand = 0;
                     break;
                 }
 
-                case PrimitiveTypeCode: {
-                    instruction = Instruction.create(op, BuiltinTypes.fromPrimitiveTypeCode(b.readUnsignedByte()));
-                    break;
-                }
+                case PrimitiveTypeCode:
+                case TypeReference:
+                case FieldReference:
+                case WideConstant: {
+                    final int token = op.getOperandType() == OperandType.PrimitiveTypeCode ? b.readUnsignedByte()
+                                                                                             : b.readUnsignedShort();
 
-                case TypeReference: {
-                    final int typeToken = b.readUnsignedShort();
-                    instruction = Instruction.create(op, _scope.lookupType(typeToken));
+                    operand = lookupConstant(op.getOperandType(), token);
                     break;
                 }
 
                 case TypeReferenceU1: {
-                    instruction = Instruction.create(op, _scope.lookupType(b.readUnsignedShort()), b.readUnsignedByte());
+                    final int typeIndex = lookupConstant(OperandType.TypeReference, b.readUnsignedShort());
+                    operand = typeIndex | b.readUnsignedByte() << 16;
                     break;
                 }
 
                 case DynamicCallSite: {
-                    instruction = Instruction.create(op, _scope.lookupDynamicCallSite(b.readUnsignedShort()));
+                    operand = lookupConstant(OperandType.DynamicCallSite, b.readUnsignedShort());
                     b.readUnsignedByte();
                     b.readUnsignedByte();
                     break;
                 }
 
                 case MethodReference: {
-                    instruction = Instruction.create(op, _scope.lookupMethod(b.readUnsignedShort()));
+                    operand = lookupConstant(OperandType.MethodReference, b.readUnsignedShort());
 
                     if (op == OpCode.INVOKEINTERFACE) {
                         b.readUnsignedByte();
@@ -211,17 +232,10 @@ public class MethodReader {
                     break;
                 }
 
-                case FieldReference: {
-                    instruction = Instruction.create(op, _scope.lookupField(b.readUnsignedShort()));
-                    break;
-                }
-
                 case BranchTarget:
                 case BranchTargetWide: {
                     final int targetOffset;
 
-                    instruction = new Instruction(op);
-
                     if (op.isWide()) {
                         targetOffset = offset + _scope.<Integer>lookupConstant(b.readUnsignedShort());
                     }
@@ -232,71 +246,30 @@ public class MethodReader {
                         targetOffset = offset + (int) b.readShort();
                     }
 
-                    if (targetOffset < offset) {
-                        final Instruction target = body.atOffset(targetOffset);
-
-                        if (!target.hasLabel()) {
-                            target.setLabel(new Label(targetOffset));
-                        }
-
-                        instruction.setOperand(target);
-                    }
-                    else if (targetOffset == offset) {
-                        instruction.setOperand(instruction);
-                        instruction.setLabel(new Label(offset));
-                    }
-                    else if (targetOffset > b.size()) {
-                        //
-                        // Target is a label after the last instruction.  Insert a dummy NOP.
-                        //
-                        instruction.setOperand(new Instruction(targetOffset, OpCode.NOP));
-                    }
-                    else {
-                        final Fixup oldFixup = fixups[targetOffset];
-                        final Fixup newFixup = new Fixup() {
-                            @Override
-                            public void fix(final Instruction target) {
-                                instruction.setOperand(target);
-                            }
-                        };
-
-                        fixups[targetOffset] = oldFixup != null ? Fixup.combine(oldFixup, newFixup)
-                                                                : newFixup;
-                    }
+                    verifyTarget(instructionStarts, codeSize, offset, targetOffset, true);
 
+                    operand = targetOffset;
                     break;
                 }
 
                 case I1: {
-                    instruction = Instruction.create(op, b.readByte());
+                    operand = b.readByte();
                     break;
                 }
 
                 case I2: {
-                    instruction = Instruction.create(op, b.readShort());
+                    operand = b.readShort();
                     break;
                 }
 
                 case I8: {
-                    instruction = Instruction.create(op, b.readLong());
+                    operand = _constants.size();
+                    _constants.add(b.readLong());
                     break;
                 }
 
                 case Constant: {
-                    final Object entry = _scope.lookup(b.readUnsignedByte());
-                    if (entry instanceof ConstantPool.ConstantEntry) {
-                        instruction = new Instruction(op, ((ConstantPool.ConstantEntry) entry).getConstantValue());
-                    }
-                    else {
-                        instruction = new Instruction(OpCode.LDC, entry);
-                    }
-                    break;
-                }
-
-                case WideConstant: {
-                    final int constantToken = b.readUnsignedShort();
-                    //noinspection RedundantTypeArguments
-                    instruction = new Instruction(op, _scope.<Object>lookupConstant(constantToken));
+                    operand = lookupConstant(OperandType.Constant, b.readUnsignedByte());
                     break;
                 }
 
@@ -305,204 +278,599 @@ public class MethodReader {
                         b.readByte();
                     }
 
-                    final SwitchInfo switchInfo = new SwitchInfo();
                     final int defaultOffset = offset + b.readInt();
 
-                    instruction = Instruction.create(op, switchInfo);
+                    verifyTarget(instructionStarts, codeSize, offset, defaultOffset, false);
 
-                    if (defaultOffset < offset) {
-                        switchInfo.setDefaultTarget(body.atOffset(defaultOffset));
-                    }
-                    else if (defaultOffset == offset) {
-                        switchInfo.setDefaultTarget(instruction);
-                    }
-                    else {
-                        switchInfo.setDefaultTarget(new Instruction(defaultOffset, OpCode.NOP));
-
-                        final Fixup oldFixup = fixups[defaultOffset];
-                        final Fixup newFixup = new Fixup() {
-                            @Override
-                            public void fix(final Instruction target) {
-                                switchInfo.setDefaultTarget(target);
-                            }
-                        };
-
-                        fixups[defaultOffset] = oldFixup != null ? Fixup.combine(oldFixup, newFixup)
-                                                                 : newFixup;
-                    }
+                    operand = switchDataLength;
 
                     if (op == OpCode.TABLESWITCH) {
                         final int low = b.readInt();
                         final int high = b.readInt();
-                        final Instruction[] targets = new Instruction[high - low + 1];
+                        final int targetCount = high - low + 1;
 
-                        switchInfo.setLowValue(low);
-                        switchInfo.setHighValue(high);
+                        if (targetCount < 0) {
+                            throw new IllegalStateException(format("Invalid TABLESWITCH range: [%d, %d].", low, high));
+                        }
 
-                        for (int i = 0; i < targets.length; i++) {
-                            final int targetIndex = i;
+                        switchData = ensureCapacity(switchData, switchDataLength + 3 + targetCount);
+                        switchData[switchDataLength++] = defaultOffset;
+                        switchData[switchDataLength++] = low;
+                        switchData[switchDataLength++] = high;
+
+                        for (int i = 0; i < targetCount; i++) {
                             final int targetOffset = offset + b.readInt();
 
-                            if (targetOffset < offset) {
-                                targets[targetIndex] = body.atOffset(targetOffset);
-                            }
-                            else if (targetOffset == offset) {
-                                targets[targetIndex] = instruction;
-                            }
-                            else {
-                                targets[targetIndex] = new Instruction(targetOffset, OpCode.NOP);
-
-                                final Fixup oldFixup = fixups[targetOffset];
-                                final Fixup newFixup = new Fixup() {
-                                    @Override
-                                    public void fix(final Instruction target) {
-                                        targets[targetIndex] = target;
-                                    }
-                                };
-
-                                fixups[targetOffset] = oldFixup != null ? Fixup.combine(oldFixup, newFixup)
-                                                                        : newFixup;
-                            }
-                        }
+                            verifyTarget(instructionStarts, codeSize, offset, targetOffset, false);
 
-                        switchInfo.setTargets(targets);
+                            switchData[switchDataLength++] = targetOffset;
+                        }
                     }
                     else {
                         final int pairCount = b.readInt();
-                        final int[] keys = new int[pairCount];
-                        final Instruction[] targets = new Instruction[pairCount];
 
-                        for (int i = 0; i < pairCount; i++) {
-                            final int targetIndex = i;
+                        switchData = ensureCapacity(switchData, switchDataLength + 2 + pairCount * 2);
+                        switchData[switchDataLength++] = defaultOffset;
+                        switchData[switchDataLength++] = pairCount;
 
-                            keys[targetIndex] = b.readInt();
+                        for (int i = 0; i < pairCount; i++) {
+                            switchData[switchDataLength++] = b.readInt();
 
                             final int targetOffset = offset + b.readInt();
 
-                            if (targetOffset < offset) {
-                                targets[targetIndex] = body.atOffset(targetOffset);
-                            }
-                            else if (targetOffset == offset) {
-                                targets[targetIndex] = instruction;
-                            }
-                            else {
-                                targets[targetIndex] = new Instruction(targetOffset, OpCode.NOP);
-
-                                final Fixup oldFixup = fixups[targetOffset];
-                                final Fixup newFixup = new Fixup() {
-                                    @Override
-                                    public void fix(final Instruction target) {
-                                        targets[targetIndex] = target;
-                                    }
-                                };
-
-                                fixups[targetOffset] = oldFixup != null ? Fixup.combine(oldFixup, newFixup)
-                                                                        : newFixup;
-                            }
-                        }
+                            verifyTarget(instructionStarts, codeSize, offset, targetOffset, false);
 
-                        switchInfo.setKeys(keys);
-                        switchInfo.setTargets(targets);
+                            switchData[switchDataLength++] = targetOffset;
+                        }
                     }
 
                     break;
                 }
 
                 case Local: {
-                    final int variableSlot;
-
-                    if (op.isWide()) {
-                        variableSlot = b.readUnsignedShort();
-                    }
-                    else {
-                        variableSlot = b.readUnsignedByte();
-                    }
-
-                    final VariableReference variable = variables.reference(variableSlot, op, offset);
+                    operand = op.isWide() ? b.readUnsignedShort() : b.readUnsignedByte();
+                    break;
+                }
 
-                    if (variableSlot < 0) {
-                        instruction = new Instruction(op, new ErrorOperand("!!! BAD LOCAL: " + variableSlot + " !!!"));
-                    }
-                    else {
-                        instruction = Instruction.create(op, variable);
-                    }
+                case LocalI1: {
+                    final int variableSlot = op.isWide() ? b.readUnsignedShort() : b.readUnsignedByte();
+                    operand = variableSlot | b.readByte() << 16;
+                    break;
+                }
 
+                case LocalI2: {
+                    final int variableSlot = op.isWide() ? b.readUnsignedShort() : b.readUnsignedByte();
+                    operand = variableSlot | b.readShort() << 16;
                     break;
                 }
 
-                case LocalI1: {
-                    final int variableSlot;
-                    final int operand;
+                default: {
+                    throw new IllegalStateException("Unrecognized opcode: " + code);
+                }
+            }
 
-                    if (op.isWide()) {
-                        variableSlot = b.readUnsignedShort();
-                    }
-                    else {
-                        variableSlot = b.readUnsignedByte();
-                    }
+            opCodes[count] = (short) code;
+            offsets[count] = offset;
+            operands[count] = operand;
+            instructionStarts.set(offset);
+            count++;
+        }
 
-                    final VariableReference variable = variables.reference(variableSlot, op, offset);
+        //
+        // The linked Instruction form of the body is only built on demand; until then, the body
+        // retains nothing more than these arrays and the constants they refer to.
+        //
+
+        final int[] frameData = readStackMapTable(hasThis, parameters);
+
+        final InstructionStream stream = new InstructionStream(
+            codeSize,
+            count,
+            Arrays.copyOf(opCodes, count),
+            Arrays.copyOf(offsets, count),
+            Arrays.copyOf(operands, count),
+            Arrays.copyOf(switchData, switchDataLength),
+            frameData,
+            _constants.toArray()
+        );
 
-                    operand = b.readByte();
+        _methodBody.setInstructionStream(stream, _code.getExceptionTableEntries());
 
-                    if (variableSlot < 0) {
-                        instruction = new Instruction(
-                            op,
-                            new ErrorOperand("!!! BAD LOCAL: " + variableSlot + " !!!"),
-                            operand
-                        );
-                    }
-                    else {
-                        instruction = Instruction.create(op, variable, operand);
+        return _methodBody;
+    }
+
+    private void processLocalVariableTable(
+        final VariableDefinitionCollection variables,
+        final LocalVariableTableAttribute table,
+        final List<ParameterDefinition> parameters) {
+
+        for (final LocalVariableTableEntry entry : table.getEntries()) {
+            final int slot = entry.getIndex();
+            final int scopeStart = entry.getScopeOffset();
+            final int scopeEnd = scopeStart + entry.getScopeLength();
+
+            VariableDefinition variable = variables.tryFind(slot, scopeStart);
+
+            if (variable == null) {
+                variable = new VariableDefinition(
+                    slot,
+                    entry.getName(),
+                    _methodDefinition,
+                    entry.getType()
+                );
+
+                variables.add(variable);
+            }
+            else if (!StringUtilities.isNullOrEmpty(entry.getName())) {
+                variable.setName(entry.getName());
+            }
+
+            if (!entry.isBadType()) {
+                variable.setVariableType(entry.getType());
+                variable.setTypeKnown(true);
+            }
+
+            variable.setFromMetadata(true);
+            variable.setScopeStart(scopeStart);
+            variable.setScopeEnd(scopeEnd);
+
+            if (entry.getScopeOffset() == 0) {
+                ParameterDefinition parameter = null;
+
+                for (int j = 0; j < parameters.size(); j++) {
+                    if (parameters.get(j).getSlot() == entry.getIndex()) {
+                        parameter = parameters.get(j);
+                        break;
                     }
+                }
 
-                    break;
+                if (parameter != null && !parameter.hasName()) {
+                    parameter.setName(entry.getName());
                 }
+            }
+        }
+    }
 
-                case LocalI2: {
-                    final int variableSlot;
-                    final int operand;
+    private int lookupConstant(final OperandType kind, final int token) {
+        final int key = kind.ordinal() << 16 | token;
+        final Integer existingIndex = _constantIndices.get(key);
 
-                    if (op.isWide()) {
-                        variableSlot = b.readUnsignedShort();
-                    }
-                    else {
-                        variableSlot = b.readUnsignedByte();
-                    }
+        if (existingIndex != null) {
+            return existingIndex;
+        }
 
-                    final VariableReference variable = variables.reference(variableSlot, op, offset);
+        final Object constant;
 
-                    operand = b.readShort();
+        switch (kind) {
+            case PrimitiveTypeCode:
+                constant = BuiltinTypes.fromPrimitiveTypeCode(token);
+                break;
 
-                    if (variableSlot < 0) {
-                        instruction = new Instruction(
-                            op,
-                            new ErrorOperand("!!! BAD LOCAL: " + variableSlot + " !!!"),
-                            operand
-                        );
-                    }
-                    else {
-                        instruction = Instruction.create(op, variable, operand);
-                    }
+            case TypeReference:
+                constant = _scope.lookupType(token);
+                break;
+
+            case DynamicCallSite:
+                constant = _scope.lookupDynamicCallSite(token);
+                break;
+
+            case MethodReference:
+                constant = _scope.lookupMethod(token);
+                break;
+
+            case FieldReference:
+                constant = _scope.lookupField(token);
+                break;
+
+            case Constant: {
+                final Object entry = _scope.lookup(token);
+
+                constant = entry instanceof ConstantPool.ConstantEntry ? ((ConstantPool.ConstantEntry) entry).getConstantValue()
+                                                                       : entry;
+                break;
+            }
+
+            case WideConstant:
+                //noinspection RedundantTypeArguments
+                constant = _scope.<Object>lookupConstant(token);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unexpected constant kind: " + kind);
+        }
+
+        final int index = _constants.size();
+
+        _constants.add(constant);
+        _constantIndices.put(key, index);
+
+        return index;
+    }
+
+    private int addConstant(final Object constant) {
+        final int index = _constants.size();
+        _constants.add(constant);
+        return index;
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Stack Map Frames">
+
+    private final static int FRAME_TOP = 0;
+    private final static int FRAME_INTEGER = 1;
+    private final static int FRAME_FLOAT = 2;
+    private final static int FRAME_DOUBLE = 3;
+    private final static int FRAME_LONG = 4;
+    private final static int FRAME_NULL = 5;
+    private final static int FRAME_UNINITIALIZED_THIS = 6;
+    private final static int FRAME_OBJECT = 7;
+    private final static int FRAME_UNINITIALIZED = 8;
+
+    //
+    // Frames are flattened into a single array: for each frame, its offset, its local and stack
+    // counts, and then one entry per verification type, packed as (value << 4 | tag).  The value
+    // is a constant table index for objects, or the offset of the NEW instruction for uninitialized
+    // references.  The frames are only a hint for stack analysis, so a table we cannot make sense
+    // of is simply dropped.
+    //
+
+    private int[] readStackMapTable(final boolean hasThis, final List<ParameterDefinition> parameters) {
+        try {
+            final BlobAttribute attribute = SourceAttribute.find(AttributeNames.StackMapTable, _code.getAttributes());
+
+            if (attribute == null) {
+                return EmptyArrayCache.EMPTY_INT_ARRAY;
+            }
+
+            return readStackMapTableCore(new Buffer(attribute.getData()), hasThis, parameters);
+        }
+        catch (final Throwable ignored) {
+            return EmptyArrayCache.EMPTY_INT_ARRAY;
+        }
+    }
+
+    private int[] readStackMapTableCore(
+        final Buffer b,
+        final boolean hasThis,
+        final List<ParameterDefinition> parameters) {
+
+        int[] locals = new int[parameters.size() + 1];
+        int localCount = 0;
 
+        if (hasThis) {
+            locals[localCount++] = _methodDefinition.isConstructor() &&
+                                   !"java/lang/Object".equals(_declaringType.getInternalName())
+                                   ? FRAME_UNINITIALIZED_THIS
+                                   : addConstant(_declaringType) << 4 | FRAME_OBJECT;
+        }
+
+        for (final ParameterDefinition parameter : parameters) {
+            final TypeReference parameterType = parameter.getParameterType();
+
+            switch (parameterType.getSimpleType()) {
+                case Boolean:
+                case Byte:
+                case Character:
+                case Short:
+                case Integer:
+                    locals[localCount++] = FRAME_INTEGER;
+                    break;
+                case Long:
+                    locals[localCount++] = FRAME_LONG;
+                    break;
+                case Float:
+                    locals[localCount++] = FRAME_FLOAT;
                     break;
+                case Double:
+                    locals[localCount++] = FRAME_DOUBLE;
+                    break;
+                default:
+                    locals[localCount++] = addConstant(parameterType) << 4 | FRAME_OBJECT;
+                    break;
+            }
+        }
+
+        final int frameCount = b.readUnsignedShort();
+
+        int[] frameData = new int[frameCount * (3 + localCount)];
+        int length = 0;
+        int offset = -1;
+
+        for (int i = 0; i < frameCount; i++) {
+            final int frameType = b.readUnsignedByte();
+            final int offsetDelta;
+
+            int stackCount = 0;
+            int[] stack = EmptyArrayCache.EMPTY_INT_ARRAY;
+
+            if (frameType < 64) {
+                offsetDelta = frameType;
+            }
+            else if (frameType < 128) {
+                offsetDelta = frameType - 64;
+                stack = new int[] { readVerificationType(b) };
+                stackCount = 1;
+            }
+            else if (frameType < 247) {
+                throw new IllegalStateException("Invalid stack map frame type: " + frameType);
+            }
+            else if (frameType == 247) {
+                offsetDelta = b.readUnsignedShort();
+                stack = new int[] { readVerificationType(b) };
+                stackCount = 1;
+            }
+            else if (frameType < 251) {
+                offsetDelta = b.readUnsignedShort();
+                localCount -= 251 - frameType;
+
+                if (localCount < 0) {
+                    throw new IllegalStateException("Stack map frame chops more locals than are defined.");
                 }
+            }
+            else if (frameType == 251) {
+                offsetDelta = b.readUnsignedShort();
+            }
+            else if (frameType < 255) {
+                offsetDelta = b.readUnsignedShort();
+                locals = ensureCapacity(locals, localCount + frameType - 251);
 
-                default: {
-                    throw new IllegalStateException("Unrecognized opcode: " + code);
+                for (int j = 251; j < frameType; j++) {
+                    locals[localCount++] = readVerificationType(b);
+                }
+            }
+            else {
+                offsetDelta = b.readUnsignedShort();
+                localCount = b.readUnsignedShort();
+                locals = ensureCapacity(locals, localCount);
+
+                for (int j = 0; j < localCount; j++) {
+                    locals[j] = readVerificationType(b);
+                }
+
+                stackCount = b.readUnsignedShort();
+                stack = new int[stackCount];
+
+                for (int j = 0; j < stackCount; j++) {
+                    stack[j] = readVerificationType(b);
                 }
             }
 
+            offset = i == 0 ? offsetDelta : offset + offsetDelta + 1;
+
+            frameData = ensureCapacity(frameData, length + 3 + localCount + stackCount);
+            frameData[length++] = offset;
+            frameData[length++] = localCount;
+            frameData[length++] = stackCount;
+
+            System.arraycopy(locals, 0, frameData, length, localCount);
+            length += localCount;
+
+            System.arraycopy(stack, 0, frameData, length, stackCount);
+            length += stackCount;
+        }
+
+        return Arrays.copyOf(frameData, length);
+    }
+
+    private int readVerificationType(final Buffer b) {
+        final int tag = b.readUnsignedByte();
+
+        switch (tag) {
+            case FRAME_TOP:
+            case FRAME_INTEGER:
+            case FRAME_FLOAT:
+            case FRAME_DOUBLE:
+            case FRAME_LONG:
+            case FRAME_NULL:
+            case FRAME_UNINITIALIZED_THIS:
+                return tag;
+
+            case FRAME_OBJECT:
+                return lookupConstant(OperandType.TypeReference, b.readUnsignedShort()) << 4 | tag;
+
+            case FRAME_UNINITIALIZED:
+                return b.readUnsignedShort() << 4 | tag;
+
+            default:
+                throw new IllegalStateException("Invalid verification type tag: " + tag);
+        }
+    }
+
+    // </editor-fold>
+
+    private static void verifyTarget(
+        final BitSet instructionStarts,
+        final int codeSize,
+        final int offset,
+        final int targetOffset,
+        final boolean canTargetPastEnd) {
+
+        //
+        // Backward targets must land on an instruction we have already read.  A forward target may
+        // only fall past the end of the code if it is a branch, which gets a dummy NOP.
+        //
+        final boolean isValid = targetOffset <= offset ? targetOffset >= 0 && instructionStarts.get(targetOffset) ||
+                                                         targetOffset == offset
+                                                       : targetOffset < codeSize ||
+                                                         targetOffset > codeSize && canTargetPastEnd;
+
+        if (!isValid) {
+            throw new IndexOutOfBoundsException("No instruction found at offset " + targetOffset + '.');
+        }
+    }
+
+    private static int[] ensureCapacity(final int[] array, final int length) {
+        if (length <= array.length) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Instruction Materialization">
+
+    static void readInstructions(
+        final MethodBody methodBody,
+        final InstructionStream stream,
+        final List<ExceptionTableEntry> exceptionTable,
+        final InstructionCollection body,
+        final List<ExceptionHandler> exceptionHandlers) {
+
+        try {
+            readInstructionsCore(methodBody, stream, exceptionTable, body, exceptionHandlers);
+        }
+        catch (final Throwable t) {
+            body.clear();
+            exceptionHandlers.clear();
+
+            throw createParseException(methodBody.getMethod(), t);
+        }
+    }
+
+    private static void readInstructionsCore(
+        final MethodBody methodBody,
+        final InstructionStream stream,
+        final List<ExceptionTableEntry> exceptionTable,
+        final InstructionCollection body,
+        final List<ExceptionHandler> exceptionHandlers) {
+
+        final VariableDefinitionCollection variables = methodBody.getVariables();
+        final Instruction[] instructions = new Instruction[stream.size()];
+
+        for (int i = 0; i < instructions.length; i++) {
+            final OpCode op = stream.getOpCode(i);
+            final int offset = stream.getOffset(i);
+            final int operand = stream.getOperand(i);
+            final Instruction instruction;
+
+            switch (op.getOperandType()) {
+                case None:
+                    instruction = Instruction.create(op);
+                    break;
+
+                case PrimitiveTypeCode:
+                case TypeReference:
+                    instruction = Instruction.create(op, (TypeReference) stream.getConstant(operand));
+                    break;
+
+                case TypeReferenceU1:
+                    instruction = Instruction.create(op, (TypeReference) stream.getConstant(operand & 0xFFFF), operand >>> 16);
+                    break;
+
+                case DynamicCallSite:
+                    instruction = Instruction.create(op, (DynamicCallSite) stream.getConstant(operand));
+                    break;
+
+                case MethodReference:
+                    instruction = Instruction.create(op, (MethodReference) stream.getConstant(operand));
+                    break;
+
+                case FieldReference:
+                    instruction = Instruction.create(op, (FieldReference) stream.getConstant(operand));
+                    break;
+
+                case BranchTarget:
+                case BranchTargetWide:
+                    instruction = new Instruction(op);
+                    break;
+
+                case I1:
+                case I2:
+                    instruction = Instruction.create(op, (short) operand);
+                    break;
+
+                case I8:
+                case Constant:
+                case WideConstant:
+                    instruction = new Instruction(op, stream.getConstant(operand));
+                    break;
+
+                case Switch:
+                    instruction = Instruction.create(op, new SwitchInfo());
+                    break;
+
+                case Local:
+                    instruction = Instruction.create(op, variables.reference(operand, op, offset));
+                    break;
+
+                case LocalI1:
+                case LocalI2:
+                    instruction = Instruction.create(op, variables.reference(operand & 0xFFFF, op, offset), operand >> 16);
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unrecognized opcode: " + op.getCode());
+            }
+
             instruction.setOffset(offset);
+            instructions[i] = instruction;
             body.add(instruction);
+        }
+
+        for (int i = 0; i < instructions.length; i++) {
+            final Instruction instruction = instructions[i];
+            final OpCode op = instruction.getOpCode();
+
+            switch (op.getOperandType()) {
+                case BranchTarget:
+                case BranchTargetWide: {
+                    final int targetOffset = stream.getOperand(i);
+                    final int targetIndex = stream.indexOf(targetOffset);
+
+                    if (targetIndex >= 0) {
+                        final Instruction target = instructions[targetIndex];
 
-            final Fixup fixup = fixups[offset];
+                        if (!target.hasLabel()) {
+                            target.setLabel(new Label(targetOffset));
+                        }
+
+                        instruction.setOperand(target);
+                    }
+                    else if (targetOffset > stream.getCodeSize()) {
+                        //
+                        // Target is a label after the last instruction.  Insert a dummy NOP.
+                        //
+                        instruction.setOperand(new Instruction(targetOffset, OpCode.NOP));
+                    }
 
-            if (fixup != null) {
-                if (!instruction.hasLabel()) {
-                    instruction.setLabel(new Label(offset));
+                    break;
+                }
+
+                case Switch: {
+                    final SwitchInfo switchInfo = instruction.getOperand(0);
+
+                    int position = stream.getOperand(i);
+
+                    switchInfo.setDefaultTarget(switchTarget(stream, instructions, i, stream.getSwitchData(position++)));
+
+                    if (op == OpCode.TABLESWITCH) {
+                        final int low = stream.getSwitchData(position++);
+                        final int high = stream.getSwitchData(position++);
+                        final Instruction[] targets = new Instruction[high - low + 1];
+
+                        switchInfo.setLowValue(low);
+                        switchInfo.setHighValue(high);
+
+                        for (int j = 0; j < targets.length; j++) {
+                            targets[j] = switchTarget(stream, instructions, i, stream.getSwitchData(position++));
+                        }
+
+                        switchInfo.setTargets(targets);
+                    }
+                    else {
+                        final int pairCount = stream.getSwitchData(position++);
+                        final int[] keys = new int[pairCount];
+                        final Instruction[] targets = new Instruction[pairCount];
+
+                        for (int j = 0; j < pairCount; j++) {
+                            keys[j] = stream.getSwitchData(position++);
+                            targets[j] = switchTarget(stream, instructions, i, stream.getSwitchData(position++));
+                        }
+
+                        switchInfo.setKeys(keys);
+                        switchInfo.setTargets(targets);
+                    }
+
+                    break;
                 }
-                fixup.fix(instruction);
             }
         }
 
@@ -556,149 +924,138 @@ public class MethodReader {
             }
         }
 
-        final List<ExceptionTableEntry> exceptionTable = _code.getExceptionTableEntries();
-
         if (!exceptionTable.isEmpty()) {
-//            populateExceptionHandlerInfo(body, exceptionTable);
-            _methodBody.getExceptionHandlers().addAll(ExceptionHandlerMapper.run(body, exceptionTable));
-/*
-            if (!_methodBody.getExceptionHandlers().isEmpty()) {
-                final ControlFlowGraph cfg = ControlFlowGraphBuilder.build(_methodBody);
-                cfg.computeDominance();
-                cfg.computeDominanceFrontier();
-                cfg.export(new File("/tmp/test"));
-            }
-*/
+            exceptionHandlers.addAll(ExceptionHandlerMapper.run(body, exceptionTable));
         }
 
-        return _methodBody;
+        if (stream.getFrameDataLength() > 0) {
+            methodBody.setStackMapFrames(readStackMapFrames(stream, instructions));
+        }
     }
 
-    private void processLocalVariableTable(
-        final VariableDefinitionCollection variables,
-        final LocalVariableTableAttribute table,
-        final List<ParameterDefinition> parameters) {
-
-        for (final LocalVariableTableEntry entry : table.getEntries()) {
-            final int slot = entry.getIndex();
-            final int scopeStart = entry.getScopeOffset();
-            final int scopeEnd = scopeStart + entry.getScopeLength();
+    private static List<StackMapFrame> readStackMapFrames(final InstructionStream stream, final Instruction[] instructions) {
+        final List<StackMapFrame> frames = new ArrayList<>();
+        final List<FrameValue> values = new ArrayList<>();
 
-            VariableDefinition variable = variables.tryFind(slot, scopeStart);
+        int position = 0;
 
-            if (variable == null) {
-                variable = new VariableDefinition(
-                    slot,
-                    entry.getName(),
-                    _methodDefinition,
-                    entry.getType()
-                );
+        while (position < stream.getFrameDataLength()) {
+            final int startIndex = stream.indexOf(stream.getFrameData(position++));
+            final int localCount = stream.getFrameData(position++);
+            final int stackCount = stream.getFrameData(position++);
 
-                variables.add(variable);
-            }
-            else if (!StringUtilities.isNullOrEmpty(entry.getName())) {
-                variable.setName(entry.getName());
+            if (startIndex < 0) {
+                return Collections.emptyList();
             }
 
-            if (!entry.isBadType()) {
-                variable.setVariableType(entry.getType());
-                variable.setTypeKnown(true);
-            }
+            values.clear();
 
-            variable.setFromMetadata(true);
-            variable.setScopeStart(scopeStart);
-            variable.setScopeEnd(scopeEnd);
+            for (int i = 0; i < localCount; i++) {
+                if (!addFrameValue(stream, instructions, stream.getFrameData(position++), values)) {
+                    return Collections.emptyList();
+                }
+            }
 
-            if (entry.getScopeOffset() == 0) {
-                ParameterDefinition parameter = null;
+            final FrameValue[] localValues = values.toArray(new FrameValue[values.size()]);
 
-                for (int j = 0; j < parameters.size(); j++) {
-                    if (parameters.get(j).getSlot() == entry.getIndex()) {
-                        parameter = parameters.get(j);
-                        break;
-                    }
-                }
+            values.clear();
 
-                if (parameter != null && !parameter.hasName()) {
-                    parameter.setName(entry.getName());
+            for (int i = 0; i < stackCount; i++) {
+                if (!addFrameValue(stream, instructions, stream.getFrameData(position++), values)) {
+                    return Collections.emptyList();
                 }
             }
+
+            final FrameValue[] stackValues = values.toArray(new FrameValue[values.size()]);
+
+            frames.add(new StackMapFrame(new Frame(FrameType.New, localValues, stackValues), instructions[startIndex]));
         }
+
+        return frames;
     }
 
-    // <editor-fold defaultstate="collapsed" desc="Fixup Class">
+    private static boolean addFrameValue(
+        final InstructionStream stream,
+        final Instruction[] instructions,
+        final int entry,
+        final List<FrameValue> values) {
 
-    private abstract static class Fixup {
-        public abstract void fix(final Instruction target);
+        final int value = entry >>> 4;
 
-        public static Fixup combine(final Fixup first, final Fixup second) {
-            final Fixup[] fixups;
+        switch (entry & 0xF) {
+            case FRAME_TOP:
+                values.add(FrameValue.TOP);
+                return true;
 
-            if (first instanceof MultiFixup) {
-                final MultiFixup m1 = (MultiFixup) first;
+            case FRAME_INTEGER:
+                values.add(FrameValue.INTEGER);
+                return true;
 
-                if (second instanceof MultiFixup) {
-                    final MultiFixup m2 = (MultiFixup) second;
+            case FRAME_FLOAT:
+                values.add(FrameValue.FLOAT);
+                return true;
 
-                    fixups = new Fixup[m1._fixups.length + m2._fixups.length];
+            case FRAME_DOUBLE:
+                values.add(FrameValue.DOUBLE);
+                values.add(FrameValue.TOP);
+                return true;
 
-                    System.arraycopy(
-                        m2._fixups,
-                        0,
-                        fixups,
-                        m1._fixups.length,
-                        m2._fixups.length
-                    );
-                }
-                else {
-                    fixups = new Fixup[m1._fixups.length + 1];
-                    fixups[m1._fixups.length] = second;
-                }
+            case FRAME_LONG:
+                values.add(FrameValue.LONG);
+                values.add(FrameValue.TOP);
+                return true;
 
-                System.arraycopy(
-                    m1._fixups,
-                    0,
-                    fixups,
-                    0,
-                    m1._fixups.length
-                );
-            }
-            else {
-                if (second instanceof MultiFixup) {
-                    final MultiFixup m2 = (MultiFixup) second;
+            case FRAME_NULL:
+                values.add(FrameValue.NULL);
+                return true;
 
-                    fixups = new Fixup[1 + m2._fixups.length];
+            case FRAME_UNINITIALIZED_THIS:
+                values.add(FrameValue.UNINITIALIZED_THIS);
+                return true;
 
-                    System.arraycopy(
-                        m2._fixups,
-                        0,
-                        fixups,
-                        1,
-                        m2._fixups.length
-                    );
-                }
-                else {
-                    fixups = new Fixup[] { first, second };
+            case FRAME_OBJECT:
+                values.add(FrameValue.makeReference((TypeReference) stream.getConstant(value)));
+                return true;
+
+            case FRAME_UNINITIALIZED: {
+                final int newIndex = stream.indexOf(value);
+
+                if (newIndex < 0 || instructions[newIndex].getOpCode() != OpCode.NEW) {
+                    return false;
                 }
+
+                values.add(FrameValue.makeUninitializedReference(instructions[newIndex]));
+                return true;
             }
 
-            return new MultiFixup(fixups);
+            default:
+                return false;
         }
+    }
 
-        private final static class MultiFixup extends Fixup {
-            private final Fixup[] _fixups;
+    private static Instruction switchTarget(
+        final InstructionStream stream,
+        final Instruction[] instructions,
+        final int switchIndex,
+        final int targetOffset) {
 
-            private MultiFixup(final Fixup... fixups) {
-                _fixups = VerifyArgument.noNullElements(fixups, "fixups");
-            }
+        final int targetIndex = stream.indexOf(targetOffset);
 
-            @Override
-            public void fix(final Instruction target) {
-                for (final Fixup fixup : _fixups) {
-                    fixup.fix(target);
-                }
-            }
+        //
+        // Only forward switch targets get labels; a target which does not start an instruction is
+        // left as a dummy NOP.
+        //
+        if (targetIndex < 0) {
+            return new Instruction(targetOffset, OpCode.NOP);
+        }
+
+        final Instruction target = instructions[targetIndex];
+
+        if (targetIndex > switchIndex && !target.hasLabel()) {
+            target.setLabel(new Label(targetOffset));
         }
+
+        return target;
     }
 
     // </editor-fold>
@@ -0,0 +1,319 @@
+/*
+ * PersistentTypeCache.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.core.VerifyArgument;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A type loader which keeps the class files served by another type loader in a single cache file,
+ * so later runs can resolve platform and library types without going back to the original archives.
+ * The cache file records a key describing the sources it was built from (e.g., their paths and
+ * content hashes), and is discarded if the key no longer matches.  Only the index is read up front;
+ * class files are read on demand and verified against their recorded checksums.  Types loaded from
+ * the underlying type loader are added to the cache file when the cache is closed.
+ * <p>
+ * The cache holds class files rather than parsed definitions: {@link MetadataSystem} already reads
+ * types lazily through its type loader, and reading a definition from bytes in memory is cheap next
+ * to locating and inflating it in an archive.
+ */
+public class PersistentTypeCache implements ITypeLoader, Closeable {
+    private final static Logger LOG = Logger.getLogger(PersistentTypeCache.class.getSimpleName());
+
+    private final static int MAGIC = 0x50544331;
+    private final static int VERSION = 2;
+    private final static int MAX_STRING_LENGTH = 1 << 24;
+
+    private final ITypeLoader _typeLoader;
+    private final File _cacheFile;
+    private final String _sourceKey;
+    private final Map<String, Entry> _entries;
+    private final Map<String, byte[]> _newEntries;
+
+    private RandomAccessFile _file;
+    private volatile FileChannel _channel;
+
+    public PersistentTypeCache(final ITypeLoader typeLoader, final File cacheFile, final String sourceKey) {
+        _typeLoader = VerifyArgument.notNull(typeLoader, "typeLoader");
+        _cacheFile = VerifyArgument.notNull(cacheFile, "cacheFile");
+        _sourceKey = VerifyArgument.notNull(sourceKey, "sourceKey");
+        _newEntries = new ConcurrentHashMap<>();
+        _entries = Collections.unmodifiableMap(openCacheFile());
+    }
+
+    /**
+     * Returns the number of types which were available from the cache file when it was opened.
+     */
+    public final int getCachedTypeCount() {
+        return _entries.size();
+    }
+
+    @Override
+    public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        final Entry entry = _entries.get(internalName);
+
+        if (entry != null && tryReadEntry(entry, buffer)) {
+            return true;
+        }
+
+        if (!_typeLoader.tryLoadType(internalName, buffer)) {
+            return false;
+        }
+
+        _newEntries.put(internalName, Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.size()));
+        return true;
+    }
+
+    /**
+     * Writes any types loaded since the cache file was opened back to the cache file, and releases
+     * the cache file.  The cache must not be used after it has been closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (_channel == null && _newEntries.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (!_newEntries.isEmpty()) {
+                writeCacheFile();
+            }
+        }
+        finally {
+            closeCacheFile();
+        }
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Cache File I/O">
+
+    private Map<String, Entry> openCacheFile() {
+        if (!_cacheFile.isFile()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            _file = new RandomAccessFile(_cacheFile, "r");
+            _channel = _file.getChannel();
+
+            if (_file.readInt() != MAGIC || _file.readUnsignedShort() != VERSION || !_sourceKey.equals(readString(_file))) {
+                closeCacheFile();
+                return Collections.emptyMap();
+            }
+
+            final int entryCount = _file.readInt();
+            final byte[] index = new byte[_file.readInt()];
+
+            _file.readFully(index);
+
+            final Map<String, Entry> entries = new HashMap<>(entryCount * 2);
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(index));
+
+            long offset = _file.getFilePointer();
+
+            for (int i = 0; i < entryCount; i++) {
+                final String name = readString(input);
+                final int length = input.readInt();
+                final int checksum = input.readInt();
+
+                entries.put(name, new Entry(offset, length, checksum));
+                offset += length;
+            }
+
+            if (offset != _channel.size()) {
+                throw new EOFException("Unexpected end of type cache file.");
+            }
+
+            return entries;
+        }
+        catch (final IOException e) {
+            LOG.log(Level.WARNING, "Ignoring unreadable type cache file: " + _cacheFile, e);
+            closeCacheFile();
+            return Collections.emptyMap();
+        }
+    }
+
+    private void closeCacheFile() {
+        final RandomAccessFile file = _file;
+
+        _file = null;
+        _channel = null;
+
+        if (file != null) {
+            try {
+                file.close();
+            }
+            catch (final IOException ignored) {
+            }
+        }
+    }
+
+    private boolean tryReadEntry(final Entry entry, final Buffer buffer) {
+        final FileChannel channel = _channel;
+
+        if (channel == null) {
+            return false;
+        }
+
+        buffer.reset(entry.length);
+
+        final ByteBuffer target = ByteBuffer.wrap(buffer.array(), 0, entry.length);
+
+        try {
+            while (target.hasRemaining()) {
+                if (channel.read(target, entry.offset + target.position()) < 0) {
+                    return false;
+                }
+            }
+        }
+        catch (final IOException e) {
+            return false;
+        }
+
+        final CRC32 crc = new CRC32();
+
+        crc.update(buffer.array(), 0, entry.length);
+
+        return (int) crc.getValue() == entry.checksum;
+    }
+
+    private void writeCacheFile() throws IOException {
+        final TreeMap<String, byte[]> contents = new TreeMap<>();
+        final Buffer buffer = new Buffer(0);
+
+        for (final Map.Entry<String, Entry> entry : _entries.entrySet()) {
+            if (tryReadEntry(entry.getValue(), buffer)) {
+                contents.put(entry.getKey(), Arrays.copyOf(buffer.array(), entry.getValue().length));
+            }
+        }
+
+        contents.putAll(_newEntries);
+
+        final ByteArrayOutputStream index = new ByteArrayOutputStream();
+        final DataOutputStream indexOutput = new DataOutputStream(index);
+        final CRC32 crc = new CRC32();
+
+        for (final Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            crc.reset();
+            crc.update(entry.getValue());
+
+            writeString(indexOutput, entry.getKey());
+            indexOutput.writeInt(entry.getValue().length);
+            indexOutput.writeInt((int) crc.getValue());
+        }
+
+        final File directory = _cacheFile.getAbsoluteFile().getParentFile();
+
+        if (directory != null && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Could not create directory for type cache file: " + _cacheFile);
+        }
+
+        final File tempFile = File.createTempFile(_cacheFile.getName(), ".tmp", directory);
+
+        try {
+            try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeShort(VERSION);
+                writeString(output, _sourceKey);
+                output.writeInt(contents.size());
+                output.writeInt(index.size());
+                index.writeTo(output);
+
+                for (final byte[] classFile : contents.values()) {
+                    output.write(classFile);
+                }
+            }
+
+            closeCacheFile();
+            Files.move(tempFile.toPath(), _cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        finally {
+            if (tempFile.exists() && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    //
+    // Unlike writeUTF(), these are not limited to 64K of encoded text; the source key grows with the class path.
+    //
+
+    private static void writeString(final DataOutput output, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final DataInput input) throws IOException {
+        final int length = input.readInt();
+
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length in type cache file: " + length);
+        }
+
+        final byte[] bytes = new byte[length];
+
+        input.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="Entry Class">
+
+    private final static class Entry {
+        final long offset;
+        final int length;
+        final int checksum;
+
+        Entry(final long offset, final int length, final int checksum) {
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+        }
+    }
+
+    // </editor-fold>
+}
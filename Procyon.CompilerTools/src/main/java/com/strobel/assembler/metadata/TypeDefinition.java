@@ -58,10 +58,13 @@ public class TypeDefinition extends TypeReference implements IMemberDefinition {
     private long _flags;
     private int _compilerVersion;
     private List<Enum> _enumConstants;
-    private TypeReference _rawType;
+    private volatile TypeReference _rawType;
     private MethodReference _declaringMethod;
     private ConstantPool _constantPool;
     private ITypeLoader _typeLoader;
+    private volatile Runnable _memberLoader;
+
+    private final Object _deobfuscationLock = new Object();
 
     public TypeDefinition() {
         _genericParameters = new GenericParameterCollection(this);
@@ -95,6 +98,31 @@ public class TypeDefinition extends TypeReference implements IMemberDefinition {
         _typeLoader = typeLoader;
     }
 
+    final Object getDeobfuscationLock() {
+        return _deobfuscationLock;
+    }
+
+    final Runnable getMemberLoader() {
+        return _memberLoader;
+    }
+
+    /**
+     * Sets a callback which populates the fields, methods, nested types, annotations, and
+     * source attributes of this type the first time any of them are requested.  The callback
+     * is responsible for its own synchronization, and for clearing itself once it has run.
+     */
+    final void setMemberLoader(final Runnable memberLoader) {
+        _memberLoader = memberLoader;
+    }
+
+    private void ensureMembersLoaded() {
+        final Runnable memberLoader = _memberLoader;
+
+        if (memberLoader != null) {
+            memberLoader.run();
+        }
+    }
+
     public final CompilerTarget getCompilerTarget() {
         return CompilerTarget.lookup(getCompilerMajorVersion(), getCompilerMinorVersion());
     }
@@ -230,10 +258,12 @@ public class TypeDefinition extends TypeReference implements IMemberDefinition {
 
     @Override
     public final List<CustomAnnotation> getAnnotations() {
+        ensureMembersLoaded();
         return _customAnnotationsView;
     }
 
     public final List<SourceAttribute> getSourceAttributes() {
+        ensureMembersLoaded();
         return _sourceAttributesView;
     }
 
@@ -458,14 +488,17 @@ public class TypeDefinition extends TypeReference implements IMemberDefinition {
     // <editor-fold defaultstate="collapsed" desc="Members">
 
     public final List<FieldDefinition> getDeclaredFields() {
+        ensureMembersLoaded();
         return _declaredFieldsView;
     }
 
     public final List<MethodDefinition> getDeclaredMethods() {
+        ensureMembersLoaded();
         return _declaredMethodsView;
     }
 
     public final List<TypeDefinition> getDeclaredTypes() {
+        ensureMembersLoaded();
         return _declaredTypesView;
     }
 
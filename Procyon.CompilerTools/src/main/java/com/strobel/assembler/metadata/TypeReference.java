@@ -32,7 +32,7 @@ public abstract class TypeReference extends MemberReference implements IGenericP
 
     private String _name;
     private TypeReference _declaringType;
-    private ArrayType _arrayType;
+    private volatile ArrayType _arrayType;
 
     public TypeReference() {
     }
@@ -19,6 +19,8 @@ package com.strobel.decompiler;
 public class DecompilationOptions {
     private boolean _fullDecompilation = true;
     private DecompilerSettings _settings;
+    private IDecompilerMetrics _metrics;
+    private TypeAnalysisCache _analysisCache;
 
     public final boolean isFullDecompilation() {
         return _fullDecompilation;
@@ -38,4 +40,24 @@ public class DecompilationOptions {
     public final void setSettings(final DecompilerSettings settings) {
         _settings = settings;
     }
+
+    public final IDecompilerMetrics getMetrics() {
+        return _metrics;
+    }
+
+    public final void setMetrics(final IDecompilerMetrics metrics) {
+        _metrics = metrics;
+    }
+
+    public final TypeAnalysisCache getAnalysisCache() {
+        return _analysisCache;
+    }
+
+    /**
+     * Shares what is learned about one type while decompiling another with every decompilation using these
+     * options, e.g., all the types in a jar.  If not set, each decompilation starts from scratch.
+     */
+    public final void setAnalysisCache(final TypeAnalysisCache analysisCache) {
+        _analysisCache = analysisCache;
+    }
 }
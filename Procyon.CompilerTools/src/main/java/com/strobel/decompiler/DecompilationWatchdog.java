@@ -0,0 +1,146 @@
+/*
+ * DecompilationWatchdog.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.annotations.NotNull;
+import com.strobel.core.Closeables;
+import com.strobel.core.SafeCloseable;
+import com.strobel.core.VerifyArgument;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Enforces the method and type time budgets from {@link DecompilerSettings} by tripping the
+ * timeout flag of a {@link DecompilerContext} once a method body has run out of time.  The
+ * decompiler checks the flag between optimization steps and in its longer-running loops.
+ */
+public final class DecompilationWatchdog {
+    private final static ScheduledThreadPoolExecutor TIMER;
+
+    static {
+        TIMER = new ScheduledThreadPoolExecutor(
+            1,
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(@NotNull final Runnable r) {
+                    final Thread thread = new Thread(r, "procyon-decompiler-watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private DecompilationWatchdog() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Starts the time budget for a method body.  The returned scope must be closed when the method
+     * body is finished; it stops the watchdog, charges the elapsed time against the type budget, and
+     * clears the timeout flag if the watchdog tripped it.  Nested method bodies (e.g., those of
+     * lambdas and anonymous classes) share the budget of the outermost method.
+     */
+    public static SafeCloseable startMethodBudget(final DecompilerContext context) {
+        VerifyArgument.notNull(context, "context");
+
+        final DecompilerSettings settings = context.getSettings();
+        final long methodTimeout = settings.getMethodTimeout();
+        final long typeTimeout = settings.getTypeTimeout();
+
+        if (methodTimeout <= 0L && typeTimeout <= 0L || context.isMethodBudgetActive()) {
+            return Closeables.empty();
+        }
+
+        long budget = Long.MAX_VALUE;
+
+        if (methodTimeout > 0L) {
+            budget = TimeUnit.MILLISECONDS.toNanos(methodTimeout);
+        }
+
+        if (typeTimeout > 0L) {
+            budget = Math.min(budget, context.getRemainingTypeTime());
+        }
+
+        final MethodBudget methodBudget = new MethodBudget(context, context.getTimeoutFlag());
+
+        context.setMethodBudgetActive(true);
+
+        if (budget <= 0L) {
+            methodBudget.run();
+        }
+        else {
+            methodBudget.start(TIMER, budget);
+        }
+
+        return methodBudget;
+    }
+
+    private final static class MethodBudget implements Runnable, SafeCloseable {
+        private final DecompilerContext _context;
+        private final AtomicBoolean _timedOut;
+        private final long _startTime = System.nanoTime();
+
+        private ScheduledFuture<?> _timer;
+        private boolean _isTripped;
+        private boolean _isClosed;
+
+        MethodBudget(final DecompilerContext context, final AtomicBoolean timedOut) {
+            _context = context;
+            _timedOut = timedOut;
+        }
+
+        synchronized void start(final ScheduledExecutorService timer, final long budget) {
+            _timer = timer.schedule(this, budget, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!_isClosed) {
+                _isTripped = true;
+                _timedOut.set(true);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (_isClosed) {
+                return;
+            }
+
+            _isClosed = true;
+
+            if (_timer != null) {
+                _timer.cancel(false);
+            }
+
+            if (_isTripped) {
+                _timedOut.set(false);
+            }
+
+            _context.setTypeTimeUsed(_context.getTypeTimeUsed() + (System.nanoTime() - _startTime));
+            _context.setMethodBudgetActive(false);
+        }
+    }
+}
@@ -26,18 +26,31 @@ import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.assembler.metadata.TypeReference;
 import com.strobel.componentmodel.UserDataStoreBase;
 import com.strobel.core.BooleanBox;
+import com.strobel.core.VerifyArgument;
 
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class DecompilerContext extends UserDataStoreBase {
     private final List<String> _reservedVariableNames = new Collection<>();
     private final Set<IMemberDefinition> _forcedVisibleMembers = new LinkedHashSet<>();
     private DecompilerSettings _settings = new DecompilerSettings();
     private BooleanBox _isCanceled;
+    private AtomicBoolean _isTimedOut = new AtomicBoolean();
+    private volatile boolean _isAbandoned;
     private TypeDefinition _currentType;
     private MethodDefinition _currentMethod;
+    private boolean _isMethodBudgetActive;
+    private long _typeTimeUsed;
+    private long _inheritedTypeTimeUsed;
+    private boolean _hasTypeDeadline;
+    private long _typeDeadline;
+    private PhaseRecorder _phaseRecorder;
+    private TypeAnalysisCache _analysisCache;
 
     public DecompilerContext() {
     }
@@ -46,6 +59,50 @@ public final class DecompilerContext extends UserDataStoreBase {
         _settings = settings;
     }
 
+    /**
+     * Creates an isolated context for decompiling one method body of the current type on another
+     * thread.  It shares the settings, metrics, analysis cache, and cancellation flag of this context,
+     * and starts with a copy of its reserved variable names and the time already charged against the
+     * type budget.  It has a timeout flag of its own, so a method which runs out of time does not stop
+     * the others.  Pass it to {@link #mergeMethodContext(DecompilerContext)} once the method is done.
+     * <p>
+     * If there is a type budget, this context and all of its method contexts count down to a common
+     * deadline from then on, as time spent on several threads at once would otherwise be charged once
+     * for every thread.
+     */
+    public DecompilerContext createMethodContext() {
+        final DecompilerContext context = new DecompilerContext(_settings);
+
+        context._reservedVariableNames.addAll(_reservedVariableNames);
+        context._isCanceled = _isCanceled;
+        context._currentType = _currentType;
+        context._typeTimeUsed = _typeTimeUsed;
+        context._inheritedTypeTimeUsed = _typeTimeUsed;
+        context.setMetrics(getMetrics());
+        context._analysisCache = getAnalysisCache();
+
+        if (_settings.getTypeTimeout() > 0L) {
+            if (!_hasTypeDeadline) {
+                _typeDeadline = System.nanoTime() + getRemainingTypeTime();
+                _hasTypeDeadline = true;
+            }
+
+            context._typeDeadline = _typeDeadline;
+            context._hasTypeDeadline = true;
+        }
+
+        return context;
+    }
+
+    /**
+     * Folds the effects of a context created by {@link #createMethodContext()} back into this one:
+     * the time it charged against the type budget and the members it forced to be visible.
+     */
+    public void mergeMethodContext(final DecompilerContext methodContext) {
+        _typeTimeUsed += methodContext._typeTimeUsed - methodContext._inheritedTypeTimeUsed;
+        _forcedVisibleMembers.addAll(methodContext._forcedVisibleMembers);
+    }
+
     public DecompilerSettings getSettings() {
         return _settings;
     }
@@ -62,6 +119,138 @@ public final class DecompilerContext extends UserDataStoreBase {
         _isCanceled = canceled;
     }
 
+    /**
+     * Makes this context share the cancellation and timeout flags of {@code context}, so it is canceled
+     * whenever that context is.
+     */
+    public void shareCancellation(final DecompilerContext context) {
+        VerifyArgument.notNull(context, "context");
+
+        _isCanceled = context._isCanceled;
+        _isTimedOut = context._isTimedOut;
+    }
+
+    public boolean isCanceled() {
+        final BooleanBox canceled = _isCanceled;
+        return canceled != null && canceled.value || _isTimedOut.get() || _isAbandoned;
+    }
+
+    /**
+     * Cancels this context alone, e.g., a method context whose result is no longer needed, without
+     * setting the cancellation flag it may share with other contexts.  It cannot be undone.
+     */
+    public void abandon() {
+        _isAbandoned = true;
+    }
+
+    public void checkCanceled() {
+        if (isCanceled()) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * The flag {@link DecompilationWatchdog} sets from its timer thread when a method runs out of time.  It is
+     * kept apart from the caller's cancellation flag, so the watchdog can clear it without losing a cancellation,
+     * and it is atomic, so the decompiling thread is guaranteed to see it.
+     */
+    AtomicBoolean getTimeoutFlag() {
+        return _isTimedOut;
+    }
+
+    boolean isMethodBudgetActive() {
+        return _isMethodBudgetActive;
+    }
+
+    void setMethodBudgetActive(final boolean methodBudgetActive) {
+        _isMethodBudgetActive = methodBudgetActive;
+    }
+
+    long getTypeTimeUsed() {
+        return _typeTimeUsed;
+    }
+
+    void setTypeTimeUsed(final long typeTimeUsed) {
+        _typeTimeUsed = typeTimeUsed;
+    }
+
+    /**
+     * The time left in the type budget, in nanoseconds, which may be negative.  Only meaningful if the
+     * settings specify a type timeout.
+     */
+    long getRemainingTypeTime() {
+        if (_hasTypeDeadline) {
+            return _typeDeadline - System.nanoTime();
+        }
+
+        return TimeUnit.MILLISECONDS.toNanos(_settings.getTypeTimeout()) - _typeTimeUsed;
+    }
+
+    public IDecompilerMetrics getMetrics() {
+        final PhaseRecorder phaseRecorder = _phaseRecorder;
+        return phaseRecorder != null ? phaseRecorder.getMetrics() : null;
+    }
+
+    public void setMetrics(final IDecompilerMetrics metrics) {
+        _phaseRecorder = metrics != null ? new PhaseRecorder(metrics) : null;
+    }
+
+    /**
+     * Returns the cache of facts about other types, which is private to this context unless one was set.
+     */
+    public TypeAnalysisCache getAnalysisCache() {
+        if (_analysisCache == null) {
+            _analysisCache = new TypeAnalysisCache();
+        }
+        return _analysisCache;
+    }
+
+    public void setAnalysisCache(final TypeAnalysisCache analysisCache) {
+        _analysisCache = analysisCache;
+    }
+
+    /**
+     * Starts a phase nested inside the current one, attributed to the current type and method.
+     * Returns a token which must be passed to {@link #endPhase(int)}.
+     */
+    public int beginPhase(final String phase) {
+        final PhaseRecorder phaseRecorder = _phaseRecorder;
+
+        if (phaseRecorder == null) {
+            return 0;
+        }
+
+        return phaseRecorder.begin(phase, getCurrentTypeName(), getCurrentMethodName(), false);
+    }
+
+    /**
+     * Ends the previous phase started by this method, if it is the current phase, and starts the
+     * next one; used for a sequence of steps.  The last step ends with its enclosing phase.
+     */
+    public void nextPhase(final String phase) {
+        final PhaseRecorder phaseRecorder = _phaseRecorder;
+
+        if (phaseRecorder != null) {
+            phaseRecorder.next(phase, getCurrentTypeName(), getCurrentMethodName());
+        }
+    }
+
+    public void endPhase(final int token) {
+        final PhaseRecorder phaseRecorder = _phaseRecorder;
+
+        if (phaseRecorder != null) {
+            phaseRecorder.end(token);
+        }
+    }
+
+    private String getCurrentTypeName() {
+        return _currentType != null ? _currentType.getInternalName() : null;
+    }
+
+    private String getCurrentMethodName() {
+        return _currentMethod != null ? _currentMethod.getName() + _currentMethod.getErasedSignature() : null;
+    }
+
     public TypeDefinition getCurrentType() {
         return _currentType;
     }
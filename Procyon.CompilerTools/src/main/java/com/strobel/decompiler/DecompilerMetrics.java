@@ -0,0 +1,241 @@
+/*
+ * DecompilerMetrics.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An {@link IDecompilerMetrics} which aggregates the cost of each phase per method, per type, and
+ * for the whole run, and writes the totals as JSON.
+ */
+public final class DecompilerMetrics implements IDecompilerMetrics {
+    private final static com.sun.management.ThreadMXBean ALLOCATION_BEAN;
+
+    static {
+        com.sun.management.ThreadMXBean allocationBean = null;
+
+        try {
+            final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+            if (threadBean instanceof com.sun.management.ThreadMXBean) {
+                allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+
+                if (!allocationBean.isThreadAllocatedMemorySupported()) {
+                    allocationBean = null;
+                }
+                else if (!allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    allocationBean.setThreadAllocatedMemoryEnabled(true);
+                }
+            }
+        }
+        catch (final Throwable ignored) {
+            allocationBean = null;
+        }
+
+        ALLOCATION_BEAN = allocationBean;
+    }
+
+    private final long _startTime = System.nanoTime();
+    private final Map<String, PhaseStatistics> _phases = new TreeMap<>();
+    private final Map<String, TypeStatistics> _types = new TreeMap<>();
+
+    /**
+     * Gets the total bytes allocated so far by the current thread, or {@code -1} if the JVM cannot
+     * measure per-thread allocation.
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        if (ALLOCATION_BEAN == null) {
+            return -1L;
+        }
+
+        try {
+            return ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        catch (final Throwable ignored) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public synchronized void record(
+        final String typeName,
+        final String methodName,
+        final String phase,
+        final long elapsedNanos,
+        final long allocatedBytes) {
+
+        add(_phases, phase, elapsedNanos, allocatedBytes);
+
+        if (typeName == null) {
+            return;
+        }
+
+        TypeStatistics type = _types.get(typeName);
+
+        if (type == null) {
+            _types.put(typeName, type = new TypeStatistics());
+        }
+
+        add(type.phases, phase, elapsedNanos, allocatedBytes);
+
+        if (methodName == null) {
+            return;
+        }
+
+        Map<String, PhaseStatistics> methodPhases = type.methods.get(methodName);
+
+        if (methodPhases == null) {
+            type.methods.put(methodName, methodPhases = new TreeMap<>());
+        }
+
+        add(methodPhases, phase, elapsedNanos, allocatedBytes);
+    }
+
+    public synchronized void writeJson(final Appendable output) throws IOException {
+        output.append("{\n");
+        output.append("  \"elapsedNanos\": ").append(String.valueOf(System.nanoTime() - _startTime)).append(",\n");
+        output.append("  \"allocationTracking\": ").append(String.valueOf(ALLOCATION_BEAN != null)).append(",\n");
+        output.append("  \"phases\": ");
+        writePhases(output, _phases, "  ");
+        output.append(",\n");
+        output.append("  \"types\": {");
+
+        boolean firstType = true;
+
+        for (final Map.Entry<String, TypeStatistics> type : _types.entrySet()) {
+            output.append(firstType ? "\n" : ",\n").append("    ");
+            writeString(output, type.getKey());
+            output.append(": {\n");
+            output.append("      \"phases\": ");
+            writePhases(output, type.getValue().phases, "      ");
+            output.append(",\n");
+            output.append("      \"methods\": {");
+
+            boolean firstMethod = true;
+
+            for (final Map.Entry<String, Map<String, PhaseStatistics>> method : type.getValue().methods.entrySet()) {
+                output.append(firstMethod ? "\n" : ",\n").append("        ");
+                writeString(output, method.getKey());
+                output.append(": ");
+                writePhases(output, method.getValue(), "        ");
+                firstMethod = false;
+            }
+
+            output.append(firstMethod ? "}\n" : "\n      }\n");
+            output.append("    }");
+            firstType = false;
+        }
+
+        output.append(firstType ? "}\n" : "\n  }\n");
+        output.append("}\n");
+    }
+
+    private static void add(
+        final Map<String, PhaseStatistics> phases,
+        final String phase,
+        final long elapsedNanos,
+        final long allocatedBytes) {
+
+        PhaseStatistics statistics = phases.get(phase);
+
+        if (statistics == null) {
+            phases.put(phase, statistics = new PhaseStatistics());
+        }
+
+        statistics.calls++;
+        statistics.elapsedNanos += elapsedNanos;
+
+        if (allocatedBytes < 0L || statistics.allocatedBytes < 0L) {
+            statistics.allocatedBytes = -1L;
+        }
+        else {
+            statistics.allocatedBytes += allocatedBytes;
+        }
+    }
+
+    private static void writePhases(
+        final Appendable output,
+        final Map<String, PhaseStatistics> phases,
+        final String indent) throws IOException {
+
+        if (phases.isEmpty()) {
+            output.append("{}");
+            return;
+        }
+
+        output.append("{");
+
+        boolean first = true;
+
+        for (final Map.Entry<String, PhaseStatistics> phase : phases.entrySet()) {
+            final PhaseStatistics statistics = phase.getValue();
+
+            output.append(first ? "\n" : ",\n").append(indent).append("  ");
+            writeString(output, phase.getKey());
+            output.append(": { \"calls\": ").append(String.valueOf(statistics.calls))
+                  .append(", \"elapsedNanos\": ").append(String.valueOf(statistics.elapsedNanos))
+                  .append(", \"allocatedBytes\": ").append(String.valueOf(statistics.allocatedBytes))
+                  .append(" }");
+
+            first = false;
+        }
+
+        output.append("\n").append(indent).append("}");
+    }
+
+    private static void writeString(final Appendable output, final String value) throws IOException {
+        output.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '"':
+                    output.append("\\\"");
+                    break;
+                case '\\':
+                    output.append("\\\\");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        output.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        output.append(c);
+                    }
+                    break;
+            }
+        }
+
+        output.append('"');
+    }
+
+    private final static class PhaseStatistics {
+        long calls;
+        long elapsedNanos;
+        long allocatedBytes;
+    }
+
+    private final static class TypeStatistics {
+        final Map<String, PhaseStatistics> phases = new TreeMap<>();
+        final Map<String, Map<String, PhaseStatistics>> methods = new TreeMap<>();
+    }
+}
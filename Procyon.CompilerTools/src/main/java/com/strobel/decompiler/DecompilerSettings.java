@@ -50,6 +50,9 @@ public class DecompilerSettings {
     private int _textBlockLineMinimum = 3;
     private CompilerTarget _forcedCompilerTarget;
     private boolean _arePreviewFeaturesEnabled;
+    private long _methodTimeout;
+    private long _typeTimeout;
+    private int _methodThreadCount = 1;
 
     public DecompilerSettings() {
     }
@@ -234,6 +237,45 @@ public class DecompilerSettings {
         _textBlockLineMinimum = textBlockLineMinimum;
     }
 
+    /**
+     * Gets the time (in milliseconds) allowed for decompiling a single method body, or {@code 0} if
+     * there is no limit.  Methods which run out of time are emitted as a bytecode listing.
+     */
+    public final long getMethodTimeout() {
+        return _methodTimeout;
+    }
+
+    public final void setMethodTimeout(final long methodTimeout) {
+        _methodTimeout = methodTimeout;
+    }
+
+    /**
+     * Gets the total time (in milliseconds) allowed for decompiling the method bodies of a single type,
+     * or {@code 0} if there is no limit.  Once it runs out, the remaining methods of the type are emitted
+     * as a bytecode listing.
+     */
+    public final long getTypeTimeout() {
+        return _typeTimeout;
+    }
+
+    public final void setTypeTimeout(final long typeTimeout) {
+        _typeTimeout = typeTimeout;
+    }
+
+    /**
+     * Gets the number of threads used to decompile the method bodies of a single type, or {@code 1} if
+     * they are decompiled one at a time on the calling thread.  Only the bytecode AST and its optimization
+     * run in parallel; the Java AST is still built in declaration order, so the output does not change.
+     * The metadata system of the type must be thread safe.
+     */
+    public final int getMethodThreadCount() {
+        return _methodThreadCount;
+    }
+
+    public final void setMethodThreadCount(final int methodThreadCount) {
+        _methodThreadCount = methodThreadCount;
+    }
+
     public final CompilerTarget getForcedCompilerTarget() {
         return _forcedCompilerTarget;
     }
@@ -0,0 +1,37 @@
+/*
+ * IDecompilerMetrics.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+/**
+ * Receives the cost of each phase of the decompiler pipeline, e.g., building the bytecode AST,
+ * each {@code AstOptimizationStep}, each Java AST transform, and writing the output.  Phases may
+ * nest; the cost reported for a phase excludes the cost of the phases nested inside it.
+ * Implementations must be thread safe when types are decompiled in parallel.
+ */
+public interface IDecompilerMetrics {
+    /**
+     * Records one run of a phase.
+     *
+     * @param typeName       the internal name of the type being decompiled, or {@code null}
+     * @param methodName     the name and erased signature of the method being decompiled, or {@code null}
+     * @param phase          the name of the phase
+     * @param elapsedNanos   the wall time spent in the phase
+     * @param allocatedBytes the bytes allocated by the current thread during the phase, or {@code -1}
+     *                       if the JVM cannot measure per-thread allocation
+     */
+    void record(String typeName, String methodName, String phase, long elapsedNanos, long allocatedBytes);
+}
@@ -0,0 +1,125 @@
+/*
+ * PhaseRecorder.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the nested phases of a single {@link DecompilerContext} and reports their exclusive cost
+ * to an {@link IDecompilerMetrics}.  While a nested phase runs, the enclosing phase is paused.
+ */
+final class PhaseRecorder {
+    private final IDecompilerMetrics _metrics;
+    private final List<Frame> _frames = new ArrayList<>();
+
+    PhaseRecorder(final IDecompilerMetrics metrics) {
+        _metrics = metrics;
+    }
+
+    IDecompilerMetrics getMetrics() {
+        return _metrics;
+    }
+
+    int begin(final String phase, final String typeName, final String methodName, final boolean isSequential) {
+        final int depth = _frames.size();
+        final long now = System.nanoTime();
+        final long allocated = DecompilerMetrics.getCurrentThreadAllocatedBytes();
+
+        if (depth > 0) {
+            _frames.get(depth - 1).pause(now, allocated);
+        }
+
+        _frames.add(new Frame(phase, typeName, methodName, isSequential, now, allocated));
+
+        return depth;
+    }
+
+    void next(final String phase, final String typeName, final String methodName) {
+        final int depth = _frames.size();
+
+        if (depth > 0 && _frames.get(depth - 1).isSequential) {
+            end(depth - 1);
+        }
+
+        begin(phase, typeName, methodName, true);
+    }
+
+    //
+    // Ending a phase also ends any phases still open inside it, e.g., when an exception skipped
+    // their ends, or the remaining step of a sequence.
+    //
+    void end(final int depth) {
+        while (_frames.size() > depth) {
+            final long now = System.nanoTime();
+            final long allocated = DecompilerMetrics.getCurrentThreadAllocatedBytes();
+            final Frame frame = _frames.remove(_frames.size() - 1);
+
+            frame.pause(now, allocated);
+
+            _metrics.record(
+                frame.typeName,
+                frame.methodName,
+                frame.phase,
+                frame.elapsedNanos,
+                allocated < 0L ? -1L : frame.allocatedBytes
+            );
+
+            if (!_frames.isEmpty()) {
+                _frames.get(_frames.size() - 1).resume(now, allocated);
+            }
+        }
+    }
+
+    private final static class Frame {
+        final String phase;
+        final String typeName;
+        final String methodName;
+        final boolean isSequential;
+
+        long startTime;
+        long startAllocated;
+        long elapsedNanos;
+        long allocatedBytes;
+
+        Frame(
+            final String phase,
+            final String typeName,
+            final String methodName,
+            final boolean isSequential,
+            final long startTime,
+            final long startAllocated) {
+
+            this.phase = phase;
+            this.typeName = typeName;
+            this.methodName = methodName;
+            this.isSequential = isSequential;
+            this.startTime = startTime;
+            this.startAllocated = startAllocated;
+        }
+
+        void pause(final long now, final long allocated) {
+            elapsedNanos += now - startTime;
+            allocatedBytes += allocated - startAllocated;
+        }
+
+        void resume(final long now, final long allocated) {
+            startTime = now;
+            startAllocated = allocated;
+        }
+    }
+}
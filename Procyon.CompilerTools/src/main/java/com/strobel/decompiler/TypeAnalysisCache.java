@@ -0,0 +1,266 @@
+/*
+ * TypeAnalysisCache.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.assembler.ir.Instruction;
+import com.strobel.assembler.ir.InstructionCollection;
+import com.strobel.assembler.metadata.FieldDefinition;
+import com.strobel.assembler.metadata.MemberReference;
+import com.strobel.assembler.metadata.MethodBody;
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.componentmodel.Key;
+import com.strobel.core.VerifyArgument;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Facts derived from analyzing one type on behalf of the others which depend on it, e.g., the synthetic
+ * accessors an outer class declares, or the ordinal maps in a switch map class.  One cache may be shared by
+ * every type decompiled in a run, even across threads, so that each type is analyzed at most once.
+ * <p>
+ * Facts are filed under the name of the type they describe and a hash of its contents, so a different class
+ * file with the same name, e.g., from another jar, never sees them.  They must not be changed once cached,
+ * other than by thread-safe additions which do not depend on who makes them.
+ * <p>
+ * Facts may hold on to parts of a decompiled tree, so a cache only keeps a limited number of them, dropping
+ * the least recently used ones first.  Dropped facts are simply worked out again when next needed.
+ */
+public final class TypeAnalysisCache {
+    public final static int DEFAULT_CAPACITY = 512;
+
+    private final int _capacity;
+
+    //
+    // Both maps are guarded by their own monitors.
+    //
+    private final Map<Entry, Object> _facts;
+    private final Map<TypeDefinition, ContentHash> _contentHashes = new WeakHashMap<>();
+
+    public TypeAnalysisCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache which keeps at most {@code capacity} facts, of any kind, for any type.
+     */
+    public TypeAnalysisCache(final int capacity) {
+        _capacity = VerifyArgument.isPositive(capacity, "capacity");
+
+        _facts = new LinkedHashMap<Entry, Object>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Entry, Object> eldest) {
+                return size() > _capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the facts of the given {@code kind} cached for {@code type}, or {@code null} if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T> T get(final TypeDefinition type, final Key<T> kind) {
+        final Entry entry = new Entry(kind, type, getContentHash(type));
+
+        synchronized (_facts) {
+            return (T) _facts.get(entry);
+        }
+    }
+
+    /**
+     * Caches the facts of the given {@code kind} for {@code type}, unless another thread got there first.
+     * Returns whichever facts are cached afterwards.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T> T put(final TypeDefinition type, final Key<T> kind, final T facts) {
+        VerifyArgument.notNull(facts, "facts");
+
+        final Entry entry = new Entry(kind, type, getContentHash(type));
+
+        synchronized (_facts) {
+            final Object existing = _facts.get(entry);
+
+            if (existing != null) {
+                return (T) existing;
+            }
+
+            _facts.put(entry, facts);
+            return facts;
+        }
+    }
+
+    public final int getCapacity() {
+        return _capacity;
+    }
+
+    public final int size() {
+        synchronized (_facts) {
+            return _facts.size();
+        }
+    }
+
+    public final void clear() {
+        synchronized (_facts) {
+            _facts.clear();
+        }
+    }
+
+    private long getContentHash(final TypeDefinition type) {
+        VerifyArgument.notNull(type, "type");
+
+        //
+        // Types with the same name are equal to each other, so make sure the hash was worked out for this
+        // very definition.  Two threads may both work it out, but they get the same answer.
+        //
+        synchronized (_contentHashes) {
+            final ContentHash cached = _contentHashes.get(type);
+
+            if (cached != null && cached.type.get() == type) {
+                return cached.hash;
+            }
+        }
+
+        final long hash = contentHash(type);
+
+        synchronized (_contentHashes) {
+            _contentHashes.put(type, new ContentHash(type, hash));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Hashes the members of {@code type}, along with the bodies of its synthetic methods and its static
+     * initializer, which are what other types need to know about it.
+     */
+    static long contentHash(final TypeDefinition type) {
+        long hash = hash(0L, type.getFlags(), type.getInternalName());
+
+        for (final FieldDefinition field : type.getDeclaredFields()) {
+            hash = hash(hash, field.getFlags(), field.getName(), field.getErasedSignature());
+        }
+
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            hash = hash(hash, method.getFlags(), method.getName(), method.getErasedSignature());
+
+            if (method.hasBody() && (method.isSynthetic() || method.isTypeInitializer())) {
+                final MethodBody body = method.getBody();
+
+                if (body == null) {
+                    continue;
+                }
+
+                final InstructionCollection instructions = body.getInstructions();
+
+                hash = hash * 31 + body.getCodeSize();
+
+                for (int i = 0, n = instructions.size(); i < n; i++) {
+                    final Instruction instruction = instructions.get(i);
+
+                    hash = hash * 31 + instruction.getOpCode().ordinal();
+
+                    if (instruction.hasOperand()) {
+                        hash = hash * 31 + operandHash(instruction.<Object>getOperand(0));
+                    }
+                }
+            }
+        }
+
+        return hash;
+    }
+
+    private static int operandHash(final Object operand) {
+        //
+        // Only hash operands which look the same however the type was loaded.
+        //
+        if (operand instanceof TypeReference) {
+            return ((TypeReference) operand).getInternalName().hashCode();
+        }
+
+        if (operand instanceof MemberReference) {
+            final MemberReference member = (MemberReference) operand;
+            return (member.getFullName() + member.getErasedSignature()).hashCode();
+        }
+
+        if (operand instanceof String || operand instanceof Number) {
+            return operand.hashCode();
+        }
+
+        return 0;
+    }
+
+    private static long hash(final long seed, final long flags, final String... parts) {
+        long hash = seed * 31 + flags;
+
+        for (final String part : parts) {
+            hash = hash * 31 + (part != null ? part.hashCode() : 0);
+        }
+
+        return hash;
+    }
+
+    private final static class ContentHash {
+        //
+        // Only weakly held, as the map would otherwise keep its key alive.
+        //
+        final WeakReference<TypeDefinition> type;
+        final long hash;
+
+        ContentHash(final TypeDefinition type, final long hash) {
+            this.type = new WeakReference<>(type);
+            this.hash = hash;
+        }
+    }
+
+    private final static class Entry {
+        final Key<?> kind;
+        final String typeName;
+        final long contentHash;
+
+        Entry(final Key<?> kind, final TypeDefinition type, final long contentHash) {
+            this.kind = VerifyArgument.notNull(kind, "kind");
+            this.typeName = type.getInternalName();
+            this.contentHash = contentHash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+
+            final Entry entry = (Entry) o;
+
+            return contentHash == entry.contentHash &&
+                   kind == entry.kind &&
+                   typeName.equals(entry.typeName);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = kind.hashCode();
+            result = 31 * result + typeName.hashCode();
+            result = 31 * result + (int) (contentHash ^ (contentHash >>> 32));
+            return result;
+        }
+    }
+}
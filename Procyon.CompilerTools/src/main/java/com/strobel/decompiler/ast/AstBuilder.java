@@ -103,6 +103,8 @@ public final class AstBuilder {
         builder._cfg.computeDominance();
         builder._cfg.computeDominanceFrontier();
 
+        context.checkCanceled();
+
         LOG.fine("Performing stack analysis...");
 
         final List<ByteCode> byteCode = builder.performStackAnalysis();
@@ -1906,8 +1908,342 @@ public final class AstBuilder {
         return result;
     }
 
-    @SuppressWarnings("ConstantConditions")
     private List<ByteCode> performStackAnalysis() {
+        final Map<Instruction, Frame> verifiedFrames = getVerifiedFrames();
+
+        if (!verifiedFrames.isEmpty()) {
+            final List<ByteCode> body = performStackAnalysis(verifiedFrames);
+
+            if (body != null) {
+                return body;
+            }
+        }
+
+        return performStackAnalysis(Collections.<Instruction, Frame>emptyMap());
+    }
+
+    //
+    // The frames in a method's StackMapTable describe the original bytecode, so they only apply while
+    // our copy of the instructions still lines up with it, i.e., no subroutines or finally blocks have
+    // been inlined and no branches have been redirected.
+    //
+    private Map<Instruction, Frame> getVerifiedFrames() {
+        final List<StackMapFrame> stackMapFrames = _body.getStackMapFrames();
+
+        if (stackMapFrames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final InstructionCollection originalInstructions = _body.getInstructions();
+
+        if (originalInstructions.size() != _instructions.size()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<Instruction, Instruction> copies = new IdentityHashMap<>();
+
+        for (int i = 0; i < originalInstructions.size(); i++) {
+            final Instruction original = originalInstructions.get(i);
+            final Instruction copy = _instructions.get(i);
+
+            if (_originalInstructionMap.get(copy) != original || !isUnmodifiedCopy(copy, original)) {
+                return Collections.emptyMap();
+            }
+
+            copies.put(original, copy);
+        }
+
+        final Map<Instruction, Frame> verifiedFrames = new IdentityHashMap<>();
+
+        for (final StackMapFrame stackMapFrame : stackMapFrames) {
+            final Instruction start = copies.get(stackMapFrame.getStartInstruction());
+
+            if (start == null) {
+                return Collections.emptyMap();
+            }
+
+            final Frame frame = stackMapFrame.getFrame();
+
+            verifiedFrames.put(
+                start,
+                new Frame(
+                    FrameType.New,
+                    remapFrameValues(frame.getLocalValues(), copies),
+                    remapFrameValues(frame.getStackValues(), copies)
+                )
+            );
+        }
+
+        return verifiedFrames;
+    }
+
+    private static boolean isUnmodifiedCopy(final Instruction copy, final Instruction original) {
+        if (copy.getOpCode() != original.getOpCode() || copy.getOffset() != original.getOffset()) {
+            return false;
+        }
+
+        if (!copy.hasOperand()) {
+            return true;
+        }
+
+        final Object operand = copy.getOperand(0);
+        final Object originalOperand = original.getOperand(0);
+
+        if (operand instanceof Instruction) {
+            return originalOperand instanceof Instruction &&
+                   ((Instruction) operand).getOffset() == ((Instruction) originalOperand).getOffset();
+        }
+
+        if (operand instanceof SwitchInfo) {
+            if (!(originalOperand instanceof SwitchInfo)) {
+                return false;
+            }
+
+            final SwitchInfo switchInfo = (SwitchInfo) operand;
+            final SwitchInfo originalSwitchInfo = (SwitchInfo) originalOperand;
+            final Instruction[] targets = switchInfo.getTargets();
+            final Instruction[] originalTargets = originalSwitchInfo.getTargets();
+
+            if (switchInfo.getDefaultTarget().getOffset() != originalSwitchInfo.getDefaultTarget().getOffset() ||
+                targets.length != originalTargets.length) {
+
+                return false;
+            }
+
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i].getOffset() != originalTargets[i].getOffset()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static FrameValue[] remapFrameValues(final List<FrameValue> values, final Map<Instruction, Instruction> copies) {
+        final FrameValue[] result = values.toArray(new FrameValue[values.size()]);
+
+        for (int i = 0; i < result.length; i++) {
+            final FrameValue value = result[i];
+
+            if (value.getType() == FrameValueType.Uninitialized && value.getParameter() instanceof Instruction) {
+                result[i] = FrameValue.makeUninitializedReference(copies.get((Instruction) value.getParameter()));
+            }
+        }
+
+        return result;
+    }
+
+    //
+    // Checks the state computed for an edge against the verified frame at its target.  We rely on the
+    // frame instead of merging the states of all incoming edges, so if the two disagree on anything
+    // the verifier would have checked, we cannot trust the frames for this method.
+    //
+    private static boolean matchesVerifiedFrame(final Frame frame, final StackSlot[] stack, final VariableSlot[] variables) {
+        final List<FrameValue> stackValues = frame.getStackValues();
+        final List<FrameValue> localValues = frame.getLocalValues();
+
+        if (stackValues.size() != stack.length || localValues.size() > variables.length) {
+            return false;
+        }
+
+        for (int i = 0; i < stack.length; i++) {
+            if (!isCompatibleWithVerifiedValue(stackValues.get(i), stack[i].value)) {
+                return false;
+            }
+        }
+
+        for (int i = 0, n = localValues.size(); i < n; i++) {
+            if (!isCompatibleWithVerifiedValue(localValues.get(i), variables[i].value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isCompatibleWithVerifiedValue(final FrameValue verified, final FrameValue actual) {
+        switch (verified.getType()) {
+            case Top:
+                return true;
+
+            case Integer:
+            case Float:
+            case Long:
+            case Double:
+                return actual.getType() == verified.getType();
+
+            default:
+                return isReferenceValue(verified) && (isReferenceValue(actual) || isUnknownValue(actual));
+        }
+    }
+
+    //
+    // We do not track initialization the way the verifier does, so any kind of reference is as good
+    // as any other.
+    //
+    private static boolean isReferenceValue(final FrameValue value) {
+        switch (value.getType()) {
+            case Null:
+            case Reference:
+            case Uninitialized:
+            case UninitializedThis:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    //
+    // Our own analysis may not know a value yet, e.g., on a path out of an exception handler whose
+    // state has not been fully propagated.
+    //
+    private static boolean isUnknownValue(final FrameValue value) {
+        return value.getType() == FrameValueType.Empty || value.getType() == FrameValueType.Top;
+    }
+
+    //
+    // Verified reference types are erased, so for references we keep the (possibly generic) types we
+    // computed ourselves, merging them exactly as Frame.merge() would.  All other types come straight
+    // from the frame.
+    //
+    private static FrameValue selectVerifiedValue(final FrameValue verified, final FrameValue actual) {
+        return isReferenceValue(verified) ? actual : verified;
+    }
+
+    private static FrameValue mergeVerifiedValue(
+        final FrameValue verified,
+        final FrameValue oldValue,
+        final FrameValue value,
+        final Map<Instruction, TypeReference> initializations) {
+
+        if (!isReferenceValue(verified)) {
+            return oldValue;
+        }
+
+        FrameValue newValue = value;
+
+        if (newValue.getParameter() instanceof Instruction) {
+            final TypeReference initializedType = initializations.get(newValue.getParameter());
+
+            if (initializedType != null) {
+                newValue = FrameValue.makeReference(initializedType);
+            }
+        }
+
+        if (Comparer.equals(oldValue, newValue) || newValue == FrameValue.EMPTY) {
+            return oldValue;
+        }
+
+        if (oldValue == FrameValue.EMPTY) {
+            return newValue;
+        }
+
+        final FrameValue merged;
+
+        if (oldValue.getType() == FrameValueType.Reference) {
+            if (newValue == FrameValue.NULL) {
+                return oldValue;
+            }
+
+            if (newValue.getType() == FrameValueType.Reference) {
+                merged = FrameValue.makeReference(
+                    MetadataHelper.findCommonSuperType(
+                        (TypeReference) newValue.getParameter(),
+                        (TypeReference) oldValue.getParameter()
+                    )
+                );
+            }
+            else {
+                merged = FrameValue.TOP;
+            }
+        }
+        else if (oldValue == FrameValue.NULL && newValue.getType() == FrameValueType.Reference) {
+            merged = newValue;
+        }
+        else {
+            merged = FrameValue.TOP;
+        }
+
+        return merged.equals(oldValue) ? oldValue : merged;
+    }
+
+    private static StackSlot[] applyVerifiedStack(final Frame frame, final StackSlot[] stack) {
+        final List<FrameValue> stackValues = frame.getStackValues();
+        final StackSlot[] result = new StackSlot[stack.length];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new StackSlot(selectVerifiedValue(stackValues.get(i), stack[i].value), stack[i].definitions);
+        }
+
+        return result;
+    }
+
+    private static VariableSlot[] applyVerifiedLocals(final Frame frame, final VariableSlot[] variables) {
+        final List<FrameValue> localValues = frame.getLocalValues();
+        final VariableSlot[] result = new VariableSlot[variables.length];
+
+        for (int i = 0; i < result.length; i++) {
+            final FrameValue value = i < localValues.size() ? selectVerifiedValue(localValues.get(i), variables[i].value)
+                                                            : FrameValue.TOP;
+
+            result[i] = new VariableSlot(value, variables[i].definitions);
+        }
+
+        return result;
+    }
+
+    //
+    // The types at a target with a verified frame are fixed, except for references, so later edges
+    // mostly contribute new definitions.
+    //
+    private static boolean mergeVerifiedState(
+        final ByteCode target,
+        final Frame frame,
+        final StackSlot[] stack,
+        final VariableSlot[] variables,
+        final Map<Instruction, TypeReference> initializations) {
+
+        final List<FrameValue> stackValues = frame.getStackValues();
+        final List<FrameValue> localValues = frame.getLocalValues();
+        final StackSlot[] oldStack = target.stackBefore;
+        final VariableSlot[] oldVariables = target.variablesBefore;
+
+        boolean modified = false;
+
+        for (int i = 0; i < oldStack.length; i++) {
+            final FrameValue oldValue = oldStack[i].value;
+            final FrameValue newValue = mergeVerifiedValue(stackValues.get(i), oldValue, stack[i].value, initializations);
+            final ByteCode[] oldDefinitions = oldStack[i].definitions;
+            final ByteCode[] newDefinitions = ArrayUtilities.union(oldDefinitions, stack[i].definitions);
+
+            if (newValue != oldValue || newDefinitions.length > oldDefinitions.length) {
+                oldStack[i] = new StackSlot(newValue, newDefinitions);
+                modified = true;
+            }
+        }
+
+        for (int i = 0; i < oldVariables.length; i++) {
+            final FrameValue oldValue = oldVariables[i].value;
+            final FrameValue newValue = i < localValues.size() ? mergeVerifiedValue(localValues.get(i), oldValue, variables[i].value, initializations)
+                                                               : oldValue;
+            final ByteCode[] oldDefinitions = oldVariables[i].definitions;
+            final ByteCode[] newDefinitions = ArrayUtilities.union(oldDefinitions, variables[i].definitions);
+
+            if (newValue != oldValue || newDefinitions.length > oldDefinitions.length) {
+                oldVariables[i] = new VariableSlot(newValue, newDefinitions);
+                modified = true;
+            }
+        }
+
+        return modified;
+    }
+
+    //
+    // Returns null if the state flowing into a target contradicts its verified frame.
+    //
+    @SuppressWarnings("ConstantConditions")
+    private List<ByteCode> performStackAnalysis(final Map<Instruction, Frame> verifiedFrames) {
         final Set<ByteCode> handlerStarts = new HashSet<>();
         final Map<Instruction, ByteCode> byteCodeMap = new LinkedHashMap<>();
         final Map<Instruction, ControlFlowNode> nodeMap = new IdentityHashMap<>();
@@ -2076,6 +2412,8 @@ public final class AstBuilder {
         // Process agenda.
         //
         while (!(agenda.isEmpty() && handlerAgenda.isEmpty())) {
+            _context.checkCanceled();
+
             final ByteCode byteCode = agenda.isEmpty() ? handlerAgenda.removeFirst() : agenda.removeFirst();
 
             //
@@ -2215,21 +2553,40 @@ public final class AstBuilder {
                     effectiveStack = newStack;
                 }
 
+                final Frame verifiedFrame = isSubroutineJump || handlerStarts.contains(branchTarget)
+                                            ? null
+                                            : verifiedFrames.get(branchTarget.instruction);
+
+                if (verifiedFrame != null && !matchesVerifiedFrame(verifiedFrame, effectiveStack, newVariableState)) {
+                    return null;
+                }
+
                 if (branchTarget.stackBefore == null && branchTarget.variablesBefore == null) {
+                    if (verifiedFrame != null) {
+                        branchTarget.stackBefore = applyVerifiedStack(verifiedFrame, effectiveStack);
+                        branchTarget.variablesBefore = applyVerifiedLocals(verifiedFrame, newVariableState);
+                    }
+                    else {
 //                    if (branchTargets.size() == 1) {
 //                        branchTarget.stackBefore = effectiveStack;
 //                        branchTarget.variablesBefore = newVariableState;
 //                    }
 //                    else {
-                    //
-                    // Do not share data for several bytecodes.
-                    //
-                    branchTarget.stackBefore = StackSlot.modifyStack(effectiveStack, 0, null);
-                    branchTarget.variablesBefore = VariableSlot.cloneVariableState(newVariableState);
+                        //
+                        // Do not share data for several bytecodes.
+                        //
+                        branchTarget.stackBefore = StackSlot.modifyStack(effectiveStack, 0, null);
+                        branchTarget.variablesBefore = VariableSlot.cloneVariableState(newVariableState);
 //                    }
+                    }
 
                     agenda.push(branchTarget);
                 }
+                else if (verifiedFrame != null) {
+                    if (mergeVerifiedState(branchTarget, verifiedFrame, effectiveStack, newVariableState, initializations)) {
+                        agenda.addLast(branchTarget);
+                    }
+                }
                 else {
                     final boolean isHandlerStart = handlerStarts.contains(branchTarget);
 
@@ -46,9 +46,24 @@ public final class AstOptimizer {
         VerifyArgument.notNull(context, "context");
         VerifyArgument.notNull(method, "method");
 
+        final int phase = context.beginPhase("AstOptimizer");
+
+        try {
+            runOptimizationSteps(context, method, abortBeforeStep);
+        }
+        finally {
+            context.endPhase(phase);
+        }
+    }
+
+    private static void runOptimizationSteps(
+        final DecompilerContext context,
+        final Block method,
+        final AstOptimizationStep abortBeforeStep) {
+
         LOG.fine("Beginning bytecode AST optimization...");
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveRedundantCode)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveRedundantCode)) {
             return;
         }
 
@@ -56,7 +71,7 @@ public final class AstOptimizer {
 
         removeRedundantCode(method, context.getSettings());
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.ReduceBranchInstructionSet)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.ReduceBranchInstructionSet)) {
             return;
         }
 
@@ -66,29 +81,29 @@ public final class AstOptimizer {
             reduceBranchInstructionSet(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineVariables)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineVariables)) {
             return;
         }
 
         final Inlining inliningPhase1 = new Inlining(context, method);
 
         while (inliningPhase1.inlineAllVariables()) {
-            inliningPhase1.analyzeMethod();
+            context.checkCanceled();
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.CopyPropagation)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.CopyPropagation)) {
             return;
         }
 
         inliningPhase1.copyPropagation();
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RewriteFinallyBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RewriteFinallyBlocks)) {
             return;
         }
 
         rewriteFinallyBlocks(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SplitToMovableBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SplitToMovableBlocks)) {
             return;
         }
 
@@ -96,13 +111,13 @@ public final class AstOptimizer {
             optimizer.splitToMovableBlocks(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveUnreachableBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveUnreachableBlocks)) {
             return;
         }
 
         removeUnreachableBlocks(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TypeInference)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TypeInference)) {
             return;
         }
 
@@ -115,6 +130,8 @@ public final class AstOptimizer {
         int blockNumber = 0;
 
         for (final Block block : method.getSelfAndChildrenRecursive(Block.class)) {
+            final BlockOptimizationWorklist worklist = new BlockOptimizationWorklist();
+
             boolean modified;
             int blockRound = 0;
 
@@ -126,122 +143,162 @@ public final class AstOptimizer {
                 }
 
                 modified = false;
+                worklist.nextRound();
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveInnerClassAccessNullChecks)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveInnerClassAccessNullChecks)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new RemoveInnerClassAccessNullChecksOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new RemoveInnerClassAccessNullChecksOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.PreProcessShortCircuitAssignments)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.PreProcessShortCircuitAssignments)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new PreProcessShortCircuitAssignmentsOptimization(context, method));
+                if (worklist.shouldRunOnConditionalBranches(block)) {
+                    modified |= worklist.complete(runOptimization(block, new PreProcessShortCircuitAssignmentsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SimplifyShortCircuit)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SimplifyShortCircuit)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new SimplifyShortCircuitOptimization(context, method));
+                if (worklist.shouldRunOnConditionalBranches(block)) {
+                    modified |= worklist.complete(runOptimization(block, new SimplifyShortCircuitOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.JoinBranchConditions)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.JoinBranchConditions)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new JoinBranchConditionsOptimization(context, method));
+                if (worklist.shouldRunOnConditionalBranches(block)) {
+                    modified |= worklist.complete(runOptimization(block, new JoinBranchConditionsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SimplifyTernaryOperator)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SimplifyTernaryOperator)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new SimplifyTernaryOperatorOptimization(context, method));
-                modified |= runOptimization(block, new SimplifyTernaryOperatorRoundTwoOptimization(context, method));
+                if (worklist.shouldRunOnConditionalBranches(block)) {
+                    modified |= worklist.complete(runOptimization(block, new SimplifyTernaryOperatorOptimization(context, method)));
+                }
+
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new SimplifyTernaryOperatorRoundTwoOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.JoinBasicBlocks)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.JoinBasicBlocks)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new JoinBasicBlocksOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new JoinBasicBlocksOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.SimplifyLogicalNot)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.SimplifyLogicalNot)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new SimplifyLogicalNotOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new SimplifyLogicalNotOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TransformObjectInitializers)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TransformObjectInitializers)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new TransformObjectInitializersOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new TransformObjectInitializersOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TransformArrayInitializers)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TransformArrayInitializers)) {
                     done = true;
                     break;
                 }
 
-                modified |= new Inlining(context, method, true).inlineAllInBlock(block);
-                modified |= runOptimization(block, new TransformArrayInitializersOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(new Inlining(context, method, true).inlineAllInBlock(block));
+                }
+
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new TransformArrayInitializersOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.IntroducePostIncrement)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.IntroducePostIncrement)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new IntroducePostIncrementOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new IntroducePostIncrementOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineConditionalAssignments)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineConditionalAssignments)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new InlineConditionalAssignmentsOptimization(context, method));
+                if (worklist.shouldRunOnConditionalBranches(block)) {
+                    modified |= worklist.complete(runOptimization(block, new InlineConditionalAssignmentsOptimization(context, method)));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.MakeAssignmentExpressions)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.MakeAssignmentExpressions)) {
                     done = true;
                     break;
                 }
 
-                modified |= runOptimization(block, new MakeAssignmentExpressionsOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new MakeAssignmentExpressionsOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineLambdas)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineLambdas)) {
                     return;
                 }
 
-                modified |= runOptimization(block, new InlineLambdasOptimization(context, method));
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(runOptimization(block, new InlineLambdasOptimization(context, method), worklist));
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineVariables2)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineVariables2)) {
                     done = true;
                     break;
                 }
 
-                modified |= new Inlining(context, method, true).inlineAllInBlock(block);
-                new Inlining(context, method).copyPropagation();
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(new Inlining(context, method, true).inlineAllInBlock(block));
+                }
+
+                if (worklist.shouldRun()) {
+                    worklist.complete(new Inlining(context, method).copyPropagation());
+                }
 
-                if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.MergeDisparateObjectInitializations)) {
+                if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.MergeDisparateObjectInitializations)) {
                     done = true;
                     break;
                 }
 
-                modified |= mergeDisparateObjectInitializations(context, block);
+                if (worklist.shouldRun()) {
+                    modified |= worklist.complete(mergeDisparateObjectInitializations(context, block));
+                }
             }
-            while (modified);
+            while (modified || worklist.needsConfirmingRound());
         }
 
         if (done) {
             return;
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.FindLoops)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.FindLoops)) {
             return;
         }
 
@@ -249,7 +306,7 @@ public final class AstOptimizer {
             new LoopsAndConditions(context).findLoops(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.FindConditions)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.FindConditions)) {
             return;
         }
 
@@ -257,43 +314,43 @@ public final class AstOptimizer {
             new LoopsAndConditions(context).findConditions(block);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.FlattenNestedMovableBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.FlattenNestedMovableBlocks)) {
             return;
         }
 
         flattenBasicBlocks(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveRedundantCode2)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveRedundantCode2)) {
             return;
         }
 
         removeRedundantCode(method, context.getSettings());
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.GotoRemoval)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.GotoRemoval)) {
             return;
         }
 
         new GotoRemoval().removeGotos(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.DuplicateReturns)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.DuplicateReturns)) {
             return;
         }
 
         duplicateReturnStatements(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.ReduceIfNesting)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.ReduceIfNesting)) {
             return;
         }
 
         reduceIfNesting(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.GotoRemoval2)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.GotoRemoval2)) {
             return;
         }
 
         new GotoRemoval().removeGotos(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.ReduceComparisonInstructionSet)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.ReduceComparisonInstructionSet)) {
             return;
         }
 
@@ -301,13 +358,13 @@ public final class AstOptimizer {
             reduceComparisonInstructionSet(e);
         }
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RecombineVariables)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RecombineVariables)) {
             return;
         }
 
         recombineVariables(method);
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.RemoveRedundantCode3)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.RemoveRedundantCode3)) {
             return;
         }
 
@@ -317,7 +374,7 @@ public final class AstOptimizer {
             GotoRemoval.OPTION_REMOVE_REDUNDANT_RETURNS
         );
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.CleanUpTryBlocks)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.CleanUpTryBlocks)) {
             return;
         }
 
@@ -328,7 +385,7 @@ public final class AstOptimizer {
         // introduction of ternary operators may open up additional inlining possibilities.
         //
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.InlineVariables3)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.InlineVariables3)) {
             return;
         }
 
@@ -336,7 +393,7 @@ public final class AstOptimizer {
 
         inliningPhase3.inlineAllVariables();
 
-        if (!shouldPerformStep(abortBeforeStep, AstOptimizationStep.TypeInference2)) {
+        if (!shouldPerformStep(context, abortBeforeStep, AstOptimizationStep.TypeInference2)) {
             return;
         }
 
@@ -347,11 +404,18 @@ public final class AstOptimizer {
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
-    private static boolean shouldPerformStep(final AstOptimizationStep abortBeforeStep, final AstOptimizationStep nextStep) {
+    private static boolean shouldPerformStep(
+        final DecompilerContext context,
+        final AstOptimizationStep abortBeforeStep,
+        final AstOptimizationStep nextStep) {
+
         if (abortBeforeStep == nextStep) {
             return false;
         }
 
+        context.checkCanceled();
+        context.nextPhase(nextStep.name());
+
         if (nextStep.isBlockLevelOptimization()) {
             if (LOG.isLoggable(Level.FINER)) {
                 LOG.finer("Performing block-level optimization: " + nextStep + ".");
@@ -781,28 +845,28 @@ public final class AstOptimizer {
     static void removeRedundantCode(final Block method, final DecompilerSettings settings) {
         final Map<Label, MutableInteger> labelReferenceCount = new IdentityHashMap<>();
 
-        final List<Expression> branchExpressions = method.getSelfAndChildrenRecursive(
+        method.visitSelfAndChildrenRecursive(
             Expression.class,
-            new Predicate<Expression>() {
+            new INodeVisitor<Expression>() {
                 @Override
-                public boolean test(final Expression e) {
-                    return e.isBranch();
-                }
-            }
-        );
+                public boolean visit(final Expression e) {
+                    if (e.isBranch()) {
+                        for (final Label branchTarget : e.getBranchTargets()) {
+                            final MutableInteger referenceCount = labelReferenceCount.get(branchTarget);
 
-        for (final Expression e : branchExpressions) {
-            for (final Label branchTarget : e.getBranchTargets()) {
-                final MutableInteger referenceCount = labelReferenceCount.get(branchTarget);
+                            if (referenceCount == null) {
+                                labelReferenceCount.put(branchTarget, new MutableInteger(1));
+                            }
+                            else {
+                                referenceCount.increment();
+                            }
+                        }
+                    }
 
-                if (referenceCount == null) {
-                    labelReferenceCount.put(branchTarget, new MutableInteger(1));
-                }
-                else {
-                    referenceCount.increment();
+                    return true;
                 }
             }
-        }
+        );
 
         for (final Block block : method.getSelfAndChildrenRecursive(Block.class)) {
             final List<Node> body = block.getBody();
@@ -1410,7 +1474,7 @@ public final class AstOptimizer {
 
     private final static class RemoveInnerClassAccessNullChecksOptimization extends AbstractExpressionOptimization {
         protected RemoveInnerClassAccessNullChecksOptimization(final DecompilerContext context, final Block method) {
-            super(context, method);
+            super(context, method, AstCode.InvokeSpecial);
         }
 
         @Override
@@ -2375,6 +2439,7 @@ public final class AstOptimizer {
 
             if (simplified != head) {
                 body.set(position, simplified);
+                return true;
             }
 
             return modified.get();
@@ -2382,7 +2447,7 @@ public final class AstOptimizer {
 
         private static Expression simplify(final Expression head, final BooleanBox modified) {
             if (match(head, AstCode.TernaryOp)) {
-                return simplifyTernaryDirect(head);
+                return simplifyTernaryDirect(head, modified);
             }
 
             final List<Expression> arguments = head.getArguments();
@@ -2432,7 +2497,7 @@ public final class AstOptimizer {
                           : condition;
         }
 
-        private static Expression simplifyTernaryDirect(final Expression head) {
+        private static Expression simplifyTernaryDirect(final Expression head, final BooleanBox modified) {
             final List<Expression> a = new ArrayList<>();
 
             final StrongBox<Variable> v;
@@ -2465,6 +2530,7 @@ public final class AstOptimizer {
                     head.getArguments().add(newTernary);
 
                     newTernary.getRanges().addAll(head.getRanges());
+                    modified.set(true);
 
                     return head;
                 }
@@ -2516,7 +2582,7 @@ public final class AstOptimizer {
 
     private final static class TransformObjectInitializersOptimization extends AbstractExpressionOptimization {
         protected TransformObjectInitializersOptimization(final DecompilerContext context, final Block method) {
-            super(context, method);
+            super(context, method, AstCode.Store, AstCode.InvokeSpecial);
         }
 
         @Override
@@ -2592,21 +2658,31 @@ public final class AstOptimizer {
 
         parentLookup.put(method, Node.NULL);
 
-        for (final Node node : method.getSelfAndChildrenRecursive(Node.class)) {
-            if (matchStore(node, variable, args) &&
-                match(single(args), AstCode.__New)) {
+        method.visitSelfAndChildrenRecursive(
+            Node.class,
+            new INodeVisitor<Node>() {
+                @Override
+                public boolean visit(final Node node) {
+                    if (matchStore(node, variable, args) &&
+                        match(single(args), AstCode.__New)) {
 
-                newExpressions.put(variable.get(), (Expression) node);
-            }
+                        newExpressions.put(variable.get(), (Expression) node);
+                    }
 
-            for (final Node child : node.getChildren()) {
-                if (parentLookup.containsKey(child)) {
-                    throw Error.expressionLinkedFromMultipleLocations(child);
-                }
+                    for (int i = 0, n = node.getChildCount(); i < n; i++) {
+                        final Node child = node.getChild(i);
+
+                        if (parentLookup.containsKey(child)) {
+                            throw Error.expressionLinkedFromMultipleLocations(child);
+                        }
 
-                parentLookup.put(child, node);
+                        parentLookup.put(child, node);
+                    }
+
+                    return true;
+                }
             }
-        }
+        );
 
         for (final Expression e : method.getSelfAndChildrenRecursive(Expression.class)) {
             if (matchGetArguments(e, AstCode.InvokeSpecial, ctor, args) &&
@@ -2680,7 +2756,7 @@ public final class AstOptimizer {
 
     private final static class TransformArrayInitializersOptimization extends AbstractExpressionOptimization {
         protected TransformArrayInitializersOptimization(final DecompilerContext context, final Block method) {
-            super(context, method);
+            super(context, method, AstCode.Store);
         }
 
         @Override
@@ -2799,6 +2875,8 @@ public final class AstOptimizer {
                 final int actualArrayLength = initializers.size();
                 final StrongBox<Integer> arrayPosition = new StrongBox<>();
 
+                boolean modified = false;
+
                 for (int j = position + 1; j < body.size(); j++) {
                     final Node node = body.get(j);
 
@@ -2812,11 +2890,14 @@ public final class AstOptimizer {
 
                         initializers.set(arrayPosition.get(), a.get(2));
                         body.remove(j--);
+                        modified = true;
                     }
                     else {
                         break;
                     }
                 }
+
+                return modified;
             }
 
             return false;
@@ -2829,7 +2910,7 @@ public final class AstOptimizer {
 
     private final static class MakeAssignmentExpressionsOptimization extends AbstractExpressionOptimization {
         protected MakeAssignmentExpressionsOptimization(final DecompilerContext context, final Block method) {
-            super(context, method);
+            super(context, method, AstCode.Store, AstCode.PutStatic, AstCode.PutField, AstCode.StoreElement);
         }
 
         @Override
@@ -2989,7 +3070,7 @@ public final class AstOptimizer {
 
     private final static class IntroducePostIncrementOptimization extends AbstractExpressionOptimization {
         protected IntroducePostIncrementOptimization(final DecompilerContext context, final Block method) {
-            super(context, method);
+            super(context, method, AstCode.Store, AstCode.PutField, AstCode.StoreElement);
         }
 
         @Override
@@ -3562,6 +3643,7 @@ public final class AstOptimizer {
 
                 final DecompilerContext innerContext = new DecompilerContext(context.getSettings());
 
+                innerContext.shareCancellation(context);
                 innerContext.setCurrentType(resolvedMethod.getDeclaringType());
                 innerContext.setCurrentMethod(resolvedMethod);
 
@@ -3817,6 +3899,13 @@ public final class AstOptimizer {
 
     private interface ExpressionOptimization {
         boolean run(final List<Node> body, final Expression head, final int position);
+
+        //
+        // The codes a top-level expression must have for this optimization to do anything with it, or
+        // null if it may apply to any expression.  Expressions with other codes are never passed to run(),
+        // and a block whose top-level expressions have none of these codes is passed over without a scan.
+        //
+        Set<AstCode> getRootCodes();
     }
 
     @SuppressWarnings("ProtectedField")
@@ -3836,21 +3925,35 @@ public final class AstOptimizer {
             this.resolver = context.getCurrentType().getResolver();
             this.method = VerifyArgument.notNull(method, "method");
 
-            for (final Expression e : method.getSelfAndChildrenRecursive(Expression.class)) {
-                if (e.isBranch()) {
-                    for (final Label target : e.getBranchTargets()) {
-                        labelGlobalRefCount.get(target).increment();
-                    }
-                }
-            }
+            method.visitSelfAndChildrenRecursive(
+                Node.class,
+                new INodeVisitor<Node>() {
+                    @Override
+                    public boolean visit(final Node node) {
+                        if (node instanceof Expression) {
+                            final Expression e = (Expression) node;
+
+                            if (e.isBranch()) {
+                                for (final Label target : e.getBranchTargets()) {
+                                    labelGlobalRefCount.get(target).increment();
+                                }
+                            }
+                        }
+                        else if (node instanceof BasicBlock) {
+                            final BasicBlock basicBlock = (BasicBlock) node;
+                            final List<Node> body = basicBlock.getBody();
 
-            for (final BasicBlock basicBlock : method.getSelfAndChildrenRecursive(BasicBlock.class)) {
-                for (final Node child : basicBlock.getChildren()) {
-                    if (child instanceof Label) {
-                        labelToBasicBlock.put((Label) child, basicBlock);
+                            for (int i = 0; i < body.size(); i++) {
+                                if (body.get(i) instanceof Label) {
+                                    labelToBasicBlock.put((Label) body.get(i), basicBlock);
+                                }
+                            }
+                        }
+
+                        return true;
                     }
                 }
-            }
+            );
         }
     }
 
@@ -3860,10 +3963,163 @@ public final class AstOptimizer {
         protected final MetadataSystem metadataSystem;
         protected final Block method;
 
+        private final Set<AstCode> _rootCodes;
+
         protected AbstractExpressionOptimization(final DecompilerContext context, final Block method) {
             this.context = VerifyArgument.notNull(context, "context");
             this.metadataSystem = MetadataSystem.instance();
             this.method = VerifyArgument.notNull(method, "method");
+            _rootCodes = null;
+        }
+
+        protected AbstractExpressionOptimization(
+            final DecompilerContext context,
+            final Block method,
+            final AstCode rootCode,
+            final AstCode... otherRootCodes) {
+
+            this.context = VerifyArgument.notNull(context, "context");
+            this.metadataSystem = MetadataSystem.instance();
+            this.method = VerifyArgument.notNull(method, "method");
+            _rootCodes = EnumSet.of(rootCode, otherRootCodes);
+        }
+
+        @Override
+        public final Set<AstCode> getRootCodes() {
+            return _rootCodes;
+        }
+    }
+
+    //
+    // Tracks which block-level optimizations still need to run on a block.  Every round visits the
+    // optimizations in the same order; an optimization which changed nothing is skipped in later
+    // rounds until some other optimization changes the method again, as it would only do the same
+    // work over an identical tree.
+    //
+    // That only holds if every optimization reports every change it makes, so a block is not settled
+    // until a round in which nothing was skipped has changed nothing, just as before.
+    //
+    private final static class BlockOptimizationWorklist {
+        private final static int CODE_COUNT = AstCode.values().length;
+
+        private int[] _settledVersions = new int[16];
+        private int _version = 1;
+        private int _current;
+        private int _branchesVersion;
+        private boolean _hasConditionalBranches;
+        private boolean _skippedAny;
+        private int _rootCodesVersion;
+        private boolean[] _hasRootCode;
+
+        void nextRound() {
+            _current = -1;
+            _skippedAny = false;
+        }
+
+        boolean shouldRun() {
+            if (++_current >= _settledVersions.length) {
+                _settledVersions = Arrays.copyOf(_settledVersions, _settledVersions.length * 2);
+            }
+
+            if (_settledVersions[_current] == _version) {
+                _skippedAny = true;
+                return false;
+            }
+
+            return true;
+        }
+
+        //
+        // Called after a round which changed nothing.  If that round skipped anything, forget what has
+        // settled and ask for one more round which runs everything.
+        //
+        boolean needsConfirmingRound() {
+            if (_skippedAny) {
+                ++_version;
+                return true;
+            }
+
+            return false;
+        }
+
+        //
+        // The optimizations which start from a basic block ending in a conditional branch cannot fire
+        // on a block which has none, so there is no need to even build them.
+        //
+        boolean shouldRunOnConditionalBranches(final Block block) {
+            if (!shouldRun()) {
+                return false;
+            }
+
+            if (_branchesVersion != _version) {
+                _branchesVersion = _version;
+                _hasConditionalBranches = false;
+
+                final StrongBox<Expression> condition = new StrongBox<>();
+                final StrongBox<Label> trueLabel = new StrongBox<>();
+                final StrongBox<Label> falseLabel = new StrongBox<>();
+
+                for (final Node node : block.getBody()) {
+                    if (node instanceof BasicBlock &&
+                        matchLastAndBreak((BasicBlock) node, AstCode.IfTrue, trueLabel, condition, falseLabel)) {
+
+                        _hasConditionalBranches = true;
+                        break;
+                    }
+                }
+            }
+
+            if (_hasConditionalBranches) {
+                return true;
+            }
+
+            _settledVersions[_current] = _version;
+            return false;
+        }
+
+        //
+        // A table keyed by code of the top-level expressions in the block, rebuilt only when the method
+        // has changed, so an expression optimization none of whose root codes appear anywhere in the
+        // block can be passed over without visiting every expression in it.
+        //
+        boolean hasAnyRootCode(final Block block, final Set<AstCode> rootCodes) {
+            if (_rootCodesVersion != _version) {
+                _rootCodesVersion = _version;
+
+                if (_hasRootCode == null) {
+                    _hasRootCode = new boolean[CODE_COUNT];
+                }
+                else {
+                    Arrays.fill(_hasRootCode, false);
+                }
+
+                for (final Node node : block.getBody()) {
+                    for (final Node n : ((BasicBlock) node).getBody()) {
+                        if (n instanceof Expression) {
+                            _hasRootCode[((Expression) n).getCode().ordinal()] = true;
+                        }
+                    }
+                }
+            }
+
+            for (final AstCode code : rootCodes) {
+                if (_hasRootCode[code.ordinal()]) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        boolean complete(final boolean modified) {
+            if (modified) {
+                ++_version;
+            }
+            else {
+                _settledVersions[_current] = _version;
+            }
+
+            return modified;
         }
     }
 
@@ -3882,7 +4138,17 @@ public final class AstOptimizer {
         return modified;
     }
 
-    private static boolean runOptimization(final Block block, final ExpressionOptimization optimization) {
+    private static boolean runOptimization(
+        final Block block,
+        final ExpressionOptimization optimization,
+        final BlockOptimizationWorklist worklist) {
+
+        final Set<AstCode> rootCodes = optimization.getRootCodes();
+
+        if (rootCodes != null && !worklist.hasAnyRootCode(block, rootCodes)) {
+            return false;
+        }
+
         boolean modified = false;
 
         for (final Node node : block.getBody()) {
@@ -3896,7 +4162,10 @@ public final class AstOptimizer {
 
                 final Node n = body.get(i);
 
-                if (n instanceof Expression && optimization.run(body, (Expression) n, i)) {
+                if (n instanceof Expression &&
+                    (rootCodes == null || rootCodes.contains(((Expression) n).getCode())) &&
+                    optimization.run(body, (Expression) n, i)) {
+
                     modified = true;
                     ++i;
                 }
@@ -4071,6 +4340,7 @@ public final class AstOptimizer {
                 arguments.set(0, condition.getArguments().get(0));
                 arguments.set(1, arguments.get(2));
                 arguments.set(2, temp);
+                modified.set(true);
             }
         }
 
@@ -4199,22 +4469,28 @@ public final class AstOptimizer {
     }
 
     static boolean references(final Node node, final Variable v) {
-        for (final Expression e : node.getSelfAndChildrenRecursive(Expression.class)) {
-            if (matchLoad(e, v)) {
-                return true;
+        return node.anySelfOrChildRecursive(
+            Expression.class,
+            new Predicate<Expression>() {
+                @Override
+                public boolean test(final Expression e) {
+                    return matchLoad(e, v);
+                }
             }
-        }
-        return false;
+        );
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     private static boolean containsMatch(final Node node, final Expression pattern) {
-        for (final Expression e : node.getSelfAndChildrenRecursive(Expression.class)) {
-            if (e.isEquivalentTo(pattern)) {
-                return true;
+        return node.anySelfOrChildRecursive(
+            Expression.class,
+            new Predicate<Expression>() {
+                @Override
+                public boolean test(final Expression e) {
+                    return e.isEquivalentTo(pattern);
+                }
             }
-        }
-        return false;
+        );
     }
 
     // </editor-fold>
@@ -33,6 +33,16 @@ public final class BasicBlock extends Node {
         return _body;
     }
 
+    @Override
+    public final int getChildCount() {
+        return _body.size();
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        return _body.get(index);
+    }
+
     @Override
     public final List<Node> getChildren() {
         final ArrayList<Node> childrenCopy = new ArrayList<>(_body.size());
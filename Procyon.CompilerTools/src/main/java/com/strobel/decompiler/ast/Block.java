@@ -58,6 +58,19 @@ public class Block extends Node {
         return _body;
     }
 
+    @Override
+    public final int getChildCount() {
+        return _body.size() + (_entryGoto != null ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        if (_entryGoto != null) {
+            return index == 0 ? _entryGoto : _body.get(index - 1);
+        }
+        return _body.get(index);
+    }
+
     @Override
     public final List<Node> getChildren() {
         final ArrayList<Node> childrenCopy = new ArrayList<>(_body.size() + 1);
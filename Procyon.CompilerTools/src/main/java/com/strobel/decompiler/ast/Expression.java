@@ -157,6 +157,19 @@ public final class Expression extends Node implements Cloneable, UserDataStore {
         return _ranges;
     }
 
+    @Override
+    public final int getChildCount() {
+        return _arguments.size() + (_operand instanceof Lambda ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        if (index == _arguments.size() && _operand instanceof Lambda) {
+            return (Node) _operand;
+        }
+        return _arguments.get(index);
+    }
+
     @Override
     public final List<Node> getChildren() {
         final ArrayList<Node> childrenCopy = new ArrayList<>();
@@ -80,31 +80,41 @@ final class GotoRemoval {
 
         parentLookup.put(method, Node.NULL);
 
-        for (final Node node : method.getSelfAndChildrenRecursive(Node.class)) {
-            Node previousChild = null;
+        method.visitSelfAndChildrenRecursive(
+            Node.class,
+            new INodeVisitor<Node>() {
+                @Override
+                public boolean visit(final Node node) {
+                    Node previousChild = null;
+
+                    for (int i = 0, n = node.getChildCount(); i < n; i++) {
+                        final Node child = node.getChild(i);
+
+                        if (parentLookup.containsKey(child)) {
+                            throw Error.expressionLinkedFromMultipleLocations(child);
+                        }
 
-            for (final Node child : node.getChildren()) {
-                if (parentLookup.containsKey(child)) {
-                    throw Error.expressionLinkedFromMultipleLocations(child);
-                }
+                        parentLookup.put(child, node);
 
-                parentLookup.put(child, node);
+                        if (previousChild != null) {
+                            if (previousChild instanceof Label) {
+                                labels.put(child, (Label) previousChild);
+                                labelLookup.put((Label) previousChild, child);
+                            }
+                            nextSibling.put(previousChild, child);
+                        }
 
-                if (previousChild != null) {
-                    if (previousChild instanceof Label) {
-                        labels.put(child, (Label) previousChild);
-                        labelLookup.put((Label) previousChild, child);
+                        previousChild = child;
                     }
-                    nextSibling.put(previousChild, child);
-                }
 
-                previousChild = child;
-            }
+                    if (previousChild != null) {
+                        nextSibling.put(previousChild, Node.NULL);
+                    }
 
-            if (previousChild != null) {
-                nextSibling.put(previousChild, Node.NULL);
+                    return true;
+                }
             }
-        }
+        );
     }
 
     private boolean trySimplifyGoto(final Expression gotoExpression) {
@@ -193,7 +203,7 @@ final class GotoRemoval {
                 }
 
                 if (enter instanceof TryCatchBlock) {
-                    final Node firstChild = firstOrDefault(enter.getChildren());
+                    final Node firstChild = enter.getChildCount() > 0 ? enter.getChild(0) : null;
 
                     if (firstChild != null) {
                         visitedNodes.clear();
@@ -253,7 +263,7 @@ final class GotoRemoval {
                 }
 
                 if (exit instanceof TryCatchBlock) {
-                    final Node firstChild = firstOrDefault(exit.getChildren());
+                    final Node firstChild = exit.getChildCount() > 0 ? exit.getChild(0) : null;
 
                     if (firstChild != null) {
                         visitedNodes.clear();
@@ -303,7 +313,7 @@ final class GotoRemoval {
                 }
 
                 if (enter instanceof TryCatchBlock) {
-                    final Node firstChild = firstOrDefault(enter.getChildren());
+                    final Node firstChild = enter.getChildCount() > 0 ? enter.getChild(0) : null;
 
                     if (firstChild != null) {
                         visitedNodes.clear();
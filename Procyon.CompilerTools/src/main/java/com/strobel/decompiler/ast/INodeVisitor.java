@@ -0,0 +1,24 @@
+/*
+ * INodeVisitor.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.ast;
+
+/**
+ * A callback for {@link Node#visitSelfAndChildrenRecursive(Class, INodeVisitor)}.
+ */
+public interface INodeVisitor<T extends Node> {
+    /**
+     * Visits {@code node}; returns {@code false} to stop the walk.
+     */
+    boolean visit(final T node);
+}
@@ -65,9 +65,15 @@ final class Inlining {
 
     // <editor-fold defaultstate="collapsed" desc="Load/Store Analysis">
 
+    //
+    // The counts and loads are kept up to date as variables are inlined, so a full analysis is only
+    // needed when the method has been changed by someone else.
+    //
+
     final void analyzeMethod() {
         loadCounts.clear();
         storeCounts.clear();
+        loads.clear();
 
         analyzeNode(_method);
     }
@@ -114,8 +120,60 @@ final class Inlining {
                 }
             }
 
-            for (final Node child : node.getChildren()) {
-                analyzeNode(child);
+            for (int i = 0, n = node.getChildCount(); i < n; i++) {
+                analyzeNode(node.getChild(i));
+            }
+        }
+    }
+
+    final void removeLoad(final Variable variable, final Expression load) {
+        //
+        // Check first, as `loads` would otherwise add an empty list for a variable it has never seen.
+        //
+        if (loads.containsKey(variable)) {
+            final List<Expression> variableLoads = loads.get(variable);
+
+            for (int i = 0; i < variableLoads.size(); i++) {
+                if (variableLoads.get(i) == load) {
+                    variableLoads.remove(i);
+                    break;
+                }
+            }
+        }
+
+        decrement(loadCounts, variable);
+    }
+
+    final void removeNode(final Node node) {
+        if (node instanceof Expression) {
+            final Expression e = (Expression) node;
+
+            if (matchLoadOrRet(e, _tempVariable)) {
+                removeLoad(_tempVariable.get(), e);
+            }
+            else if (matchStore(e, _tempVariable, _tempExpression)) {
+                decrement(storeCounts, _tempVariable.get());
+            }
+            else if (matchVariableIncDec(e, _tempVariable)) {
+                removeLoad(_tempVariable.get(), e);
+                decrement(storeCounts, _tempVariable.get());
+            }
+
+            for (final Expression argument : e.getArguments()) {
+                removeNode(argument);
+            }
+        }
+        else {
+            if (node instanceof CatchBlock) {
+                final Variable exceptionVariable = ((CatchBlock) node).getExceptionVariable();
+
+                if (exceptionVariable != null) {
+                    decrement(storeCounts, exceptionVariable);
+                }
+            }
+
+            for (int i = 0, n = node.getChildCount(); i < n; i++) {
+                removeNode(node.getChild(i));
             }
         }
     }
@@ -153,6 +211,13 @@ final class Inlining {
                 if (matchGetArgument(body.get(0), AstCode.Store, tempVariable, tempExpression) &&
                     matchLoad(tempExpression.get(), v)) {
 
+                    //
+                    // The store to the new exception variable moves into the catch block, so only the
+                    // old exception variable loses its store and load.
+                    //
+                    removeLoad(v, tempExpression.get());
+                    decrement(storeCounts, v);
+
                     body.remove(0);
                     catchBlock.setExceptionVariable(tempVariable.get());
                     modified = true;
@@ -302,11 +367,18 @@ final class Inlining {
             final List<Expression> parentArguments = parent.get().getArguments();
             final Map<Expression, Expression> parentLookup = new IdentityHashMap<>();
 
-            for (final Expression node : next.getSelfAndChildrenRecursive(Expression.class)) {
-                for (final Expression child : node.getArguments()) {
-                    parentLookup.put(child, node);
+            next.visitSelfAndChildrenRecursive(
+                Expression.class,
+                new INodeVisitor<Expression>() {
+                    @Override
+                    public boolean visit(final Expression node) {
+                        for (final Expression child : node.getArguments()) {
+                            parentLookup.put(child, node);
+                        }
+                        return true;
+                    }
                 }
-            }
+            );
 
             final List<Expression> nestedAssignments = inlinedExpression.getSelfAndChildrenRecursive(
                 Expression.class,
@@ -346,14 +418,15 @@ final class Inlining {
                 }
             }
 
+            final Expression load = parentArguments.get(position.getValue());
+
             //
             // Assign the ranges of the Load instruction.
             //
-            inlinedExpression.getRanges().addAll(
-                parentArguments.get(position.getValue()).getRanges()
-            );
+            inlinedExpression.getRanges().addAll(load.getRanges());
 
             parentArguments.set(position.getValue(), inlinedExpression);
+            removeLoad(variable, load);
 
             return true;
         }
@@ -473,10 +546,18 @@ final class Inlining {
             case Load: {
                 final Variable loadedVariable = (Variable) expression.getOperand();
 
-                for (final Expression potentialStore : expressionBeingMoved.getSelfAndChildrenRecursive(Expression.class)) {
-                    if (matchVariableMutation(potentialStore, loadedVariable)) {
-                        return false;
+                final boolean isMutated = expressionBeingMoved.anySelfOrChildRecursive(
+                    Expression.class,
+                    new Predicate<Expression>() {
+                        @Override
+                        public boolean test(final Expression potentialStore) {
+                            return matchVariableMutation(potentialStore, loadedVariable);
+                        }
                     }
+                );
+
+                if (isMutated) {
+                    return false;
                 }
 
                 //
@@ -516,6 +597,7 @@ final class Inlining {
                 // Remove the store instruction.
                 //
                 body.remove(position);
+                decrement(storeCounts, v);
                 return true;
             }
 
@@ -546,6 +628,7 @@ final class Inlining {
                         }
 
                         nestedLoads.clear();
+                        loadCounts.get(nestedVariable).setValue(0);
                     }
                     else {
                         current.setOperand(nestedVariable);
@@ -557,8 +640,13 @@ final class Inlining {
                         }
 
                         currentLoads.clear();
+                        loadCounts.get(currentVariable).setValue(0);
+                        decrement(storeCounts, currentVariable);
+                        increment(storeCounts, nestedVariable);
                     }
 
+                    decrement(storeCounts, nestedVariable);
+
                     final Expression nestedValue = single(e.getArguments());
 
                     current.getArguments().set(0, nestedValue);
@@ -587,6 +675,7 @@ final class Inlining {
                     loadCounts.get(variable.get()).setValue(0);
 
                     increment(loadCounts, v);
+                    loads.get(v).add(loadThisInstead);
 
                     return true;
                 }
@@ -603,6 +692,7 @@ final class Inlining {
                     // Remove the expression completely.
                     //
                     body.remove(position);
+                    removeNode(current);
                     return true;
                 }
 
@@ -616,6 +706,7 @@ final class Inlining {
                     // Remove the store, but keep the inner expression;
                     //
                     body.set(position, e);
+                    decrement(storeCounts, v);
                     return true;
                 }
             }
@@ -633,7 +724,9 @@ final class Inlining {
     // <editor-fold defaultstate="collapsed" desc="Copy Propagation">
 
     @SuppressWarnings("ConstantConditions")
-    final void copyPropagation() {
+    final boolean copyPropagation() {
+        boolean modified = false;
+
         for (final Block block : _method.getSelfAndChildrenRecursive(Block.class)) {
             final List<Node> body = block.getBody();
 
@@ -696,9 +789,12 @@ final class Inlining {
                     inlineInto(body, i, _aggressive);
 
                     i -= uninlinedArgs.length + 1;
+                    modified = true;
                 }
             }
         }
+
+        return modified;
     }
 
     final boolean canPerformCopyPropagation(final Expression expr, final Variable copyVariable) {
@@ -831,6 +927,14 @@ final class Inlining {
         }
     }
 
+    private static void decrement(final Map<Variable, MutableInteger> map, final Variable variable) {
+        final MutableInteger count = map.get(variable);
+
+        if (count != null && count.getValue() > 0) {
+            count.decrement();
+        }
+    }
+
     private static Iterable<Expression> getParents(final Expression scope, final Map<Expression, Expression> parentLookup, final Expression node) {
         return new Iterable<Expression>() {
             @NotNull
@@ -114,6 +114,19 @@ public class Lambda extends Node {
         _variableMap = variableMap;
     }
 
+    @Override
+    public int getChildCount() {
+        return _body != null ? 1 : 0;
+    }
+
+    @Override
+    public Node getChild(final int index) {
+        if (_body != null && index == 0) {
+            return _body;
+        }
+        throw new IndexOutOfBoundsException("index");
+    }
+
     @Override
     public List<Node> getChildren() {
         return _body != null ? Collections.<Node>singletonList(_body)
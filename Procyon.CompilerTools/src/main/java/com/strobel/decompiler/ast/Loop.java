@@ -51,6 +51,24 @@ public final class Loop extends Node {
         _loopType = loopType;
     }
 
+    @Override
+    public final int getChildCount() {
+        return (_condition != null ? 1 : 0) + (_body != null ? 1 : 0);
+    }
+
+    @Override
+    public final Node getChild(final int index) {
+        if (_condition != null && index == 0) {
+            return _condition;
+        }
+
+        if (_body != null && index == (_condition != null ? 1 : 0)) {
+            return _body;
+        }
+
+        throw new IndexOutOfBoundsException("index");
+    }
+
     @Override
     public final List<Node> getChildren() {
         if (_condition == null) {
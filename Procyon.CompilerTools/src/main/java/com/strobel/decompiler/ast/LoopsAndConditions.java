@@ -127,9 +127,16 @@ final class LoopsAndConditions {
             //
             // Find all contained labels.
             //
-            for (final Label label : node.getSelfAndChildrenRecursive(Label.class)) {
-                labelsToNodes.put(label, cfNode);
-            }
+            node.visitSelfAndChildrenRecursive(
+                Label.class,
+                new INodeVisitor<Label>() {
+                    @Override
+                    public boolean visit(final Label label) {
+                        labelsToNodes.put(label, cfNode);
+                        return true;
+                    }
+                }
+            );
         }
 
         final ControlFlowNode entryNode = labelsToNodes.get(entryLabel);
@@ -149,29 +156,37 @@ final class LoopsAndConditions {
             // Find all branches.
             //
 
-            for (final Expression e : node.getSelfAndChildrenRecursive(Expression.class)) {
-                if (!e.isBranch()) {
-                    continue;
-                }
+            node.visitSelfAndChildrenRecursive(
+                Expression.class,
+                new INodeVisitor<Expression>() {
+                    @Override
+                    public boolean visit(final Expression e) {
+                        if (!e.isBranch()) {
+                            return true;
+                        }
 
-                for (final Label target : e.getBranchTargets()) {
-                    final ControlFlowNode destination = labelsToNodes.get(target);
+                        for (final Label target : e.getBranchTargets()) {
+                            final ControlFlowNode destination = labelsToNodes.get(target);
 
-                    if (destination != null &&
-                        (destination != source || canBeSelfContainedLoop((BasicBlock) node, e, target))) {
+                            if (destination != null &&
+                                (destination != source || canBeSelfContainedLoop((BasicBlock) node, e, target))) {
 
-                        final ControlFlowEdge edge = new ControlFlowEdge(source, destination, JumpType.Normal);
+                                final ControlFlowEdge edge = new ControlFlowEdge(source, destination, JumpType.Normal);
 
-                        if (!source.getOutgoing().contains(edge)) {
-                            source.getOutgoing().add(edge);
-                        }
+                                if (!source.getOutgoing().contains(edge)) {
+                                    source.getOutgoing().add(edge);
+                                }
 
-                        if (!destination.getIncoming().contains(edge)) {
-                            destination.getIncoming().add(edge);
+                                if (!destination.getIncoming().contains(edge)) {
+                                    destination.getIncoming().add(edge);
+                                }
+                            }
                         }
+
+                        return true;
                     }
                 }
-            }
+            );
         }
 
         return new ControlFlowGraph(cfNodes.toArray(new ControlFlowNode[cfNodes.size()]));
@@ -226,13 +241,13 @@ final class LoopsAndConditions {
 */
 
             for (final CatchBlock catchBlock : tryCatch.getCatchBlocks()) {
-                if (any(catchBlock.getSelfAndChildrenRecursive(Expression.class), labelMatch)) {
+                if (catchBlock.anySelfOrChildRecursive(Expression.class, labelMatch)) {
                     return true;
                 }
             }
 
             if (tryCatch.getFinallyBlock() != null &&
-                any(tryCatch.getFinallyBlock().getSelfAndChildrenRecursive(Expression.class), labelMatch)) {
+                tryCatch.getFinallyBlock().anySelfOrChildRecursive(Expression.class, labelMatch)) {
 
                 return true;
             }
@@ -626,16 +641,18 @@ final class LoopsAndConditions {
     }
 
     private int countJumps(final Set<ControlFlowNode> nodes, final Label target, final Expression ignore) {
+        final Predicate<Expression> isJump = new Predicate<Expression>() {
+            @Override
+            public boolean test(final Expression e) {
+                return e != ignore && e.getBranchTargets().contains(target);
+            }
+        };
+
         int jumpCount = 0;
 
         for (final ControlFlowNode node : nodes) {
             final BasicBlock basicBlock = (BasicBlock) node.getUserData();
-
-            for (final Expression e : basicBlock.getSelfAndChildrenRecursive(Expression.class)) {
-                if (e != ignore && e.getBranchTargets().contains(target)) {
-                    ++jumpCount;
-                }
-            }
+            jumpCount += basicBlock.countSelfAndChildrenRecursive(Expression.class, isJump);
         }
 
         return jumpCount;
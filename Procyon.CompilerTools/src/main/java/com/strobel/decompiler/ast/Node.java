@@ -57,6 +57,18 @@ public abstract class Node {
         return Collections.emptyList();
     }
 
+    //
+    // Indexed access to the same children as getChildren(), without copying them into a list.
+    //
+
+    public int getChildCount() {
+        return 0;
+    }
+
+    public Node getChild(final int index) {
+        throw new IndexOutOfBoundsException("index");
+    }
+
     public final List<Node> getSelfAndChildrenRecursive() {
         final ArrayList<Node> results = new ArrayList<>();
         accumulateSelfAndChildrenRecursive(results, Node.class, null, false, false);
@@ -117,6 +129,67 @@ public abstract class Node {
         return results;
     }
 
+    //
+    // The methods below walk the tree in the same (pre-)order as getSelfAndChildrenRecursive(), but
+    // they allocate nothing per node and can stop early.  The tree must not be restructured while it
+    // is being walked; callers which add, remove, or replace nodes should use the list-based methods.
+    //
+
+    /**
+     * Visits this node and its descendants of type {@code T}, stopping when {@code visitor} returns
+     * {@code false}.  Returns {@code false} if the walk was stopped early.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends Node> boolean visitSelfAndChildrenRecursive(final Class<T> type, final INodeVisitor<? super T> visitor) {
+        if (type.isInstance(this) && !visitor.visit((T) this)) {
+            return false;
+        }
+
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            if (!getChild(i).visitSelfAndChildrenRecursive(type, visitor)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the first node of type {@code T} matching {@code predicate} among this node and its
+     * descendants, or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends Node> T findSelfOrChildRecursive(final Class<T> type, final Predicate<? super T> predicate) {
+        if (type.isInstance(this) && (predicate == null || predicate.test((T) this))) {
+            return (T) this;
+        }
+
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            final T result = getChild(i).findSelfOrChildRecursive(type, predicate);
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    public final <T extends Node> boolean anySelfOrChildRecursive(final Class<T> type, final Predicate<? super T> predicate) {
+        return findSelfOrChildRecursive(type, predicate) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public final <T extends Node> int countSelfAndChildrenRecursive(final Class<T> type, final Predicate<? super T> predicate) {
+        int count = type.isInstance(this) && (predicate == null || predicate.test((T) this)) ? 1 : 0;
+
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            count += getChild(i).countSelfAndChildrenRecursive(type, predicate);
+        }
+
+        return count;
+    }
+
     @SuppressWarnings("unchecked")
     private <T extends Node> void accumulateSelfAndChildrenRecursive(
         final List<T> list,
@@ -137,8 +210,8 @@ public abstract class Node {
             }
         }
 
-        for (final Node child : getChildren()) {
-            child.accumulateSelfAndChildrenRecursive(list, type, predicate, childrenFirst, skipChildrenOfFilteredNodes);
+        for (int i = 0, n = getChildCount(); i < n; i++) {
+            getChild(i).accumulateSelfAndChildrenRecursive(list, type, predicate, childrenFirst, skipChildrenOfFilteredNodes);
         }
 
         if (childrenFirst) {
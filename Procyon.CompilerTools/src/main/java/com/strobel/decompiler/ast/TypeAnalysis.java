@@ -20,6 +20,7 @@ import com.strobel.assembler.ir.attributes.AttributeNames;
 import com.strobel.assembler.ir.attributes.SourceAttribute;
 import com.strobel.assembler.metadata.*;
 import com.strobel.core.CollectionUtilities;
+import com.strobel.core.MutableInteger;
 import com.strobel.core.Predicate;
 import com.strobel.core.StringComparison;
 import com.strobel.core.StringUtilities;
@@ -61,9 +62,20 @@ public final class TypeAnalysis {
         }
     };
 
+    //
+    // For each variable, the expressions which read or assign it, in the order they appear in
+    // _allExpressions.  The graph is fixed once initialization is done, and lets a change to a
+    // variable's type re-infer only the expressions affected by it.
+    //
+    private final Map<Variable, List<ExpressionToInfer>> _dependentExpressions = new IdentityHashMap<>();
+
     private final Map<Variable, Set<TypeReference>> _previouslyInferred = new DefaultMap<>(CollectionUtilities.<TypeReference>setFactory());
     private final IdentityHashMap<Variable, TypeReference> _inferredVariableTypes = new IdentityHashMap<>();
-    private final Stack<Expression> _stack = new Stack<>();
+
+    //
+    // The expressions currently being inferred, with their nesting depth (constants may be re-entered).
+    //
+    private final Map<Expression, MutableInteger> _inProgress = new IdentityHashMap<>();
 
     private DecompilerContext _context;
     private CoreMetadataFactory _factory;
@@ -91,6 +103,7 @@ public final class TypeAnalysis {
 
         ta.createDependencyGraph(method);
         ta.identifySingleLoadVariables();
+        ta.indexDependentExpressions();
         ta._doneInitializing = true;
         ta.runInference();
     }
@@ -342,6 +355,58 @@ public final class TypeAnalysis {
         }
     }
 
+    private void indexDependentExpressions() {
+        final Map<ExpressionToInfer, List<Variable>> assignedVariables = new IdentityHashMap<>();
+
+        for (final Map.Entry<Variable, List<ExpressionToInfer>> entry : _assignmentExpressions.entrySet()) {
+            for (final ExpressionToInfer e : entry.getValue()) {
+                List<Variable> variables = assignedVariables.get(e);
+
+                if (variables == null) {
+                    assignedVariables.put(e, variables = new ArrayList<>());
+                }
+
+                variables.add(entry.getKey());
+            }
+        }
+
+        for (final ExpressionToInfer e : _allExpressions) {
+            for (final Variable variable : e.dependencies) {
+                addDependentExpression(variable, e);
+            }
+
+            final List<Variable> variables = assignedVariables.get(e);
+
+            if (variables != null) {
+                for (final Variable variable : variables) {
+                    addDependentExpression(variable, e);
+                }
+            }
+        }
+    }
+
+    private void addDependentExpression(final Variable variable, final ExpressionToInfer e) {
+        List<ExpressionToInfer> dependents = _dependentExpressions.get(variable);
+
+        if (dependents == null) {
+            _dependentExpressions.put(variable, dependents = new ArrayList<>());
+        }
+        else if (dependents.get(dependents.size() - 1) == e) {
+            return;
+        }
+
+        dependents.add(e);
+    }
+
+    private List<ExpressionToInfer> getDependentExpressions(final Variable variable) {
+        final List<ExpressionToInfer> dependents = _dependentExpressions.get(variable);
+        return dependents != null ? dependents : Collections.<ExpressionToInfer>emptyList();
+    }
+
+    private boolean isBeingInferred(final Expression expression) {
+        return _inProgress.containsKey(expression);
+    }
+
     private void runInference() {
         _previouslyInferred.clear();
         _inferredVariableTypes.clear();
@@ -363,6 +428,8 @@ public final class TypeAnalysis {
         };
 
         while (numberOfExpressionsAlreadyInferred < _allExpressions.size()) {
+            _context.checkCanceled();
+
             final int oldCount = numberOfExpressionsAlreadyInferred;
 
             for (final ExpressionToInfer e : _allExpressions) {
@@ -561,37 +628,33 @@ public final class TypeAnalysis {
                 //
                 // Assign inferred types to all dependent expressions (in case they used different inferred types).
                 //
-                for (final ExpressionToInfer e : _allExpressions) {
-                    if (e.dependencies.contains(variable) ||
-                        expressionsToInfer.contains(e)) {
+                for (final ExpressionToInfer e : getDependentExpressions(variable)) {
+                    if (isBeingInferred(e.expression)) {
+                        continue;
+                    }
+
+                    boolean invalidate = false;
 
-                        if (_stack.contains(e.expression)) {
+                    for (final Expression c : e.expression.getSelfAndChildrenRecursive(Expression.class)) {
+                        if (isBeingInferred(c)) {
                             continue;
                         }
 
-                        boolean invalidate = false;
-
-                        for (final Expression c : e.expression.getSelfAndChildrenRecursive(Expression.class)) {
-                            if (_stack.contains(c)) {
-                                continue;
-                            }
-
-                            c.setExpectedType(null);
+                        c.setExpectedType(null);
 
-                            if ((matchLoad(c, variable) || matchStore(c, variable)) &&
-                                !MetadataHelper.isSameType(c.getInferredType(), inferredType)) {
+                        if ((matchLoad(c, variable) || matchStore(c, variable)) &&
+                            !MetadataHelper.isSameType(c.getInferredType(), inferredType)) {
 
-                                c.setExpectedType(inferredType);
-                            }
+                            c.setExpectedType(inferredType);
+                        }
 
-                            c.setInferredType(null);
+                        c.setInferredType(null);
 
-                            invalidate = true;
-                        }
+                        invalidate = true;
+                    }
 
-                        if (invalidate) {
-                            runInference(e.expression, e.flags);
-                        }
+                    if (invalidate) {
+                        runInference(e.expression, e.flags);
                     }
                 }
             }
@@ -731,22 +794,18 @@ public final class TypeAnalysis {
     }
 
     private void invalidateDependentExpressions(final Expression expression, final Variable variable) {
-        final List<ExpressionToInfer> assignments = _assignmentExpressions.get(variable);
         final TypeReference inferredType = _inferredVariableTypes.get(variable);
 
-        for (final ExpressionToInfer e : _allExpressions) {
-            if (e.expression != expression &&
-                (e.dependencies.contains(variable) ||
-                 assignments.contains(e))) {
-
-                if (_stack.contains(e.expression)) {
+        for (final ExpressionToInfer e : getDependentExpressions(variable)) {
+            if (e.expression != expression) {
+                if (isBeingInferred(e.expression)) {
                     continue;
                 }
 
                 boolean invalidate = false;
 
                 for (final Expression c : e.expression.getSelfAndChildrenRecursive(Expression.class)) {
-                    if (_stack.contains(c)) {
+                    if (isBeingInferred(c)) {
                         continue;
                     }
 
@@ -825,11 +884,17 @@ public final class TypeAnalysis {
         final boolean forceInferChildren,
         final int flags) {
 
-        if (_stack.contains(expression) && !match(expression, AstCode.LdC)) {
+        if (isBeingInferred(expression) && !match(expression, AstCode.LdC)) {
             return expectedType;
         }
 
-        _stack.push(expression);
+        MutableInteger depth = _inProgress.get(expression);
+
+        if (depth == null) {
+            _inProgress.put(expression, depth = new MutableInteger());
+        }
+
+        depth.increment();
 
         try {
             final AstCode code = expression.getCode();
@@ -1922,7 +1987,9 @@ public final class TypeAnalysis {
             }
         }
         finally {
-            _stack.pop();
+            if (depth.decrement().getValue() == 0) {
+                _inProgress.remove(expression);
+            }
         }
     }
 
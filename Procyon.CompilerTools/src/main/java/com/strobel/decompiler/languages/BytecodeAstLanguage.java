@@ -119,6 +119,7 @@ public class BytecodeAstLanguage extends Language {
 
         context.setCurrentMethod(method);
         context.setCurrentType(method.getDeclaringType());
+        context.setMetrics(options.getMetrics());
 
         final Block methodAst = new Block();
 
@@ -126,8 +127,12 @@ public class BytecodeAstLanguage extends Language {
         output.indent();
 
         try {
+            final int phase = context.beginPhase("BytecodeAstBuilder");
+
             methodAst.getBody().addAll(AstBuilder.build(body, _inlineVariables, context));
 
+            context.endPhase(phase);
+
             if (_abortBeforeStep != null) {
                 AstOptimizer.optimize(context, methodAst, _abortBeforeStep);
             }
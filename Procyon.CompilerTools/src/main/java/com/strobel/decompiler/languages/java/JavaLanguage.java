@@ -84,6 +84,8 @@ public class JavaLanguage extends Language {
 
         context.setCurrentType(currentType);
         context.setSettings(settings);
+        context.setMetrics(options.getMetrics());
+        context.setAnalysisCache(options.getAnalysisCache());
 
         return new AstBuilder(context);
     }
@@ -53,10 +53,12 @@ public final class AstBuilder {
     private final Map<String, Reference<TypeDeclaration>> _typeDeclarations = new LinkedHashMap<>();
     private final Map<String, String> _unqualifiedTypeNames = new LinkedHashMap<>();
     private final TextNode _packagePlaceholder;
+    private final CodeFeatureCensus _census = new CodeFeatureCensus();
 
     private boolean _decompileMethodBodies = true;
     private boolean _haveTransformationsRun;
     private int _suppressImportsDepth;
+    private ConcurrentMethodBodyBuilder _methodBodies;
 
     public AstBuilder(final DecompilerContext context) {
         _context = VerifyArgument.notNull(context, "context");
@@ -114,6 +116,14 @@ public final class AstBuilder {
         return _compileUnit;
     }
 
+    /**
+     * Returns the features of all the code this builder has decompiled so far, which lets the
+     * transformation pipeline skip transforms that have nothing to work on.
+     */
+    public final CodeFeatureCensus getCodeFeatureCensus() {
+        return _census;
+    }
+
     public final void runTransformations() {
         runTransformations(null);
     }
@@ -134,7 +144,16 @@ public final class AstBuilder {
             }
         }
 
-        final EntityDeclaration astType = createType(type);
+        final int phase = _context.beginPhase("JavaAstBuilder");
+        final EntityDeclaration astType;
+
+        try {
+            astType = createType(type);
+        }
+        finally {
+            _context.endPhase(phase);
+        }
+
         final String packageName = type.getPackageName();
 
         if (_compileUnit.getPackage().isNull() && !StringUtilities.isNullOrWhitespace(packageName)) {
@@ -562,6 +581,8 @@ public final class AstBuilder {
         astType.putUserData(Keys.TYPE_DEFINITION, type);
         astType.putUserData(Keys.TYPE_REFERENCE, type);
 
+        _census.recordType(type);
+
         if (type.isEnum()) {
             astType.setClassType(ClassType.ENUM);
         }
@@ -630,13 +651,27 @@ public final class AstBuilder {
             astType.addChild(createField(field), Roles.TYPE_MEMBER);
         }
 
-        for (final MethodDefinition method : type.getDeclaredMethods()) {
-            if (method.isConstructor()) {
-                astType.addChild(createConstructor(method), Roles.TYPE_MEMBER);
+        final ConcurrentMethodBodyBuilder oldMethodBodies = _methodBodies;
+        final ConcurrentMethodBodyBuilder methodBodies = startMethodBodies(type);
+
+        _methodBodies = methodBodies;
+
+        try {
+            for (final MethodDefinition method : type.getDeclaredMethods()) {
+                if (method.isConstructor()) {
+                    astType.addChild(createConstructor(method), Roles.TYPE_MEMBER);
+                }
+                else {
+                    astType.addChild(createMethod(method), Roles.TYPE_MEMBER);
+                }
             }
-            else {
-                astType.addChild(createMethod(method), Roles.TYPE_MEMBER);
+        }
+        finally {
+            if (methodBodies != null) {
+                methodBodies.close();
             }
+
+            _methodBodies = oldMethodBodies;
         }
 
         final List<TypeDefinition> nestedTypes = new ArrayList<>();
@@ -709,6 +744,8 @@ public final class AstBuilder {
         astField.putUserData(Keys.FIELD_DEFINITION, field);
         astField.putUserData(Keys.MEMBER_REFERENCE, field);
 
+        _census.recordMember(field);
+
         EntityDeclaration.setModifiers(
             astField,
             Flags.asFlagSet(scrubAccessModifiers(field.getFlags() & Flags.VarFlags))
@@ -751,13 +788,15 @@ public final class AstBuilder {
         astMethod.putUserData(Keys.METHOD_DEFINITION, method);
         astMethod.putUserData(Keys.MEMBER_REFERENCE, method);
 
+        _census.recordMember(method);
+
         for (final TypeDefinition declaredType : method.getDeclaredTypes()) {
             if (!declaredType.isAnonymous()) {
                 astMethod.getDeclaredTypes().add(createType(declaredType));
             }
         }
 
-        if (!method.getDeclaringType().isInterface() || method.isTypeInitializer() || method.isDefault()) {
+        if (hasMethodBody(method)) {
             astMethod.setBody(createMethodBody(method, astMethod.getParameters()));
         }
 
@@ -860,12 +899,44 @@ public final class AstBuilder {
         }
     }
 
+    private static boolean hasMethodBody(final MethodDefinition method) {
+        return method.isConstructor() ||
+               !method.getDeclaringType().isInterface() ||
+               method.isTypeInitializer() ||
+               method.isDefault();
+    }
+
+    private ConcurrentMethodBodyBuilder startMethodBodies(final TypeDefinition type) {
+        if (!_decompileMethodBodies || _context.getSettings().getMethodThreadCount() <= 1) {
+            return null;
+        }
+
+        final List<MethodDefinition> methods = new ArrayList<>();
+
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            if (hasMethodBody(method) && !method.isAbstract()) {
+                methods.add(method);
+            }
+        }
+
+        return ConcurrentMethodBodyBuilder.start(_context, methods);
+    }
+
     private BlockStatement createMethodBody(
         final MethodDefinition method,
         final Iterable<ParameterDeclaration> parameters) {
 
         if (_decompileMethodBodies) {
-            return AstMethodBodyBuilder.createMethodBody(this, method, _context, parameters);
+            //
+            // If the methods of the type are being decompiled in parallel, the bytecode AST of this one
+            // has already been built (or is being built) by a worker thread.
+            //
+            final AstMethodBodyBuilder.BytecodeBody bytecodeBody = _methodBodies != null ? _methodBodies.take(method)
+                                                                                        : null;
+
+            _census.recordMethodBody(method.getBody());
+
+            return AstMethodBodyBuilder.createMethodBody(this, method, _context, parameters, bytecodeBody);
         }
 
         return null;
@@ -927,7 +998,15 @@ public final class AstBuilder {
         }
 
         final JavaOutputVisitor visitor = new JavaOutputVisitor(output, _context.getSettings());
-        _compileUnit.acceptVisitor(visitor, null);
+        final int phase = _context.beginPhase("JavaOutputVisitor");
+
+        try {
+            _compileUnit.acceptVisitor(visitor, null);
+        }
+        finally {
+            _context.endPhase(phase);
+        }
+
         return visitor.getLineNumberPositions();
     }
 
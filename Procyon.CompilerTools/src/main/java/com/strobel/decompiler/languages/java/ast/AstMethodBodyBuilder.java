@@ -22,9 +22,11 @@ import com.strobel.assembler.metadata.annotations.CustomAnnotation;
 import com.strobel.core.ExceptionUtilities;
 import com.strobel.core.Predicate;
 import com.strobel.core.Predicates;
+import com.strobel.core.SafeCloseable;
 import com.strobel.core.StringUtilities;
 import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.DecompilationOptions;
+import com.strobel.decompiler.DecompilationWatchdog;
 import com.strobel.decompiler.DecompilerContext;
 import com.strobel.decompiler.PlainTextOutput;
 import com.strobel.decompiler.ast.*;
@@ -40,6 +42,7 @@ import com.strobel.functions.Function;
 import com.strobel.util.ContractUtils;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 import static com.strobel.core.CollectionUtilities.*;
 
@@ -74,6 +77,51 @@ public class AstMethodBodyBuilder {
         final DecompilerContext context,
         final Iterable<ParameterDeclaration> parameters) {
 
+        return createMethodBody(astBuilder, method, context, parameters, null);
+    }
+
+    /**
+     * Builds and optimizes the bytecode AST of a method body.  This is the part of decompiling a method
+     * which never touches the Java AST, so it may run on another thread, provided it is given its own
+     * context (see {@link DecompilerContext#createMethodContext()}).  Any error is captured and reported
+     * when the result is passed to {@link #createMethodBody(AstBuilder, MethodDefinition, DecompilerContext,
+     * Iterable, BytecodeBody)}.
+     */
+    static BytecodeBody buildBytecodeBody(final MethodDefinition method, final DecompilerContext context) {
+        VerifyArgument.notNull(method, "method");
+        VerifyArgument.notNull(context, "context");
+
+        final MethodDefinition oldCurrentMethod = context.getCurrentMethod();
+
+        context.setCurrentMethod(method);
+
+        final SafeCloseable budget = DecompilationWatchdog.startMethodBudget(context);
+        final int phase = context.beginPhase("AstMethodBodyBuilder");
+
+        try {
+            return new BytecodeBody(buildBytecodeAst(method.getBody(), context), null);
+        }
+        catch (final Throwable t) {
+            return new BytecodeBody(null, t);
+        }
+        finally {
+            context.endPhase(phase);
+            budget.close();
+            context.setCurrentMethod(oldCurrentMethod);
+        }
+    }
+
+    /**
+     * Creates the Java AST of a method body.  If {@code bytecodeBody} is {@code null}, the bytecode AST
+     * is built first; otherwise, the one already built by {@link #buildBytecodeBody} is used.
+     */
+    static BlockStatement createMethodBody(
+        final AstBuilder astBuilder,
+        final MethodDefinition method,
+        final DecompilerContext context,
+        final Iterable<ParameterDeclaration> parameters,
+        final BytecodeBody bytecodeBody) {
+
         VerifyArgument.notNull(astBuilder, "astBuilder");
         VerifyArgument.notNull(method, "method");
         VerifyArgument.notNull(context, "context");
@@ -88,14 +136,28 @@ public class AstMethodBodyBuilder {
 
         context.setCurrentMethod(method);
 
+        final SafeCloseable budget = DecompilationWatchdog.startMethodBudget(context);
+        final int phase = context.beginPhase("AstMethodBodyBuilder");
+
         try {
             final AstMethodBodyBuilder builder = new AstMethodBodyBuilder(astBuilder, method, context);
-            return builder.createMethodBody(parameters);
+
+            if (bytecodeBody == null) {
+                return builder.createMethodBody(parameters);
+            }
+
+            if (bytecodeBody.error != null) {
+                return createErrorBlock(astBuilder, context, method, bytecodeBody.error);
+            }
+
+            return builder.createMethodBody(bytecodeBody.block, parameters);
         }
         catch (final Throwable t) {
             return createErrorBlock(astBuilder, context, method, t);
         }
         finally {
+            context.endPhase(phase);
+            budget.close();
             context.setCurrentMethod(oldCurrentMethod);
         }
     }
@@ -107,6 +169,7 @@ public class AstMethodBodyBuilder {
         final Throwable t) {
 
         final BlockStatement block = new BlockStatement();
+        final boolean timedOut = t instanceof CancellationException;
 
         final List<String> lines = StringUtilities.split(
             ExceptionUtilities.getStackTraceString(t),
@@ -116,7 +179,14 @@ public class AstMethodBodyBuilder {
         );
 
         block.addChild(new Comment(" ", CommentType.SingleLine), Roles.COMMENT);
-        block.addChild(new Comment(" This method could not be decompiled.", CommentType.SingleLine), Roles.COMMENT);
+        block.addChild(
+            new Comment(
+                timedOut ? " This method could not be decompiled within its time budget."
+                         : " This method could not be decompiled.",
+                CommentType.SingleLine
+            ),
+            Roles.COMMENT
+        );
         block.addChild(new Comment(" ", CommentType.SingleLine), Roles.COMMENT);
 
         try {
@@ -150,7 +220,7 @@ public class AstMethodBodyBuilder {
             block.addChild(new Comment(" ", CommentType.SingleLine), Roles.COMMENT);
         }
 
-        if (context.getSettings().getIncludeErrorDiagnostics()) {
+        if (context.getSettings().getIncludeErrorDiagnostics() && !timedOut) {
             block.addChild(new Comment(" The error that occurred was:", CommentType.SingleLine), Roles.COMMENT);
             block.addChild(new Comment(" ", CommentType.SingleLine), Roles.COMMENT);
 
@@ -190,20 +260,33 @@ public class AstMethodBodyBuilder {
         _parser = new MetadataParser(method.getDeclaringType());
     }
 
-    private BlockStatement createMethodBody(final Iterable<ParameterDeclaration> parameters) {
-        final MethodBody body = _method.getBody();
-
+    private static Block buildBytecodeAst(final MethodBody body, final DecompilerContext context) {
         if (body == null) {
             return null;
         }
 
         final Block method = new Block();
+        final int phase = context.beginPhase("BytecodeAstBuilder");
 
         method.getBody().addAll(
-            com.strobel.decompiler.ast.AstBuilder.build(body, true, _context)
+            com.strobel.decompiler.ast.AstBuilder.build(body, true, context)
         );
 
-        AstOptimizer.optimize(_context, method);
+        context.endPhase(phase);
+
+        AstOptimizer.optimize(context, method);
+
+        return method;
+    }
+
+    private BlockStatement createMethodBody(final Iterable<ParameterDeclaration> parameters) {
+        return createMethodBody(buildBytecodeAst(_method.getBody(), _context), parameters);
+    }
+
+    private BlockStatement createMethodBody(final Block method, final Iterable<ParameterDeclaration> parameters) {
+        if (method == null) {
+            return null;
+        }
 
         final MethodVariables mv = new MethodVariables(_method);
 
@@ -1352,6 +1435,19 @@ public class AstMethodBodyBuilder {
         return new InlinedBytecodeExpression(byteCode.getOffset(), byteCode.getCode(), byteCode.getOperand()).invoke(arguments);
     }
 
+    /**
+     * The optimized bytecode AST of a method body, or the error which prevented it from being built.
+     */
+    final static class BytecodeBody {
+        final Block block;
+        final Throwable error;
+
+        BytecodeBody(final Block block, final Throwable error) {
+            this.block = block;
+            this.error = error;
+        }
+    }
+
     private final static class MethodVariables {
         final MethodDefinition method;
         final VariableInfo<MethodDefinition> methodVariables;
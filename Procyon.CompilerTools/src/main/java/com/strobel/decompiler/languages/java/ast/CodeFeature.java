@@ -0,0 +1,61 @@
+/*
+ * CodeFeature.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast;
+
+/**
+ * Features of the class files going into a compilation unit which some Java AST transforms need in order
+ * to have anything to do.  See {@link CodeFeatureCensus}.
+ */
+public enum CodeFeature {
+    /**
+     * A {@code tableswitch} or {@code lookupswitch} instruction.
+     */
+    SWITCH,
+
+    /**
+     * A method body with at least one exception handler.
+     */
+    EXCEPTION_HANDLER,
+
+    /**
+     * An {@code invokedynamic} instruction.
+     */
+    INVOKE_DYNAMIC,
+
+    /**
+     * An {@code ldc} of a {@code MethodHandle} constant.
+     */
+    METHOD_HANDLE_CONSTANT,
+
+    /**
+     * An {@code instanceof} instruction.
+     */
+    INSTANCE_OF,
+
+    /**
+     * A {@code $assertionsDisabled} field, declared or accessed.
+     */
+    ASSERTION,
+
+    /**
+     * An enum switch map, i.e., a {@code $SwitchMap$} field (javac) or a {@code $SWITCH_TABLE$} field or
+     * method (Eclipse), declared or accessed.
+     */
+    ENUM_SWITCH_MAP,
+
+    /**
+     * A record class.
+     */
+    RECORD
+}
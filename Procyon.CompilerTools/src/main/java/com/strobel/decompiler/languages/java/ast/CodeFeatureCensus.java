@@ -0,0 +1,108 @@
+/*
+ * CodeFeatureCensus.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast;
+
+import com.strobel.assembler.ir.Instruction;
+import com.strobel.assembler.ir.InstructionCollection;
+import com.strobel.assembler.metadata.MemberReference;
+import com.strobel.assembler.metadata.MethodBody;
+import com.strobel.assembler.metadata.MethodHandle;
+import com.strobel.assembler.metadata.TypeDefinition;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The {@link CodeFeature}s found in the types, members, and method bodies an {@link AstBuilder} has built.
+ * It is taken from the class files rather than from the Java AST, so the transforms which rewrite the tree
+ * cannot make it stale; anything the builder decompiles later, e.g., for a transform, is added as it goes.
+ */
+public final class CodeFeatureCensus {
+    private final Set<CodeFeature> _features = EnumSet.noneOf(CodeFeature.class);
+
+    public final boolean contains(final CodeFeature feature) {
+        return _features.contains(feature);
+    }
+
+    public final boolean containsAny(final CodeFeature... features) {
+        for (final CodeFeature feature : features) {
+            if (_features.contains(feature)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    final void recordType(final TypeDefinition type) {
+        if (type.isRecord()) {
+            _features.add(CodeFeature.RECORD);
+        }
+    }
+
+    final void recordMember(final MemberReference member) {
+        final String name = member.getName();
+
+        if (name.startsWith("$SwitchMap$") || name.startsWith("$SWITCH_TABLE$")) {
+            _features.add(CodeFeature.ENUM_SWITCH_MAP);
+        }
+        else if ("$assertionsDisabled".equals(name)) {
+            _features.add(CodeFeature.ASSERTION);
+        }
+    }
+
+    final void recordMethodBody(final MethodBody body) {
+        if (body == null) {
+            return;
+        }
+
+        if (!body.getExceptionHandlers().isEmpty()) {
+            _features.add(CodeFeature.EXCEPTION_HANDLER);
+        }
+
+        final InstructionCollection instructions = body.getInstructions();
+
+        for (int i = 0, n = instructions.size(); i < n; i++) {
+            final Instruction instruction = instructions.get(i);
+
+            switch (instruction.getOpCode()) {
+                case TABLESWITCH:
+                case LOOKUPSWITCH:
+                    _features.add(CodeFeature.SWITCH);
+                    break;
+
+                case INVOKEDYNAMIC:
+                    _features.add(CodeFeature.INVOKE_DYNAMIC);
+                    break;
+
+                case INSTANCEOF:
+                    _features.add(CodeFeature.INSTANCE_OF);
+                    break;
+
+                case LDC:
+                case LDC_W:
+                    if (instruction.getOperand(0) instanceof MethodHandle) {
+                        _features.add(CodeFeature.METHOD_HANDLE_CONSTANT);
+                    }
+                    break;
+
+                case GETSTATIC:
+                case PUTSTATIC:
+                case INVOKESTATIC:
+                    recordMember(instruction.<MemberReference>getOperand(0));
+                    break;
+            }
+        }
+    }
+}
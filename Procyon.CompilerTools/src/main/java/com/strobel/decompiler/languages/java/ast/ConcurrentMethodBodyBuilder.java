@@ -0,0 +1,187 @@
+/*
+ * ConcurrentMethodBodyBuilder.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast;
+
+import com.strobel.annotations.NotNull;
+import com.strobel.assembler.metadata.MethodDefinition;
+import com.strobel.core.SafeCloseable;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.languages.java.ast.AstMethodBodyBuilder.BytecodeBody;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the bytecode ASTs of the method bodies of a type on several threads, each method with its own
+ * {@link DecompilerContext}, while {@link AstBuilder} turns them into Java ASTs one at a time and in
+ * declaration order.  Only the next few methods after the one most recently taken are handed to the
+ * workers, so finished bodies never pile up far ahead of the caller.  A method which no worker has
+ * started by the time its Java AST is needed is built on the calling thread instead.
+ */
+final class ConcurrentMethodBodyBuilder implements SafeCloseable {
+    private final static ExecutorService EXECUTOR;
+
+    static {
+        EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactory() {
+                private final AtomicInteger _threadId = new AtomicInteger();
+
+                @Override
+                public Thread newThread(@NotNull final Runnable r) {
+                    final Thread thread = new Thread(r, "procyon-method-body-" + _threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+    }
+
+    private final DecompilerContext _context;
+    private final int _window;
+    private final List<MethodBodyTask> _order = new ArrayList<>();
+    private final Map<MethodDefinition, MethodBodyTask> _tasks = new IdentityHashMap<>();
+
+    private int _nextSubmission;
+
+    private ConcurrentMethodBodyBuilder(final DecompilerContext context, final int window) {
+        _context = context;
+        _window = window;
+    }
+
+    /**
+     * Starts building the bytecode ASTs of {@code methods}, or returns {@code null} if the settings of
+     * {@code context} do not call for more than one thread to do so.
+     */
+    static ConcurrentMethodBodyBuilder start(final DecompilerContext context, final List<MethodDefinition> methods) {
+        final int threadCount = Math.min(context.getSettings().getMethodThreadCount(), methods.size());
+
+        if (threadCount <= 1) {
+            return null;
+        }
+
+        final ConcurrentMethodBodyBuilder builder = new ConcurrentMethodBodyBuilder(context, threadCount);
+
+        for (final MethodDefinition method : methods) {
+            final MethodBodyTask task = new MethodBodyTask(method, context.createMethodContext(), builder._order.size());
+
+            builder._order.add(task);
+            builder._tasks.put(method, task);
+        }
+
+        builder.submitThrough(threadCount - 1);
+
+        return builder;
+    }
+
+    //
+    // Hands the tasks up to and including the given position to the workers, skipping those which have
+    // already been taken.  Only the calling thread submits, so no locking is needed.
+    //
+    private void submitThrough(final int lastPosition) {
+        final int end = Math.min(lastPosition + 1, _order.size());
+
+        while (_nextSubmission < end) {
+            final MethodBodyTask task = _order.get(_nextSubmission++);
+
+            if (_tasks.get(task.method) == task) {
+                EXECUTOR.execute(task);
+            }
+        }
+    }
+
+    /**
+     * Returns the bytecode AST of {@code method}, or {@code null} if it was not among the methods this
+     * builder was started with.  Waits for a worker to finish it if one has already started.
+     */
+    BytecodeBody take(final MethodDefinition method) {
+        final MethodBodyTask task = _tasks.remove(method);
+
+        if (task == null) {
+            return null;
+        }
+
+        //
+        // Move the window along before waiting, so the workers keep busy in the meantime.
+        //
+        submitThrough(task.position + _window);
+
+        //
+        // Does nothing if a worker got to the task first.
+        //
+        task.run();
+
+        final BytecodeBody body;
+
+        try {
+            body = task.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new BytecodeBody(null, e);
+        }
+        catch (final ExecutionException e) {
+            return new BytecodeBody(null, e.getCause());
+        }
+
+        _context.mergeMethodContext(task.context);
+
+        return body;
+    }
+
+    /**
+     * Abandons the methods which were never taken.  Those not yet started never will be, and those
+     * being built stop at their next cancellation check.  Worker threads are not interrupted, as that
+     * would close any interruptible channel a type loader happened to be reading.
+     */
+    @Override
+    public void close() {
+        for (final MethodBodyTask task : _tasks.values()) {
+            task.cancel(false);
+            task.context.abandon();
+        }
+
+        _tasks.clear();
+        _nextSubmission = _order.size();
+    }
+
+    private final static class MethodBodyTask extends FutureTask<BytecodeBody> {
+        final MethodDefinition method;
+        final DecompilerContext context;
+        final int position;
+
+        MethodBodyTask(final MethodDefinition method, final DecompilerContext context, final int position) {
+            super(
+                new Callable<BytecodeBody>() {
+                    @Override
+                    public BytecodeBody call() {
+                        return AstMethodBodyBuilder.buildBytecodeBody(method, context);
+                    }
+                }
+            );
+
+            this.method = method;
+            this.context = context;
+            this.position = position;
+        }
+    }
+}
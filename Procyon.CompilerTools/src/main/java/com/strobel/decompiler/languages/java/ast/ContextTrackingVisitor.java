@@ -32,10 +32,39 @@ public abstract class ContextTrackingVisitor<TResult> extends DepthFirstAstVisit
     @SuppressWarnings("ProtectedField")
     protected final DecompilerContext context;
 
+    private AstNode _nodeWithoutChildren;
+
     protected ContextTrackingVisitor(final DecompilerContext context) {
         this.context = VerifyArgument.notNull(context, "context");
     }
 
+    /**
+     * Visits {@code node} as a walk of the whole tree would, but without visiting its children.  Used when
+     * several visitors share a single walk of the tree, and the children of {@code node} have already been
+     * visited by the time this visitor gets to it.
+     */
+    public final void transformNode(final AstNode node) {
+        final AstNode oldNode = _nodeWithoutChildren;
+
+        _nodeWithoutChildren = node;
+
+        try {
+            node.acceptVisitor(this, null);
+        }
+        finally {
+            _nodeWithoutChildren = oldNode;
+        }
+    }
+
+    @Override
+    protected TResult visitChildren(final AstNode node, final Void data) {
+        if (node == _nodeWithoutChildren) {
+            return null;
+        }
+
+        return super.visitChildren(node, data);
+    }
+
     protected final boolean inConstructor() {
         final MethodDefinition currentMethod = context.getCurrentMethod();
         return currentMethod != null && currentMethod.isConstructor();
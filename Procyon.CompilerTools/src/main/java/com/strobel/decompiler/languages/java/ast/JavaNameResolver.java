@@ -76,25 +76,42 @@ public final class JavaNameResolver {
     }
 
     public static NameResolveResult resolve(final String name, final AstNode node) {
+        return resolve(name, node, null);
+    }
+
+    public static NameResolveResult resolveAsType(final String name, final AstNode node) {
+        return resolveAsType(name, node, null);
+    }
+
+    /**
+     * Resolves {@code name} as an expression at {@code node}, reusing and adding to what {@code scopes}
+     * already knows about the enclosing scopes.  With a {@code null} table, every scope is searched anew.
+     */
+    public static NameResolveResult resolve(final String name, final AstNode node, final JavaScopeTable scopes) {
         return new Result(
             NameResolveMode.EXPRESSION,
-            resolveCore(node, name, NameResolveMode.EXPRESSION)
+            resolveCore(node, name, NameResolveMode.EXPRESSION, scopes)
         );
     }
 
-    public static NameResolveResult resolveAsType(final String name, final AstNode node) {
+    /**
+     * Resolves {@code name} as a type at {@code node}, reusing and adding to what {@code scopes} already
+     * knows about the enclosing scopes.  With a {@code null} table, every scope is searched anew.
+     */
+    public static NameResolveResult resolveAsType(final String name, final AstNode node, final JavaScopeTable scopes) {
         return new Result(
             NameResolveMode.TYPE,
-            resolveCore(node, name, NameResolveMode.TYPE)
+            resolveCore(node, name, NameResolveMode.TYPE, scopes)
         );
     }
 
     private static List<Object> resolveCore(
         final AstNode location,
         final String name,
-        final NameResolveMode mode) {
+        final NameResolveMode mode,
+        final JavaScopeTable scopes) {
 
-        final Set<Object> results = FindDeclarationVisitor.resolveName(location, name, mode);
+        final Set<Object> results = FindDeclarationVisitor.resolveName(location, name, mode, scopes);
 
         if (results.isEmpty()) {
             return ReadOnlyList.emptyList();
@@ -105,14 +122,21 @@ public final class JavaNameResolver {
 
     private final static class FindDeclarationVisitor implements IAstVisitor<String, Set<Object>> {
         private final NameResolveMode _mode;
+        private final JavaScopeTable _scopes;
         private boolean _isStaticContext;
 
-        FindDeclarationVisitor(final NameResolveMode mode, final boolean isStaticContext) {
+        FindDeclarationVisitor(final NameResolveMode mode, final boolean isStaticContext, final JavaScopeTable scopes) {
             _mode = VerifyArgument.notNull(mode, "mode");
             _isStaticContext = isStaticContext;
+            _scopes = scopes;
         }
 
-        static Set<Object> resolveName(final AstNode node, final String name, final NameResolveMode mode) {
+        static Set<Object> resolveName(
+            final AstNode node,
+            final String name,
+            final NameResolveMode mode,
+            final JavaScopeTable scopes) {
+
             VerifyArgument.notNull(node, "node");
             VerifyArgument.notNull(name, "name");
             VerifyArgument.notNull(mode, "mode");
@@ -130,7 +154,7 @@ public final class JavaNameResolver {
 
             TypeDeclaration lastTypeDeclaration = null;
 
-            final FindDeclarationVisitor visitor = new FindDeclarationVisitor(mode, isStaticContext(node));
+            final FindDeclarationVisitor visitor = new FindDeclarationVisitor(mode, isStaticContext(node), scopes);
 
             while (n != null && !n.isNull()) {
                 if (n instanceof CompilationUnit) {
@@ -207,7 +231,12 @@ public final class JavaNameResolver {
                         }
                     }
 
-                    final Statement previousStatement = ((Statement) n).getPreviousStatement();
+                    //
+                    // Of the statements before this one, only those the table lists as declaring the name
+                    // can produce a result, so jump straight to the nearest of them.
+                    //
+                    final Statement previousStatement = scopes != null ? scopes.findPreviousDeclaringStatement(s, name)
+                                                                       : s.getPreviousStatement();
 
                     if (previousStatement != null) {
                         n = previousStatement;
@@ -244,6 +273,35 @@ public final class JavaNameResolver {
                 return Collections.emptySet();
             }
 
+            if (_scopes == null) {
+                return searchUpScopeCore(name, type, visitedTypes, searchGenericParameters);
+            }
+
+            //
+            // What a type inherits or can see from its enclosing types comes from metadata alone, so it
+            // only ever needs to be looked up once per name.
+            //
+            final int slot = JavaScopeTable.slot(_mode, _isStaticContext, searchGenericParameters);
+            final Set<Object> cachedResults = _scopes.getDeclarations(type, name, slot);
+
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+
+            return _scopes.putDeclarations(
+                type,
+                name,
+                slot,
+                searchUpScopeCore(name, type, visitedTypes, searchGenericParameters)
+            );
+        }
+
+        private Set<Object> searchUpScopeCore(
+            final String name,
+            final TypeDefinition type,
+            final Set<String> visitedTypes,
+            final boolean searchGenericParameters) {
+
             Set<Object> results = null;
 
             if (_mode == NameResolveMode.EXPRESSION) {
@@ -675,6 +733,21 @@ public final class JavaNameResolver {
 
         @Override
         public Set<Object> visitTypeDeclaration(final TypeDeclaration node, final String name) {
+            if (_scopes == null) {
+                return visitTypeDeclarationCore(node, name);
+            }
+
+            final int slot = JavaScopeTable.slot(_mode, _isStaticContext, false);
+            final Set<Object> cachedResults = _scopes.getDeclarations(node, name, slot);
+
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+
+            return _scopes.putDeclarations(node, name, slot, visitTypeDeclarationCore(node, name));
+        }
+
+        private Set<Object> visitTypeDeclarationCore(final TypeDeclaration node, final String name) {
             Set<Object> results = null;
 
             if (_mode == NameResolveMode.EXPRESSION) {
@@ -788,6 +861,21 @@ public final class JavaNameResolver {
 
         @Override
         public Set<Object> visitCompilationUnit(final CompilationUnit node, final String name) {
+            if (_scopes == null) {
+                return visitCompilationUnitCore(node, name);
+            }
+
+            final int slot = JavaScopeTable.slot(_mode, _isStaticContext, false);
+            final Set<Object> cachedResults = _scopes.getDeclarations(node, name, slot);
+
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+
+            return _scopes.putDeclarations(node, name, slot, visitCompilationUnitCore(node, name));
+        }
+
+        private Set<Object> visitCompilationUnitCore(final CompilationUnit node, final String name) {
             Set<Object> results = null;
 
             for (final TypeDeclaration typeDeclaration : node.getTypes()) {
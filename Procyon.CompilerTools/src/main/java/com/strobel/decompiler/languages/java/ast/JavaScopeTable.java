@@ -0,0 +1,213 @@
+/*
+ * JavaScopeTable.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers what {@link JavaNameResolver} finds in each scope, so that resolving many names in the same tree
+ * becomes a series of lookups rather than a series of tree walks.  Scopes are indexed lazily, the first time
+ * a name is resolved in them:
+ * <ul>
+ * <li>the declarations a name resolves to in a type declaration, in the compilation unit, and in a type and
+ * the types it inherits from or is nested in;</li>
+ * <li>for each node containing statements, which of those statements may declare a given name.</li>
+ * </ul>
+ * A table may only be used while the declarations in the tree stay as they were when they were indexed.
+ * Whoever changes them must {@link #invalidate} the changed node; the results for the scopes enclosing it are
+ * then dropped, and rebuilt on demand.  Results for type definitions come from metadata and never change.
+ */
+public final class JavaScopeTable {
+    private final static int SLOT_COUNT = NameResolveMode.values().length * 4;
+
+    private final Map<Object, Map<String, Set<Object>[]>> _declarations = new IdentityHashMap<>();
+    private final Map<AstNode, StatementScope> _statementScopes = new IdentityHashMap<>();
+
+    /**
+     * Drops everything known about the scopes enclosing {@code node}, which must still be in the tree.
+     */
+    public final void invalidate(final AstNode node) {
+        for (AstNode n = node; n != null && !n.isNull(); n = n.getParent()) {
+            _declarations.remove(n);
+            _statementScopes.remove(n);
+        }
+    }
+
+    static int slot(final NameResolveMode mode, final boolean isStaticContext, final boolean searchGenericParameters) {
+        return mode.ordinal() * 4 + (isStaticContext ? 2 : 0) + (searchGenericParameters ? 1 : 0);
+    }
+
+    final Set<Object> getDeclarations(final Object scope, final String name, final int slot) {
+        final Map<String, Set<Object>[]> names = _declarations.get(scope);
+
+        if (names == null) {
+            return null;
+        }
+
+        final Set<Object>[] declarations = names.get(name);
+
+        return declarations != null ? declarations[slot] : null;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    final Set<Object> putDeclarations(final Object scope, final String name, final int slot, final Set<Object> declarations) {
+        Map<String, Set<Object>[]> names = _declarations.get(scope);
+
+        if (names == null) {
+            _declarations.put(scope, names = new HashMap<>());
+        }
+
+        Set<Object>[] slots = names.get(name);
+
+        if (slots == null) {
+            names.put(name, slots = new Set[SLOT_COUNT]);
+        }
+
+        //
+        // The resolver adds to some of the sets it gets back from a scope, so only hand out read-only ones.
+        //
+        final Set<Object> result = declarations.isEmpty() ? Collections.emptySet()
+                                                           : Collections.unmodifiableSet(declarations);
+
+        slots[slot] = result;
+        return result;
+    }
+
+    /**
+     * Returns the nearest statement before {@code statement}, in the same parent, which might declare
+     * {@code name}, or {@code null} if there is none.
+     */
+    final Statement findPreviousDeclaringStatement(final Statement statement, final String name) {
+        final AstNode parent = statement.getParent();
+
+        if (parent == null || parent.isNull()) {
+            return statement.getPreviousStatement();
+        }
+
+        StatementScope scope = _statementScopes.get(parent);
+
+        if (scope == null) {
+            _statementScopes.put(parent, scope = new StatementScope(parent));
+        }
+
+        return scope.findPreviousDeclaringStatement(statement, name);
+    }
+
+    private final static class StatementScope {
+        private final static int[] NO_POSITIONS = new int[0];
+
+        private final List<Statement> _statements = new ArrayList<>();
+        private final Map<Statement, Integer> _positions = new IdentityHashMap<>();
+        private final Map<String, int[]> _declaringPositions = new HashMap<>();
+        private final int[] _localTypePositions;
+
+        StatementScope(final AstNode parent) {
+            final Map<String, List<Integer>> declaringPositions = new HashMap<>();
+            final List<Integer> localTypePositions = new ArrayList<>();
+
+            for (AstNode child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (!(child instanceof Statement)) {
+                    continue;
+                }
+
+                final int position = _statements.size();
+
+                _statements.add((Statement) child);
+                _positions.put((Statement) child, position);
+
+                //
+                // Only these statements declare anything the resolver can find; a local class may also
+                // reveal any name visible from inside it, so it is a candidate for every name.
+                //
+                if (child instanceof VariableDeclarationStatement) {
+                    for (final VariableInitializer v : ((VariableDeclarationStatement) child).getVariables()) {
+                        addPosition(declaringPositions, v.getName(), position);
+                    }
+                }
+                else if (child instanceof ForEachStatement) {
+                    addPosition(declaringPositions, ((ForEachStatement) child).getVariableName(), position);
+                }
+                else if (child instanceof LocalTypeDeclarationStatement) {
+                    localTypePositions.add(position);
+                }
+            }
+
+            for (final Map.Entry<String, List<Integer>> entry : declaringPositions.entrySet()) {
+                _declaringPositions.put(entry.getKey(), toArray(entry.getValue()));
+            }
+
+            _localTypePositions = toArray(localTypePositions);
+        }
+
+        Statement findPreviousDeclaringStatement(final Statement statement, final String name) {
+            final Integer position = _positions.get(statement);
+
+            if (position == null) {
+                return statement.getPreviousStatement();
+            }
+
+            final int[] declaringPositions = _declaringPositions.get(name);
+
+            final int previous = Math.max(
+                findPrevious(declaringPositions != null ? declaringPositions : NO_POSITIONS, position),
+                findPrevious(_localTypePositions, position)
+            );
+
+            return previous >= 0 ? _statements.get(previous) : null;
+        }
+
+        private static int findPrevious(final int[] positions, final int position) {
+            final int index = Arrays.binarySearch(positions, position);
+            final int insertionPoint = index >= 0 ? index : -index - 1;
+
+            return insertionPoint > 0 ? positions[insertionPoint - 1] : -1;
+        }
+
+        private static void addPosition(final Map<String, List<Integer>> positions, final String name, final int position) {
+            if (name == null) {
+                return;
+            }
+
+            List<Integer> list = positions.get(name);
+
+            if (list == null) {
+                positions.put(name, list = new ArrayList<>());
+            }
+
+            //
+            // A statement declaring several variables of the same name is only listed once.
+            //
+            if (list.isEmpty() || list.get(list.size() - 1) != position) {
+                list.add(position);
+            }
+        }
+
+        private static int[] toArray(final List<Integer> list) {
+            final int[] array = new int[list.size()];
+
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+
+            return array;
+        }
+    }
+}
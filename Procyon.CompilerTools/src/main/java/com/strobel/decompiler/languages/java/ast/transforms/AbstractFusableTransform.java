@@ -0,0 +1,45 @@
+/*
+ * AbstractFusableTransform.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast.transforms;
+
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.languages.java.ast.AstNode;
+import com.strobel.decompiler.languages.java.ast.ContextTrackingVisitor;
+
+/**
+ * Base class for {@link IFusableTransform}s which are always enabled unless {@link #isEnabled()} says
+ * otherwise, and which do not depend on any other transform.
+ */
+public abstract class AbstractFusableTransform<TResult> extends ContextTrackingVisitor<TResult> implements IFusableTransform {
+    protected AbstractFusableTransform(final DecompilerContext context) {
+        super(context);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean dependsOn(final IFusableTransform transform) {
+        return false;
+    }
+
+    @Override
+    public void run(final AstNode compilationUnit) {
+        if (isEnabled()) {
+            super.run(compilationUnit);
+        }
+    }
+}
@@ -37,6 +37,8 @@ public class AddReferenceQualifiersTransform extends ContextTrackingVisitor<Void
     private final Set<AstNode> _removeQualifierCandidates = new LinkedHashSet<>();
     private final boolean _simplifyMemberReferences;
 
+    private JavaScopeTable _scopes;
+
     public AddReferenceQualifiersTransform(final DecompilerContext context) {
         super(context);
         _simplifyMemberReferences = context.getSettings().getSimplifyMemberReferences();
@@ -44,6 +46,8 @@ public class AddReferenceQualifiersTransform extends ContextTrackingVisitor<Void
 
     @Override
     public void run(final AstNode compilationUnit) {
+        _scopes = new JavaScopeTable();
+
         super.run(compilationUnit);
 
         addQualifiersWhereNecessary();
@@ -194,6 +198,14 @@ public class AddReferenceQualifiersTransform extends ContextTrackingVisitor<Void
             d.remove();
         }
 
+        //
+        // Names are resolved again when the qualifiers are added, and they must no longer see the imports we
+        // just removed.  Qualifying a type reference never changes a declaration, so nothing else goes stale.
+        //
+        if (!importsToRemove.isEmpty()) {
+            _scopes.invalidate(node);
+        }
+
         return null;
     }
 
@@ -227,10 +239,10 @@ public class AddReferenceQualifiersTransform extends ContextTrackingVisitor<Void
         final NameResolveResult result;
 
         if (mode == NameResolveMode.TYPE) {
-            result = JavaNameResolver.resolveAsType(name, location);
+            result = JavaNameResolver.resolveAsType(name, location, _scopes);
         }
         else {
-            result = JavaNameResolver.resolve(name, location);
+            result = JavaNameResolver.resolve(name, location, _scopes);
         }
 
         if (result.hasMatch() && !result.isAmbiguous()) {
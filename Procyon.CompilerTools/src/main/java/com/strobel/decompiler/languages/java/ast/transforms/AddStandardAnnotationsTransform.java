@@ -10,7 +10,7 @@ import java.util.List;
 
 import static com.strobel.core.CollectionUtilities.any;
 
-public final class AddStandardAnnotationsTransform extends ContextTrackingVisitor<Void> {
+public final class AddStandardAnnotationsTransform extends AbstractFusableTransform<Void> {
     private final static String OVERRIDE_ANNOTATION_NAME = "java/lang/Override";
     private final static String DEPRECATED_ANNOTATION_NAME = "java/lang/Deprecated";
 
@@ -30,16 +30,17 @@ import com.strobel.functions.Function;
 
 import static com.strobel.core.CollectionUtilities.*;
 
-public class AssertStatementTransform extends ContextTrackingVisitor<Void> {
+@RequiredFeatures(CodeFeature.ASSERTION)
+public class AssertStatementTransform extends AbstractFusableTransform<Void> {
     public AssertStatementTransform(final DecompilerContext context) {
         super(context);
     }
 
-    private final static IfElseStatement ASSERT_PATTERN;
-    private final static AssignmentExpression ASSERTIONS_DISABLED_PATTERN;
+    private final static CompiledPattern ASSERT_PATTERN;
+    private final static CompiledPattern ASSERTIONS_DISABLED_PATTERN;
 
     static {
-        ASSERT_PATTERN = new IfElseStatement(
+        final IfElseStatement assertPattern = new IfElseStatement(
             Expression.MYSTERY_OFFSET,
             new Choice(
                 new UnaryOperatorExpression(
@@ -87,7 +88,7 @@ public class AssertStatementTransform extends ContextTrackingVisitor<Void> {
             )
         );
 
-        ASSERTIONS_DISABLED_PATTERN = new AssignmentExpression(
+        final AssignmentExpression assertionsDisabledPattern = new AssignmentExpression(
             new NamedNode(
                 "$assertionsDisabled",
                 new Choice(
@@ -113,6 +114,9 @@ public class AssertStatementTransform extends ContextTrackingVisitor<Void> {
                 )
             )
         );
+
+        ASSERT_PATTERN = Pattern.compile(assertPattern);
+        ASSERTIONS_DISABLED_PATTERN = Pattern.compile(assertionsDisabledPattern);
     }
 
     @Override
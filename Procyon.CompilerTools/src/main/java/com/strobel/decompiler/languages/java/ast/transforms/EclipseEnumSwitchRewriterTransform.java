@@ -31,6 +31,7 @@ import java.util.Map;
 
 import static com.strobel.core.CollectionUtilities.*;
 
+@RequiredFeatures(CodeFeature.ENUM_SWITCH_MAP)
 public class EclipseEnumSwitchRewriterTransform implements IAstTransform {
     private final DecompilerContext _context;
 
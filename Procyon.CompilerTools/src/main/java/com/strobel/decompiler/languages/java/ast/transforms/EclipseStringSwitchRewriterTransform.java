@@ -34,6 +34,7 @@ import java.util.List;
 
 import static com.strobel.core.CollectionUtilities.*;
 
+@RequiredFeatures({ CodeFeature.SWITCH, CodeFeature.ENUM_SWITCH_MAP })
 public class EclipseStringSwitchRewriterTransform extends ContextTrackingVisitor<Void> {
     public EclipseStringSwitchRewriterTransform(final DecompilerContext context) {
         super(context);
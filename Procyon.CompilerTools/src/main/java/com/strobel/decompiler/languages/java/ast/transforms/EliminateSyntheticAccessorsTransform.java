@@ -17,13 +17,16 @@
 package com.strobel.decompiler.languages.java.ast.transforms;
 
 import com.strobel.assembler.metadata.*;
+import com.strobel.componentmodel.Key;
 import com.strobel.core.SafeCloseable;
 import com.strobel.core.StringUtilities;
 import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.TypeAnalysisCache;
 import com.strobel.decompiler.languages.java.ast.*;
 import com.strobel.decompiler.patterns.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -34,6 +37,8 @@ import java.util.Set;
 import static com.strobel.core.CollectionUtilities.*;
 
 public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor<Void> {
+    private final static Key<ForeignAccessors> FOREIGN_ACCESSORS = Key.create("ForeignAccessors");
+
     private final List<AstNode> _nodesToRemove;
     private final Map<String, MethodDeclaration> _accessMethodDeclarations;
     private final Set<String> _visitedTypes;
@@ -51,7 +56,7 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
         //
         // First run through and locate any outer class member access methods.
         //
-        new PhaseOneVisitor().run(compilationUnit);
+        new PhaseOneVisitor(_accessMethodDeclarations, _visitedTypes).run(compilationUnit);
 
         super.run(compilationUnit);
 
@@ -92,13 +97,15 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
                     final MethodDefinition md = method.resolve();
 
                     if (md != null && md.isSynthetic() && !md.isBridgeMethod() && md.isPackagePrivate()) {
-                        final AstBuilder astBuilder = context.getUserData(Keys.AST_BUILDER);
+                        final ForeignAccessors accessors = findForeignAccessors(md.getDeclaringType());
 
-                        if (astBuilder != null) {
-                            try (final SafeCloseable importSuppression = astBuilder.suppressImports()) {
-                                final TypeDeclaration ownerTypeDeclaration = astBuilder.createType(md.getDeclaringType());
+                        if (accessors != null) {
+                            _visitedTypes.addAll(accessors.visitedTypes);
 
-                                ownerTypeDeclaration.acceptVisitor(new PhaseOneVisitor(), data);
+                            for (final Map.Entry<String, MethodDeclaration> entry : accessors.declarations.entrySet()) {
+                                if (!_accessMethodDeclarations.containsKey(entry.getKey())) {
+                                    _accessMethodDeclarations.put(entry.getKey(), entry.getValue());
+                                }
                             }
                         }
                     }
@@ -184,6 +191,46 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
         return null;
     }
 
+    private ForeignAccessors findForeignAccessors(final TypeDefinition ownerType) {
+        //
+        // Every inner class calling into the same outer class would otherwise decompile it all over again.
+        // The declarations we find are only ever cloned, so they can be shared.
+        //
+        final TypeAnalysisCache cache = context.getAnalysisCache();
+        final ForeignAccessors cached = cache.get(ownerType, FOREIGN_ACCESSORS);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final AstBuilder astBuilder = context.getUserData(Keys.AST_BUILDER);
+
+        if (astBuilder == null) {
+            return null;
+        }
+
+        final Map<String, MethodDeclaration> declarations = new HashMap<>();
+        final Set<String> visitedTypes = new HashSet<>();
+
+        try (final SafeCloseable importSuppression = astBuilder.suppressImports()) {
+            final TypeDeclaration ownerTypeDeclaration = astBuilder.createType(ownerType);
+
+            ownerTypeDeclaration.acceptVisitor(new PhaseOneVisitor(declarations, visitedTypes), null);
+        }
+
+        return cache.put(ownerType, FOREIGN_ACCESSORS, new ForeignAccessors(declarations, visitedTypes));
+    }
+
+    private final static class ForeignAccessors {
+        final Map<String, MethodDeclaration> declarations;
+        final Set<String> visitedTypes;
+
+        ForeignAccessors(final Map<String, MethodDeclaration> declarations, final Set<String> visitedTypes) {
+            this.declarations = Collections.unmodifiableMap(declarations);
+            this.visitedTypes = Collections.unmodifiableSet(visitedTypes);
+        }
+    }
+
     private static boolean isThisOrOuterThisReference(final Expression e) {
         if (e == null || e.isNull()) {
             return false;
@@ -269,12 +316,12 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
 
     // <editor-fold defaultstate="collapsed" desc="PhaseOneVisitor Class">
 
-    private final static MethodDeclaration SYNTHETIC_GET_ACCESSOR;
-    private final static MethodDeclaration SYNTHETIC_SET_ACCESSOR;
-    private final static MethodDeclaration SYNTHETIC_SET_ACCESSOR_ALT;
-    private final static MethodDeclaration SYNTHETIC_STATIC_GET_ACCESSOR;
-    private final static MethodDeclaration SYNTHETIC_STATIC_SET_ACCESSOR;
-    private final static MethodDeclaration SYNTHETIC_STATIC_SET_ACCESSOR_ALT;
+    private final static CompiledPattern SYNTHETIC_GET_ACCESSOR;
+    private final static CompiledPattern SYNTHETIC_SET_ACCESSOR;
+    private final static CompiledPattern SYNTHETIC_SET_ACCESSOR_ALT;
+    private final static CompiledPattern SYNTHETIC_STATIC_GET_ACCESSOR;
+    private final static CompiledPattern SYNTHETIC_STATIC_SET_ACCESSOR;
+    private final static CompiledPattern SYNTHETIC_STATIC_SET_ACCESSOR_ALT;
 
     static {
         final MethodDeclaration getAccessor = new MethodDeclaration();
@@ -412,9 +459,9 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
             )
         );
 
-        SYNTHETIC_GET_ACCESSOR = getAccessor;
-        SYNTHETIC_SET_ACCESSOR = setAccessor;
-        SYNTHETIC_SET_ACCESSOR_ALT = altSetAccessor;
+        SYNTHETIC_GET_ACCESSOR = Pattern.compile(getAccessor);
+        SYNTHETIC_SET_ACCESSOR = Pattern.compile(setAccessor);
+        SYNTHETIC_SET_ACCESSOR_ALT = Pattern.compile(altSetAccessor);
 
         final MethodDeclaration staticGetAccessor = (MethodDeclaration) getAccessor.clone();
         final MethodDeclaration staticSetAccessor = (MethodDeclaration) setAccessor.clone();
@@ -504,14 +551,19 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
             )
         );
 
-        SYNTHETIC_STATIC_GET_ACCESSOR = staticGetAccessor;
-        SYNTHETIC_STATIC_SET_ACCESSOR = staticSetAccessor;
-        SYNTHETIC_STATIC_SET_ACCESSOR_ALT = altStaticSetAccessor;
+        SYNTHETIC_STATIC_GET_ACCESSOR = Pattern.compile(staticGetAccessor);
+        SYNTHETIC_STATIC_SET_ACCESSOR = Pattern.compile(staticSetAccessor);
+        SYNTHETIC_STATIC_SET_ACCESSOR_ALT = Pattern.compile(altStaticSetAccessor);
     }
 
     private class PhaseOneVisitor extends ContextTrackingVisitor<Void> {
-        private PhaseOneVisitor() {
+        private final Map<String, MethodDeclaration> _declarations;
+        private final Set<String> _visited;
+
+        private PhaseOneVisitor(final Map<String, MethodDeclaration> declarations, final Set<String> visited) {
             super(EliminateSyntheticAccessorsTransform.this.context);
+            _declarations = declarations;
+            _visited = visited;
         }
 
         @Override
@@ -519,7 +571,7 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
             final TypeDefinition type = node.getUserData(Keys.TYPE_DEFINITION);
 
             if (type != null) {
-                if (!_visitedTypes.add(type.getInternalName())) {
+                if (!_visited.add(type.getInternalName())) {
                     return null;
                 }
             }
@@ -534,7 +586,7 @@ public class EliminateSyntheticAccessorsTransform extends ContextTrackingVisitor
             if (method != null) {
                 if (method.isSynthetic() && method.isStatic()) {
                     if (tryMatchAccessor(node) || tryMatchCallWrapper(node)) {
-                        _accessMethodDeclarations.put(makeMethodKey(method), node);
+                        _declarations.put(makeMethodKey(method), node);
                     }
                 }
             }
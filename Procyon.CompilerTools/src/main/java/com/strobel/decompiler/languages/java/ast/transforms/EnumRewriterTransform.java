@@ -212,20 +212,22 @@ public class EnumRewriterTransform implements IAstTransform {
             return super.visitAssignmentExpression(node, data);
         }
 
-        private final static INode SUPER_PATTERN = new SubtreeMatch(
-            new BlockStatement(
-                new Repeat(new TypedNode(VariableDeclarationStatement.class)).toStatement(),
-                new NamedNode(
-                    "superCall",
-                    new ExpressionStatement(
-                        new InvocationExpression(
-                            Expression.MYSTERY_OFFSET,
-                            new SuperReferenceExpression(Expression.MYSTERY_OFFSET),
-                            new Repeat(new AnyNode()).toExpression()
+        private final static CompiledPattern SUPER_PATTERN = Pattern.compile(
+            new SubtreeMatch(
+                new BlockStatement(
+                    new Repeat(new TypedNode(VariableDeclarationStatement.class)).toStatement(),
+                    new NamedNode(
+                        "superCall",
+                        new ExpressionStatement(
+                            new InvocationExpression(
+                                Expression.MYSTERY_OFFSET,
+                                new SuperReferenceExpression(Expression.MYSTERY_OFFSET),
+                                new Repeat(new AnyNode()).toExpression()
+                            )
                         )
-                    )
-                ).toStatement(),
-                new Repeat(new AnyNode()).toStatement()
+                    ).toStatement(),
+                    new Repeat(new AnyNode()).toStatement()
+                )
             )
         );
 
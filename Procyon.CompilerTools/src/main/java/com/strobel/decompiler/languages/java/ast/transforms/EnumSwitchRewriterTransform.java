@@ -22,20 +22,24 @@ import com.strobel.assembler.metadata.LanguageFeature;
 import com.strobel.assembler.metadata.MethodDefinition;
 import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.assembler.metadata.TypeReference;
+import com.strobel.componentmodel.Key;
 import com.strobel.core.BooleanBox;
 import com.strobel.core.SafeCloseable;
 import com.strobel.core.StrongBox;
 import com.strobel.core.VerifyArgument;
 import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.TypeAnalysisCache;
 import com.strobel.decompiler.ast.Variable;
 import com.strobel.decompiler.languages.java.ast.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+@RequiredFeatures(CodeFeature.ENUM_SWITCH_MAP)
 public class EnumSwitchRewriterTransform implements IAstTransform {
     public EnumSwitchRewriterTransform(final DecompilerContext context) {
         _context = VerifyArgument.notNull(context, "context");
@@ -51,6 +55,8 @@ public class EnumSwitchRewriterTransform implements IAstTransform {
     }
 
     private final static class Visitor extends ContextTrackingVisitor<Void> {
+        private final static Key<Map<String, Map<Integer, Expression>>> SWITCH_MAPPINGS = Key.create("SwitchMappings");
+
         private final static class SwitchMapInfo {
             final String enclosingType;
             final Map<String, List<SwitchStatement>> switches = new LinkedHashMap<>();
@@ -204,17 +210,7 @@ public class EnumSwitchRewriterTransform implements IAstTransform {
                     final TypeDefinition resolvedType = enclosingType.resolve();
 
                     if (resolvedType != null) {
-                        AstBuilder astBuilder = context.getUserData(Keys.AST_BUILDER);
-
-                        if (astBuilder == null) {
-                            astBuilder = new AstBuilder(context);
-                        }
-
-                        try (final SafeCloseable ignored = astBuilder.suppressImports()) {
-                            final TypeDeclaration declaration = astBuilder.createType(resolvedType);
-
-                            declaration.acceptVisitor(this, data);
-                        }
+                        loadMappings(info, resolvedType);
                     }
                 }
 
@@ -230,6 +226,42 @@ public class EnumSwitchRewriterTransform implements IAstTransform {
             return super.visitSwitchStatement(node, data);
         }
 
+        private void loadMappings(final SwitchMapInfo info, final TypeDefinition wrapperType) {
+            //
+            // Every class switching on the same enum shares one wrapper, so only decompile it once.
+            // The mappings are only ever cloned, so they can be shared.
+            //
+            final TypeAnalysisCache cache = context.getAnalysisCache();
+            final Map<String, Map<Integer, Expression>> cached = cache.get(wrapperType, SWITCH_MAPPINGS);
+
+            if (cached != null) {
+                for (final Map.Entry<String, Map<Integer, Expression>> entry : cached.entrySet()) {
+                    info.mappings.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+                }
+                return;
+            }
+
+            AstBuilder astBuilder = context.getUserData(Keys.AST_BUILDER);
+
+            if (astBuilder == null) {
+                astBuilder = new AstBuilder(context);
+            }
+
+            try (final SafeCloseable ignored = astBuilder.suppressImports()) {
+                final TypeDeclaration declaration = astBuilder.createType(wrapperType);
+
+                declaration.acceptVisitor(this, null);
+            }
+
+            final Map<String, Map<Integer, Expression>> mappings = new LinkedHashMap<>();
+
+            for (final Map.Entry<String, Map<Integer, Expression>> entry : info.mappings.entrySet()) {
+                mappings.put(entry.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(entry.getValue())));
+            }
+
+            cache.put(wrapperType, SWITCH_MAPPINGS, Collections.unmodifiableMap(mappings));
+        }
+
         private boolean isSwitchMapLookup(final Expression e, final StrongBox<Expression> enumValue) {
             if (!(e instanceof IndexerExpression)) {
                 return false;
@@ -19,7 +19,7 @@ package com.strobel.decompiler.languages.java.ast.transforms;
 import com.strobel.decompiler.DecompilerContext;
 import com.strobel.decompiler.languages.java.ast.AstNode;
 import com.strobel.decompiler.languages.java.ast.BlockStatement;
-import com.strobel.decompiler.languages.java.ast.ContextTrackingVisitor;
+import com.strobel.decompiler.languages.java.ast.CodeFeature;
 import com.strobel.decompiler.languages.java.ast.Statement;
 import com.strobel.decompiler.languages.java.ast.SwitchSection;
 import com.strobel.decompiler.languages.java.ast.VariableDeclarationStatement;
@@ -27,16 +27,15 @@ import com.strobel.decompiler.languages.java.ast.VariableDeclarationStatement;
 import static com.strobel.core.CollectionUtilities.any;
 import static com.strobel.core.CollectionUtilities.ofType;
 
-public class FlattenSwitchBlocksTransform extends ContextTrackingVisitor<AstNode> implements IAstTransform {
+@RequiredFeatures({ CodeFeature.SWITCH, CodeFeature.ENUM_SWITCH_MAP })
+public class FlattenSwitchBlocksTransform extends AbstractFusableTransform<AstNode> {
     public FlattenSwitchBlocksTransform(final DecompilerContext context) {
         super(context);
     }
 
     @Override
-    public void run(final AstNode compilationUnit) {
-        if (context.getSettings().getFlattenSwitchBlocks()) {
-            compilationUnit.acceptVisitor(this, null);
-        }
+    public boolean isEnabled() {
+        return context.getSettings().getFlattenSwitchBlocks();
     }
 
     @Override
@@ -0,0 +1,115 @@
+/*
+ * FusedTransform.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast.transforms;
+
+import com.strobel.core.VerifyArgument;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.languages.java.ast.AstNode;
+import com.strobel.decompiler.languages.java.ast.ContextTrackingVisitor;
+
+import java.util.List;
+
+/**
+ * Runs a group of {@link IFusableTransform}s in a single depth-first walk of the tree.  Each node is handled
+ * by every transform in the group, in pipeline order, once the whole group is done with its children.  See
+ * {@link IFusableTransform} for what that does and does not preserve.
+ */
+final class FusedTransform extends ContextTrackingVisitor<Void> {
+    private final IFusableTransform[] _transforms;
+
+    private int _firstTransform;
+
+    FusedTransform(final DecompilerContext context, final List<IFusableTransform> transforms) {
+        super(context);
+        _transforms = VerifyArgument.noNullElements(transforms, "transforms").toArray(new IFusableTransform[0]);
+    }
+
+    @Override
+    public void run(final AstNode compilationUnit) {
+        super.run(compilationUnit);
+
+        for (final IFusableTransform transform : _transforms) {
+            transform.transformNode(compilationUnit);
+        }
+    }
+
+    @Override
+    protected Void visitChildren(final AstNode node, final Void data) {
+        AstNode next;
+
+        for (AstNode child = node.getFirstChild(); child != null; child = next) {
+            //
+            // Store next to allow the loop to continue if a transform removes/replaces child.
+            //
+            next = child.getNextSibling();
+            child.acceptVisitor(this, data);
+            transformNode(node, child, next, _firstTransform);
+        }
+
+        return null;
+    }
+
+    private void transformNode(final AstNode parent, final AstNode node, final AstNode next, final int firstTransform) {
+        for (int i = firstTransform; i < _transforms.length; i++) {
+            final AstNode previous = node.getPreviousSibling();
+
+            _transforms[i].transformNode(node);
+
+            if (node.getParent() != parent) {
+                //
+                // Run by themselves, the transforms after this one would have found whatever took the node's
+                // place, so walk the replacement and everything beneath it again with just those transforms.
+                //
+                if (i + 1 < _transforms.length) {
+                    restart(parent, previous, next, i + 1);
+                }
+                return;
+            }
+        }
+    }
+
+    private void restart(final AstNode parent, final AstNode previous, final AstNode next, final int firstTransform) {
+        final AstNode first;
+
+        if (previous == null) {
+            first = parent.getFirstChild();
+        }
+        else if (previous.getParent() == parent) {
+            first = previous.getNextSibling();
+        }
+        else {
+            //
+            // The statement before the node went too, so all we can tell is what sits where the node was.
+            //
+            first = next != null ? next.getPreviousSibling() : parent.getLastChild();
+        }
+
+        final int oldFirstTransform = _firstTransform;
+
+        _firstTransform = firstTransform;
+
+        try {
+            AstNode following;
+
+            for (AstNode replacement = first; replacement != null && replacement != next; replacement = following) {
+                following = replacement.getNextSibling();
+                replacement.acceptVisitor(this, null);
+                transformNode(parent, replacement, following, firstTransform);
+            }
+        }
+        finally {
+            _firstTransform = oldFirstTransform;
+        }
+    }
+}
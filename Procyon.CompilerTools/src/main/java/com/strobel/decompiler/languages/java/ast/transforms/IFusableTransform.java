@@ -0,0 +1,59 @@
+/*
+ * IFusableTransform.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast.transforms;
+
+import com.strobel.decompiler.languages.java.ast.AstNode;
+
+/**
+ * A transform which can share a single depth-first walk of the tree with the fusable transforms next to it
+ * in the pipeline.  A shared walk guarantees that:
+ * <ul>
+ * <li>each node is handled by the transforms of the group in pipeline order;</li>
+ * <li>a node is only handled once all of its descendants have been handled by every transform in the group,
+ * including the transforms after this one;</li>
+ * <li>if a transform removes or replaces the node it is handling, the transforms after it handle whatever
+ * now sits in its place, after walking the subtree of each replacement again.</li>
+ * </ul>
+ * Unlike a pipeline of separate walks, then, a transform may see descendants which a later transform in its
+ * group has already rewritten, and nodes which a replacement took over from the old subtree are handled
+ * again by the later transforms.  So a transform may only be fused if:
+ * <ul>
+ * <li>it handles each node the same way whether or not the later transforms of the group have handled its
+ * descendants, and regardless of the order in which those descendants were visited;</li>
+ * <li>handling a node it has already handled changes nothing;</li>
+ * <li>the only nodes outside the subtree of the node it handles which it looks at or changes are the
+ * statements before it;</li>
+ * <li>any new node it puts anywhere but in place of the node it handles is one the later transforms of the
+ * group would leave alone, as they will not see it.</li>
+ * </ul>
+ * Transforms which also look at nodes that an earlier transform in the pipeline changes elsewhere must say
+ * so through {@link #dependsOn}.
+ */
+public interface IFusableTransform extends IAstTransform {
+    /**
+     * Returns whether {@link #run} would do anything in the current context.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns whether this transform must see the finished result of {@code transform}, which runs before
+     * it, and therefore cannot share a walk with it.
+     */
+    boolean dependsOn(final IFusableTransform transform);
+
+    /**
+     * Applies this transform to {@code node} alone, the children of which have already been transformed.
+     */
+    void transformNode(final AstNode node);
+}
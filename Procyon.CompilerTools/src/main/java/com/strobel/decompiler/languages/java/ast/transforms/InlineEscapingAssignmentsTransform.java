@@ -22,7 +22,7 @@ import com.strobel.decompiler.languages.java.ast.*;
 
 import static com.strobel.decompiler.patterns.Pattern.matchString;
 
-public class InlineEscapingAssignmentsTransform extends ContextTrackingVisitor<Void> {
+public class InlineEscapingAssignmentsTransform extends AbstractFusableTransform<Void> {
     public InlineEscapingAssignmentsTransform(final DecompilerContext context) {
         super(context);
     }
@@ -27,7 +27,7 @@ import com.strobel.core.StringUtilities;
 import com.strobel.decompiler.DecompilerContext;
 import com.strobel.decompiler.languages.java.ast.*;
 
-public class InsertConstantReferencesTransform extends ContextTrackingVisitor<Void> {
+public class InsertConstantReferencesTransform extends AbstractFusableTransform<Void> {
     public InsertConstantReferencesTransform(final DecompilerContext context) {
         super(context);
     }
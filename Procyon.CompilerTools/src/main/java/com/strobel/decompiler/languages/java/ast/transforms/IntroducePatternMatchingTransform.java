@@ -13,8 +13,8 @@ import java.util.List;
 
 import static com.strobel.core.CollectionUtilities.*;
 
-public class IntroducePatternMatchingTransform extends ContextTrackingVisitor<Void> {
-
+@RequiredFeatures(CodeFeature.INSTANCE_OF)
+public class IntroducePatternMatchingTransform extends AbstractFusableTransform<Void> {
     private final IfElseStatement simplePattern;
 
     public IntroducePatternMatchingTransform(final DecompilerContext context) {
@@ -45,10 +45,8 @@ public class IntroducePatternMatchingTransform extends ContextTrackingVisitor<Vo
     }
 
     @Override
-    public void run(final AstNode compilationUnit) {
-        if (context.isSupported(LanguageFeature.PATTERN_MATCHING)) {
-            super.run(compilationUnit);
-        }
+    public boolean isEnabled() {
+        return context.isSupported(LanguageFeature.PATTERN_MATCHING);
     }
 
     @Override
@@ -12,6 +12,7 @@ import com.strobel.decompiler.languages.java.ast.*;
 import java.util.Collections;
 import java.util.List;
 
+@RequiredFeatures(CodeFeature.INVOKE_DYNAMIC)
 public class InvokeDynamicRewriter extends AbstractHelperClassTransform {
     private final static String T_DESC_THROWABLE = "java/lang/Throwable";
     private final static String T_DESC_THROWABLE_WRAPPER = "java/lang/reflect/UndeclaredThrowableException";
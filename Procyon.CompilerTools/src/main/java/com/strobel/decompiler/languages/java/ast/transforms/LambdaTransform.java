@@ -17,15 +17,24 @@
 package com.strobel.decompiler.languages.java.ast.transforms;
 
 import com.strobel.assembler.metadata.*;
+import com.strobel.componentmodel.Key;
+import com.strobel.core.Predicate;
 import com.strobel.core.Predicates;
 import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.TypeAnalysisCache;
 import com.strobel.decompiler.languages.java.ast.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+@RequiredFeatures(CodeFeature.INVOKE_DYNAMIC)
 public class LambdaTransform extends ContextTrackingVisitor<Void> {
+    private final static Key<ConcurrentMap<String, Object>> FUNCTION_METHODS = Key.create("FunctionMethods");
+    private final static Object NO_FUNCTION_METHOD = new Object();
+
     private final Map<String, MethodDeclaration> _methodDeclarations;
 
     public LambdaTransform(final DecompilerContext context) {
@@ -195,22 +204,8 @@ public class LambdaTransform extends ContextTrackingVisitor<Void> {
             final TypeDefinition resolvedType = lambdaType.resolve();
 
             if (resolvedType != null) {
-                MethodReference functionMethod = null;
-
-                final List<MethodReference> methods = MetadataHelper.findMethods(
-                    resolvedType,
-                    callSite != null ? MetadataFilters.matchName(callSite.getMethodName())
-                                     : Predicates.<MemberReference>alwaysTrue()
-                );
-
-                for (final MethodReference m : methods) {
-                    final MethodDefinition r = m.resolve();
-
-                    if (r != null && r.isAbstract() && !r.isStatic() && !r.isDefault()) {
-                        functionMethod = r;
-                        break;
-                    }
-                }
+                MethodReference functionMethod = callSite != null ? findFunctionMethod(resolvedType, callSite.getMethodName())
+                                                                  : findFunctionMethod(resolvedType, null);
 
                 if (functionMethod != null &&
                     functionMethod.containsGenericParameters() &&
@@ -249,6 +244,48 @@ public class LambdaTransform extends ContextTrackingVisitor<Void> {
         lambda.acceptVisitor(this, null);
     }
 
+    private MethodDefinition findFunctionMethod(final TypeDefinition functionType, final String methodName) {
+        if (methodName == null) {
+            return findFunctionMethodCore(functionType, Predicates.<MethodReference>alwaysTrue());
+        }
+
+        //
+        // Most lambdas target a handful of interfaces, so look up each of their methods only once.
+        //
+        final TypeAnalysisCache cache = context.getAnalysisCache();
+
+        ConcurrentMap<String, Object> functionMethods = cache.get(functionType, FUNCTION_METHODS);
+
+        if (functionMethods == null) {
+            functionMethods = cache.put(functionType, FUNCTION_METHODS, new ConcurrentHashMap<String, Object>());
+        }
+
+        Object functionMethod = functionMethods.get(methodName);
+
+        if (functionMethod == null) {
+            final MethodDefinition m = findFunctionMethodCore(functionType, MetadataFilters.matchName(methodName));
+
+            functionMethods.putIfAbsent(methodName, functionMethod = m != null ? m : NO_FUNCTION_METHOD);
+        }
+
+        return functionMethod != NO_FUNCTION_METHOD ? (MethodDefinition) functionMethod : null;
+    }
+
+    private static MethodDefinition findFunctionMethodCore(
+        final TypeDefinition functionType,
+        final Predicate<? super MethodReference> filter) {
+
+        for (final MethodReference m : MetadataHelper.findMethods(functionType, filter)) {
+            final MethodDefinition r = m.resolve();
+
+            if (r != null && r.isAbstract() && !r.isStatic() && !r.isDefault()) {
+                return r;
+            }
+        }
+
+        return null;
+    }
+
     private static String makeMethodKey(final MethodReference method) {
         return method.getFullName() + ":" + method.getErasedSignature();
     }
@@ -13,6 +13,7 @@ import java.util.Map;
 
 import static java.lang.String.format;
 
+@RequiredFeatures(CodeFeature.METHOD_HANDLE_CONSTANT)
 public class MethodHandleConstantRewriter extends AbstractHelperClassTransform {
     private final Map<MethodHandle, LcdMHHelperBuilder> helpers = new HashMap<>();
 
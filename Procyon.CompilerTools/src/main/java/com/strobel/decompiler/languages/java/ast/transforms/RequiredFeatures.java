@@ -0,0 +1,39 @@
+/*
+ * RequiredFeatures.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast.transforms;
+
+import com.strobel.decompiler.languages.java.ast.CodeFeature;
+import com.strobel.decompiler.languages.java.ast.CodeFeatureCensus;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a transform which only ever rewrites code built from certain {@link CodeFeature}s.  The pipeline skips
+ * it when the {@link CodeFeatureCensus} of the compilation unit contains none of them.
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RequiredFeatures {
+    /**
+     * The features of which at least one must be present for the transform to change anything.
+     */
+    CodeFeature[] value();
+}
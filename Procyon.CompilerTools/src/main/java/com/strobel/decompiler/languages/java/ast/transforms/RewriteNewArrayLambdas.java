@@ -31,6 +31,7 @@ import com.strobel.decompiler.patterns.Pattern;
 
 import static com.strobel.core.CollectionUtilities.first;
 
+@RequiredFeatures(CodeFeature.INVOKE_DYNAMIC)
 public class RewriteNewArrayLambdas extends ContextTrackingVisitor<Void> {
     protected RewriteNewArrayLambdas(final DecompilerContext context) {
         super(context);
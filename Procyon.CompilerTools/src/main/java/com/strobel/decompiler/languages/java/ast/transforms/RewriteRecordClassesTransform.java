@@ -24,6 +24,7 @@ import java.util.Map;
 
 import static com.strobel.core.CollectionUtilities.*;
 
+@RequiredFeatures(CodeFeature.RECORD)
 public class RewriteRecordClassesTransform extends ContextTrackingVisitor<Void> {
     protected final static Map<String, String> GENERATED_METHOD_SIGNATURES;
 
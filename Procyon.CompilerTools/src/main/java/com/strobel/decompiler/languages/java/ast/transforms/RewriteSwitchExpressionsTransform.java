@@ -24,6 +24,7 @@ import java.util.Set;
 
 import static com.strobel.core.CollectionUtilities.*;
 
+@RequiredFeatures({ CodeFeature.SWITCH, CodeFeature.ENUM_SWITCH_MAP })
 public class RewriteSwitchExpressionsTransform extends ContextTrackingVisitor<Void> {
     private final ExpressionStatement resultAssignment;
     private final ExpressionStatement firstResultAssignment;
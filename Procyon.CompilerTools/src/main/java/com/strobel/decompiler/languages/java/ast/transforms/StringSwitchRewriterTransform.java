@@ -38,6 +38,7 @@ import java.util.Map;
 
 import static com.strobel.core.CollectionUtilities.*;
 
+@RequiredFeatures({ CodeFeature.SWITCH, CodeFeature.ENUM_SWITCH_MAP })
 public class StringSwitchRewriterTransform extends ContextTrackingVisitor<Void> {
     public StringSwitchRewriterTransform(final DecompilerContext context) {
         super(context);
@@ -18,8 +18,14 @@ package com.strobel.decompiler.languages.java.ast.transforms;
 
 import com.strobel.core.Predicate;
 import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.languages.java.ast.AstBuilder;
 import com.strobel.decompiler.languages.java.ast.AstNode;
+import com.strobel.decompiler.languages.java.ast.CodeFeature;
+import com.strobel.decompiler.languages.java.ast.CodeFeatureCensus;
+import com.strobel.decompiler.languages.java.ast.Keys;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -88,20 +94,144 @@ public final class TransformationPipeline {
         final Predicate<IAstTransform> abortCondition,
         final DecompilerContext context) {
 
+        runTransformationsUntil(node, abortCondition, context, true);
+    }
+
+    /**
+     * Runs the pipeline over {@code node}.  If {@code fuseTransforms} is set, consecutive {@link IFusableTransform}s
+     * which do not depend on each other share a single walk of the tree.  If {@code node} is the compilation unit
+     * of the context's {@link AstBuilder}, any transform marked with {@link RequiredFeatures} which cannot fire on the
+     * code in it is skipped.
+     */
+    static void runTransformationsUntil(
+        final AstNode node,
+        final Predicate<IAstTransform> abortCondition,
+        final DecompilerContext context,
+        final boolean fuseTransforms) {
+
         if (node == null) {
             return;
         }
 
-        for (final IAstTransform transform : createPipeline(context)) {
-            if (abortCondition != null && abortCondition.test(transform)) {
-                return;
+        final int phase = context.beginPhase("TransformationPipeline");
+        final List<IFusableTransform> group = new ArrayList<>();
+        final CodeFeatureCensus census = findCensus(node, context);
+
+        try {
+            for (final IAstTransform transform : createPipeline(context)) {
+                if (abortCondition != null && abortCondition.test(transform)) {
+                    break;
+                }
+
+                if (census != null && !canApply(transform, census)) {
+                    if (LOG.isLoggable(Level.FINE)) {
+                        LOG.fine("Skipping Java AST transform: " + transform.getClass().getSimpleName() + " (nothing to rewrite).");
+                    }
+                    continue;
+                }
+
+                if (!group.isEmpty() && !canJoin(group, transform)) {
+                    runFused(node, group, context);
+                    group.clear();
+                }
+
+                if (fuseTransforms && transform instanceof IFusableTransform) {
+                    group.add((IFusableTransform) transform);
+                }
+                else {
+                    run(node, transform, context);
+                }
             }
 
-            if (LOG.isLoggable(Level.FINE)) {
-                LOG.fine("Running Java AST transform: " + transform.getClass().getSimpleName() + "...");
+            runFused(node, group, context);
+        }
+        finally {
+            context.endPhase(phase);
+        }
+    }
+
+    private static CodeFeatureCensus findCensus(final AstNode node, final DecompilerContext context) {
+        final AstBuilder builder = context.getUserData(Keys.AST_BUILDER);
+
+        //
+        // The census only covers what the builder has put into its own compilation unit.
+        //
+        return builder != null && builder.getCompilationUnit() == node ? builder.getCodeFeatureCensus() : null;
+    }
+
+    private static boolean canApply(final IAstTransform transform, final CodeFeatureCensus census) {
+        //
+        // The census is checked just before each transform runs, as the ones before it may have had the
+        // builder decompile more code.
+        //
+        final RequiredFeatures requiredFeatures = transform.getClass().getAnnotation(RequiredFeatures.class);
+
+        return requiredFeatures == null || census.containsAny(requiredFeatures.value());
+    }
+
+    private static boolean canJoin(final List<IFusableTransform> group, final IAstTransform transform) {
+        if (!(transform instanceof IFusableTransform)) {
+            return false;
+        }
+
+        for (final IFusableTransform t : group) {
+            if (((IFusableTransform) transform).dependsOn(t)) {
+                return false;
             }
+        }
+
+        return true;
+    }
+
+    private static void runFused(final AstNode node, final List<IFusableTransform> group, final DecompilerContext context) {
+        final List<IFusableTransform> enabled = new ArrayList<>();
 
-            transform.run(node);
+        for (final IFusableTransform transform : group) {
+            if (transform.isEnabled()) {
+                enabled.add(transform);
+            }
+        }
+
+        if (enabled.isEmpty()) {
+            return;
+        }
+
+        if (enabled.size() == 1) {
+            run(node, enabled.get(0), context);
+            return;
+        }
+
+        final StringBuilder name = new StringBuilder();
+
+        for (final IFusableTransform transform : enabled) {
+            if (name.length() > 0) {
+                name.append('+');
+            }
+
+            name.append(transform.getClass().getSimpleName());
         }
+
+        run(node, new FusedTransform(context, enabled), name.toString(), context);
+    }
+
+    private static void run(final AstNode node, final IAstTransform transform, final DecompilerContext context) {
+        run(node, transform, transform.getClass().getSimpleName(), context);
+    }
+
+    private static void run(
+        final AstNode node,
+        final IAstTransform transform,
+        final String name,
+        final DecompilerContext context) {
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Running Java AST transform: " + name + "...");
+        }
+
+        if (context.getMetrics() != null) {
+            context.nextPhase(name);
+        }
+
+        transform.run(node);
     }
 }
@@ -21,7 +21,7 @@ import com.strobel.assembler.metadata.LanguageFeature;
 import com.strobel.decompiler.DecompilerContext;
 import com.strobel.decompiler.languages.java.ast.*;
 import com.strobel.decompiler.patterns.AnyNode;
-import com.strobel.decompiler.patterns.INode;
+import com.strobel.decompiler.patterns.CompiledPattern;
 import com.strobel.decompiler.patterns.IdentifierBackReference;
 import com.strobel.decompiler.patterns.Match;
 import com.strobel.decompiler.patterns.NamedNode;
@@ -31,9 +31,10 @@ import com.strobel.decompiler.semantics.ResolveResult;
 import static com.strobel.core.CollectionUtilities.*;
 import static com.strobel.decompiler.languages.java.ast.transforms.ConvertLoopsTransform.*;
 
+@RequiredFeatures(CodeFeature.EXCEPTION_HANDLER)
 public class TryWithResourcesTransform extends ContextTrackingVisitor<Void> {
-    private final static INode J7_RESOURCE_INIT_PATTERN;
-    private final static INode J7_CLEAR_SAVED_EXCEPTION_PATTERN;
+    private final static CompiledPattern J7_RESOURCE_INIT_PATTERN;
+    private final static CompiledPattern J7_CLEAR_SAVED_EXCEPTION_PATTERN;
 
     static {
         final Expression resource = new NamedNode(
@@ -46,7 +47,7 @@ public class TryWithResourcesTransform extends ContextTrackingVisitor<Void> {
             new IdentifierExpression(Expression.MYSTERY_OFFSET, Pattern.ANY_STRING)
         ).toExpression();
 
-        J7_RESOURCE_INIT_PATTERN = new ExpressionStatement(
+        final ExpressionStatement resourceInitPattern = new ExpressionStatement(
             new AssignmentExpression(
                 resource,
                 AssignmentOperatorType.ASSIGN,
@@ -54,16 +55,19 @@ public class TryWithResourcesTransform extends ContextTrackingVisitor<Void> {
             )
         );
 
-        J7_CLEAR_SAVED_EXCEPTION_PATTERN = new ExpressionStatement(
+        final ExpressionStatement clearSavedExceptionPattern = new ExpressionStatement(
             new AssignmentExpression(
                 savedException,
                 AssignmentOperatorType.ASSIGN,
                 new NullReferenceExpression(Expression.MYSTERY_OFFSET)
             )
         );
+
+        J7_RESOURCE_INIT_PATTERN = Pattern.compile(resourceInitPattern);
+        J7_CLEAR_SAVED_EXCEPTION_PATTERN = Pattern.compile(clearSavedExceptionPattern);
     }
 
-    private final TryCatchStatement _tryPattern;
+    private final CompiledPattern _tryPattern;
     private final AstBuilder _astBuilder;
     private final JavaResolver _resolver;
 
@@ -157,7 +161,7 @@ public class TryWithResourcesTransform extends ContextTrackingVisitor<Void> {
             )
         );
 
-        _tryPattern = tryPattern;
+        _tryPattern = Pattern.compile(tryPattern);
     }
 
     @Override
@@ -186,6 +190,15 @@ public class TryWithResourcesTransform extends ContextTrackingVisitor<Void> {
             return null;
         }
 
+        //
+        // Most try statements follow some other kind of statement, so check that before allocating a match.
+        //
+        if (!J7_RESOURCE_INIT_PATTERN.canMatch(initializeResource) ||
+            !J7_CLEAR_SAVED_EXCEPTION_PATTERN.canMatch(clearCaughtException)) {
+
+            return null;
+        }
+
         final Match m = Match.createNew();
 
         if (J7_RESOURCE_INIT_PATTERN.matches(initializeResource, m) &&
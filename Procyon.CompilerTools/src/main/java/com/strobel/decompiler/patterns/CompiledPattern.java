@@ -0,0 +1,276 @@
+/*
+ * CompiledPattern.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.patterns;
+
+import com.strobel.core.ExceptionUtilities;
+import com.strobel.core.VerifyArgument;
+import com.strobel.decompiler.languages.java.ast.*;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pattern prepared for matching the same shape against many nodes, as created by {@link Pattern#compile}.
+ * Before running the pattern, it rejects nodes whose type cannot match the root of the pattern, and nodes whose
+ * first child cannot match the first child of the pattern.  Attempts that fail reuse the same {@link Match}, so
+ * only successful matches allocate one.
+ * <p>
+ * The pattern must not be changed once it has been compiled.
+ */
+public final class CompiledPattern implements INode {
+    private final static Map<Class<?>, Role<? extends AstNode>> FIRST_CHILD_ROLES;
+
+    static {
+        //
+        // Node types whose matches() always compares the first child in the given role.  Only these may be
+        // rejected for a mismatched first child; other types may ignore some of their children.
+        //
+        final Map<Class<?>, Role<? extends AstNode>> roles = new IdentityHashMap<>();
+
+        roles.put(ExpressionStatement.class, Roles.EXPRESSION);
+        roles.put(ReturnStatement.class, Roles.EXPRESSION);
+        roles.put(ThrowStatement.class, Roles.EXPRESSION);
+        roles.put(UnaryOperatorExpression.class, Roles.EXPRESSION);
+        roles.put(CastExpression.class, Roles.EXPRESSION);
+        roles.put(IfElseStatement.class, IfElseStatement.CONDITION_ROLE);
+        roles.put(WhileStatement.class, Roles.CONDITION);
+        roles.put(InvocationExpression.class, Roles.TARGET_EXPRESSION);
+        roles.put(MemberReferenceExpression.class, Roles.TARGET_EXPRESSION);
+        roles.put(AssignmentExpression.class, AssignmentExpression.LEFT_ROLE);
+        roles.put(BinaryOperatorExpression.class, BinaryOperatorExpression.LEFT_ROLE);
+
+        FIRST_CHILD_ROLES = roles;
+    }
+
+    private final INode _pattern;
+    private final Class<?>[] _rootTypes;
+    private final Role<? extends AstNode> _firstChildRole;
+    private final Class<?>[] _firstChildTypes;
+    private final ThreadLocal<Match> _unusedMatch = new ThreadLocal<>();
+
+    CompiledPattern(final INode pattern) {
+        _pattern = VerifyArgument.notNull(pattern, "pattern");
+        _rootTypes = requiredTypes(pattern);
+
+        final INode root = unwrap(pattern);
+        final Role<? extends AstNode> firstChildRole = _rootTypes != null && root instanceof AstNode
+                                                       ? FIRST_CHILD_ROLES.get(matchingType((AstNode) root))
+                                                       : null;
+
+        final Class<?>[] firstChildTypes = firstChildRole != null
+                                           ? requiredTypes(((AstNode) root).getChildByRole(firstChildRole))
+                                           : null;
+
+        _firstChildRole = firstChildTypes != null ? firstChildRole : null;
+        _firstChildTypes = firstChildTypes;
+    }
+
+    public final INode getPattern() {
+        return _pattern;
+    }
+
+    /**
+     * Returns whether {@code other} passes the checks made before running the pattern.  A node which fails
+     * them can never match, but a node which passes them may still not match.
+     */
+    public final boolean canMatch(final INode other) {
+        if (_rootTypes == null || !(other instanceof AstNode)) {
+            return true;
+        }
+
+        if (!isInstance(_rootTypes, other)) {
+            return false;
+        }
+
+        if (_firstChildRole == null) {
+            return true;
+        }
+
+        final AstNode firstChild = ((AstNode) other).getChildByRole(_firstChildRole);
+
+        return firstChild.isNull() || isInstance(_firstChildTypes, firstChild);
+    }
+
+    @Override
+    public final boolean isNull() {
+        return _pattern.isNull();
+    }
+
+    @Override
+    public final Role<?> getRole() {
+        return _pattern.getRole();
+    }
+
+    @Override
+    public final INode getFirstChild() {
+        return _pattern.getFirstChild();
+    }
+
+    @Override
+    public final INode getNextSibling() {
+        return _pattern.getNextSibling();
+    }
+
+    @Override
+    public final boolean matches(final INode other, final Match match) {
+        return canMatch(other) && _pattern.matches(other, match);
+    }
+
+    @Override
+    public final boolean matchesCollection(final Role<?> role, final INode position, final Match match, final BacktrackingInfo backtrackingInfo) {
+        return _pattern.matchesCollection(role, position, match, backtrackingInfo);
+    }
+
+    @Override
+    public final Match match(final INode other) {
+        if (!canMatch(other)) {
+            return Match.failure();
+        }
+
+        final Match match = takeUnusedMatch();
+
+        if (_pattern.matches(other, match)) {
+            return match;
+        }
+
+        returnUnusedMatch(match);
+        return Match.failure();
+    }
+
+    @Override
+    public final boolean matches(final INode other) {
+        if (!canMatch(other)) {
+            return false;
+        }
+
+        final Match match = takeUnusedMatch();
+
+        try {
+            return _pattern.matches(other, match);
+        }
+        finally {
+            returnUnusedMatch(match);
+        }
+    }
+
+    private Match takeUnusedMatch() {
+        final Match match = _unusedMatch.get();
+
+        if (match == null) {
+            return Match.createNew();
+        }
+
+        //
+        // The same pattern may be matched again while a match is in progress, e.g., by a nested pattern.
+        //
+        _unusedMatch.set(null);
+        return match;
+    }
+
+    private void returnUnusedMatch(final Match match) {
+        match.restoreCheckPoint(0);
+        _unusedMatch.set(match);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="Compilation">
+
+    private static INode unwrap(final INode pattern) {
+        INode current = pattern;
+
+        while (true) {
+            if (current instanceof NamedNode) {
+                current = ((NamedNode) current).getNode();
+            }
+            else if (current instanceof AstNode && ((AstNode) current).getNodeType() == NodeType.PATTERN) {
+                current = ((AstNode) current).acceptVisitor(PatternExtractor.INSTANCE, null);
+            }
+            else {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Returns the types of which a node must be an instance to match {@code pattern}, or {@code null} if the
+     * pattern may match nodes of any type.
+     */
+    private static Class<?>[] requiredTypes(final INode pattern) {
+        final INode p = unwrap(pattern);
+
+        if (p instanceof Choice) {
+            final List<Class<?>> types = new ArrayList<>();
+
+            for (final INode alternative : (Choice) p) {
+                final Class<?>[] alternativeTypes = requiredTypes(alternative);
+
+                if (alternativeTypes == null) {
+                    return null;
+                }
+
+                for (final Class<?> type : alternativeTypes) {
+                    if (!types.contains(type)) {
+                        types.add(type);
+                    }
+                }
+            }
+
+            return types.isEmpty() ? null : types.toArray(new Class<?>[0]);
+        }
+
+        if (p instanceof AstNode && !p.isNull()) {
+            final Class<?> type = matchingType((AstNode) p);
+
+            //
+            // Statements and expressions only match instances of the type declaring their matches() method.
+            // Some other nodes also match related types, e.g., a ConstructorDeclaration matches any method.
+            //
+            if (type != null && (Statement.class.isAssignableFrom(type) || Expression.class.isAssignableFrom(type))) {
+                return new Class<?>[] { type };
+            }
+        }
+
+        return null;
+    }
+
+    private static Class<?> matchingType(final AstNode node) {
+        try {
+            return node.getClass().getMethod("matches", INode.class, Match.class).getDeclaringClass();
+        }
+        catch (final NoSuchMethodException e) {
+            throw ExceptionUtilities.asRuntimeException(e);
+        }
+    }
+
+    private static boolean isInstance(final Class<?>[] types, final INode node) {
+        for (final Class<?> type : types) {
+            if (type.isInstance(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final static class PatternExtractor extends DepthFirstAstVisitor<Void, INode> {
+        final static PatternExtractor INSTANCE = new PatternExtractor();
+
+        @Override
+        public INode visitPatternPlaceholder(final AstNode node, final Pattern pattern, final Void data) {
+            return pattern;
+        }
+    }
+
+    // </editor-fold>
+}
@@ -28,6 +28,13 @@ public abstract class Pattern implements INode {
         return ANY_STRING.equals(pattern) || StringUtilities.equals(pattern, text);
     }
 
+    /**
+     * Prepares {@code pattern} to be matched against many nodes.  See {@link CompiledPattern}.
+     */
+    public static CompiledPattern compile(final INode pattern) {
+        return new CompiledPattern(pattern);
+    }
+
     public final AstNode toNode() {
         return AstNode.forPattern(this);
     }
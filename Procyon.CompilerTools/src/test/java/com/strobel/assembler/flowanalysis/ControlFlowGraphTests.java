@@ -0,0 +1,158 @@
+/*
+ * ControlFlowGraphTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.flowanalysis;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ControlFlowGraphTests {
+    @Test
+    public void testLoopWithDiamond() {
+        final ControlFlowNode entry = new ControlFlowNode(0, 0, ControlFlowNodeType.EntryPoint);
+        final ControlFlowNode exit = new ControlFlowNode(1, -1, ControlFlowNodeType.RegularExit);
+        final ControlFlowNode exceptionalExit = new ControlFlowNode(2, -1, ControlFlowNodeType.ExceptionalExit);
+        final ControlFlowNode a = new ControlFlowNode(3, 1, ControlFlowNodeType.Normal);
+        final ControlFlowNode b = new ControlFlowNode(4, 2, ControlFlowNodeType.Normal);
+        final ControlFlowNode c = new ControlFlowNode(5, 3, ControlFlowNodeType.Normal);
+        final ControlFlowNode d = new ControlFlowNode(6, 4, ControlFlowNodeType.Normal);
+        final ControlFlowNode unreachable = new ControlFlowNode(7, 5, ControlFlowNodeType.Normal);
+
+        connect(entry, a);
+        connect(a, b);
+        connect(a, c);
+        connect(b, d);
+        connect(c, d);
+        connect(d, d);
+        connect(d, a);
+        connect(d, exit);
+        connect(unreachable, d);
+
+        final ControlFlowGraph graph = new ControlFlowGraph(entry, exit, exceptionalExit, a, b, c, d, unreachable);
+
+        graph.computeDominance();
+        graph.computeDominanceFrontier();
+
+        assertNull(entry.getImmediateDominator());
+        assertSame(entry, a.getImmediateDominator());
+        assertSame(a, b.getImmediateDominator());
+        assertSame(a, c.getImmediateDominator());
+        assertSame(a, d.getImmediateDominator());
+        assertSame(d, exit.getImmediateDominator());
+        assertNull(unreachable.getImmediateDominator());
+        assertNull(exceptionalExit.getImmediateDominator());
+
+        assertEquals(Collections.singletonList(a), entry.getDominatorTreeChildren());
+        assertEquals(Arrays.asList(b, c, d), a.getDominatorTreeChildren());
+
+        assertEquals(Collections.emptySet(), entry.getDominanceFrontier());
+        assertEquals(setOf(a), a.getDominanceFrontier());
+        assertEquals(setOf(d), b.getDominanceFrontier());
+        assertEquals(setOf(d), c.getDominanceFrontier());
+        assertEquals(setOf(a, d), d.getDominanceFrontier());
+        assertEquals(Collections.emptySet(), exit.getDominanceFrontier());
+
+        assertSame(a, ControlFlowGraph.findCommonDominator(b, exit));
+    }
+
+    @Test
+    public void testIrreducibleLoop() {
+        final ControlFlowNode entry = new ControlFlowNode(0, 0, ControlFlowNodeType.EntryPoint);
+        final ControlFlowNode exit = new ControlFlowNode(1, -1, ControlFlowNodeType.RegularExit);
+        final ControlFlowNode exceptionalExit = new ControlFlowNode(2, -1, ControlFlowNodeType.ExceptionalExit);
+        final ControlFlowNode a = new ControlFlowNode(3, 1, ControlFlowNodeType.Normal);
+        final ControlFlowNode b = new ControlFlowNode(4, 2, ControlFlowNodeType.Normal);
+        final ControlFlowNode c = new ControlFlowNode(5, 3, ControlFlowNodeType.Normal);
+
+        connect(entry, a);
+        connect(a, b);
+        connect(a, c);
+        connect(b, c);
+        connect(c, b);
+        connect(b, exit);
+
+        final ControlFlowGraph graph = new ControlFlowGraph(entry, exit, exceptionalExit, a, b, c);
+
+        graph.computeDominance();
+        graph.computeDominanceFrontier();
+
+        assertSame(a, b.getImmediateDominator());
+        assertSame(a, c.getImmediateDominator());
+        assertSame(b, exit.getImmediateDominator());
+
+        assertEquals(setOf(c), b.getDominanceFrontier());
+        assertEquals(setOf(b), c.getDominanceFrontier());
+        assertEquals(Collections.emptySet(), a.getDominanceFrontier());
+    }
+
+    @Test
+    public void testDiamondAfterEndFinally() {
+        final ControlFlowNode entry = new ControlFlowNode(0, 0, ControlFlowNodeType.EntryPoint);
+        final ControlFlowNode exit = new ControlFlowNode(1, -1, ControlFlowNodeType.RegularExit);
+        final ControlFlowNode exceptionalExit = new ControlFlowNode(2, -1, ControlFlowNodeType.ExceptionalExit);
+        final ControlFlowNode tryBody = new ControlFlowNode(3, 1, ControlFlowNodeType.Normal);
+        final ControlFlowNode handler = new ControlFlowNode(4, 2, ControlFlowNodeType.Normal);
+        final ControlFlowNode endFinally = new ControlFlowNode(4, 3, ControlFlowNodeType.EndFinally);
+        final ControlFlowNode a = new ControlFlowNode(5, 4, ControlFlowNodeType.Normal);
+        final ControlFlowNode b = new ControlFlowNode(6, 5, ControlFlowNodeType.Normal);
+        final ControlFlowNode c = new ControlFlowNode(7, 6, ControlFlowNodeType.Normal);
+        final ControlFlowNode d = new ControlFlowNode(8, 7, ControlFlowNodeType.Normal);
+
+        connect(entry, tryBody);
+        connect(tryBody, handler);
+        connect(tryBody, endFinally);
+        connect(handler, endFinally);
+        connect(endFinally, a);
+        connect(a, b);
+        connect(a, c);
+        connect(b, d);
+        connect(c, d);
+        connect(d, exit);
+
+        //
+        // Like the graph builder, leave the EndFinally node out of the node list.  The old fixpoint
+        // never cleared its visited flag, so its second pass stopped there and left `b` as the
+        // immediate dominator of `d`.  Nothing downstream depended on that; see
+        // HandlerTests.testConditionAfterFinally.
+        //
+        final ControlFlowGraph graph = new ControlFlowGraph(entry, exit, exceptionalExit, tryBody, handler, a, b, c, d);
+
+        graph.computeDominance();
+
+        assertSame(tryBody, endFinally.getImmediateDominator());
+        assertSame(endFinally, a.getImmediateDominator());
+        assertSame(a, b.getImmediateDominator());
+        assertSame(a, c.getImmediateDominator());
+        assertSame(a, d.getImmediateDominator());
+        assertSame(d, exit.getImmediateDominator());
+
+        assertEquals(Collections.singletonList(a), endFinally.getDominatorTreeChildren());
+        assertEquals(Arrays.asList(b, c, d), a.getDominatorTreeChildren());
+    }
+
+    private static void connect(final ControlFlowNode source, final ControlFlowNode target) {
+        final ControlFlowEdge edge = new ControlFlowEdge(source, target, JumpType.Normal);
+
+        source.getOutgoing().add(edge);
+        target.getIncoming().add(edge);
+    }
+
+    private static HashSet<ControlFlowNode> setOf(final ControlFlowNode... nodes) {
+        return new HashSet<>(Arrays.asList(nodes));
+    }
+}
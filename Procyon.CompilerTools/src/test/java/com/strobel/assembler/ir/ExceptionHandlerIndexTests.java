@@ -0,0 +1,139 @@
+/*
+ * ExceptionHandlerIndexTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.ir;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeReference;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ExceptionHandlerIndexTests {
+    private final static TypeReference THROWABLE = MetadataSystem.instance().lookupType("java/lang/Throwable");
+
+    private static Instruction[] createInstructions(final int count) {
+        final Instruction[] instructions = new Instruction[count];
+
+        for (int i = 0; i < count; i++) {
+            instructions[i] = new Instruction(i, OpCode.NOP);
+        }
+
+        return instructions;
+    }
+
+    private static ExceptionHandler createHandler(
+        final Instruction[] instructions,
+        final int tryStart,
+        final int tryEnd,
+        final boolean isFinally) {
+
+        final InstructionBlock tryBlock = new InstructionBlock(instructions[tryStart], instructions[tryEnd]);
+        final InstructionBlock handlerBlock = new InstructionBlock(instructions[tryEnd + 1], instructions[tryEnd + 1]);
+
+        return isFinally ? ExceptionHandler.createFinally(tryBlock, handlerBlock)
+                         : ExceptionHandler.createCatch(tryBlock, handlerBlock, THROWABLE);
+    }
+
+    private static ExceptionHandler findInnermostHandlerByScan(
+        final List<ExceptionHandler> handlers,
+        final int offset,
+        final boolean finallyOnly) {
+
+        ExceptionHandler result = null;
+
+        for (final ExceptionHandler handler : handlers) {
+            if (finallyOnly && !handler.isFinally()) {
+                continue;
+            }
+
+            final InstructionBlock tryBlock = handler.getTryBlock();
+
+            if (tryBlock.getFirstInstruction().getOffset() <= offset &&
+                offset < tryBlock.getLastInstruction().getEndOffset() &&
+                (result == null || isNarrower(handler, result))) {
+
+                result = handler;
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean isNarrower(final ExceptionHandler handler, final ExceptionHandler anchor) {
+        final int tryStart = handler.getTryBlock().getFirstInstruction().getOffset();
+        final int anchorTryStart = anchor.getTryBlock().getFirstInstruction().getOffset();
+
+        return tryStart > anchorTryStart ||
+               tryStart == anchorTryStart &&
+               handler.getTryBlock().getLastInstruction().getOffset() < anchor.getTryBlock().getLastInstruction().getOffset();
+    }
+
+    @Test
+    public void testNestedAndAdjacentTryBlocks() {
+        final Instruction[] instructions = createInstructions(12);
+
+        final ExceptionHandler outer = createHandler(instructions, 0, 8, true);
+        final ExceptionHandler inner = createHandler(instructions, 2, 4, false);
+        final ExceptionHandler innerSibling = createHandler(instructions, 2, 4, false);
+        final ExceptionHandler adjacent = createHandler(instructions, 5, 6, false);
+
+        final ExceptionHandlerIndex index = ExceptionHandlerIndex.create(Arrays.asList(outer, inner, innerSibling, adjacent));
+        final ExceptionHandlerIndex finallyIndex = ExceptionHandlerIndex.createForFinallyHandlers(Arrays.asList(outer, inner, adjacent));
+
+        assertSame(outer, index.findInnermostHandler(0));
+        assertSame(outer, index.findInnermostHandler(1));
+        assertSame(inner, index.findInnermostHandler(2));
+        assertSame(inner, index.findInnermostHandler(4));
+        assertSame(adjacent, index.findInnermostHandler(5));
+        assertSame(outer, index.findInnermostHandler(7));
+        assertNull(index.findInnermostHandler(9));
+        assertNull(index.findInnermostHandler(-1));
+
+        assertSame(outer, finallyIndex.findInnermostHandler(3));
+        assertNull(finallyIndex.findInnermostHandler(9));
+
+        assertNull(ExceptionHandlerIndex.create(new ArrayList<ExceptionHandler>()).findInnermostHandler(0));
+    }
+
+    @Test
+    public void testMatchesLinearScan() {
+        final Random random = new Random(19L);
+        final int instructionCount = 64;
+        final Instruction[] instructions = createInstructions(instructionCount + 1);
+
+        for (int round = 0; round < 50; round++) {
+            final List<ExceptionHandler> handlers = new ArrayList<>();
+
+            for (int i = 0, n = 1 + random.nextInt(40); i < n; i++) {
+                final int tryStart = random.nextInt(instructionCount);
+                final int tryEnd = tryStart + random.nextInt(Math.min(8, instructionCount - tryStart));
+
+                handlers.add(createHandler(instructions, tryStart, tryEnd, random.nextBoolean()));
+            }
+
+            final ExceptionHandlerIndex index = ExceptionHandlerIndex.create(handlers);
+            final ExceptionHandlerIndex finallyIndex = ExceptionHandlerIndex.createForFinallyHandlers(handlers);
+
+            for (int offset = -1; offset <= instructionCount + 1; offset++) {
+                assertSame(findInnermostHandlerByScan(handlers, offset, false), index.findInnermostHandler(offset));
+                assertSame(findInnermostHandlerByScan(handlers, offset, true), finallyIndex.findInnermostHandler(offset));
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * InstructionStreamTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.assembler.metadata;
+
+import com.strobel.assembler.ir.FrameValue;
+import com.strobel.assembler.ir.FrameValueType;
+import com.strobel.assembler.ir.Instruction;
+import com.strobel.assembler.ir.InstructionCollection;
+import com.strobel.assembler.ir.OpCode;
+import com.strobel.assembler.ir.StackMapFrame;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InstructionStreamTests {
+    private static class A {
+        public int test(final int[] values, final int mode) {
+            int sum = 0;
+
+            for (int i = 0; i < values.length; i++) {
+                switch (mode) {
+                    case 0:
+                        sum += values[i];
+                        break;
+                    case 1:
+                        sum -= values[i];
+                        break;
+                    case 5:
+                        sum *= values[i];
+                        break;
+                    default:
+                        return -1;
+                }
+            }
+
+            return sum;
+        }
+    }
+
+    @Test
+    public void testInstructionsAreReadOnDemand() {
+        final MethodBody body = findMethod("test").getBody();
+        final InstructionStream stream = body.getInstructionStream();
+
+        assertNotNull(stream);
+        assertTrue(stream.size() > 0);
+
+        final InstructionCollection instructions = body.getInstructions();
+
+        assertEquals(stream.size(), instructions.size());
+        assertSame(instructions, body.getInstructions());
+        assertNull(body.getInstructionStream());
+
+        for (int i = 0; i < stream.size(); i++) {
+            final Instruction instruction = instructions.get(i);
+
+            assertSame(stream.getOpCode(i), instruction.getOpCode());
+            assertEquals(stream.getOffset(i), instruction.getOffset());
+            assertEquals(i, stream.indexOf(instruction.getOffset()));
+
+            for (int offset = instruction.getOffset() + 1; offset < instruction.getEndOffset(); offset++) {
+                assertEquals(-1, stream.indexOf(offset));
+            }
+        }
+
+        assertEquals(-1, stream.indexOf(-1));
+        assertEquals(-1, stream.indexOf(stream.getCodeSize()));
+    }
+
+    @Test
+    public void testBranchTargetsAreResolved() {
+        final InstructionCollection instructions = findMethod("test").getBody().getInstructions();
+
+        boolean sawSwitch = false;
+
+        for (final Instruction instruction : instructions) {
+            final OpCode op = instruction.getOpCode();
+
+            if (op.isBranch() && !op.isReturn() && !op.isThrow() && instruction.hasOperand()) {
+                final Object operand = instruction.getOperand(0);
+
+                if (operand instanceof Instruction) {
+                    assertSame(operand, instructions.atOffset(((Instruction) operand).getOffset()));
+                    assertTrue(((Instruction) operand).hasLabel());
+                }
+                else if (operand instanceof SwitchInfo) {
+                    final SwitchInfo switchInfo = (SwitchInfo) operand;
+
+                    assertSame(switchInfo.getDefaultTarget(), instructions.atOffset(switchInfo.getDefaultTarget().getOffset()));
+
+                    for (final Instruction target : switchInfo.getTargets()) {
+                        assertSame(target, instructions.atOffset(target.getOffset()));
+                        assertTrue(target.hasLabel());
+                    }
+
+                    sawSwitch = true;
+                }
+            }
+        }
+
+        assertTrue(sawSwitch);
+    }
+
+    @Test
+    public void testStackMapFramesAreRead() {
+        final MethodBody body = findMethod("test").getBody();
+        final InstructionCollection instructions = body.getInstructions();
+        final List<StackMapFrame> frames = body.getStackMapFrames();
+
+        assertFalse(frames.isEmpty());
+
+        for (final StackMapFrame frame : frames) {
+            final Instruction start = frame.getStartInstruction();
+            final List<FrameValue> locals = frame.getFrame().getLocalValues();
+
+            assertSame(start, instructions.atOffset(start.getOffset()));
+            assertTrue(locals.size() >= 3);
+            assertEquals(FrameValueType.Reference, locals.get(0).getType());
+            assertEquals("com/strobel/assembler/metadata/InstructionStreamTests$A", ((TypeReference) locals.get(0).getParameter()).getInternalName());
+            assertEquals(FrameValueType.Reference, locals.get(1).getType());
+            assertEquals("[I", ((TypeReference) locals.get(1).getParameter()).getInternalName());
+            assertEquals(FrameValue.INTEGER, locals.get(2));
+        }
+    }
+
+    private static MethodDefinition findMethod(final String name) {
+        final TypeDefinition type = new MetadataSystem().lookupType("com/strobel/assembler/metadata/InstructionStreamTests$A").resolve();
+
+        for (final MethodDefinition method : type.getDeclaredMethods()) {
+            if (name.equals(method.getName())) {
+                return method;
+            }
+        }
+
+        throw new AssertionError("Method not found: " + name);
+    }
+}
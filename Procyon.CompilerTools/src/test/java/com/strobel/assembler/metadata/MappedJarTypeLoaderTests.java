@@ -0,0 +1,130 @@
+package com.strobel.assembler.metadata;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedJarTypeLoaderTests {
+    @Test
+    public void testLoadsStoredAndDeflatedEntries() throws Throwable {
+        final byte[] classBytes = readClassBytes(MappedJarTypeLoaderTests.class);
+        final File jarFile = createJar(classBytes);
+
+        try (final MappedJarTypeLoader loader = new MappedJarTypeLoader(jarFile)) {
+            for (final String name : Arrays.asList("test/Stored", "test/Deflated")) {
+                final Buffer buffer = new Buffer();
+
+                assertTrue(loader.tryLoadType(name, buffer));
+                assertEquals(classBytes.length, buffer.size());
+                assertArrayEquals(classBytes, Arrays.copyOf(buffer.array(), buffer.size()));
+            }
+
+            assertFalse(loader.tryLoadType("test/Missing", new Buffer()));
+        }
+        finally {
+            assertTrue(jarFile.delete());
+        }
+    }
+
+    @Test
+    public void testClosedLoaderRejectsLoads() throws Throwable {
+        final File jarFile = createJar(readClassBytes(MappedJarTypeLoaderTests.class));
+
+        try {
+            final MappedJarTypeLoader loader = new MappedJarTypeLoader(jarFile);
+
+            loader.close();
+            loader.close();
+
+            try {
+                loader.tryLoadType("test/Stored", new Buffer());
+                fail("Expected IllegalStateException.");
+            }
+            catch (final IllegalStateException ignored) {
+            }
+        }
+        finally {
+            assertTrue(jarFile.delete());
+        }
+    }
+
+    @Test
+    public void testResolvesTypesThroughMetadataSystem() throws Throwable {
+        final byte[] classBytes = readClassBytes(MappedJarTypeLoaderTests.class);
+        final File jarFile = createJar(classBytes);
+
+        try (final MappedJarTypeLoader loader = new MappedJarTypeLoader(jarFile)) {
+            final MetadataSystem metadataSystem = new MetadataSystem(loader);
+            final TypeDefinition resolvedType = metadataSystem.lookupType("test/Deflated").resolve();
+
+            assertEquals(
+                MappedJarTypeLoaderTests.class.getName().replace('.', '/'),
+                resolvedType.getInternalName()
+            );
+        }
+        finally {
+            assertTrue(jarFile.delete());
+        }
+    }
+
+    private static byte[] readClassBytes(final Class<?> c) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (final InputStream in = c.getResourceAsStream(c.getSimpleName() + ".class")) {
+            final byte[] temp = new byte[4096];
+
+            int bytesRead;
+
+            while ((bytesRead = in.read(temp)) > 0) {
+                out.write(temp, 0, bytesRead);
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    private static File createJar(final byte[] classBytes) throws IOException {
+        final File jarFile = File.createTempFile("procyon-mapped", ".jar");
+
+        try (final JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile))) {
+            final CRC32 crc = new CRC32();
+
+            crc.update(classBytes);
+
+            final ZipEntry stored = new ZipEntry("test/Stored.class");
+
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(classBytes.length);
+            stored.setCompressedSize(classBytes.length);
+            stored.setCrc(crc.getValue());
+
+            jar.putNextEntry(stored);
+            jar.write(classBytes);
+            jar.closeEntry();
+
+            final ZipEntry deflated = new ZipEntry("test/Deflated.class");
+
+            deflated.setMethod(ZipEntry.DEFLATED);
+
+            jar.putNextEntry(deflated);
+            jar.write(classBytes);
+            jar.closeEntry();
+        }
+
+        return jarFile;
+    }
+}
@@ -2,12 +2,23 @@ package com.strobel.assembler.metadata;
 
 import com.strobel.assembler.ir.Instruction;
 import com.strobel.assembler.ir.OpCode;
+import com.strobel.core.SafeCloseable;
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 public class MetadataResolverTests {
     @Test
@@ -37,6 +48,229 @@ public class MetadataResolverTests {
         }
     }
 
+    @Test
+    public void testThreadSafeMetadataSystemSharesDefinitions() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            final Callable<TypeDefinition> lookup = new Callable<TypeDefinition>() {
+                @Override
+                public TypeDefinition call() {
+                    return metadataSystem.lookupType("java/util/ArrayList").resolve();
+                }
+            };
+
+            final Future<TypeDefinition> first = executor.submit(lookup);
+            final Future<TypeDefinition> second = executor.submit(lookup);
+
+            assertNotNull(first.get());
+            assertSame(first.get(), second.get());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTypeCacheEvictsLeastRecentlyUsedTypes() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader());
+
+        metadataSystem.setTypeCacheBudget(1);
+
+        TypeDefinition list;
+        final TypeDefinition string;
+
+        try (final SafeCloseable ignored = metadataSystem.openTypeCacheScope()) {
+            list = metadataSystem.lookupType("java/util/ArrayList").resolve();
+            string = metadataSystem.lookupType("java/lang/String").resolve();
+        }
+
+        assertNotNull(list);
+        assertSame(string, metadataSystem.lookupType("java/lang/String").resolve());
+
+        //
+        // ArrayList was evicted, but we still hold on to it, so resolving it again must not create
+        // a second definition.
+        //
+        final WeakReference<TypeDefinition> evictedList = new WeakReference<>(list);
+
+        assertSame(list, metadataSystem.lookupType("java/util/ArrayList").resolve());
+
+        list = null;
+
+        try (final SafeCloseable ignored = metadataSystem.openTypeCacheScope()) {
+            assertNotNull(metadataSystem.lookupType("java/util/HashMap").resolve());
+        }
+
+        for (int i = 0; i < 10 && evictedList.get() != null; i++) {
+            System.gc();
+        }
+
+        assumeTrue(evictedList.get() == null);
+
+        final TypeDefinition reloadedList = metadataSystem.lookupType("java/util/ArrayList").resolve();
+
+        assertNotNull(reloadedList);
+        assertEquals("java/util/ArrayList", reloadedList.getInternalName());
+    }
+
+    @Test
+    public void testTypeCacheRetainsTypesUsedByOpenScopes() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+
+        metadataSystem.setTypeCacheBudget(1);
+
+        try (final SafeCloseable ignored = metadataSystem.openTypeCacheScope()) {
+            final TypeDefinition map = metadataSystem.lookupType("java/util/HashMap").resolve();
+
+            try (final SafeCloseable ignored2 = metadataSystem.openTypeCacheScope()) {
+                assertNotNull(metadataSystem.lookupType("java/util/ArrayList").resolve());
+            }
+
+            assertSame(map, metadataSystem.lookupType("java/util/HashMap").resolve());
+        }
+    }
+
+    @Test
+    public void testThreadSafeMetadataSystemKeepsFramesPerThread() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+        final TypeReference frameType = metadataSystem.lookupType("java/lang/String");
+
+        metadataSystem.pushFrame(
+            new IResolverFrame() {
+                @Override
+                public TypeReference findType(final String descriptor) {
+                    return "test/Missing".equals(descriptor) ? frameType : null;
+                }
+
+                @Override
+                public GenericParameter findTypeVariable(final String name) {
+                    return null;
+                }
+            }
+        );
+
+        try {
+            assertSame(frameType, metadataSystem.lookupType("test/Missing"));
+
+            final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            try {
+                final Future<TypeReference> otherThread = executor.submit(
+                    new Callable<TypeReference>() {
+                        @Override
+                        public TypeReference call() {
+                            return metadataSystem.lookupType("test/Missing");
+                        }
+                    }
+                );
+
+                assertNull(otherThread.get());
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+        finally {
+            metadataSystem.popFrame();
+        }
+    }
+
+    @Test
+    public void testDeferredMemberLoadingReadsMembersOnFirstAccess() throws Throwable {
+        final MetadataSystem eagerSystem = new MetadataSystem(new ClasspathTypeLoader());
+        final MetadataSystem deferredSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+
+        deferredSystem.setDeferredMemberLoadingEnabled(true);
+
+        final TypeDefinition expected = eagerSystem.lookupType("java/util/ArrayList").resolve();
+        final TypeDefinition actual = deferredSystem.lookupType("java/util/ArrayList").resolve();
+
+        assertNotNull(actual);
+        assertNotNull(actual.getMemberLoader());
+        assertEquals(expected.getFlags(), actual.getFlags());
+        assertEquals(expected.getBaseType().getInternalName(), actual.getBaseType().getInternalName());
+        assertEquals(expected.getExplicitInterfaces().size(), actual.getExplicitInterfaces().size());
+        assertEquals(expected.getGenericParameters().size(), actual.getGenericParameters().size());
+        assertTrue(MetadataHelper.isSubType(actual, deferredSystem.lookupType("java/util/AbstractList")));
+
+        assertEquals(expected.getDeclaredMethods().size(), actual.getDeclaredMethods().size());
+        assertNull(actual.getMemberLoader());
+        assertEquals(expected.getDeclaredFields().size(), actual.getDeclaredFields().size());
+        assertEquals(expected.getDeclaredTypes().size(), actual.getDeclaredTypes().size());
+        assertEquals(expected.getFlags(), actual.getFlags());
+    }
+
+    @Test
+    public void testDeferredMemberLoadingKeepsRecordFlag() throws Throwable {
+        final MetadataSystem eagerSystem = new MetadataSystem(new ClasspathTypeLoader());
+        final MetadataSystem deferredSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+
+        deferredSystem.setDeferredMemberLoadingEnabled(true);
+
+        //
+        // Records only exist on JDK 16 and later, and we cannot declare one here.
+        //
+        final TypeDefinition expected = eagerSystem.lookupType("jdk/net/UnixDomainPrincipal").resolve();
+
+        assumeTrue(expected != null);
+        assertTrue(expected.isRecord());
+
+        final TypeDefinition actual = deferredSystem.lookupType("jdk/net/UnixDomainPrincipal").resolve();
+
+        assertNotNull(actual.getMemberLoader());
+        assertTrue(actual.isRecord());
+        assertEquals(expected.getFlags(), actual.getFlags());
+
+        assertEquals(expected.getDeclaredMethods().size(), actual.getDeclaredMethods().size());
+        assertNull(actual.getMemberLoader());
+        assertTrue(actual.isRecord());
+        assertEquals(expected.getFlags(), actual.getFlags());
+    }
+
+    @Test
+    public void testDeobfuscationProcessesSharedTypesOnce() throws Throwable {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+        final TypeDefinition operation = metadataSystem.lookupType("com/strobel/assembler/metadata/MetadataResolverTests$Operation").resolve();
+        final TypeDefinition plus = metadataSystem.lookupType("com/strobel/assembler/metadata/MetadataResolverTests$Operation$1").resolve();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        assertNotNull(operation);
+        assertNotNull(plus);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 16; i++) {
+                final TypeDefinition type = i % 2 == 0 ? operation : plus;
+
+                futures.add(
+                    executor.submit(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                DeobfuscationUtilities.processType(type);
+                            }
+                        }
+                    )
+                );
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(Flags.testAny(operation.getFlags(), Flags.DEOBFUSCATED));
+        assertTrue(Flags.testAny(plus.getFlags(), Flags.DEOBFUSCATED));
+        assertSame(operation, plus.getBaseType().resolve());
+        assertTrue(plus.isAnonymous());
+    }
+
     // <editor-fold defaultstate="collapsed" desc="Helper Classes">
 
     @SuppressWarnings("unused")
@@ -48,5 +282,23 @@ public class MetadataResolverTests {
         }
     }
 
+    @SuppressWarnings("unused")
+    private enum Operation {
+        PLUS {
+            @Override
+            int apply(final int a, final int b) {
+                return a + b;
+            }
+        },
+        MINUS {
+            @Override
+            int apply(final int a, final int b) {
+                return a - b;
+            }
+        };
+
+        abstract int apply(final int a, final int b);
+    }
+
     // </editor-fold>
 }
@@ -0,0 +1,94 @@
+package com.strobel.assembler.metadata;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentTypeCacheTests {
+    @Test
+    public void testReusesCachedTypesAcrossInstances() throws Throwable {
+        final File cacheFile = File.createTempFile("procyon-type-cache", ".bin");
+        final CountingTypeLoader typeLoader = new CountingTypeLoader();
+
+        assertTrue(cacheFile.delete());
+
+        try {
+            final byte[] expected;
+
+            try (final PersistentTypeCache cache = new PersistentTypeCache(typeLoader, cacheFile, "key")) {
+                assertEquals(0, cache.getCachedTypeCount());
+                expected = load(cache, "java/util/ArrayList");
+                assertFalse(cache.tryLoadType("test/Missing", new Buffer()));
+            }
+
+            assertEquals(2, typeLoader.loadCount.get());
+
+            try (final PersistentTypeCache cache = new PersistentTypeCache(typeLoader, cacheFile, "key")) {
+                assertEquals(1, cache.getCachedTypeCount());
+                assertArrayEquals(expected, load(cache, "java/util/ArrayList"));
+                assertEquals(2, typeLoader.loadCount.get());
+            }
+
+            try (final PersistentTypeCache cache = new PersistentTypeCache(typeLoader, cacheFile, "other key")) {
+                assertEquals(0, cache.getCachedTypeCount());
+                assertArrayEquals(expected, load(cache, "java/util/ArrayList"));
+                assertEquals(3, typeLoader.loadCount.get());
+            }
+        }
+        finally {
+            assertTrue(cacheFile.delete());
+        }
+    }
+
+    @Test
+    public void testAcceptsSourceKeysLongerThan64K() throws Throwable {
+        final File cacheFile = File.createTempFile("procyon-type-cache", ".bin");
+        final CountingTypeLoader typeLoader = new CountingTypeLoader();
+        final StringBuilder sourceKey = new StringBuilder();
+
+        assertTrue(cacheFile.delete());
+
+        while (sourceKey.length() <= 0x10000) {
+            sourceKey.append("/some/long/class/path/entry.jar:\u00e9|");
+        }
+
+        try {
+            try (final PersistentTypeCache cache = new PersistentTypeCache(typeLoader, cacheFile, sourceKey.toString())) {
+                load(cache, "java/util/ArrayList");
+            }
+
+            try (final PersistentTypeCache cache = new PersistentTypeCache(typeLoader, cacheFile, sourceKey.toString())) {
+                assertEquals(1, cache.getCachedTypeCount());
+            }
+        }
+        finally {
+            assertTrue(cacheFile.delete());
+        }
+    }
+
+    private static byte[] load(final ITypeLoader typeLoader, final String internalName) {
+        final Buffer buffer = new Buffer();
+
+        assertTrue(typeLoader.tryLoadType(internalName, buffer));
+
+        return Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.size());
+    }
+
+    private final static class CountingTypeLoader implements ITypeLoader {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final ITypeLoader typeLoader = new ClasspathTypeLoader();
+
+        @Override
+        public boolean tryLoadType(final String internalName, final Buffer buffer) {
+            loadCount.incrementAndGet();
+            return typeLoader.tryLoadType(internalName, buffer);
+        }
+    }
+}
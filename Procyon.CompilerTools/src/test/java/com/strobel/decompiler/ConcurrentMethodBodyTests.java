@@ -0,0 +1,171 @@
+/*
+ * ConcurrentMethodBodyTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.core.BooleanBox;
+import com.strobel.decompiler.ast.AstOptimizer;
+import com.strobel.decompiler.languages.Languages;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentMethodBodyTests {
+    private static class A {
+        private final List<Callable<String>> _callables = new ArrayList<>();
+
+        A(final String... values) {
+            for (final String value : values) {
+                _callables.add(
+                    new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return value.trim();
+                        }
+                    }
+                );
+            }
+        }
+
+        int sum(final int[] values) {
+            int sum = 0;
+
+            for (final int value : values) {
+                if (value > 0) {
+                    sum += value;
+                }
+            }
+
+            return sum;
+        }
+
+        String describe(final int value) {
+            switch (value) {
+                case 0:
+                    return "zero";
+                case 1:
+                    return "one";
+                default:
+                    return value < 0 ? "negative" : "many";
+            }
+        }
+
+        String first() throws Exception {
+            try {
+                return _callables.isEmpty() ? null : _callables.get(0).call();
+            }
+            finally {
+                _callables.clear();
+            }
+        }
+    }
+
+    @Test
+    public void testMethodContextSharesCancellation() {
+        final DecompilerContext context = new DecompilerContext();
+
+        context.getReservedVariableNames().add("reserved");
+        context.setCanceled(new BooleanBox());
+
+        final DecompilerContext methodContext = context.createMethodContext();
+
+        assertSame(context.getSettings(), methodContext.getSettings());
+        assertEquals(context.getReservedVariableNames(), methodContext.getReservedVariableNames());
+        assertNotSame(context.getReservedVariableNames(), methodContext.getReservedVariableNames());
+        assertNotSame(context.getTimeoutFlag(), methodContext.getTimeoutFlag());
+        assertFalse(methodContext.isCanceled());
+
+        //
+        // The caller may cancel after the method contexts have been handed out.
+        //
+        context.getCanceled().value = true;
+        assertTrue(methodContext.isCanceled());
+        context.getCanceled().value = false;
+
+        //
+        // A method context which times out or is abandoned does not take the others down with it.
+        //
+        methodContext.getTimeoutFlag().set(true);
+        assertFalse(context.isCanceled());
+        methodContext.getTimeoutFlag().set(false);
+
+        methodContext.abandon();
+        assertTrue(methodContext.isCanceled());
+        assertFalse(context.isCanceled());
+        assertFalse(context.createMethodContext().isCanceled());
+
+        methodContext.setTypeTimeUsed(methodContext.getTypeTimeUsed() + 5L);
+
+        context.setTypeTimeUsed(context.getTypeTimeUsed() + 3L);
+        context.mergeMethodContext(methodContext);
+
+        assertEquals(8L, context.getTypeTimeUsed());
+    }
+
+    @Test
+    public void testMethodContextsShareTypeDeadline() {
+        final DecompilerContext context = new DecompilerContext();
+
+        context.getSettings().setTypeTimeout(60000L);
+        context.setTypeTimeUsed(TimeUnit.SECONDS.toNanos(10L));
+
+        final DecompilerContext first = context.createMethodContext();
+        final DecompilerContext second = context.createMethodContext();
+
+        //
+        // Time spent by one method context must not come out of the budget again for the others, or the
+        // type could run for the whole budget once per thread.
+        //
+        first.setTypeTimeUsed(first.getTypeTimeUsed() + TimeUnit.SECONDS.toNanos(45L));
+        context.mergeMethodContext(first);
+
+        for (final DecompilerContext c : new DecompilerContext[] { context, first, second }) {
+            final long remaining = c.getRemainingTypeTime();
+
+            assertTrue(remaining <= TimeUnit.SECONDS.toNanos(50L));
+            assertTrue(remaining > TimeUnit.SECONDS.toNanos(40L));
+        }
+    }
+
+    @Test
+    public void testParallelOutputMatchesSequentialOutput() {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+
+        for (final Class<?> c : new Class<?>[] { A.class, AstOptimizer.class }) {
+            final TypeDefinition type = metadataSystem.lookupType(c.getName().replace('.', '/')).resolve();
+
+            assertEquals(c.getName(), decompile(type, 1), decompile(type, 4));
+        }
+    }
+
+    private static String decompile(final TypeDefinition type, final int methodThreadCount) {
+        final DecompilationOptions options = new DecompilationOptions();
+        final PlainTextOutput output = new PlainTextOutput();
+
+        options.getSettings().setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        options.getSettings().setMethodThreadCount(methodThreadCount);
+
+        Languages.java().decompileType(type, output, options);
+
+        return output.toString();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * DecompilationWatchdogTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.core.BooleanBox;
+import com.strobel.core.SafeCloseable;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DecompilationWatchdogTests {
+    @Test
+    public void testNoBudgetLeavesContextAlone() {
+        final DecompilerContext context = new DecompilerContext();
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            assertNull(context.getCanceled());
+            assertFalse(context.isCanceled());
+        }
+    }
+
+    @Test
+    public void testMethodBudgetTripsAndResetsCancelFlag() throws InterruptedException {
+        final DecompilerContext context = new DecompilerContext();
+
+        context.getSettings().setMethodTimeout(10L);
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            awaitCanceled(context);
+
+            try {
+                context.checkCanceled();
+                fail("Expected CancellationException.");
+            }
+            catch (final CancellationException ignoredException) {
+            }
+        }
+
+        assertFalse(context.isCanceled());
+    }
+
+    @Test
+    public void testNestedMethodsShareOuterBudget() throws InterruptedException {
+        final DecompilerContext context = new DecompilerContext();
+
+        context.getSettings().setMethodTimeout(10L);
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            try (final SafeCloseable ignoredInner = DecompilationWatchdog.startMethodBudget(context)) {
+                awaitCanceled(context);
+            }
+
+            assertTrue(context.isCanceled());
+        }
+
+        assertFalse(context.isCanceled());
+    }
+
+    @Test
+    public void testExhaustedTypeBudgetCancelsRemainingMethods() throws InterruptedException {
+        final DecompilerContext context = new DecompilerContext();
+
+        context.getSettings().setTypeTimeout(1L);
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            awaitCanceled(context);
+        }
+
+        assertFalse(context.isCanceled());
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            assertTrue(context.isCanceled());
+        }
+
+        assertFalse(context.isCanceled());
+    }
+
+    @Test
+    public void testCallerCancellationIsPreserved() {
+        final DecompilerContext context = new DecompilerContext();
+
+        context.getSettings().setMethodTimeout(TimeUnit.MINUTES.toMillis(1L));
+        context.setCanceled(new BooleanBox(true));
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            assertTrue(context.isCanceled());
+        }
+
+        assertTrue(context.isCanceled());
+    }
+
+    @Test
+    public void testCallerCancellationSurvivesTimeout() throws InterruptedException {
+        final DecompilerContext context = new DecompilerContext();
+        final BooleanBox canceled = new BooleanBox();
+
+        context.getSettings().setMethodTimeout(10L);
+        context.setCanceled(canceled);
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            awaitCanceled(context);
+            assertFalse(canceled.value);
+            canceled.value = true;
+        }
+
+        assertTrue(context.isCanceled());
+    }
+
+    @Test
+    public void testSharedCancellationSeesTimeout() throws InterruptedException {
+        final DecompilerContext context = new DecompilerContext();
+        final DecompilerContext innerContext = new DecompilerContext(context.getSettings());
+
+        context.getSettings().setMethodTimeout(10L);
+        innerContext.shareCancellation(context);
+
+        try (final SafeCloseable ignored = DecompilationWatchdog.startMethodBudget(context)) {
+            awaitCanceled(innerContext);
+        }
+
+        assertFalse(innerContext.isCanceled());
+    }
+
+    private static void awaitCanceled(final DecompilerContext context) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+
+        while (!context.isCanceled()) {
+            assertTrue("Watchdog did not trip within 10 seconds.", System.nanoTime() < deadline);
+            Thread.sleep(1L);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * DecompilerMetricsTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.languages.Languages;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class DecompilerMetricsTests {
+    private static class A {
+        public int test(final int[] values) {
+            int sum = 0;
+
+            for (final int value : values) {
+                if (value > 0) {
+                    sum += value;
+                }
+            }
+
+            return sum;
+        }
+    }
+
+    @Test
+    public void testAggregatesPerMethodTypeAndRun() throws IOException {
+        final DecompilerMetrics metrics = new DecompilerMetrics();
+
+        metrics.record("p/A", "f()V", "TypeInference", 10L, 100L);
+        metrics.record("p/A", "f()V", "TypeInference", 20L, 200L);
+        metrics.record("p/A", "g()V", "TypeInference", 5L, -1L);
+        metrics.record("p/A", null, "JavaOutputVisitor", 7L, 70L);
+        metrics.record(null, null, "LoadType", 3L, 30L);
+
+        final StringBuilder json = new StringBuilder();
+
+        metrics.writeJson(json);
+
+        final String output = json.toString();
+
+        assertTrue(output, output.contains("\"phases\": {\n    \"JavaOutputVisitor\": { \"calls\": 1, \"elapsedNanos\": 7, \"allocatedBytes\": 70 },\n" +
+                                           "    \"LoadType\": { \"calls\": 1, \"elapsedNanos\": 3, \"allocatedBytes\": 30 },\n" +
+                                           "    \"TypeInference\": { \"calls\": 3, \"elapsedNanos\": 35, \"allocatedBytes\": -1 }\n  }"));
+
+        assertTrue(output, output.contains("\"f()V\": {\n          \"TypeInference\": { \"calls\": 2, \"elapsedNanos\": 30, \"allocatedBytes\": 300 }\n        }"));
+        assertTrue(output, output.contains("\"g()V\": {\n          \"TypeInference\": { \"calls\": 1, \"elapsedNanos\": 5, \"allocatedBytes\": -1 }\n        }"));
+    }
+
+    @Test
+    public void testRecordsPipelinePhases() throws IOException {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+        final TypeDefinition type = metadataSystem.lookupType("com/strobel/decompiler/DecompilerMetricsTests$A").resolve();
+        final DecompilationOptions options = new DecompilationOptions();
+        final DecompilerMetrics metrics = new DecompilerMetrics();
+
+        options.getSettings().setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        options.setMetrics(metrics);
+
+        Languages.java().decompileType(type, new PlainTextOutput(), options);
+
+        final StringBuilder json = new StringBuilder();
+
+        metrics.writeJson(json);
+
+        final String output = json.toString();
+
+        assertTrue(output, output.contains("\"com/strobel/decompiler/DecompilerMetricsTests$A\": {"));
+        assertTrue(output, output.contains("\"test([I)I\": {"));
+
+        for (final String phase : new String[] {
+            "JavaAstBuilder",
+            "AstMethodBodyBuilder",
+            "BytecodeAstBuilder",
+            "TypeInference",
+            "FindLoops",
+            "DeclareVariablesTransform",
+            "JavaOutputVisitor" }) {
+
+            assertTrue(phase, output.contains("\"" + phase + "\": { \"calls\": "));
+        }
+    }
+}
@@ -436,6 +436,36 @@ public class HandlerTests extends DecompilerTest {
         }
     }
 
+    private static class S {
+        private boolean abort;
+        private int count;
+
+        private void visit(final Runnable r) {
+            r.run();
+            ++count;
+        }
+
+        public boolean test(final Runnable ifTrue, final Runnable ifFalse) {
+            final int original = count;
+            count = 0;
+            try {
+                visit(ifTrue);
+                if (count > 0) {
+                    abort = true;
+                }
+                else {
+                    visit(ifFalse);
+                    abort |= count > 0;
+                }
+            }
+            finally {
+                count += original;
+            }
+            abort |= count > 1;
+            return !abort;
+        }
+    }
+
     @Test
     public void testThrowsSignatures() {
         verifyOutput(
@@ -922,4 +952,39 @@ public class HandlerTests extends DecompilerTest {
             "    }\n" +
             "}");
     }
+
+    @Test
+    public void testConditionAfterFinally() {
+        verifyOutput(
+            S.class,
+            defaultSettings(),
+            "private static class S {\n" +
+            "    private boolean abort;\n" +
+            "    private int count;\n" +
+            "    private void visit(final Runnable r) {\n" +
+            "        r.run();\n" +
+            "        ++this.count;\n" +
+            "    }\n" +
+            "    public boolean test(final Runnable ifTrue, final Runnable ifFalse) {\n" +
+            "        final int original = this.count;\n" +
+            "        this.count = 0;\n" +
+            "        try {\n" +
+            "            this.visit(ifTrue);\n" +
+            "            if (this.count > 0) {\n" +
+            "                this.abort = true;\n" +
+            "            }\n" +
+            "            else {\n" +
+            "                this.visit(ifFalse);\n" +
+            "                this.abort |= (this.count > 0);\n" +
+            "            }\n" +
+            "        }\n" +
+            "        finally {\n" +
+            "            this.count += original;\n" +
+            "        }\n" +
+            "        this.abort |= (this.count > 1);\n" +
+            "        return !this.abort;\n" +
+            "    }\n" +
+            "}\n"
+        );
+    }
 }
@@ -25,8 +25,38 @@ public class InliningTests extends DecompilerTest {
         }
     }
 
+    private static class B {
+        int a;
+        int b;
+
+        public int test(final int[] values) {
+            final int x;
+            final int y;
+            this.a = (x = values[0] * 2);
+            this.b = (y = values[1] + x);
+            return x + y + this.a * this.b;
+        }
+    }
+
     @Test
     public void testDeclarationNotInlinedIntoSelfReferencingAssignment() {
 
     }
+
+    @Test
+    public void testNestedAssignmentsInStraightLineCode() {
+        verifyOutput(
+            B.class,
+            defaultSettings(),
+            "private static class B {\n" +
+            "    int a;\n" +
+            "    int b;\n" +
+            "    public int test(final int[] values) {\n" +
+            "        final int x = this.a = values[0] * 2;\n" +
+            "        final int y = this.b = values[1] + x;\n" +
+            "        return x + y + this.a * this.b;\n" +
+            "    }\n" +
+            "}\n"
+        );
+    }
 }
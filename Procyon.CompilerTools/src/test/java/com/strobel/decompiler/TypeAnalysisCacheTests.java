@@ -0,0 +1,141 @@
+/*
+ * TypeAnalysisCacheTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.componentmodel.Key;
+import com.strobel.decompiler.languages.Languages;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TypeAnalysisCacheTests {
+    @SuppressWarnings("unused")
+    private static class A {
+        public String test(final TimeUnit unit) {
+            switch (unit) {
+                case SECONDS:
+                    return "s";
+                case MINUTES:
+                    return "m";
+                default:
+                    return "?";
+            }
+        }
+
+        public Runnable run(final TimeUnit unit) {
+            return () -> System.out.println(test(unit));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class B {
+        public int test(final TimeUnit unit) {
+            switch (unit) {
+                case HOURS:
+                    return 1;
+                case DAYS:
+                    return 24;
+                default:
+                    return 0;
+            }
+        }
+
+        public Runnable run(final TimeUnit unit) {
+            return () -> System.out.println(test(unit));
+        }
+    }
+
+    private final static Key<String> NAME = Key.create("Name");
+    private final static Key<String> OTHER_NAME = Key.create("OtherName");
+
+    @Test
+    public void testCachesFactsPerTypeAndKind() {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+        final TypeDefinition a = metadataSystem.lookupType("com/strobel/decompiler/TypeAnalysisCacheTests$A").resolve();
+        final TypeDefinition b = metadataSystem.lookupType("com/strobel/decompiler/TypeAnalysisCacheTests$B").resolve();
+        final TypeAnalysisCache cache = new TypeAnalysisCache();
+
+        assertNull(cache.get(a, NAME));
+        assertEquals("a", cache.put(a, NAME, "a"));
+        assertEquals("a", cache.put(a, NAME, "a2"));
+        assertEquals("a", cache.get(a, NAME));
+        assertNull(cache.get(a, OTHER_NAME));
+        assertNull(cache.get(b, NAME));
+
+        //
+        // The same class file loaded again is the same type as far as the cache is concerned.
+        //
+        final TypeDefinition a2 = new MetadataSystem().lookupType("com/strobel/decompiler/TypeAnalysisCacheTests$A").resolve();
+
+        assertNotSame(a, a2);
+        assertEquals("a", cache.get(a2, NAME));
+    }
+
+    @Test
+    public void testDropsLeastRecentlyUsedFacts() {
+        final MetadataSystem metadataSystem = new MetadataSystem();
+        final TypeDefinition a = metadataSystem.lookupType("com/strobel/decompiler/TypeAnalysisCacheTests$A").resolve();
+        final TypeDefinition b = metadataSystem.lookupType("com/strobel/decompiler/TypeAnalysisCacheTests$B").resolve();
+        final TypeAnalysisCache cache = new TypeAnalysisCache(2);
+
+        cache.put(a, NAME, "a");
+        cache.put(b, NAME, "b");
+
+        assertEquals("a", cache.get(a, NAME));
+
+        cache.put(a, OTHER_NAME, "a2");
+
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get(a, NAME));
+        assertEquals("a2", cache.get(a, OTHER_NAME));
+        assertNull(cache.get(b, NAME));
+    }
+
+    @Test
+    public void testSharedCacheDoesNotChangeOutput() {
+        final TypeAnalysisCache cache = new TypeAnalysisCache();
+
+        final String a = decompile("com/strobel/decompiler/TypeAnalysisCacheTests$A", null);
+        final String b = decompile("com/strobel/decompiler/TypeAnalysisCacheTests$B", null);
+
+        assertEquals(a, decompile("com/strobel/decompiler/TypeAnalysisCacheTests$A", cache));
+
+        final int size = cache.size();
+
+        assertTrue(size > 0);
+        assertEquals(b, decompile("com/strobel/decompiler/TypeAnalysisCacheTests$B", cache));
+        assertEquals(size, cache.size());
+
+        assertTrue(a, a.contains("case SECONDS:"));
+        assertTrue(b, b.contains("case HOURS:"));
+    }
+
+    private static String decompile(final String internalName, final TypeAnalysisCache cache) {
+        final TypeDefinition type = new MetadataSystem().lookupType(internalName).resolve();
+        final DecompilationOptions options = new DecompilationOptions();
+        final PlainTextOutput output = new PlainTextOutput();
+
+        options.getSettings().setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        options.setAnalysisCache(cache);
+
+        Languages.java().decompileType(type, output, options);
+
+        return output.toString();
+    }
+}
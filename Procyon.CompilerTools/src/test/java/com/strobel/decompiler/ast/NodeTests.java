@@ -0,0 +1,126 @@
+/*
+ * NodeTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.ast;
+
+import com.strobel.core.Predicate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class NodeTests {
+    private static Block createMethod() {
+        final Variable v = new Variable();
+        final Label entry = new Label("entry");
+        final Label exit = new Label("exit");
+
+        v.setName("v");
+
+        final BasicBlock head = new BasicBlock();
+
+        head.getBody().add(entry);
+        head.getBody().add(new Expression(AstCode.Store, v, Expression.MYSTERY_OFFSET, new Expression(AstCode.LdC, 1, Expression.MYSTERY_OFFSET)));
+        head.getBody().add(new Expression(AstCode.Goto, exit, Expression.MYSTERY_OFFSET));
+
+        final Condition condition = new Condition();
+
+        condition.setCondition(new Expression(AstCode.Load, v, Expression.MYSTERY_OFFSET));
+        condition.setTrueBlock(new Block(new Expression(AstCode.Return, null, Expression.MYSTERY_OFFSET, new Expression(AstCode.Load, v, Expression.MYSTERY_OFFSET))));
+        condition.setFalseBlock(new Block());
+
+        final TryCatchBlock tryCatch = new TryCatchBlock();
+
+        tryCatch.setTryBlock(new Block(new Expression(AstCode.Goto, exit, Expression.MYSTERY_OFFSET)));
+        tryCatch.setFinallyBlock(new Block(new Expression(AstCode.Nop, null, Expression.MYSTERY_OFFSET)));
+
+        final Block method = new Block(head, condition, tryCatch, exit);
+
+        method.setEntryGoto(new Expression(AstCode.Goto, entry, Expression.MYSTERY_OFFSET));
+
+        return method;
+    }
+
+    @Test
+    public void testIndexedChildrenMatchChildList() {
+        for (final Node node : createMethod().getSelfAndChildrenRecursive()) {
+            final List<Node> children = node.getChildren();
+
+            assertEquals(children.size(), node.getChildCount());
+
+            for (int i = 0; i < children.size(); i++) {
+                assertSame(children.get(i), node.getChild(i));
+            }
+        }
+    }
+
+    @Test
+    public void testVisitMatchesRecursiveEnumeration() {
+        final Block method = createMethod();
+        final List<Node> visited = new ArrayList<>();
+
+        final boolean completed = method.visitSelfAndChildrenRecursive(
+            Node.class,
+            new INodeVisitor<Node>() {
+                @Override
+                public boolean visit(final Node node) {
+                    visited.add(node);
+                    return true;
+                }
+            }
+        );
+
+        assertTrue(completed);
+        assertEquals(method.getSelfAndChildrenRecursive(), visited);
+    }
+
+    @Test
+    public void testVisitStopsEarly() {
+        final List<Expression> visited = new ArrayList<>();
+
+        final boolean completed = createMethod().visitSelfAndChildrenRecursive(
+            Expression.class,
+            new INodeVisitor<Expression>() {
+                @Override
+                public boolean visit(final Expression e) {
+                    visited.add(e);
+                    return e.getCode() != AstCode.LdC;
+                }
+            }
+        );
+
+        assertFalse(completed);
+        assertEquals(3, visited.size());
+        assertEquals(AstCode.LdC, visited.get(2).getCode());
+    }
+
+    @Test
+    public void testFindAndCount() {
+        final Block method = createMethod();
+
+        final Predicate<Expression> isGoto = new Predicate<Expression>() {
+            @Override
+            public boolean test(final Expression e) {
+                return e.getCode() == AstCode.Goto;
+            }
+        };
+
+        assertSame(method.getEntryGoto(), method.findSelfOrChildRecursive(Expression.class, isGoto));
+        assertEquals(method.getSelfAndChildrenRecursive(Expression.class, isGoto).size(), method.countSelfAndChildrenRecursive(Expression.class, isGoto));
+        assertEquals(method.getSelfAndChildrenRecursive(Label.class).size(), method.countSelfAndChildrenRecursive(Label.class, null));
+        assertTrue(method.anySelfOrChildRecursive(TryCatchBlock.class, null));
+        assertFalse(method.anySelfOrChildRecursive(Loop.class, null));
+    }
+}
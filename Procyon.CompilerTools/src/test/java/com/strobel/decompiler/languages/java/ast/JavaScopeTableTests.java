@@ -0,0 +1,147 @@
+/*
+ * JavaScopeTableTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.DecompilerSettings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JavaScopeTableTests {
+    @SuppressWarnings("unused")
+    private static class A {
+        private static int count;
+        private final List<String> values = new ArrayList<>();
+        private int value;
+
+        int sum(final int[] items) {
+            int value = this.value;
+
+            for (final int item : items) {
+                value += item;
+            }
+
+            final List<String> copy = new ArrayList<>(values);
+            value += copy.size();
+
+            return value + count;
+        }
+
+        static int next() {
+            class Local {
+                int value() {
+                    return count++;
+                }
+            }
+
+            final Local local = new Local();
+            return local.value();
+        }
+
+        private static class B extends A {
+            String describe(final int value) {
+                final A a = new A();
+                return a.values + ":" + value + ":" + super.value;
+            }
+        }
+    }
+
+    @Test
+    public void testResolvesLikeUncachedResolver() {
+        final CompilationUnit unit = decompile(A.class);
+        final JavaScopeTable scopes = new JavaScopeTable();
+        final List<String> names = new ArrayList<>();
+
+        for (final AstNode node : unit.getDescendants()) {
+            if (node instanceof IdentifierExpression) {
+                final String name = ((IdentifierExpression) node).getIdentifier();
+
+                names.add(name);
+
+                assertEquals(
+                    name,
+                    JavaNameResolver.resolve(name, node).getCandidates(),
+                    JavaNameResolver.resolve(name, node, scopes).getCandidates()
+                );
+            }
+            else if (node instanceof SimpleType) {
+                final String name = ((SimpleType) node).getIdentifier();
+
+                names.add(name);
+
+                assertEquals(
+                    name,
+                    JavaNameResolver.resolveAsType(name, node).getCandidates(),
+                    JavaNameResolver.resolveAsType(name, node, scopes).getCandidates()
+                );
+            }
+        }
+
+        assertTrue(names.toString(), names.contains("value"));
+        assertTrue(names.toString(), names.contains("Local"));
+    }
+
+    @Test
+    public void testInvalidateDropsRemovedDeclarations() {
+        final CompilationUnit unit = decompile(A.class);
+        final JavaScopeTable scopes = new JavaScopeTable();
+
+        VariableDeclarationStatement copyDeclaration = null;
+        IdentifierExpression copyReference = null;
+
+        for (final AstNode node : unit.getDescendants()) {
+            if (node instanceof VariableDeclarationStatement &&
+                !((VariableDeclarationStatement) node).getVariable("copy").isNull()) {
+
+                copyDeclaration = (VariableDeclarationStatement) node;
+            }
+            else if (node instanceof IdentifierExpression &&
+                     "copy".equals(((IdentifierExpression) node).getIdentifier())) {
+
+                copyReference = (IdentifierExpression) node;
+            }
+        }
+
+        assertNotNull(copyDeclaration);
+        assertNotNull(copyReference);
+        assertTrue(JavaNameResolver.resolve("copy", copyReference, scopes).hasMatch());
+
+        final AstNode parent = copyDeclaration.getParent();
+
+        copyDeclaration.remove();
+        scopes.invalidate(parent);
+
+        assertFalse(JavaNameResolver.resolve("copy", copyReference, scopes).hasMatch());
+    }
+
+    private static CompilationUnit decompile(final Class<?> c) {
+        final TypeDefinition type = MetadataSystem.instance().lookupType(c.getName().replace('.', '/')).resolve();
+        final DecompilerContext context = new DecompilerContext(new DecompilerSettings());
+
+        context.setCurrentType(type);
+
+        final AstBuilder builder = new AstBuilder(context);
+
+        builder.addType(type);
+        builder.runTransformations();
+
+        return builder.getCompilationUnit();
+    }
+}
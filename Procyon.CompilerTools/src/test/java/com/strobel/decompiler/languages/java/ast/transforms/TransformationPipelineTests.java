@@ -0,0 +1,264 @@
+/*
+ * TransformationPipelineTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.languages.java.ast.transforms;
+
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.DecompilerMetrics;
+import com.strobel.decompiler.DecompilerSettings;
+import com.strobel.decompiler.PlainTextOutput;
+import com.strobel.decompiler.ast.AstOptimizer;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import com.strobel.decompiler.languages.java.JavaOutputVisitor;
+import com.strobel.decompiler.languages.java.ast.AstBuilder;
+import com.strobel.decompiler.languages.java.ast.BinaryOperatorExpression;
+import com.strobel.decompiler.languages.java.ast.BinaryOperatorType;
+import com.strobel.decompiler.languages.java.ast.BlockStatement;
+import com.strobel.decompiler.languages.java.ast.CodeFeature;
+import com.strobel.decompiler.languages.java.ast.CodeFeatureCensus;
+import com.strobel.decompiler.languages.java.ast.CompilationUnit;
+import com.strobel.decompiler.languages.java.ast.ExpressionStatement;
+import com.strobel.decompiler.languages.java.ast.IdentifierExpression;
+import com.strobel.decompiler.languages.java.ast.InsertParenthesesVisitor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class TransformationPipelineTests {
+    @SuppressWarnings("unused")
+    private static class A {
+        private final static double INFINITY = 1d / 0d;
+
+        private final List<String> _values;
+
+        A(final String... values) {
+            _values = Arrays.asList(values);
+        }
+
+        @Override
+        public String toString() {
+            final String s = String.format("%s, %s", _values.size(), Integer.MAX_VALUE);
+            return s;
+        }
+
+        int adjust(final int x, final long y) {
+            assert x != 0 : "x";
+            int z = x + -1;
+            z -= -2;
+            return (int) (z ^ -1 + y - Long.MIN_VALUE);
+        }
+
+        String describe(final int value) {
+            switch (value) {
+                case 0: {
+                    final String zero = "zero";
+                    return zero;
+                }
+                case 1: {
+                    throw new IllegalArgumentException();
+                }
+                default: {
+                    return value < 0 ? "negative" : "many";
+                }
+            }
+        }
+
+        @Deprecated
+        void log(final Object o) {
+            if (o instanceof String) {
+                final String s = (String) o;
+                System.out.println(s.length());
+            }
+        }
+    }
+
+    @Test
+    public void testFusedTransformsMatchSequentialTransforms() {
+        for (final Class<?> c : new Class<?>[] { A.class, AstOptimizer.class, TransformationPipeline.class }) {
+            final TypeDefinition type = MetadataSystem.instance().lookupType(c.getName().replace('.', '/')).resolve();
+
+            assertEquals(c.getName(), decompile(type, false, null), decompile(type, true, null));
+        }
+    }
+
+    private final static class ExpandIdentifier extends AbstractFusableTransform<Void> {
+        ExpandIdentifier(final DecompilerContext context) {
+            super(context);
+        }
+
+        @Override
+        public Void visitIdentifierExpression(final IdentifierExpression node, final Void data) {
+            if ("a".equals(node.getIdentifier())) {
+                node.replaceWith(
+                    new BinaryOperatorExpression(
+                        new IdentifierExpression("b"),
+                        BinaryOperatorType.ADD,
+                        new IdentifierExpression("c")
+                    )
+                );
+            }
+            return null;
+        }
+    }
+
+    private final static class RenameIdentifier extends AbstractFusableTransform<Void> {
+        RenameIdentifier(final DecompilerContext context) {
+            super(context);
+        }
+
+        @Override
+        public Void visitIdentifierExpression(final IdentifierExpression node, final Void data) {
+            if ("b".equals(node.getIdentifier())) {
+                node.setIdentifier("x");
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitBinaryOperatorExpression(final BinaryOperatorExpression node, final Void data) {
+            super.visitBinaryOperatorExpression(node, data);
+            node.setOperator(BinaryOperatorType.SUBTRACT);
+            return null;
+        }
+    }
+
+    @Test
+    public void testLaterFusedTransformsSeeReplacedNodes() {
+        final DecompilerContext context = new DecompilerContext(new DecompilerSettings());
+
+        final BlockStatement sequential = new BlockStatement(new ExpressionStatement(new IdentifierExpression("a")));
+        final BlockStatement fused = (BlockStatement) sequential.clone();
+
+        new ExpandIdentifier(context).run(sequential);
+        new RenameIdentifier(context).run(sequential);
+
+        new FusedTransform(context, Arrays.<IFusableTransform>asList(new ExpandIdentifier(context), new RenameIdentifier(context))).run(fused);
+
+        assertEquals("x - c", ((ExpressionStatement) sequential.getStatements().firstOrNullObject()).getExpression().getText());
+        assertEquals("x - c", ((ExpressionStatement) fused.getStatements().firstOrNullObject()).getExpression().getText());
+    }
+
+    @Test
+    public void testRecordsFusedTransformsAsOnePhase() throws IOException {
+        final TypeDefinition type = MetadataSystem.instance().lookupType(A.class.getName().replace('.', '/')).resolve();
+        final DecompilerMetrics metrics = new DecompilerMetrics();
+
+        decompile(type, true, metrics);
+
+        final StringBuilder json = new StringBuilder();
+
+        metrics.writeJson(json);
+
+        final String output = json.toString();
+
+        assertTrue(
+            output,
+            output.contains("\"InlineEscapingAssignmentsTransform+VarArgsTransform+InsertConstantReferencesTransform+SimplifyArithmeticExpressionsTransform\": ")
+        );
+
+        assertFalse(output, output.contains("\"VarArgsTransform\": "));
+        assertTrue(output, output.contains("\"DeclareVariablesTransform\": "));
+    }
+
+    @Test
+    public void testSkipsTransformsWithNothingToRewrite() throws IOException {
+        final TypeDefinition type = MetadataSystem.instance().lookupType(A.class.getName().replace('.', '/')).resolve();
+        final DecompilerContext context = new DecompilerContext(new DecompilerSettings());
+        final DecompilerMetrics metrics = new DecompilerMetrics();
+
+        context.setCurrentType(type);
+        context.setMetrics(metrics);
+
+        final AstBuilder builder = new AstBuilder(context);
+
+        builder.addType(type);
+
+        final CodeFeatureCensus census = builder.getCodeFeatureCensus();
+
+        assertTrue(census.contains(CodeFeature.SWITCH));
+        assertTrue(census.contains(CodeFeature.ASSERTION));
+        assertTrue(census.contains(CodeFeature.INSTANCE_OF));
+        assertFalse(census.contains(CodeFeature.EXCEPTION_HANDLER));
+        assertFalse(census.contains(CodeFeature.INVOKE_DYNAMIC));
+        assertFalse(census.contains(CodeFeature.RECORD));
+
+        builder.runTransformations();
+
+        final StringBuilder json = new StringBuilder();
+
+        metrics.writeJson(json);
+
+        final String output = json.toString();
+
+        assertTrue(output, output.contains("\"StringSwitchRewriterTransform\": "));
+        assertTrue(output, output.contains("\"AssertStatementTransform\": "));
+        assertFalse(output, output.contains("\"TryWithResourcesTransform\": "));
+        assertFalse(output, output.contains("\"LambdaTransform\": "));
+        assertFalse(output, output.contains("\"RewriteRecordClassesTransform\": "));
+    }
+
+    @Test
+    public void testFindsRecordsWithDeferredMembers() {
+        final MetadataSystem metadataSystem = new MetadataSystem(new ClasspathTypeLoader(), true);
+
+        metadataSystem.setDeferredMemberLoadingEnabled(true);
+
+        //
+        // Records only exist on JDK 16 and later, and we cannot declare one here.
+        //
+        final TypeDefinition type = metadataSystem.lookupType("jdk/net/UnixDomainPrincipal").resolve();
+
+        assumeTrue(type != null);
+
+        final DecompilerContext context = new DecompilerContext(new DecompilerSettings());
+
+        context.setCurrentType(type);
+
+        final AstBuilder builder = new AstBuilder(context);
+
+        builder.addType(type);
+
+        assertTrue(builder.getCodeFeatureCensus().contains(CodeFeature.RECORD));
+    }
+
+    private static String decompile(final TypeDefinition type, final boolean fuseTransforms, final DecompilerMetrics metrics) {
+        final DecompilerSettings settings = new DecompilerSettings();
+        final DecompilerContext context = new DecompilerContext(settings);
+        final PlainTextOutput output = new PlainTextOutput();
+
+        settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
+        context.setCurrentType(type);
+        context.setMetrics(metrics);
+
+        final AstBuilder builder = new AstBuilder(context);
+
+        builder.addType(type);
+
+        final CompilationUnit compilationUnit = builder.getCompilationUnit();
+
+        TransformationPipeline.runTransformationsUntil(compilationUnit, null, context, fuseTransforms);
+
+        compilationUnit.acceptVisitor(new InsertParenthesesVisitor(), null);
+        compilationUnit.acceptVisitor(new JavaOutputVisitor(output, settings), null);
+
+        return output.toString();
+    }
+}
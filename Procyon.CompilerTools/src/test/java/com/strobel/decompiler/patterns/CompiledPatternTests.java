@@ -0,0 +1,162 @@
+/*
+ * CompiledPatternTests.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler.patterns;
+
+import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.TypeDefinition;
+import com.strobel.decompiler.DecompilerContext;
+import com.strobel.decompiler.DecompilerSettings;
+import com.strobel.decompiler.languages.java.ast.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompiledPatternTests {
+    @SuppressWarnings("unused")
+    private static class A {
+        private int value;
+        private final List<String> values = new ArrayList<>();
+
+        int update(final int x) {
+            value = x;
+            values.add(String.valueOf(x));
+            values.clear();
+
+            if (x > 0) {
+                return value + x;
+            }
+
+            while (value < x) {
+                value++;
+            }
+
+            return -x;
+        }
+    }
+
+    private final static INode[] PATTERNS = {
+        new ExpressionStatement(
+            new AssignmentExpression(
+                new NamedNode("left", new IdentifierExpression(Expression.MYSTERY_OFFSET, Pattern.ANY_STRING)).toExpression(),
+                new AnyNode("right").toExpression()
+            )
+        ),
+        new ExpressionStatement(
+            new InvocationExpression(
+                Expression.MYSTERY_OFFSET,
+                new MemberReferenceExpression(
+                    Expression.MYSTERY_OFFSET,
+                    new AnyNode("target").toExpression(),
+                    Pattern.ANY_STRING
+                ),
+                new Repeat(new AnyNode("argument")).toExpression()
+            )
+        ),
+        new Choice(
+            new NamedNode("return", new ReturnStatement(Expression.MYSTERY_OFFSET, new AnyNode().toExpression())),
+            new NamedNode("if", new IfElseStatement(Expression.MYSTERY_OFFSET, new AnyNode().toExpression(), new AnyNode().toStatement()))
+        ),
+        new NamedNode("any", new AnyNode())
+    };
+
+    @Test
+    public void testCompiledPatternsMatchLikeInterpretedPatterns() {
+        final CompilationUnit unit = decompile(A.class);
+        int matchCount = 0;
+
+        for (final INode pattern : PATTERNS) {
+            final CompiledPattern compiled = Pattern.compile(pattern);
+
+            for (final AstNode node : unit.getDescendants()) {
+                final Match expected = pattern.match(node);
+                final Match actual = compiled.match(node);
+
+                assertEquals(node.getText(), expected.success(), actual.success());
+                assertEquals(node.getText(), expected.success(), compiled.matches(node));
+
+                if (expected.success()) {
+                    matchCount++;
+
+                    for (final String group : new String[] { "left", "right", "target", "argument", "return", "if", "any" }) {
+                        assertEquals(toList(expected.get(group)), toList(actual.get(group)));
+                    }
+                }
+            }
+        }
+
+        assertTrue(matchCount > 0);
+    }
+
+    @Test
+    public void testRejectsMismatchedRootAndFirstChild() {
+        final CompiledPattern assignment = Pattern.compile(PATTERNS[0]);
+        final CompiledPattern ifOrReturn = Pattern.compile(PATTERNS[2]);
+        final CompiledPattern any = Pattern.compile(PATTERNS[3]);
+
+        final ExpressionStatement invocation = new ExpressionStatement(
+            new InvocationExpression(Expression.MYSTERY_OFFSET, new IdentifierExpression(Expression.MYSTERY_OFFSET, "f"))
+        );
+
+        final ReturnStatement returnStatement = new ReturnStatement(Expression.MYSTERY_OFFSET, new PrimitiveExpression(Expression.MYSTERY_OFFSET, 1));
+
+        assertFalse(assignment.canMatch(returnStatement));
+        assertFalse(assignment.canMatch(invocation));
+        assertTrue(ifOrReturn.canMatch(returnStatement));
+        assertFalse(ifOrReturn.canMatch(invocation));
+        assertTrue(any.canMatch(invocation));
+        assertTrue(any.canMatch(null));
+    }
+
+    @Test
+    public void testSuccessfulMatchesAreNotReused() {
+        final CompiledPattern any = Pattern.compile(PATTERNS[3]);
+        final IdentifierExpression x = new IdentifierExpression(Expression.MYSTERY_OFFSET, "x");
+        final IdentifierExpression y = new IdentifierExpression(Expression.MYSTERY_OFFSET, "y");
+
+        final Match first = any.match(x);
+        final Match second = any.match(y);
+
+        assertNotSame(first, second);
+        assertEquals(toList(first.get("any")), Collections.<INode>singletonList(x));
+        assertEquals(toList(second.get("any")), Collections.<INode>singletonList(y));
+    }
+
+    private static List<INode> toList(final Iterable<INode> nodes) {
+        final List<INode> list = new ArrayList<>();
+
+        for (final INode node : nodes) {
+            list.add(node);
+        }
+
+        return list;
+    }
+
+    private static CompilationUnit decompile(final Class<?> c) {
+        final TypeDefinition type = MetadataSystem.instance().lookupType(c.getName().replace('.', '/')).resolve();
+        final DecompilerContext context = new DecompilerContext(new DecompilerSettings());
+
+        context.setCurrentType(type);
+
+        final AstBuilder builder = new AstBuilder(context);
+
+        builder.addType(type);
+        builder.runTransformations();
+
+        return builder.getCompilationUnit();
+    }
+}
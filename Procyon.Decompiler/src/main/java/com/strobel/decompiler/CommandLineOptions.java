@@ -109,6 +109,18 @@ public class CommandLineOptions {
         description = "Write decompiled results to specified directory instead of the console.")
     private String _outputDirectory;
 
+    @Parameter(
+        names = { "-oz", "--output-zip" },
+        description = "Write decompiled results into the specified zip file (e.g., a sources jar) instead of the console.  " +
+                      "Cannot be combined with -o.")
+    private String _outputZipFile;
+
+    @Parameter(
+        names = { "--incremental" },
+        description = "When decompiling jar files with -o, skip classes which are unchanged since the previous run, " +
+                      "and remove output for classes which no longer exist.")
+    private boolean _isIncremental;
+
     @Parameter(
         names = { "-jar", "--jar-file" },
         description = "[DEPRECATED] Decompile all classes in the specified jar file (disables -ent and -s).")
@@ -155,6 +167,65 @@ public class CommandLineOptions {
         description = "Enable eager loading of method bodies (may speed up decompilation of larger archives).")
     private boolean _isEagerMethodLoadingEnabled;
 
+    @Parameter(
+        names = { "--deferred-member-loading" },
+        description = "Read the members of referenced types only when they are needed " +
+                      "(may speed up decompilation of types with deep library hierarchies).")
+    private boolean _isDeferredMemberLoadingEnabled;
+
+    @Parameter(
+        names = { "--threads" },
+        description = "Decompile the classes of a jar file using the specified number of worker threads.  " +
+                      "Use 0 to match the number of available processors.  Default is 1.",
+        arity = 1)
+    private int _threadCount = 1;
+
+    @Parameter(
+        names = { "--method-timeout" },
+        description = "Maximum time (in milliseconds) to spend decompiling a single method.  Methods which take longer " +
+                      "are emitted as a bytecode listing.  Default is 0 (no limit).",
+        arity = 1)
+    private long _methodTimeout;
+
+    @Parameter(
+        names = { "--type-timeout" },
+        description = "Maximum time (in milliseconds) to spend decompiling the methods of a single class.  Once it runs out, " +
+                      "the remaining methods are emitted as a bytecode listing.  Default is 0 (no limit).",
+        arity = 1)
+    private long _typeTimeout;
+
+    @Parameter(
+        names = { "--method-threads" },
+        description = "Decompile the methods of each class using the specified number of worker threads (may speed up " +
+                      "very large classes).  Use 0 to match the number of available processors.  Default is 1.",
+        arity = 1)
+    private int _methodThreadCount = 1;
+
+    @Parameter(
+        names = { "--mapped-jars" },
+        description = "Read classes from jar files through a memory-mapped index of the archive " +
+                      "(may speed up decompilation of larger archives).")
+    private boolean _isMappedJarLoadingEnabled;
+
+    @Parameter(
+        names = { "--type-cache-budget" },
+        description = "Approximate memory budget (in megabytes) for cached type metadata while decompiling jar files.  " +
+                      "Least recently used types are evicted beyond this budget.  Default is 0 (a quarter of the maximum heap size).",
+        arity = 1)
+    private int _typeCacheBudget;
+
+    @Parameter(
+        names = { "--metadata-cache" },
+        description = "Keep platform and library class files in the specified cache file, and reuse them in later runs " +
+                      "(may speed up decompilation of a few classes at a time) [EXPERIMENTAL].")
+    private String _metadataCacheFile;
+
+    @Parameter(
+        names = { "--metrics" },
+        description = "Write the time spent (and memory allocated, where supported) in each phase of the decompiler, " +
+                      "per method, per class, and in total, to the specified JSON file.")
+    private String _metricsFile;
+
     @Parameter(
         names = { "-sm", "--simplify-member-references" },
         description = "Simplify type-qualified member references in Java output [EXPERIMENTAL].")
@@ -299,6 +370,22 @@ public class CommandLineOptions {
         _outputDirectory = outputDirectory;
     }
 
+    public final boolean isIncremental() {
+        return _isIncremental;
+    }
+
+    public final void setIncremental(final boolean isIncremental) {
+        _isIncremental = isIncremental;
+    }
+
+    public final String getOutputZipFile() {
+        return _outputZipFile;
+    }
+
+    public final void setOutputZipFile(final String outputZipFile) {
+        _outputZipFile = outputZipFile;
+    }
+
     public final String getJarFile() {
         return _jarFile;
     }
@@ -379,6 +466,78 @@ public class CommandLineOptions {
         _isEagerMethodLoadingEnabled = isEagerMethodLoadingEnabled;
     }
 
+    public final boolean isDeferredMemberLoadingEnabled() {
+        return _isDeferredMemberLoadingEnabled;
+    }
+
+    public final void setDeferredMemberLoadingEnabled(final boolean isDeferredMemberLoadingEnabled) {
+        _isDeferredMemberLoadingEnabled = isDeferredMemberLoadingEnabled;
+    }
+
+    public final int getThreadCount() {
+        return _threadCount;
+    }
+
+    public final void setThreadCount(final int threadCount) {
+        _threadCount = threadCount;
+    }
+
+    public final long getMethodTimeout() {
+        return _methodTimeout;
+    }
+
+    public final void setMethodTimeout(final long methodTimeout) {
+        _methodTimeout = methodTimeout;
+    }
+
+    public final long getTypeTimeout() {
+        return _typeTimeout;
+    }
+
+    public final void setTypeTimeout(final long typeTimeout) {
+        _typeTimeout = typeTimeout;
+    }
+
+    public final int getMethodThreadCount() {
+        return _methodThreadCount;
+    }
+
+    public final void setMethodThreadCount(final int methodThreadCount) {
+        _methodThreadCount = methodThreadCount;
+    }
+
+    public final int getTypeCacheBudget() {
+        return _typeCacheBudget;
+    }
+
+    public final void setTypeCacheBudget(final int typeCacheBudget) {
+        _typeCacheBudget = typeCacheBudget;
+    }
+
+    public final String getMetadataCacheFile() {
+        return _metadataCacheFile;
+    }
+
+    public final void setMetadataCacheFile(final String metadataCacheFile) {
+        _metadataCacheFile = metadataCacheFile;
+    }
+
+    public final String getMetricsFile() {
+        return _metricsFile;
+    }
+
+    public final void setMetricsFile(final String metricsFile) {
+        _metricsFile = metricsFile;
+    }
+
+    public final boolean isMappedJarLoadingEnabled() {
+        return _isMappedJarLoadingEnabled;
+    }
+
+    public final void setMappedJarLoadingEnabled(final boolean isMappedJarLoadingEnabled) {
+        _isMappedJarLoadingEnabled = isMappedJarLoadingEnabled;
+    }
+
     public final boolean getSimplifyMemberReferences() {
         return _simplifyMemberReferences;
     }
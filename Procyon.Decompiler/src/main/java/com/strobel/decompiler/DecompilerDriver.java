@@ -20,16 +20,20 @@ import com.beust.jcommander.JCommander;
 import com.strobel.Procyon;
 import com.strobel.annotations.NotNull;
 import com.strobel.assembler.InputTypeLoader;
+import com.strobel.assembler.metadata.ClasspathTypeLoader;
 import com.strobel.assembler.metadata.CompositeTypeLoader;
 import com.strobel.assembler.metadata.DeobfuscationUtilities;
 import com.strobel.assembler.metadata.IMetadataResolver;
 import com.strobel.assembler.metadata.ITypeLoader;
 import com.strobel.assembler.metadata.JarTypeLoader;
+import com.strobel.assembler.metadata.MappedJarTypeLoader;
 import com.strobel.assembler.metadata.MetadataParser;
 import com.strobel.assembler.metadata.MetadataSystem;
+import com.strobel.assembler.metadata.PersistentTypeCache;
 import com.strobel.assembler.metadata.TypeDefinition;
 import com.strobel.assembler.metadata.TypeReference;
 import com.strobel.core.ExceptionUtilities;
+import com.strobel.core.SafeCloseable;
 import com.strobel.core.StringUtilities;
 import com.strobel.decompiler.languages.BytecodeLanguage;
 import com.strobel.decompiler.languages.BytecodeOutputOptions;
@@ -39,21 +43,42 @@ import com.strobel.decompiler.languages.TypeDecompilationResults;
 import com.strobel.decompiler.languages.java.JavaFormattingOptions;
 import com.strobel.io.PathHelper;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.ConsoleHandler;
@@ -62,6 +87,11 @@ import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 public class DecompilerDriver {
     public static void main(final String... args) {
@@ -101,6 +131,20 @@ public class DecompilerDriver {
             return;
         }
 
+        final boolean writeToZip = !StringUtilities.isNullOrWhitespace(options.getOutputZipFile());
+
+        if (writeToZip && !StringUtilities.isNullOrWhitespace(options.getOutputDirectory())) {
+            System.err.println("The -o and -oz options cannot be used together.");
+            System.exit(-1);
+            return;
+        }
+
+        if (options.isIncremental() && StringUtilities.isNullOrWhitespace(options.getOutputDirectory())) {
+            System.err.println("The --incremental option requires -o.");
+            System.exit(-1);
+            return;
+        }
+
         final DecompilerSettings settings = new DecompilerSettings();
 
         settings.setFlattenSwitchBlocks(options.getFlattenSwitchBlocks());
@@ -120,7 +164,13 @@ public class DecompilerDriver {
         settings.setDisableForEachTransforms(options.getDisableForEachTransforms());
         settings.setForcedCompilerTarget(options.getCompilerTargetOverride());
         settings.setTextBlockLineMinimum(options.getTextBlockLineMinimum());
-        settings.setTypeLoader(new InputTypeLoader());
+        settings.setMethodTimeout(options.getMethodTimeout());
+        settings.setTypeTimeout(options.getTypeTimeout());
+        settings.setMethodThreadCount(getMethodThreadCount(options));
+
+        final PersistentTypeCache metadataCache = createMetadataCache(options);
+
+        settings.setTypeLoader(metadataCache != null ? new InputTypeLoader(metadataCache) : new InputTypeLoader());
 
         if (!options.getSuppressBanner()) {
             settings.setOutputFileHeaderText("\nDecompiled by Procyon v" + Procyon.version() + "\n");
@@ -142,13 +192,29 @@ public class DecompilerDriver {
         decompilationOptions.setSettings(settings);
         decompilationOptions.setFullDecompilation(true);
 
+        final DecompilerMetrics metrics = options.getMetricsFile() != null ? new DecompilerMetrics()
+                                                                           : null;
+
+        decompilationOptions.setMetrics(metrics);
+
         if (settings.getJavaFormattingOptions() == null) {
             settings.setJavaFormattingOptions(JavaFormattingOptions.createDefault());
         }
 
+        final SourceArchiveWriter archive;
+
+        try {
+            archive = writeToZip ? new SourceArchiveWriter(new File(options.getOutputZipFile())) : null;
+        }
+        catch (final IOException e) {
+            System.err.println("Could not create output zip file: " + ExceptionUtilities.getMessage(e));
+            System.exit(-1);
+            return;
+        }
+
         if (decompileJar) {
             try {
-                decompileJar(jarFile, options, decompilationOptions);
+                decompileJar(jarFile, options, decompilationOptions, archive);
             }
             catch (final Throwable t) {
                 System.err.println(ExceptionUtilities.getMessage(t));
@@ -156,17 +222,21 @@ public class DecompilerDriver {
             }
         }
         else {
-            final MetadataSystem metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader());
+            final MetadataSystem metadataSystem = new NoRetryMetadataSystem(
+                settings.getTypeLoader(),
+                settings.getMethodThreadCount() > 1
+            );
 
             metadataSystem.setEagerMethodLoadingEnabled(options.isEagerMethodLoadingEnabled());
+            metadataSystem.setDeferredMemberLoadingEnabled(options.isDeferredMemberLoadingEnabled());
 
             for (final String typeName : typeNames) {
                 try {
                     if (typeName.endsWith(".jar")) {
-                        decompileJar(typeName, options, decompilationOptions);
+                        decompileJar(typeName, options, decompilationOptions, archive);
                     }
                     else {
-                        decompileType(metadataSystem, typeName, options, decompilationOptions, true);
+                        decompileType(metadataSystem, typeName, options, decompilationOptions, true, archive, System.out, System.err);
                     }
                 }
                 catch (final Throwable t) {
@@ -174,6 +244,123 @@ public class DecompilerDriver {
                 }
             }
         }
+
+        if (archive != null) {
+            try {
+                archive.close();
+            }
+            catch (final IOException e) {
+                System.err.println("Could not write output zip file: " + ExceptionUtilities.getMessage(e));
+                System.exit(-1);
+            }
+        }
+
+        if (metrics != null) {
+            try (final Writer writer = Files.newBufferedWriter(new File(options.getMetricsFile()).toPath(), StandardCharsets.UTF_8)) {
+                metrics.writeJson(writer);
+            }
+            catch (final IOException e) {
+                System.err.println("Could not write metrics file: " + ExceptionUtilities.getMessage(e));
+            }
+        }
+
+        if (metadataCache != null) {
+            try {
+                metadataCache.close();
+            }
+            catch (final IOException e) {
+                System.err.println("Could not update metadata cache: " + ExceptionUtilities.getMessage(e));
+            }
+        }
+    }
+
+    private static PersistentTypeCache createMetadataCache(final CommandLineOptions options) {
+        final String cacheFile = options.getMetadataCacheFile();
+
+        if (StringUtilities.isNullOrWhitespace(cacheFile)) {
+            return null;
+        }
+
+        //
+        // The cache is only valid for the runtime and class path it was built from, so key it by the
+        // path and content hash of each class path entry.  The runtime is identified by its version.
+        //
+
+        final StringBuilder sourceKey = new StringBuilder();
+
+        sourceKey.append(System.getProperty("java.home")).append('|')
+                 .append(System.getProperty("java.runtime.version"));
+
+        for (final String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            final File file = new File(path);
+
+            sourceKey.append('|').append(file.getAbsolutePath())
+                     .append(':').append(Long.toHexString(contentHash(file)));
+        }
+
+        return new PersistentTypeCache(new ClasspathTypeLoader(), new File(cacheFile), sourceKey.toString());
+    }
+
+    private static long contentHash(final File file) {
+        //
+        // Archives keep a CRC of every entry in their central directory, so hashing those covers their
+        // contents without inflating anything.  Directories are small enough to hash outright.
+        //
+        final CRC32 crc = new CRC32();
+
+        try {
+            if (file.isDirectory()) {
+                final List<Path> paths = new ArrayList<>();
+
+                try (final Stream<Path> files = Files.walk(file.toPath())) {
+                    final Iterator<Path> iterator = files.iterator();
+
+                    while (iterator.hasNext()) {
+                        final Path path = iterator.next();
+
+                        if (Files.isRegularFile(path)) {
+                            paths.add(path);
+                        }
+                    }
+                }
+
+                Collections.sort(paths);
+
+                for (final Path path : paths) {
+                    crc.update(file.toPath().relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                    crc.update(Files.readAllBytes(path));
+                }
+            }
+            else if (file.isFile()) {
+                try (final ZipFile zip = new ZipFile(file)) {
+                    final Enumeration<? extends ZipEntry> entries = zip.entries();
+
+                    while (entries.hasMoreElements()) {
+                        final ZipEntry entry = entries.nextElement();
+
+                        crc.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                        updateChecksum(crc, entry.getCrc());
+                        updateChecksum(crc, entry.getSize());
+                    }
+                }
+            }
+        }
+        catch (final IOException | UncheckedIOException e) {
+            //
+            // Not an archive, or not readable; fall back to its size and timestamp.
+            //
+            crc.reset();
+            updateChecksum(crc, file.length());
+            updateChecksum(crc, file.lastModified());
+        }
+
+        return crc.getValue();
+    }
+
+    private static void updateChecksum(final CRC32 crc, final long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            crc.update((int) (value >>> shift));
+        }
     }
 
     private static BytecodeOutputOptions createBytecodeFormattingOptions(final CommandLineOptions options) {
@@ -237,7 +424,8 @@ public class DecompilerDriver {
     private static void decompileJar(
         final String jarFilePath,
         final CommandLineOptions options,
-        final DecompilationOptions decompilationOptions) throws IOException {
+        final DecompilationOptions decompilationOptions,
+        final SourceArchiveWriter archive) throws IOException {
 
         final File jarFile = new File(jarFilePath);
 
@@ -247,58 +435,263 @@ public class DecompilerDriver {
 
         final DecompilerSettings settings = decompilationOptions.getSettings();
         final JarFile jar = new JarFile(jarFile);
-        final Enumeration<JarEntry> entries = jar.entries();
 
         final boolean oldShowSyntheticMembers = settings.getShowSyntheticMembers();
         final ITypeLoader oldTypeLoader = settings.getTypeLoader();
+        final TypeAnalysisCache oldAnalysisCache = decompilationOptions.getAnalysisCache();
+
+        final ITypeLoader jarTypeLoader = options.isMappedJarLoadingEnabled() ? new MappedJarTypeLoader(jarFile)
+                                                                              : new JarTypeLoader(jar);
 
         settings.setShowSyntheticMembers(false);
-        settings.setTypeLoader(new CompositeTypeLoader(new JarTypeLoader(jar), oldTypeLoader));
+        settings.setTypeLoader(new CompositeTypeLoader(jarTypeLoader, oldTypeLoader));
+
+        //
+        // Types in the same jar share what is learned about each other, e.g., the switch maps and accessors
+        // one class declares for others, so each is only analyzed once.
+        //
+        decompilationOptions.setAnalysisCache(new TypeAnalysisCache());
 
         try {
-            MetadataSystem metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader());
+            final IncrementalManifest manifest;
 
-            metadataSystem.setEagerMethodLoadingEnabled(options.isEagerMethodLoadingEnabled());
+            if (options.isIncremental()) {
+                manifest = new IncrementalManifest(jarFile, settings, options);
+                manifest.load(jar);
+            }
+            else {
+                manifest = null;
+            }
 
-            int classesDecompiled = 0;
+            final int threadCount = getThreadCount(options);
 
-            while (entries.hasMoreElements()) {
-                final JarEntry entry = entries.nextElement();
-                final String name = entry.getName();
+            if (threadCount > 1) {
+                decompileJarInParallel(jar, threadCount, options, decompilationOptions, archive, manifest);
+            }
+            else {
+                decompileJarSerially(jar, options, decompilationOptions, archive, manifest);
+            }
 
-                if (!name.endsWith(".class")) {
-                    continue;
-                }
+            if (manifest != null) {
+                manifest.save();
+            }
+        }
+        finally {
+            settings.setShowSyntheticMembers(oldShowSyntheticMembers);
+            settings.setTypeLoader(oldTypeLoader);
+            decompilationOptions.setAnalysisCache(oldAnalysisCache);
 
-                final String internalName = StringUtilities.removeRight(name, ".class");
+            if (jarTypeLoader instanceof Closeable) {
+                ((Closeable) jarTypeLoader).close();
+            }
+        }
+    }
 
-                try {
-                    decompileType(metadataSystem, internalName, options, decompilationOptions, false);
+    private static void decompileJarSerially(
+        final JarFile jar,
+        final CommandLineOptions options,
+        final DecompilationOptions decompilationOptions,
+        final SourceArchiveWriter archive,
+        final IncrementalManifest manifest) {
 
-                    if (++classesDecompiled % 100 == 0) {
-                        metadataSystem = new NoRetryMetadataSystem(settings.getTypeLoader());
-                    }
+        final Enumeration<JarEntry> entries = jar.entries();
+        final MetadataSystem metadataSystem = createJarMetadataSystem(
+            decompilationOptions.getSettings().getTypeLoader(),
+            options,
+            decompilationOptions.getSettings().getMethodThreadCount() > 1
+        );
+
+        while (entries.hasMoreElements()) {
+            final JarEntry entry = entries.nextElement();
+            final String name = entry.getName();
+
+            if (!name.endsWith(".class")) {
+                continue;
+            }
+
+            final String internalName = StringUtilities.removeRight(name, ".class");
+
+            if (manifest != null && manifest.isUpToDate(internalName)) {
+                continue;
+            }
+
+            boolean succeeded = false;
+
+            try (final SafeCloseable ignored = metadataSystem.openTypeCacheScope()) {
+                succeeded = decompileType(metadataSystem, internalName, options, decompilationOptions, false, archive, System.out, System.err);
+            }
+            catch (final Throwable t) {
+                t.printStackTrace();
+            }
+
+            if (!succeeded && manifest != null) {
+                manifest.markFailed(internalName);
+            }
+        }
+    }
+
+    static MetadataSystem createJarMetadataSystem(
+        final ITypeLoader typeLoader,
+        final CommandLineOptions options,
+        final boolean isThreadSafe) {
+
+        final MetadataSystem metadataSystem = new NoRetryMetadataSystem(typeLoader, isThreadSafe);
+        final int typeCacheBudget = options.getTypeCacheBudget();
+
+        metadataSystem.setEagerMethodLoadingEnabled(options.isEagerMethodLoadingEnabled());
+        metadataSystem.setDeferredMemberLoadingEnabled(options.isDeferredMemberLoadingEnabled());
+
+        metadataSystem.setTypeCacheBudget(
+            typeCacheBudget > 0 ? typeCacheBudget * 1024L * 1024L
+                                : Runtime.getRuntime().maxMemory() / 4
+        );
+
+        return metadataSystem;
+    }
+
+    private static int getThreadCount(final CommandLineOptions options) {
+        final int threadCount = options.getThreadCount();
+
+        if (threadCount <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return threadCount;
+    }
+
+    private static int getMethodThreadCount(final CommandLineOptions options) {
+        final int threadCount = options.getMethodThreadCount();
+
+        if (threadCount <= 0) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        return threadCount;
+    }
+
+    private static void decompileJarInParallel(
+        final JarFile jar,
+        final int threadCount,
+        final CommandLineOptions options,
+        final DecompilationOptions decompilationOptions,
+        final SourceArchiveWriter archive,
+        final IncrementalManifest manifest) throws IOException {
+
+        final List<String> internalNames = new ArrayList<>();
+        final Enumeration<JarEntry> entries = jar.entries();
+
+        while (entries.hasMoreElements()) {
+            final String name = entries.nextElement().getName();
+
+            if (name.endsWith(".class")) {
+                final String internalName = StringUtilities.removeRight(name, ".class");
+
+                if (manifest == null || !manifest.isUpToDate(internalName)) {
+                    internalNames.add(internalName);
                 }
-                catch (final Throwable t) {
-                    t.printStackTrace();
+            }
+        }
+
+        //
+        // All workers share a single thread-safe metadata system, built on the type loader from
+        // the settings, so each class file is parsed once per run rather than once per thread.
+        // Results are buffered per class and replayed in jar entry order, so console output,
+        // error reports, and the order of entries in an output zip file match a serial run.
+        // We bound the number of pending results so buffered output cannot pile up behind a
+        // slow class.
+        //
+
+        final JarDecompilationWorker worker = new JarDecompilationWorker(
+            decompilationOptions.getSettings().getTypeLoader(),
+            options,
+            decompilationOptions,
+            archive != null
+        );
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger _threadId = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@NotNull final Runnable r) {
+                final Thread thread = new Thread(r, "procyon-decompiler-" + _threadId.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        final ArrayDeque<Future<JarDecompilationResult>> pending = new ArrayDeque<>();
+        final int maxPending = threadCount * 4;
+
+        try {
+            for (final String internalName : internalNames) {
+                if (pending.size() >= maxPending) {
+                    writeResult(pending.removeFirst(), archive, manifest);
                 }
+
+                pending.addLast(
+                    executor.submit(
+                        new Callable<JarDecompilationResult>() {
+                            @Override
+                            public JarDecompilationResult call() {
+                                return worker.decompile(internalName);
+                            }
+                        }
+                    )
+                );
+            }
+
+            while (!pending.isEmpty()) {
+                writeResult(pending.removeFirst(), archive, manifest);
             }
         }
         finally {
-            settings.setShowSyntheticMembers(oldShowSyntheticMembers);
-            settings.setTypeLoader(oldTypeLoader);
+            executor.shutdownNow();
+        }
+    }
+
+    private static void writeResult(
+        final Future<JarDecompilationResult> future,
+        final SourceArchiveWriter archive,
+        final IncrementalManifest manifest) throws IOException {
+
+        final JarDecompilationResult result;
+
+        try {
+            result = future.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for decompilation results.");
+        }
+        catch (final ExecutionException e) {
+            throw ExceptionUtilities.asRuntimeException(e.getCause());
+        }
+
+        result.writeTo(System.out, System.err, archive);
+
+        if (manifest != null && result.failed) {
+            manifest.markFailed(result.internalName);
         }
     }
 
-    private static void decompileType(
+    /**
+     * Decompiles the named type.  Returns {@code false} if the type could not be loaded.
+     */
+    static boolean decompileType(
         final MetadataSystem metadataSystem,
         final String typeName,
         final CommandLineOptions commandLineOptions,
         final DecompilationOptions options,
-        final boolean includeNested) throws IOException {
+        final boolean includeNested,
+        final SourceEntryWriter archive,
+        final PrintStream out,
+        final PrintStream err) throws IOException {
 
         final TypeReference type;
         final DecompilerSettings settings = options.getSettings();
+        final IDecompilerMetrics metrics = options.getMetrics();
+        final long loadStartTime = System.nanoTime();
+        final long loadStartAllocated = metrics != null ? DecompilerMetrics.getCurrentThreadAllocatedBytes() : -1L;
 
         if (typeName.length() == 1) {
             //
@@ -317,18 +710,30 @@ public class DecompilerDriver {
         final TypeDefinition resolvedType;
 
         if (type == null || (resolvedType = type.resolve()) == null) {
-            System.err.printf("!!! ERROR: Failed to load class %s.%n", typeName);
-            return;
+            err.printf("!!! ERROR: Failed to load class %s.%n", typeName);
+            return false;
+        }
+
+        if (metrics != null) {
+            final long allocated = DecompilerMetrics.getCurrentThreadAllocatedBytes();
+
+            metrics.record(
+                resolvedType.getInternalName(),
+                null,
+                "LoadType",
+                System.nanoTime() - loadStartTime,
+                allocated < 0L ? -1L : allocated - loadStartAllocated
+            );
         }
 
         DeobfuscationUtilities.processType(resolvedType);
 
         if (!includeNested && (resolvedType.isNested() || resolvedType.isAnonymous() || resolvedType.isSynthetic())) {
-            return;
+            return true;
         }
 
-        final Writer writer = createWriter(resolvedType, settings);
-        final boolean writeToFile = writer instanceof FileOutputWriter;
+        final Writer writer = archive != null ? new StringWriter() : createWriter(resolvedType, settings, out);
+        final boolean writeToFile = archive != null || writer instanceof FileOutputWriter;
         final PlainTextOutput output;
 
         if (writeToFile) {
@@ -349,7 +754,7 @@ public class DecompilerDriver {
         }
 
         if (writeToFile) {
-            System.out.printf("Decompiling %s...%n", typeName);
+            out.printf("Decompiling %s...%n", typeName);
         }
 
         final TypeDecompilationResults results = settings.getLanguage().decompileType(resolvedType, output, options);
@@ -363,62 +768,91 @@ public class DecompilerDriver {
         // If we're writing to a file and we were asked to include line numbers in any way,
         // then reformat the file to include that line number information.
         final List<LineNumberPosition> lineNumberPositions = results.getLineNumberPositions();
+        final boolean reformatLines = commandLineOptions.getIncludeLineNumbers() || commandLineOptions.getStretchLines();
+        final Charset charset = settings.isUnicodeOutputEnabled() ? StandardCharsets.UTF_8
+                                                                  : Charset.defaultCharset();
 
-        if ((commandLineOptions.getIncludeLineNumbers() || commandLineOptions.getStretchLines()) && (writer instanceof FileOutputWriter)) {
-            final EnumSet<LineNumberOption> lineNumberOptions = EnumSet.noneOf(LineNumberOption.class);
-
-            if (commandLineOptions.getIncludeLineNumbers()) {
-                lineNumberOptions.add(LineNumberOption.LEADING_COMMENTS);
-            }
-
-            if (commandLineOptions.getStretchLines()) {
-                lineNumberOptions.add(LineNumberOption.STRETCHED);
+        if (archive != null) {
+            //
+            // Entries bound for a zip file are reformatted in memory, so each source is only
+            // written once.
+            //
+            String source = writer.toString();
+
+            if (reformatLines) {
+                source = new InMemoryLineNumberFormatter(
+                    source,
+                    lineNumberPositions,
+                    createLineNumberOptions(commandLineOptions)
+                ).reformatFile();
             }
 
+            archive.writeEntry(getOutputPath(resolvedType, settings, '/'), source.getBytes(charset));
+        }
+        else if (reformatLines && (writer instanceof FileOutputWriter)) {
             final File outputFile = ((FileOutputWriter) writer).getFile();
             final LineNumberFormatter lineFormatter = new LineNumberFormatter(
                 outputFile,
                 lineNumberPositions,
-                lineNumberOptions
+                createLineNumberOptions(commandLineOptions)
             );
 
             final String reformattedFile = lineFormatter.reformatFile();
-            final Charset charset = settings.isUnicodeOutputEnabled() ? StandardCharsets.UTF_8
-                                                                      : Charset.defaultCharset();
             Files.write(outputFile.toPath(), reformattedFile.getBytes(charset));
         }
+
+        return true;
     }
 
-    private static Writer createWriter(final TypeDefinition type, final DecompilerSettings settings) throws IOException {
-        final String outputDirectory = settings.getOutputDirectory();
+    private static EnumSet<LineNumberOption> createLineNumberOptions(final CommandLineOptions commandLineOptions) {
+        final EnumSet<LineNumberOption> lineNumberOptions = EnumSet.noneOf(LineNumberOption.class);
 
-        if (StringUtilities.isNullOrWhitespace(outputDirectory)) {
-            return new OutputStreamWriter(
-                System.out,
-                settings.isUnicodeOutputEnabled() ? StandardCharsets.UTF_8
-                                                  : Charset.defaultCharset()
-            );
+        if (commandLineOptions.getIncludeLineNumbers()) {
+            lineNumberOptions.add(LineNumberOption.LEADING_COMMENTS);
+        }
+
+        if (commandLineOptions.getStretchLines()) {
+            lineNumberOptions.add(LineNumberOption.STRETCHED);
         }
 
-        final String outputPath;
+        return lineNumberOptions;
+    }
+
+    private static String getOutputPath(final TypeDefinition type, final DecompilerSettings settings, final char separator) {
         final String fileName = type.getName() + settings.getLanguage().getFileExtension();
         final String packageName = type.getPackageName();
 
         if (StringUtilities.isNullOrWhitespace(packageName)) {
-            outputPath = PathHelper.combine(outputDirectory, fileName);
+            return fileName;
         }
-        else {
-            outputPath = PathHelper.combine(
-                outputDirectory,
-                packageName.replace('.', PathHelper.DirectorySeparator),
-                fileName
+
+        return packageName.replace('.', separator) + separator + fileName;
+    }
+
+    private static Writer createWriter(
+        final TypeDefinition type,
+        final DecompilerSettings settings,
+        final PrintStream out) throws IOException {
+
+        final String outputDirectory = settings.getOutputDirectory();
+
+        if (StringUtilities.isNullOrWhitespace(outputDirectory)) {
+            return new OutputStreamWriter(
+                out,
+                settings.isUnicodeOutputEnabled() ? StandardCharsets.UTF_8
+                                                  : Charset.defaultCharset()
             );
         }
 
+        final String outputPath = PathHelper.combine(
+            outputDirectory,
+            getOutputPath(type, settings, PathHelper.DirectorySeparator)
+        );
+
         final File outputFile = new File(outputPath);
         final File parentFile = outputFile.getParentFile();
 
-        if (parentFile != null && !parentFile.exists() && !parentFile.mkdirs()) {
+        if (parentFile != null && !createDirectories(parentFile)) {
             throw new IllegalStateException(
                 String.format(
                     "Could not create output directory for file \"%s\".",
@@ -438,6 +872,14 @@ public class DecompilerDriver {
 
         return new FileOutputWriter(outputFile, settings);
     }
+
+    private static boolean createDirectories(final File directory) {
+        //
+        // Parallel workers writing classes from the same package race to create its directory;
+        // mkdirs() fails for all but one of them, so only fail if the directory still isn't there.
+        //
+        return directory.mkdirs() || directory.isDirectory();
+    }
 }
 
 final class FileOutputWriter extends OutputStreamWriter {
@@ -462,6 +904,132 @@ final class FileOutputWriter extends OutputStreamWriter {
     }
 }
 
+interface SourceEntryWriter {
+    void writeEntry(final String path, final byte[] content) throws IOException;
+}
+
+/**
+ * Streams decompiled sources into a single zip file, in the order they are written.  Only the
+ * first entry written for any given path is kept.
+ */
+final class SourceArchiveWriter implements SourceEntryWriter, Closeable {
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipOutputStream _zip;
+    private final Set<String> _paths = new HashSet<>();
+
+    SourceArchiveWriter(final File file) throws IOException {
+        final File parentFile = file.getAbsoluteFile().getParentFile();
+
+        if (parentFile != null && !parentFile.mkdirs() && !parentFile.isDirectory()) {
+            throw new IOException(
+                String.format(
+                    "Could not create output directory for file \"%s\".",
+                    file.getPath()
+                )
+            );
+        }
+
+        _zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    @Override
+    public synchronized void writeEntry(final String path, final byte[] content) throws IOException {
+        if (!_paths.add(path)) {
+            return;
+        }
+
+        _zip.putNextEntry(new ZipEntry(path));
+        _zip.write(content);
+        _zip.closeEntry();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        _zip.close();
+    }
+}
+
+final class JarDecompilationWorker {
+    private final CommandLineOptions _options;
+    private final DecompilationOptions _decompilationOptions;
+    private final MetadataSystem _metadataSystem;
+    private final boolean _writeToArchive;
+
+    JarDecompilationWorker(
+        final ITypeLoader typeLoader,
+        final CommandLineOptions options,
+        final DecompilationOptions decompilationOptions,
+        final boolean writeToArchive) {
+
+        _options = options;
+        _decompilationOptions = decompilationOptions;
+        _metadataSystem = DecompilerDriver.createJarMetadataSystem(typeLoader, options, true);
+        _writeToArchive = writeToArchive;
+    }
+
+    JarDecompilationResult decompile(final String internalName) {
+        final JarDecompilationResult result = new JarDecompilationResult(internalName);
+
+        try (final SafeCloseable ignored = _metadataSystem.openTypeCacheScope()) {
+            result.failed = !DecompilerDriver.decompileType(
+                _metadataSystem,
+                internalName,
+                _options,
+                _decompilationOptions,
+                false,
+                _writeToArchive ? result : null,
+                result.out,
+                result.err
+            );
+        }
+        catch (final Throwable t) {
+            t.printStackTrace(result.err);
+            result.failed = true;
+        }
+
+        result.out.flush();
+        result.err.flush();
+
+        return result;
+    }
+
+}
+
+final class JarDecompilationResult implements SourceEntryWriter {
+    private final ByteArrayOutputStream _outBuffer = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream _errBuffer = new ByteArrayOutputStream();
+    private final List<String> _entryPaths = new ArrayList<>();
+    private final List<byte[]> _entryContents = new ArrayList<>();
+
+    final String internalName;
+    final PrintStream out = new PrintStream(_outBuffer, true);
+    final PrintStream err = new PrintStream(_errBuffer, true);
+
+    boolean failed;
+
+    JarDecompilationResult(final String internalName) {
+        this.internalName = internalName;
+    }
+
+    @Override
+    public void writeEntry(final String path, final byte[] content) {
+        _entryPaths.add(path);
+        _entryContents.add(content);
+    }
+
+    void writeTo(final PrintStream out, final PrintStream err, final SourceEntryWriter archive) throws IOException {
+        _outBuffer.writeTo(out);
+        _errBuffer.writeTo(err);
+        out.flush();
+        err.flush();
+
+        for (int i = 0; i < _entryPaths.size(); i++) {
+            archive.writeEntry(_entryPaths.get(i), _entryContents.get(i));
+        }
+    }
+}
+
 final class BriefLogFormatter extends Formatter {
     private static final DateFormat format = new SimpleDateFormat("h:mm:ss");
     private static final String lineSep = System.getProperty("line.separator");
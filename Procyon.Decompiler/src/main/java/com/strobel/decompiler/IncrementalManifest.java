@@ -0,0 +1,325 @@
+/*
+ * IncrementalManifest.java
+ *
+ * Copyright (c) 2013-2022 Mike Strobel and other contributors
+ *
+ * This source code is based on Mono.Cecil from Jb Evain, Copyright (c) Jb Evain;
+ * and ILSpy/ICSharpCode from SharpDevelop, Copyright (c) AlphaSierraPapa.
+ *
+ * This source code is subject to terms and conditions of the Apache License, Version 2.0.
+ * A copy of the license can be found in the License.html file at the root of this distribution.
+ * By using this source code in any fashion, you are agreeing to be bound by the terms of the
+ * Apache License, Version 2.0.
+ *
+ * You must not remove this notice, or any other, from this software.
+ */
+
+package com.strobel.decompiler;
+
+import com.strobel.Procyon;
+import com.strobel.core.ExceptionUtilities;
+import com.strobel.core.StringUtilities;
+import com.strobel.decompiler.languages.BytecodeOutputOptions;
+import com.strobel.decompiler.languages.Language;
+import com.strobel.decompiler.languages.java.JavaFormattingOptions;
+import com.strobel.io.PathHelper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Tracks which top-level types of a jar file have already been decompiled into an output directory,
+ * so later runs against a new build of the same jar only decompile the types which changed.  Each
+ * top-level type is recorded with a hash of its class file and the class files of its nested types,
+ * along with a fingerprint of the decompiler settings; changing any of them invalidates the entry.
+ * The manifest is kept in the output directory, next to the decompiled sources.
+ */
+final class IncrementalManifest {
+    private final static String HEADER = "# Procyon incremental output manifest v1";
+    private final static String FINGERPRINT_PREFIX = "fingerprint ";
+    private final static String FAILED_HASH = "-";
+
+    //
+    // Settings which decide where classes come from, where the results go, and how many threads
+    // produce them, but not what the results look like.  Every other setting, including any added
+    // later, is part of the fingerprint.
+    //
+    private final static Set<String> EXCLUDED_SETTINGS = new HashSet<>(
+        Arrays.asList("_typeLoader", "_outputDirectory", "_methodThreadCount")
+    );
+
+    private final File _manifestFile;
+    private final File _outputDirectory;
+    private final String _fileExtension;
+    private final String _fingerprint;
+    private final Map<String, String> _previousHashes = new HashMap<>();
+    private final Map<String, String> _currentHashes = new TreeMap<>();
+    private final Set<String> _failedTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private boolean _isSameFingerprint;
+
+    IncrementalManifest(
+        final File jarFile,
+        final DecompilerSettings settings,
+        final CommandLineOptions options) {
+
+        _outputDirectory = new File(settings.getOutputDirectory());
+        _manifestFile = new File(_outputDirectory, jarFile.getName() + ".procyon-manifest");
+        _fileExtension = settings.getLanguage().getFileExtension();
+        _fingerprint = computeFingerprint(settings, options);
+    }
+
+    /**
+     * Reads the manifest left by a previous run, if any, and hashes the class files in the jar.
+     * Entries from a previous run with different settings are kept only so that output for deleted
+     * types can still be removed.
+     */
+    void load(final JarFile jar) throws IOException {
+        _isSameFingerprint = readManifest();
+
+        final Map<String, List<JarEntry>> entriesByType = new TreeMap<>();
+        final Enumeration<JarEntry> entries = jar.entries();
+
+        while (entries.hasMoreElements()) {
+            final JarEntry entry = entries.nextElement();
+            final String name = entry.getName();
+
+            if (!name.endsWith(".class")) {
+                continue;
+            }
+
+            final String topLevelName = getTopLevelName(StringUtilities.removeRight(name, ".class"));
+
+            List<JarEntry> typeEntries = entriesByType.get(topLevelName);
+
+            if (typeEntries == null) {
+                entriesByType.put(topLevelName, typeEntries = new ArrayList<>());
+            }
+
+            typeEntries.add(entry);
+        }
+
+        final byte[] buffer = new byte[8192];
+
+        for (final Map.Entry<String, List<JarEntry>> typeEntries : entriesByType.entrySet()) {
+            _currentHashes.put(typeEntries.getKey(), hashEntries(jar, typeEntries.getValue(), buffer));
+        }
+    }
+
+    /**
+     * Returns whether the type with the specified internal name, along with its top-level type and
+     * all nested types, is unchanged since the previous run and still has its output on disk.
+     */
+    boolean isUpToDate(final String internalName) {
+        final String topLevelName = getTopLevelName(internalName);
+        final String hash = _currentHashes.get(topLevelName);
+
+        return _isSameFingerprint &&
+               hash != null &&
+               hash.equals(_previousHashes.get(topLevelName)) &&
+               getOutputFile(topLevelName).isFile();
+    }
+
+    /**
+     * Records that the type with the specified internal name could not be decompiled, so that its
+     * top-level type is decompiled again on the next run.
+     */
+    void markFailed(final String internalName) {
+        _failedTypes.add(getTopLevelName(internalName));
+    }
+
+    /**
+     * Removes the output of types which no longer exist in the jar, and writes the updated manifest.
+     */
+    void save() throws IOException {
+        for (final String topLevelName : _previousHashes.keySet()) {
+            if (!_currentHashes.containsKey(topLevelName)) {
+                final File outputFile = getOutputFile(topLevelName);
+
+                if (outputFile.exists() && !outputFile.delete()) {
+                    throw new IOException("Could not delete output file \"" + outputFile.getPath() + "\".");
+                }
+            }
+        }
+
+        if (!_outputDirectory.mkdirs() && !_outputDirectory.isDirectory()) {
+            throw new IOException("Could not create output directory \"" + _outputDirectory.getPath() + "\".");
+        }
+
+        try (final PrintWriter writer = new PrintWriter(Files.newBufferedWriter(_manifestFile.toPath(), StandardCharsets.UTF_8))) {
+            writer.println(HEADER);
+            writer.println(FINGERPRINT_PREFIX + _fingerprint);
+
+            for (final Map.Entry<String, String> entry : _currentHashes.entrySet()) {
+                final String hash = _failedTypes.contains(entry.getKey()) ? FAILED_HASH : entry.getValue();
+                writer.println(hash + ' ' + entry.getKey());
+            }
+
+            if (writer.checkError()) {
+                throw new IOException("Could not write manifest file \"" + _manifestFile.getPath() + "\".");
+            }
+        }
+    }
+
+    private boolean readManifest() throws IOException {
+        if (!_manifestFile.isFile()) {
+            return false;
+        }
+
+        try (final BufferedReader reader = Files.newBufferedReader(_manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return false;
+            }
+
+            final String fingerprintLine = reader.readLine();
+
+            if (fingerprintLine == null || !fingerprintLine.startsWith(FINGERPRINT_PREFIX)) {
+                return false;
+            }
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                final int delimiter = line.indexOf(' ');
+
+                if (delimiter > 0) {
+                    _previousHashes.put(line.substring(delimiter + 1), line.substring(0, delimiter));
+                }
+            }
+
+            return _fingerprint.equals(fingerprintLine.substring(FINGERPRINT_PREFIX.length()));
+        }
+    }
+
+    private File getOutputFile(final String topLevelName) {
+        return new File(
+            PathHelper.combine(
+                _outputDirectory.getPath(),
+                topLevelName.replace('/', PathHelper.DirectorySeparator) + _fileExtension
+            )
+        );
+    }
+
+    //
+    // Nested types are grouped by name rather than by their InnerClasses attributes, which would
+    // mean parsing every class file.  A top-level type with a '$' in its name is at worst grouped
+    // with another top-level type, and is then decompiled whenever either of them changes.
+    //
+    private static String getTopLevelName(final String internalName) {
+        final int packageEnd = internalName.lastIndexOf('/');
+        final int nestedStart = internalName.indexOf('$', packageEnd + 1);
+
+        return nestedStart > packageEnd + 1 ? internalName.substring(0, nestedStart) : internalName;
+    }
+
+    private static String hashEntries(final JarFile jar, final List<JarEntry> entries, final byte[] buffer) throws IOException {
+        final MessageDigest digest = createDigest();
+
+        for (final JarEntry entry : entries) {
+            digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+
+            try (final InputStream input = jar.getInputStream(entry)) {
+                int bytesRead;
+
+                while ((bytesRead = input.read(buffer)) > 0) {
+                    digest.update(buffer, 0, bytesRead);
+                }
+            }
+        }
+
+        return toHexString(digest.digest());
+    }
+
+    private static String computeFingerprint(final DecompilerSettings settings, final CommandLineOptions options) {
+        final StringBuilder sb = new StringBuilder();
+
+        sb.append(Procyon.version())
+          .append("|lineNumbers=").append(options.getIncludeLineNumbers())
+          .append("|stretchLines=").append(options.getStretchLines());
+
+        appendFields(sb, DecompilerSettings.class, settings);
+
+        return toHexString(createDigest().digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void appendFields(final StringBuilder sb, final Class<?> type, final Object instance) {
+        for (final Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+
+            final String name = field.getName();
+
+            if (type == DecompilerSettings.class && EXCLUDED_SETTINGS.contains(name)) {
+                continue;
+            }
+
+            final Object value;
+
+            try {
+                field.setAccessible(true);
+                value = field.get(instance);
+            }
+            catch (final IllegalAccessException e) {
+                throw ExceptionUtilities.asRuntimeException(e);
+            }
+
+            sb.append('|').append(name).append('=');
+
+            if (value instanceof Language) {
+                sb.append(((Language) value).getName());
+            }
+            else if (value instanceof JavaFormattingOptions || value instanceof BytecodeOutputOptions) {
+                sb.append('{');
+                appendFields(sb, value.getClass(), value);
+                sb.append('}');
+            }
+            else {
+                sb.append(value);
+            }
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (final NoSuchAlgorithmException e) {
+            throw ExceptionUtilities.asRuntimeException(e);
+        }
+    }
+
+    private static String toHexString(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+
+        for (final byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+              .append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return sb.toString();
+    }
+}
@@ -22,15 +22,22 @@ import com.strobel.assembler.metadata.TypeDefinition;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class NoRetryMetadataSystem extends MetadataSystem {
-    private final Set<String> _failedTypes = new HashSet<>();
+    private final Set<String> _failedTypes;
 
     NoRetryMetadataSystem() {
+        _failedTypes = new HashSet<>();
     }
 
     NoRetryMetadataSystem(final ITypeLoader typeLoader) {
-        super(typeLoader);
+        this(typeLoader, false);
+    }
+
+    NoRetryMetadataSystem(final ITypeLoader typeLoader, final boolean isThreadSafe) {
+        super(typeLoader, isThreadSafe);
+        _failedTypes = isThreadSafe ? ConcurrentHashMap.<String>newKeySet() : new HashSet<String>();
     }
 
     @Override
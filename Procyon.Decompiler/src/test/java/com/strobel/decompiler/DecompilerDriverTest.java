@@ -2,11 +2,19 @@ package com.strobel.decompiler;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -53,6 +61,64 @@ public class DecompilerDriverTest {
 		assertEqualsIgnoreEOL(getResourceAsString("/txt/all-java-syntaxes/all-java-syntaxes.txt"), getFileAsString(outputDir, "demo/AllJavaSyntaxes.java"));
 	}
 	
+	@Test
+	public void testDecompileAllJavaSyntaxesInParallel() throws Exception {
+		File outputDir = new File("build/all-java-syntaxes-parallel");
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "--threads", "4", "-o", outputDir.getAbsolutePath());
+		assertEqualsIgnoreEOL(getResourceAsString("/txt/all-java-syntaxes/all-java-syntaxes.txt"), getFileAsString(outputDir, "demo/AllJavaSyntaxes.java"));
+	}
+	
+	@Test
+	public void testDecompileAllJavaSyntaxesToZip() throws Exception {
+		File outputDir = new File("build/all-java-syntaxes-lines");
+		File outputZip = new File("build/all-java-syntaxes-sources.jar");
+		File parallelOutputZip = new File("build/all-java-syntaxes-parallel-sources.jar");
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "-ln", "-o", outputDir.getAbsolutePath());
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "-ln", "-oz", outputZip.getAbsolutePath());
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "-ln", "--threads", "4", "-oz", parallelOutputZip.getAbsolutePath());
+		try (ZipFile zip = new ZipFile(outputZip); ZipFile parallelZip = new ZipFile(parallelOutputZip)) {
+			ZipEntry entry = zip.getEntry("demo/AllJavaSyntaxes.java");
+			assertNotNull(entry);
+			assertEquals(
+				withoutHelperIds(getFileAsString(outputDir, "demo/AllJavaSyntaxes.java")),
+				withoutHelperIds(IOUtils.toString(zip.getInputStream(entry), UTF_8)));
+			assertEquals(getEntryNames(zip), getEntryNames(parallelZip));
+		}
+	}
+
+	private static String withoutHelperIds(String source) {
+		// invokedynamic helper classes are numbered globally, so they differ between runs in one JVM
+		return source.replaceAll("ProcyonInvokeDynamicHelper_\\d+", "ProcyonInvokeDynamicHelper");
+	}
+
+	private static List<String> getEntryNames(ZipFile zip) {
+		List<String> names = new ArrayList<>();
+		for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+			names.add(entries.nextElement().getName());
+		}
+		return names;
+	}
+
+	@Test
+	public void testDecompileAllJavaSyntaxesIncrementally() throws Exception {
+		File outputDir = new File("build/all-java-syntaxes-incremental");
+		File outputFile = new File(outputDir, "demo/AllJavaSyntaxes.java");
+		File manifestFile = new File(outputDir, "all-java-syntaxes.jar.procyon-manifest");
+		File removedFile = new File(outputDir, "demo/Removed.java");
+		FileUtils.deleteDirectory(outputDir);
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "--incremental", "-o", outputDir.getAbsolutePath());
+		FileUtils.writeStringToFile(outputFile, "unchanged", UTF_8);
+		FileUtils.writeStringToFile(removedFile, "removed", UTF_8);
+		FileUtils.writeStringToFile(manifestFile, getFileAsString(outputDir, manifestFile.getName()) + "0 demo/Removed\n", UTF_8);
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "--incremental", "-o", outputDir.getAbsolutePath());
+		assertEquals("unchanged", getFileAsString(outputDir, "demo/AllJavaSyntaxes.java"));
+		assertFalse(removedFile.exists());
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "--incremental", "--method-threads", "3", "-o", outputDir.getAbsolutePath());
+		assertEquals("unchanged", getFileAsString(outputDir, "demo/AllJavaSyntaxes.java"));
+		DecompilerDriver.main("src/test/resources/jar/all-java-syntaxes.jar", "--suppress-banner", "--incremental", "-ln", "-o", outputDir.getAbsolutePath());
+		assertNotEquals("unchanged", getFileAsString(outputDir, "demo/AllJavaSyntaxes.java"));
+	}
+
 	@Test
 	public void testDecompileAllJavaSyntaxesByteCode() throws Exception {
 		PrintStream systemOut = System.out;